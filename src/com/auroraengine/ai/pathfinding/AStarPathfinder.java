@@ -18,6 +18,7 @@ package com.auroraengine.ai.pathfinding;
 
 import com.auroraengine.debug.AuroraLogs;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -29,6 +30,11 @@ import java.util.logging.Logger;
 /**
  * Utilises the A* algorithm for finding the path between two nodes.
  *
+ * If the start node is an <code>IDoublePathNode</code>, as every node of its
+ * graph must then be, costs are summed as doubles and nodes are numbered in a
+ * <code>NodeTable</code> kept by the calling thread, so the search creates no
+ * objects beyond any made by the nodes themselves.
+ *
  * @author LittleRover
  * @param <T> The taker of the path. E.g. Creature
  * @param <K> The cost being evaluated. E.g. Distance or Overall Creature Cost
@@ -39,10 +45,15 @@ public class AStarPathfinder<T, K extends IPathCost> implements
 				IPathFinder<T, K> {
 	private static final Logger LOG = AuroraLogs.getLogger(AStarPathfinder.class
 					.getName());
+	private static final ThreadLocal<DoubleSearch> LOCAL = ThreadLocal
+					.withInitial(DoubleSearch::new);
 
 	@Override
 	public List<IPathNode<T, K>> getPath(T taker, IPathNode<T, K> start,
 																			 IPathNode<T, K> end) {
+		if (start instanceof IDoublePathNode) {
+			return getDoublePath(taker, start, end);
+		}
 		// The Frontier - the possible paths which branch from considered paths,
 		// ordered by "path length".
 		PriorityQueue<MoveCost> frontier = new PriorityQueue<>();
@@ -89,6 +100,59 @@ public class AStarPathfinder<T, K extends IPathCost> implements
 		return path;
 	}
 
+	/**
+	 * Finds the path as <code>getPath</code> does, with every cost a double,
+	 * returning null if there is none.
+	 */
+	@SuppressWarnings("unchecked")
+	private List<IPathNode<T, K>> getDoublePath(T taker, IPathNode<T, K> start,
+																							IPathNode<T, K> end) {
+		DoubleSearch search = LOCAL.get();
+		NodeTable table = search.table;
+		IndexedHeap frontier = search.frontier;
+		table.clear();
+		frontier.clear();
+		int first = table.add(start);
+		search.costs[first] = 0.0;
+		search.parents[first] = -1;
+		frontier.push(first, 0.0);
+		int last = -1;
+		while (!frontier.isEmpty()) {
+			int id = frontier.poll();
+			IDoublePathNode<T, K> current = (IDoublePathNode<T, K>) table.get(id);
+			if (current == end) {
+				last = id;
+				break;
+			}
+			double cost = search.costs[id];
+			List<IPathNode<T, K>> neighbours = current.getNeighbours();
+			for (int i = 0; i < neighbours.size(); i++) {
+				IPathNode<T, K> next = neighbours.get(i);
+				double next_cost = cost + current.getMoveCostD(taker, next);
+				int n = table.indexOf(next);
+				if (n < 0) {
+					n = table.add(next);
+					search.ensureCapacity(table.size());
+				} else if (next_cost >= search.costs[n]) {
+					continue;
+				}
+				search.costs[n] = next_cost;
+				search.parents[n] = id;
+				frontier.push(n, next_cost + ((IDoublePathNode<T, K>) next)
+											.getMoveCostD(taker, end));
+			}
+		}
+		if (last < 0) {
+			return null;
+		}
+		ArrayList<IPathNode<T, K>> path = new ArrayList<>();
+		for (int id = last; id >= 0; id = search.parents[id]) {
+			path.add((IPathNode<T, K>) table.get(id));
+		}
+		Collections.reverse(path);
+		return path;
+	}
+
 	private class MoveCost implements Comparable<MoveCost> {
 		MoveCost(IPathNode<T, K> node, K cost) {
 			this.node = node;
@@ -98,9 +162,29 @@ public class AStarPathfinder<T, K extends IPathCost> implements
 		final IPathNode<T, K> node;
 
 		@Override
-		@SuppressWarnings("unchecked")
 		public int compareTo(MoveCost o) {
-			return cost.minus(o.cost).signum();
+			// Compares in place, as subtracting makes a cost for every comparison.
+			return cost.isLessThan(o.cost) ? -1 : cost.isGreaterThan(o.cost) ? 1 : 0;
+		}
+	}
+
+	/**
+	 * The numbering, costs and frontier of a search with double costs, kept
+	 * by each thread from one search to the next.
+	 */
+	private static final class DoubleSearch {
+		double[] costs = new double[64];
+		final IndexedHeap frontier = new IndexedHeap(64);
+		int[] parents = new int[64];
+		final NodeTable table = new NodeTable();
+
+		void ensureCapacity(int count) {
+			if (count > costs.length) {
+				int capacity = Math.max(count, costs.length * 2);
+				costs = Arrays.copyOf(costs, capacity);
+				parents = Arrays.copyOf(parents, capacity);
+				frontier.ensureCapacity(capacity);
+			}
 		}
 	}
 }
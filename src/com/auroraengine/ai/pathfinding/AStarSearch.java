@@ -0,0 +1,280 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.ai.pathfinding;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * Utilises the A* algorithm to find the cheapest path between two nodes of an
+ * <code>IPathGraph</code> without creating any objects.
+ *
+ * The cost and parent of each node are kept in arrays the size of the graph
+ * which are reused from one search to the next. Rather than clearing them,
+ * every search takes a new generation number and a node's entries only count
+ * if it was stamped with the current generation, so the cost of a search
+ * depends on the nodes it visits and not on the size of the graph. A search
+ * is not thread safe, so each thread should use its own, such as the one
+ * returned by <code>get()</code>.
+ *
+ * A search may also be run without an end, in which case it finds the
+ * cheapest path from the start to every node it can reach.
+ *
+ * @author LittleRover
+ */
+public final class AStarSearch {
+	private static final Logger LOG = AuroraLogs.getLogger(AStarSearch.class
+					.getName());
+	private static final ThreadLocal<AStarSearch> LOCAL = ThreadLocal
+					.withInitial(AStarSearch::new);
+
+	/**
+	 * Returns the search owned by the calling thread.
+	 *
+	 * @return The search
+	 */
+	public static AStarSearch get() {
+		return LOCAL.get();
+	}
+
+	/**
+	 * Creates a new search. Its scratch arrays grow to fit the largest graph it
+	 * is used on.
+	 */
+	public AStarSearch() {
+	}
+	private double[] costs = new double[0];
+	private int end = -1;
+	private int expanded;
+	private final IndexedHeap frontier = new IndexedHeap(0);
+	private int generation;
+	private double[] neighbour_costs = new double[0];
+	private int[] neighbours = new int[0];
+	private int[] parents = new int[0];
+	private int[] stamps = new int[0];
+
+	/**
+	 * Finds the cheapest path between the provided nodes, writing the nodes of
+	 * the path from start to end into the provided array. Returns the number of
+	 * nodes in the path, or -1 if there is no path.
+	 *
+	 * @param graph The graph
+	 * @param start The start node
+	 * @param end   The end node
+	 * @param path  The array to write the path to
+	 *
+	 * @return The path length, or -1
+	 */
+	public int findPath(IPathGraph graph, int start, int end, int[] path) {
+		return search(graph, start, end) ? getPath(path) : -1;
+	}
+
+	/**
+	 * Returns the cost of the path found by the last search, or positive
+	 * infinity if none was found.
+	 *
+	 * @return The path cost
+	 */
+	public double getCost() {
+		return end < 0 ? Double.POSITIVE_INFINITY : costs[end];
+	}
+
+	/**
+	 * Returns the cost of the cheapest path to the provided node found by the
+	 * last search without an end, or positive infinity if it was not reached.
+	 *
+	 * @param node The node
+	 *
+	 * @return The path cost
+	 */
+	public double getCost(int node) {
+		return node >= 0 && node < stamps.length && stamps[node] == generation ?
+					 costs[node] : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Returns the number of nodes expanded by the last search.
+	 *
+	 * @return The expanded count
+	 */
+	public int getExpandedCount() {
+		return expanded;
+	}
+
+	/**
+	 * Writes the nodes of the path found by the last search from start to end
+	 * into the provided array, returning the number written.
+	 *
+	 * @param path The array to write the path to
+	 *
+	 * @return The path length
+	 */
+	public int getPath(int[] path) {
+		return end < 0 ? 0 : getPath(end, path);
+	}
+
+	/**
+	 * Writes the nodes of the cheapest path to the provided node found by the
+	 * last search without an end into the provided array, returning the number
+	 * written, or zero if the node was not reached.
+	 *
+	 * @param node The node
+	 * @param path The array to write the path to
+	 *
+	 * @return The path length
+	 */
+	public int getPath(int node, int[] path) {
+		int length = getPathLength(node);
+		if (length > path.length) {
+			throw new IllegalArgumentException("Path array too small! Found " +
+																				 path.length + " for " + length +
+																				 " nodes.");
+		}
+		for (int i = length - 1, n = node; i >= 0; i--, n = parents[n]) {
+			path[i] = n;
+		}
+		return length;
+	}
+
+	/**
+	 * Returns the number of nodes in the path found by the last search, or zero
+	 * if none was found.
+	 *
+	 * @return The path length
+	 */
+	public int getPathLength() {
+		return end < 0 ? 0 : getPathLength(end);
+	}
+
+	/**
+	 * Returns the number of nodes in the cheapest path to the provided node
+	 * found by the last search without an end, or zero if it was not reached.
+	 *
+	 * @param node The node
+	 *
+	 * @return The path length
+	 */
+	public int getPathLength(int node) {
+		if (getCost(node) == Double.POSITIVE_INFINITY) {
+			return 0;
+		}
+		int length = 0;
+		for (int n = node; n >= 0; n = parents[n]) {
+			length++;
+		}
+		return length;
+	}
+
+	/**
+	 * Searches for the cheapest path between the provided nodes, returning true
+	 * if one was found. The path may then be read with <code>getPath</code>.
+	 *
+	 * @param graph The graph
+	 * @param start The start node
+	 * @param end   The end node
+	 *
+	 * @return If a path was found
+	 */
+	public boolean search(IPathGraph graph, int start, int end) {
+		int count = graph.getNodeCount();
+		if (end < 0 || end >= count) {
+			throw new IllegalArgumentException("Node out of range! Found " + end +
+																				 " of " + count + ".");
+		}
+		return run(graph, start, end);
+	}
+
+	/**
+	 * Searches for the cheapest path from the provided node to every node that
+	 * can be reached from it, ignoring the estimates of the graph. The paths
+	 * may then be read with <code>getPath(int, int[])</code>.
+	 *
+	 * @param graph The graph
+	 * @param start The start node
+	 */
+	public void searchAll(IPathGraph graph, int start) {
+		run(graph, start, -1);
+	}
+
+	/**
+	 * Runs a search to the provided end, or to every node if it is -1.
+	 */
+	private boolean run(IPathGraph graph, int start, int end) {
+		int count = graph.getNodeCount();
+		if (start < 0 || start >= count) {
+			throw new IllegalArgumentException("Node out of range! Found " + start +
+																				 " of " + count + ".");
+		}
+		prepare(count, graph.getMaxDegree());
+		this.end = -1;
+		expanded = 0;
+		frontier.clear();
+		visit(start, 0.0, -1);
+		frontier.push(start, end < 0 ? 0.0 : graph.getEstimate(start, end));
+		while (!frontier.isEmpty()) {
+			int node = frontier.poll();
+			if (node == end) {
+				this.end = end;
+				return true;
+			}
+			expanded++;
+			double cost = costs[node];
+			int n = graph.getNeighbours(node, neighbours, neighbour_costs);
+			for (int i = 0; i < n; i++) {
+				int next = neighbours[i];
+				double next_cost = cost + neighbour_costs[i];
+				if (stamps[next] != generation || next_cost < costs[next]) {
+					visit(next, next_cost, node);
+					frontier.push(next, end < 0 ? next_cost : next_cost + graph
+												.getEstimate(next, end));
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Starts a new generation, growing the scratch arrays if needed.
+	 *
+	 * @param count  The node count
+	 * @param degree The maximum degree
+	 */
+	private void prepare(int count, int degree) {
+		if (count > stamps.length) {
+			costs = new double[count];
+			parents = new int[count];
+			stamps = new int[count];
+			generation = 0;
+			frontier.ensureCapacity(count);
+		}
+		if (degree > neighbours.length) {
+			neighbours = new int[degree];
+			neighbour_costs = new double[degree];
+		}
+		if (++generation == 0) {
+			Arrays.fill(stamps, 0);
+			generation = 1;
+		}
+	}
+
+	private void visit(int node, double cost, int parent) {
+		stamps[node] = generation;
+		costs[node] = cost;
+		parents[node] = parent;
+	}
+}
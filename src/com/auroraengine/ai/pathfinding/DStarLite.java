@@ -0,0 +1,592 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.ai.pathfinding;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * Utilises the D* Lite algorithm to keep the cheapest path from a moving
+ * start to a fixed goal of a <code>WalkableGrid</code> up to date as its
+ * cells change, without searching again from scratch.
+ *
+ * The search runs backwards from the goal, so what it has found is the cost
+ * from each cell it has visited to the goal. Added as a listener of the grid,
+ * it is told of each cell that changes and marks only the cells beside it as
+ * needing repair, and the next call to <code>search</code> spreads the repair
+ * only as far as it affects the path from the start. Asking for a new goal
+ * discards everything found and starts again. As with
+ * <code>AStarSearch</code>, a start in an unwalkable cell may still move out
+ * of it into the walkable cells beside it.
+ *
+ * As with <code>AStarSearch</code>, costs are kept in arrays the size of the
+ * grid and reset by a generation number rather than cleared. A search is not
+ * thread safe.
+ *
+ * @author LittleRover
+ */
+public final class DStarLite implements IWalkableListener {
+	private static final Logger LOG = AuroraLogs.getLogger(DStarLite.class
+					.getName());
+	/**
+	 * The difference below which two keys are taken to be equal, as the same
+	 * cost summed in a different order may differ in the last place, and the
+	 * order of equal keys matters.
+	 */
+	private static final double EPSILON = 1E-9;
+
+	/**
+	 * Creates a new search over the provided grid, which must still be added
+	 * to the grid as a listener.
+	 *
+	 * @param grid The grid
+	 */
+	public DStarLite(WalkableGrid grid) {
+		if (grid == null) {
+			throw new NullPointerException("Grid is Null!");
+		}
+		this.grid = grid;
+		int count = grid.getNodeCount();
+		this.costs = new double[count];
+		this.estimates = new double[count];
+		this.stamps = new int[count];
+		this.queue = new Queue(count);
+		this.neighbours = new int[grid.getMaxDegree()];
+		this.neighbour_costs = new double[grid.getMaxDegree()];
+		this.others = new int[grid.getMaxDegree()];
+		this.other_costs = new double[grid.getMaxDegree()];
+		this.seeds = new int[grid.getMaxDegree()];
+		this.seed_costs = new double[grid.getMaxDegree()];
+	}
+	// The cost to the goal of each cell as last expanded, called g.
+	private final double[] costs;
+	// The cost to the goal of each cell through its neighbours, called rhs.
+	private final double[] estimates;
+	private int expanded;
+	private int generation;
+	private int goal = -1;
+	private final WalkableGrid grid;
+	private double key_offset;
+	private int last = -1;
+	private final double[] neighbour_costs;
+	private final int[] neighbours;
+	private final double[] other_costs;
+	private final int[] others;
+	private final Queue queue;
+	// The moves out of an unwalkable start, which nothing may move into.
+	private final double[] seed_costs;
+	private int seed_count;
+	private final int[] seeds;
+	private final int[] stamps;
+	private int start = -1;
+
+	@Override
+	public void changed(int cell, boolean walkable) {
+		if (goal < 0) {
+			return;
+		}
+		// The moves out of the cell and out of every cell beside it may have
+		// changed, including diagonal moves past its corners.
+		repair(cell);
+		if (grid.getDimension() == 2) {
+			int w = grid.getWidth(), h = grid.getHeight();
+			int x = cell % w, y = cell / w;
+			for (int dy = -1; dy <= 1; dy++) {
+				for (int dx = -1; dx <= 1; dx++) {
+					if ((dx != 0 || dy != 0) && x + dx >= 0 && x + dx < w && y + dy >= 0 &&
+							y + dy < h) {
+						repair(cell + dy * w + dx);
+					}
+				}
+			}
+		} else {
+			int w = grid.getWidth(), plane = w * grid.getHeight();
+			int x = cell % w, y = cell / w % grid.getHeight(), z = cell / plane;
+			if (x > 0) {
+				repair(cell - 1);
+			}
+			if (x + 1 < w) {
+				repair(cell + 1);
+			}
+			if (y > 0) {
+				repair(cell - w);
+			}
+			if (y + 1 < grid.getHeight()) {
+				repair(cell + w);
+			}
+			if (z > 0) {
+				repair(cell - plane);
+			}
+			if (z + 1 < grid.getDepth()) {
+				repair(cell + plane);
+			}
+		}
+	}
+
+	@Override
+	public void filled(boolean walkable) {
+		goal = -1;
+	}
+
+	/**
+	 * Returns the cost of the path found by the last search, or positive
+	 * infinity if none was found.
+	 *
+	 * @return The path cost
+	 */
+	public double getCost() {
+		return start < 0 ? Double.POSITIVE_INFINITY : getCost(start);
+	}
+
+	/**
+	 * Returns the number of cells expanded by the last search.
+	 *
+	 * @return The expanded count
+	 */
+	public int getExpandedCount() {
+		return expanded;
+	}
+
+	/**
+	 * Returns the goal of the last search, or -1 if there is none.
+	 *
+	 * @return The goal
+	 */
+	public int getGoal() {
+		return goal;
+	}
+
+	/**
+	 * Returns the cell to step to from the provided cell along the cheapest
+	 * path to the goal found so far, or -1 if there is none. This is only
+	 * certain to be right along the path from the start of the last search.
+	 *
+	 * @param cell The cell
+	 *
+	 * @return The next cell
+	 */
+	public int getNext(int cell) {
+		if (goal < 0 || cell == goal) {
+			return -1;
+		}
+		int n = grid.getNeighbours(cell, neighbours, neighbour_costs);
+		int best = -1;
+		double best_cost = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < n; i++) {
+			double cost = neighbour_costs[i] + getCost(neighbours[i]);
+			if (cost < best_cost) {
+				best = neighbours[i];
+				best_cost = cost;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Writes the cells of the path found by the last search from start to goal
+	 * into the provided array, returning the number written.
+	 *
+	 * @param path The array to write the path to
+	 *
+	 * @return The path length
+	 */
+	public int getPath(int[] path) {
+		int length = getPathLength();
+		if (length > path.length) {
+			throw new IllegalArgumentException("Path array too small! Found " +
+																				 path.length + " for " + length +
+																				 " cells.");
+		}
+		for (int i = 0, c = start; i < length; i++, c = getNext(c)) {
+			path[i] = c;
+		}
+		return length;
+	}
+
+	/**
+	 * Returns the number of cells in the path found by the last search, or
+	 * zero if none was found.
+	 *
+	 * @return The path length
+	 */
+	public int getPathLength() {
+		if (getCost() == Double.POSITIVE_INFINITY) {
+			return 0;
+		}
+		int length = 1;
+		for (int c = start; c != goal; length++) {
+			c = getNext(c);
+			if (c < 0 || length > grid.getNodeCount()) {
+				return 0;
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * Finds the cheapest path between the provided cells, returning true if
+	 * there is one. If the goal is the same as that of the last search, only
+	 * what has changed since is searched again.
+	 *
+	 * @param start The start cell
+	 * @param goal  The goal cell
+	 *
+	 * @return If a path was found
+	 */
+	public boolean search(int start, int goal) {
+		if (start < 0 || start >= grid.getNodeCount() || goal < 0 || goal >= grid
+						.getNodeCount()) {
+			throw new IllegalArgumentException("Cell out of range! Found " + start +
+																				 " and " + goal + ".");
+		}
+		this.start = start;
+		if (goal != this.goal) {
+			if (++generation == 0) {
+				Arrays.fill(stamps, 0);
+				generation = 1;
+			}
+			queue.clear();
+			this.goal = goal;
+			key_offset = 0.0;
+			touch(goal);
+			if (grid.isWalkable(goal)) {
+				estimates[goal] = 0.0;
+				push(goal);
+			}
+		} else if (start != last) {
+			// The keys already queued were estimated from the old start, which
+			// the new start is at most this much closer to.
+			key_offset += grid.getEstimate(last, start);
+			if (!grid.isWalkable(last)) {
+				// The old start may no longer move out of its unwalkable cell.
+				repair(last);
+			}
+		}
+		this.last = start;
+		expanded = 0;
+		touch(start);
+		seed_count = 0;
+		if (!grid.isWalkable(start)) {
+			seed_count = grid.getNeighbours(start, seeds, seed_costs);
+			estimate(start);
+			update(start);
+		}
+		while (!queue.isEmpty() && (isBefore(queue.peekKey(), queue.peekTie(),
+																				 start) || estimates[start] !=
+																									 costs[start])) {
+			int u = queue.peek();
+			double key = queue.peekKey(), tie = queue.peekTie();
+			double min = Math.min(costs[u], estimates[u]);
+			double next = min + grid.getEstimate(start, u) + key_offset;
+			if (key < next || key == next && tie < min) {
+				queue.push(u, next, min);
+			} else if (costs[u] > estimates[u]) {
+				queue.poll();
+				expanded++;
+				costs[u] = estimates[u];
+				lowered(u);
+			} else {
+				queue.poll();
+				expanded++;
+				double old = costs[u];
+				costs[u] = Double.POSITIVE_INFINITY;
+				raised(u, old);
+			}
+		}
+		return costs[start] != Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Sets the estimate of the provided cell to its cheapest move plus the
+	 * cost of the cell moved to.
+	 */
+	private void estimate(int cell) {
+		double best = Double.POSITIVE_INFINITY;
+		// Nothing may move into an unwalkable cell, so the search backwards
+		// from the goal must not move out of one either, other than the start.
+		if (grid.isWalkable(cell) || cell == start) {
+			int n = grid.getNeighbours(cell, neighbours, neighbour_costs);
+			for (int i = 0; i < n; i++) {
+				double cost = neighbour_costs[i] + getCost(neighbours[i]);
+				if (cost < best) {
+					best = cost;
+				}
+			}
+		}
+		estimates[cell] = best;
+	}
+
+	/**
+	 * Returns the cost to the goal of the provided cell as last expanded.
+	 */
+	private double getCost(int cell) {
+		return stamps[cell] == generation ? costs[cell] : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Returns the cost of the move from an unwalkable start into the provided
+	 * cell, or positive infinity if there is none.
+	 */
+	private double getSeedCost(int cell) {
+		for (int i = 0; i < seed_count; i++) {
+			if (seeds[i] == cell) {
+				return seed_costs[i];
+			}
+		}
+		return Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Returns true if the provided key comes before that of the provided
+	 * cell.
+	 */
+	private boolean isBefore(double key, double tie, int cell) {
+		double min = Math.min(costs[cell], estimates[cell]);
+		return isLess(key, tie, min + grid.getEstimate(start, cell) + key_offset,
+									min);
+	}
+
+	/**
+	 * Returns true if the first pair of keys comes before the second, taking
+	 * keys within <code>EPSILON</code> of each other to be equal.
+	 */
+	private static boolean isLess(double key, double tie, double other_key,
+																double other_tie) {
+		if (key < other_key - EPSILON) {
+			return true;
+		}
+		return key <= other_key + EPSILON && tie < other_tie - EPSILON;
+	}
+
+	/**
+	 * Lowers the estimates of the cells that may move into the provided cell,
+	 * whose cost has just been lowered.
+	 */
+	private void lowered(int u) {
+		if (!grid.isWalkable(u)) {
+			return;
+		}
+		int n = grid.getNeighbours(u, neighbours, neighbour_costs);
+		for (int i = 0; i < n; i++) {
+			int s = neighbours[i];
+			touch(s);
+			double cost = neighbour_costs[i] + costs[u];
+			if (s != goal && cost < estimates[s]) {
+				estimates[s] = cost;
+				update(s);
+			}
+		}
+		double move = getSeedCost(u);
+		if (move != Double.POSITIVE_INFINITY && start != goal && move + costs[u] <
+																															estimates[start]) {
+			estimates[start] = move + costs[u];
+			update(start);
+		}
+	}
+
+	/**
+	 * Puts the provided cell in the queue with its current key.
+	 */
+	private void push(int cell) {
+		double min = Math.min(costs[cell], estimates[cell]);
+		queue.push(cell, min + grid.getEstimate(start, cell) + key_offset, min);
+	}
+
+	/**
+	 * Raises the estimates of the cells that moved into the provided cell,
+	 * whose cost of the provided old cost has just been found to be too low,
+	 * and requeues it.
+	 */
+	private void raised(int u, double old) {
+		int n = grid.getNeighbours(u, others, other_costs);
+		for (int i = 0; i < n; i++) {
+			int s = others[i];
+			touch(s);
+			if (s != goal && estimates[s] == other_costs[i] + old) {
+				estimate(s);
+				update(s);
+			}
+		}
+		double move = getSeedCost(u);
+		if (move != Double.POSITIVE_INFINITY && start != goal &&
+				estimates[start] == move + old) {
+			estimate(start);
+			update(start);
+		}
+		if (u != goal) {
+			estimate(u);
+		}
+		update(u);
+	}
+
+	/**
+	 * Finds the estimate of the provided cell again after its moves may have
+	 * changed, and requeues it if needed.
+	 */
+	private void repair(int cell) {
+		touch(cell);
+		if (cell != goal) {
+			estimate(cell);
+		} else {
+			estimates[cell] = grid.isWalkable(cell) ? 0.0 : Double.POSITIVE_INFINITY;
+		}
+		update(cell);
+	}
+
+	/**
+	 * Readies the entries of the provided cell for this generation.
+	 */
+	private void touch(int cell) {
+		if (stamps[cell] != generation) {
+			stamps[cell] = generation;
+			costs[cell] = Double.POSITIVE_INFINITY;
+			estimates[cell] = Double.POSITIVE_INFINITY;
+		}
+	}
+
+	/**
+	 * Queues the provided cell if its cost and estimate differ, or takes it
+	 * out of the queue if they agree.
+	 */
+	private void update(int cell) {
+		if (costs[cell] != estimates[cell]) {
+			push(cell);
+		} else {
+			queue.remove(cell);
+		}
+	}
+
+	/**
+	 * A binary min-heap of cells ordered by a key, then by a second key for
+	 * cells with equal keys, which records where each cell sits as
+	 * <code>IndexedHeap</code> does. Keys are compared with
+	 * <code>isLess</code>.
+	 */
+	private static final class Queue {
+		Queue(int capacity) {
+			this.ids = new int[Math.max(16, capacity)];
+			this.keys = new double[ids.length];
+			this.ties = new double[ids.length];
+			this.positions = new int[Math.max(1, capacity)];
+		}
+		private final int[] ids;
+		private final double[] keys;
+		private final int[] positions;
+		private int size;
+		private final double[] ties;
+
+		void clear() {
+			size = 0;
+		}
+
+		boolean contains(int id) {
+			int p = positions[id];
+			return p < size && ids[p] == id;
+		}
+
+		boolean isEmpty() {
+			return size == 0;
+		}
+
+		int peek() {
+			return ids[0];
+		}
+
+		double peekKey() {
+			return keys[0];
+		}
+
+		double peekTie() {
+			return ties[0];
+		}
+
+		int poll() {
+			int id = ids[0];
+			size--;
+			if (size > 0) {
+				siftDown(0, ids[size], keys[size], ties[size]);
+			}
+			return id;
+		}
+
+		void push(int id, double key, double tie) {
+			if (contains(id)) {
+				int p = positions[id];
+				if (isLess(key, tie, keys[p], ties[p])) {
+					siftUp(p, id, key, tie);
+				} else {
+					siftDown(p, id, key, tie);
+				}
+				return;
+			}
+			siftUp(size++, id, key, tie);
+		}
+
+		void remove(int id) {
+			if (!contains(id)) {
+				return;
+			}
+			int p = positions[id];
+			size--;
+			if (p < size) {
+				int parent = (p - 1) >>> 1;
+				if (p > 0 && isLess(keys[size], ties[size], keys[parent],
+														ties[parent])) {
+					siftUp(p, ids[size], keys[size], ties[size]);
+				} else {
+					siftDown(p, ids[size], keys[size], ties[size]);
+				}
+			}
+		}
+
+		private void siftDown(int p, int id, double key, double tie) {
+			int half = size >>> 1;
+			while (p < half) {
+				int c = 2 * p + 1;
+				if (c + 1 < size && isLess(keys[c + 1], ties[c + 1], keys[c], ties[c])) {
+					c++;
+				}
+				if (!isLess(keys[c], ties[c], key, tie)) {
+					break;
+				}
+				set(p, ids[c], keys[c], ties[c]);
+				p = c;
+			}
+			set(p, id, key, tie);
+		}
+
+		private void siftUp(int p, int id, double key, double tie) {
+			while (p > 0) {
+				int parent = (p - 1) >>> 1;
+				if (!isLess(key, tie, keys[parent], ties[parent])) {
+					break;
+				}
+				set(p, ids[parent], keys[parent], ties[parent]);
+				p = parent;
+			}
+			set(p, id, key, tie);
+		}
+
+		private void set(int p, int id, double key, double tie) {
+			ids[p] = id;
+			keys[p] = key;
+			ties[p] = tie;
+			positions[id] = p;
+		}
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.ai.pathfinding;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * The cost of the cheapest path from every cell of a
+ * <code>WalkableGrid</code> to a single goal, and the cell to step to next
+ * along it. Any number of agents heading to the goal may then be steered by
+ * reading the cell they stand on, rather than each finding a path of its own.
+ *
+ * Fields are made and kept up to date by a <code>FlowFieldCache</code>.
+ *
+ * @author LittleRover
+ */
+public final class FlowField {
+	private static final Logger LOG = AuroraLogs.getLogger(FlowField.class
+					.getName());
+
+	FlowField(int goal, int count) {
+		this.goal = goal;
+		this.costs = new float[count];
+		this.nexts = new int[count];
+		Arrays.fill(costs, Float.POSITIVE_INFINITY);
+		Arrays.fill(nexts, -1);
+	}
+	final float[] costs;
+	private final int goal;
+	final int[] nexts;
+
+	/**
+	 * Returns the cost of the cheapest path from the provided cell to the
+	 * goal, or positive infinity if the goal cannot be reached.
+	 *
+	 * @param cell The cell
+	 *
+	 * @return The cost
+	 */
+	public double getCost(int cell) {
+		return costs[cell];
+	}
+
+	/**
+	 * Returns the goal cell.
+	 *
+	 * @return The goal
+	 */
+	public int getGoal() {
+		return goal;
+	}
+
+	/**
+	 * Returns the cell to step to from the provided cell towards the goal, or
+	 * -1 if the cell is the goal or the goal cannot be reached.
+	 *
+	 * @param cell The cell
+	 *
+	 * @return The next cell
+	 */
+	public int getNext(int cell) {
+		return nexts[cell];
+	}
+
+	/**
+	 * Returns true if the goal can be reached from the provided cell.
+	 *
+	 * @param cell The cell
+	 *
+	 * @return If reachable
+	 */
+	public boolean isReachable(int cell) {
+		return costs[cell] != Float.POSITIVE_INFINITY;
+	}
+}
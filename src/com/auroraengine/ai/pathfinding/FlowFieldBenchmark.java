@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.ai.pathfinding;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Compares steering many agents to one goal with a <code>FlowField</code>
+ * against finding a path for each agent with <code>AStarSearch</code>, on a
+ * square map of scattered rectangular walls. Reports the time to make the
+ * field, to step every agent once, and to repair the field after a cell
+ * changes, against the time for the searches. Searching for every agent
+ * takes minutes on large maps, so only a sample of agents are searched and
+ * the time scaled up.
+ *
+ * Arguments, all optional, in order: map size, agents, agents searched,
+ * share of the map walled.
+ *
+ * @author LittleRover
+ */
+public final class FlowFieldBenchmark {
+	private static final Logger LOG = AuroraLogs.getLogger(
+					FlowFieldBenchmark.class.getName());
+
+	/**
+	 * Runs the benchmark described by the provided arguments.
+	 *
+	 * @param args The arguments
+	 */
+	@SuppressWarnings("UseOfSystemOutOrSystemErr")
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+		int agents = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+		int sample = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+		double walls = args.length > 3 ? Double.parseDouble(args[3]) : 0.2;
+		sample = Math.min(sample, agents);
+
+		Random random = new Random(1L);
+		WalkableGrid grid = new WalkableGrid(new int[2], new int[]{size, size});
+		grid.fill(true);
+		long walled = 0L, target = (long) (walls * size * size);
+		while (walled < target) {
+			int w = 1 + random.nextInt(24), h = 1 + random.nextInt(24);
+			int x0 = random.nextInt(size - w), y0 = random.nextInt(size - h);
+			for (int y = y0; y < y0 + h; y++) {
+				for (int x = x0; x < x0 + w; x++) {
+					int cell = y * size + x;
+					if (grid.isWalkable(cell)) {
+						grid.setWalkable(cell, false);
+						walled++;
+					}
+				}
+			}
+		}
+		int goal;
+		do {
+			goal = random.nextInt(size * size);
+		} while (!grid.isWalkable(goal));
+		int[] positions = new int[agents];
+		for (int i = 0; i < agents; i++) {
+			do {
+				positions[i] = random.nextInt(size * size);
+			} while (!grid.isWalkable(positions[i]));
+		}
+
+		// Makes the field a few times so that the last is warmed up.
+		FlowFieldCache cache = null;
+		FlowField field = null;
+		long build_time = 0L;
+		for (int pass = 0; pass < 3; pass++) {
+			cache = new FlowFieldCache(grid);
+			long t = System.nanoTime();
+			field = cache.get(goal);
+			build_time = System.nanoTime() - t;
+		}
+		long steps = 0L, t = System.nanoTime();
+		boolean moving = true;
+		while (moving) {
+			moving = false;
+			for (int i = 0; i < agents; i++) {
+				int next = field.getNext(positions[i]);
+				if (next >= 0) {
+					positions[i] = next;
+					steps++;
+					moving = true;
+				}
+			}
+		}
+		long steer_time = System.nanoTime() - t;
+
+		AStarSearch search = AStarSearch.get();
+		random = new Random(2L);
+		long search_time = 0L;
+		int mismatches = 0;
+		for (int i = 0; i < sample; i++) {
+			int start;
+			do {
+				start = random.nextInt(size * size);
+			} while (!grid.isWalkable(start));
+			t = System.nanoTime();
+			boolean found = search.search(grid, start, goal);
+			search_time += System.nanoTime() - t;
+			if (found != field.isReachable(start) || found && Math.abs(search
+							.getCost() - field.getCost(start)) > 1E-3 * search.getCost()) {
+				mismatches++;
+			}
+		}
+
+		int updates = 50;
+		long update_time = 0L;
+		for (int u = 0; u < updates; u++) {
+			int cell = random.nextInt(size * size);
+			grid.setWalkable(cell, !grid.isWalkable(cell));
+			t = System.nanoTime();
+			cache.update(cell);
+			update_time += System.nanoTime() - t;
+		}
+
+		System.out.printf("%d^2 map, %d agents to one goal:%n" +
+											"  flow field made in %.1f ms, %d agent steps in %.1f ms " +
+											"(%.1f ns each)%n" +
+											"  repaired after a cell changed in %.1f us%n" +
+											"  A* %.2f ms per agent over %d agents, %.0f ms for all, " +
+											"%d disagreeing on cost%n", size, agents,
+											build_time / 1E6, steps, steer_time / 1E6,
+											steps == 0L ? 0.0 : (double) steer_time / steps,
+											update_time / 1E3 / updates, search_time / 1E6 / sample,
+											sample, search_time / 1E6 / sample * agents, mismatches);
+	}
+
+	private FlowFieldBenchmark() {
+	}
+}
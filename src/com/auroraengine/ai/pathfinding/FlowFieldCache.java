@@ -0,0 +1,287 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.ai.pathfinding;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Makes and keeps the <code>FlowField</code> towards each goal asked for,
+ * holding the most recently used up to a fixed number. Each field is found by
+ * searching outwards from its goal once, then repaired rather than rebuilt
+ * when cells change: the cells whose paths ran through a changed cell are
+ * cleared and filled back in from the cells around them, and any cheaper
+ * paths opened up are spread outwards.
+ *
+ * <code>update</code> must be called whenever the walkability of a cell
+ * changes. The cache is not thread safe, though the fields it returns may be
+ * read from any thread between changes.
+ *
+ * @author LittleRover
+ */
+public final class FlowFieldCache {
+	private static final Logger LOG = AuroraLogs.getLogger(FlowFieldCache.class
+					.getName());
+	/**
+	 * The number of fields held by default.
+	 */
+	public static final int DEFAULT_CAPACITY = 16;
+
+	/**
+	 * Creates a new cache over the provided grid holding the default number of
+	 * fields.
+	 *
+	 * @param grid The grid
+	 */
+	public FlowFieldCache(WalkableGrid grid) {
+		this(grid, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a new cache over the provided grid holding up to the provided
+	 * number of fields.
+	 *
+	 * @param grid     The grid
+	 * @param capacity The number of fields held
+	 */
+	public FlowFieldCache(WalkableGrid grid, int capacity) {
+		if (grid == null) {
+			throw new NullPointerException("Grid is Null!");
+		}
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive! Found " +
+																				 capacity + ".");
+		}
+		this.grid = grid;
+		this.fields = new LinkedHashMap<Integer, FlowField>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, FlowField> eldest) {
+				return size() > capacity;
+			}
+		};
+		this.heap = new IndexedHeap(grid.getNodeCount());
+		this.neighbours = new int[grid.getMaxDegree()];
+		this.neighbour_costs = new double[grid.getMaxDegree()];
+		this.others = new int[grid.getMaxDegree()];
+		this.other_costs = new double[grid.getMaxDegree()];
+	}
+	private int[] cleared = new int[64];
+	private final LinkedHashMap<Integer, FlowField> fields;
+	private final WalkableGrid grid;
+	private final IndexedHeap heap;
+	private int[] marks = new int[0];
+	private int mark_generation;
+	private final double[] neighbour_costs;
+	private final int[] neighbours;
+	private final double[] other_costs;
+	private final int[] others;
+
+	/**
+	 * Empties the cache.
+	 */
+	public void clear() {
+		fields.clear();
+	}
+
+	/**
+	 * Returns the field towards the provided goal, making it if not held.
+	 *
+	 * @param goal The goal cell
+	 *
+	 * @return The field
+	 */
+	public FlowField get(int goal) {
+		if (goal < 0 || goal >= grid.getNodeCount()) {
+			throw new IllegalArgumentException("Goal out of range! Found " + goal +
+																				 ".");
+		}
+		FlowField field = fields.get(goal);
+		if (field == null) {
+			field = new FlowField(goal, grid.getNodeCount());
+			if (grid.isWalkable(goal)) {
+				field.costs[goal] = 0.0f;
+				heap.push(goal, 0.0);
+				spread(field);
+			}
+			fields.put(goal, field);
+			LOG.log(Level.FINE, "Flow field made towards {0}", goal);
+		}
+		return field;
+	}
+
+	/**
+	 * Returns the grid the fields are over.
+	 *
+	 * @return The grid
+	 */
+	public WalkableGrid getGrid() {
+		return grid;
+	}
+
+	/**
+	 * Returns the number of fields held.
+	 *
+	 * @return The field count
+	 */
+	public int size() {
+		return fields.size();
+	}
+
+	/**
+	 * Repairs every field held after the walkability of the provided cell has
+	 * changed.
+	 *
+	 * @param cell The cell
+	 */
+	public void update(int cell) {
+		if (cell < 0 || cell >= grid.getNodeCount()) {
+			throw new IllegalArgumentException("Cell out of range! Found " + cell +
+																				 ".");
+		}
+		for (FlowField field : fields.values()) {
+			repair(field, cell);
+		}
+	}
+
+	/**
+	 * Clears the provided cell of the provided field along with every cell
+	 * whose path runs through it, returning the new number of cells cleared.
+	 */
+	private int clear(FlowField field, int cell, int count) {
+		if (marks[cell] == mark_generation) {
+			return count;
+		}
+		marks[cell] = mark_generation;
+		if (count == cleared.length) {
+			cleared = Arrays.copyOf(cleared, count * 2);
+		}
+		cleared[count++] = cell;
+		// Walks the cells leading into those cleared, which are always among
+		// their neighbours as moves are the same both ways.
+		for (int i = count - 1; i < count; i++) {
+			int c = cleared[i];
+			int n = grid.getNeighbours(c, others, other_costs);
+			for (int j = 0; j < n; j++) {
+				int m = others[j];
+				if (field.nexts[m] == c && marks[m] != mark_generation) {
+					marks[m] = mark_generation;
+					if (count == cleared.length) {
+						cleared = Arrays.copyOf(cleared, count * 2);
+					}
+					cleared[count++] = m;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns true if the provided cells are still neighbours.
+	 */
+	private boolean isNeighbour(int cell, int other) {
+		int n = grid.getNeighbours(cell, others, other_costs);
+		for (int i = 0; i < n; i++) {
+			if (others[i] == other) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Repairs the provided field after the walkability of the provided cell
+	 * has changed.
+	 */
+	private void repair(FlowField field, int cell) {
+		if (marks.length < grid.getNodeCount()) {
+			marks = new int[grid.getNodeCount()];
+			mark_generation = 0;
+		}
+		if (++mark_generation == 0) {
+			Arrays.fill(marks, 0);
+			mark_generation = 1;
+		}
+		int count = clear(field, cell, 0);
+		// Walls also block diagonal moves past their corners, which may have
+		// been taken by the cells beside them.
+		int degree = grid.getNeighbours(cell, neighbours, neighbour_costs);
+		for (int i = 0; i < degree; i++) {
+			int n = neighbours[i];
+			if (field.nexts[n] >= 0 && !isNeighbour(n, field.nexts[n])) {
+				count = clear(field, n, count);
+			}
+		}
+		for (int i = 0; i < count; i++) {
+			field.costs[cleared[i]] = Float.POSITIVE_INFINITY;
+			field.nexts[cleared[i]] = -1;
+		}
+		int goal = field.getGoal();
+		if (grid.isWalkable(goal) && field.costs[goal] != 0.0f) {
+			field.costs[goal] = 0.0f;
+			field.nexts[goal] = -1;
+			heap.push(goal, 0.0);
+		}
+		// Spreads any cheaper paths opened up past the cell, and fills the
+		// cleared cells back in from those around them.
+		for (int i = 0; i < degree; i++) {
+			push(field, neighbours[i]);
+		}
+		for (int i = 0; i < count; i++) {
+			int n = grid.getNeighbours(cleared[i], neighbours, neighbour_costs);
+			for (int j = 0; j < n; j++) {
+				push(field, neighbours[j]);
+			}
+		}
+		spread(field);
+	}
+
+	private void push(FlowField field, int cell) {
+		float cost = field.costs[cell];
+		if (cost != Float.POSITIVE_INFINITY && grid.isWalkable(cell)) {
+			heap.push(cell, cost);
+		}
+	}
+
+	/**
+	 * Lowers the cost of every cell reached more cheaply from those in the
+	 * heap, until the heap is empty.
+	 */
+	private void spread(FlowField field) {
+		float[] costs = field.costs;
+		int[] nexts = field.nexts;
+		while (!heap.isEmpty()) {
+			int c = heap.poll();
+			float cost = costs[c];
+			int n = grid.getNeighbours(c, neighbours, neighbour_costs);
+			for (int i = 0; i < n; i++) {
+				int m = neighbours[i];
+				float next = (float) (cost + neighbour_costs[i]);
+				if (next < costs[m]) {
+					costs[m] = next;
+					nexts[m] = c;
+					heap.push(m, next);
+				}
+			}
+		}
+	}
+}
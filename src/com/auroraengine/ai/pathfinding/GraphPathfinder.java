@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.ai.pathfinding;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+import java.util.logging.Logger;
+
+/**
+ * A pathfinder that searches an <code>IPathGraph</code> with the primitive
+ * <code>AStarSearch</code> of the calling thread, so nodes are only looked up
+ * to build the returned path rather than for every step of the search.
+ *
+ * @author LittleRover
+ * @param <T> The taker of the path
+ * @param <K> The cost being evaluated
+ */
+public class GraphPathfinder<T, K extends IPathCost> implements
+				IPathFinder<T, K> {
+	private static final Logger LOG = AuroraLogs.getLogger(GraphPathfinder.class
+					.getName());
+
+	/**
+	 * Creates a new pathfinder over the provided graph.
+	 *
+	 * @param graph   The graph searched
+	 * @param nodes   Returns the node with the provided index
+	 * @param indices Returns the index of the provided node
+	 */
+	public GraphPathfinder(IPathGraph graph,
+												 IntFunction<? extends IPathNode<T, K>> nodes,
+												 ToIntFunction<? super IPathNode<T, K>> indices) {
+		if (graph == null) {
+			throw new NullPointerException("Graph is Null!");
+		}
+		this.graph = graph;
+		this.nodes = nodes;
+		this.indices = indices;
+	}
+	private final IPathGraph graph;
+	private final ToIntFunction<? super IPathNode<T, K>> indices;
+	private final IntFunction<? extends IPathNode<T, K>> nodes;
+
+	/**
+	 * Returns the graph searched.
+	 *
+	 * @return The graph
+	 */
+	public IPathGraph getGraph() {
+		return graph;
+	}
+
+	@Override
+	public List<IPathNode<T, K>> getPath(T taker, IPathNode<T, K> start,
+																			 IPathNode<T, K> end) {
+		AStarSearch search = AStarSearch.get();
+		if (!search.search(graph, indices.applyAsInt(start), indices.applyAsInt(
+											 end))) {
+			return null;
+		}
+		int[] ids = new int[search.getPathLength()];
+		search.getPath(ids);
+		ArrayList<IPathNode<T, K>> path = new ArrayList<>(ids.length);
+		for (int id : ids) {
+			path.add(nodes.apply(id));
+		}
+		return path;
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.ai.pathfinding;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+import java.util.logging.Logger;
+
+/**
+ * A pathfinder that reads walkability straight from a
+ * <code>WalkableGrid</code>. Two dimensional grids are searched with the
+ * <code>JumpPointSearch</code> of the calling thread, and three dimensional
+ * grids with its <code>AStarSearch</code>. The path returned holds every cell
+ * walked through, not only the jump points.
+ *
+ * @author LittleRover
+ * @param <T> The taker of the path
+ * @param <K> The cost being evaluated
+ */
+public class GridPathfinder<T, K extends IPathCost> implements
+				IPathFinder<T, K> {
+	private static final Logger LOG = AuroraLogs.getLogger(GridPathfinder.class
+					.getName());
+
+	/**
+	 * Creates a new pathfinder over the provided grid.
+	 *
+	 * @param grid    The grid searched
+	 * @param nodes   Returns the node of the provided cell
+	 * @param indices Returns the cell of the provided node
+	 */
+	public GridPathfinder(WalkableGrid grid,
+												IntFunction<? extends IPathNode<T, K>> nodes,
+												ToIntFunction<? super IPathNode<T, K>> indices) {
+		if (grid == null) {
+			throw new NullPointerException("Grid is Null!");
+		}
+		this.grid = grid;
+		this.nodes = nodes;
+		this.indices = indices;
+	}
+	private final WalkableGrid grid;
+	private final ToIntFunction<? super IPathNode<T, K>> indices;
+	private final IntFunction<? extends IPathNode<T, K>> nodes;
+
+	/**
+	 * Returns the grid searched.
+	 *
+	 * @return The grid
+	 */
+	public WalkableGrid getGrid() {
+		return grid;
+	}
+
+	@Override
+	public List<IPathNode<T, K>> getPath(T taker, IPathNode<T, K> start,
+																			 IPathNode<T, K> end) {
+		int from = indices.applyAsInt(start), to = indices.applyAsInt(end);
+		int[] cells;
+		if (grid.getDimension() == 2) {
+			JumpPointSearch search = JumpPointSearch.get();
+			if (!search.search(grid, from, to)) {
+				return null;
+			}
+			cells = new int[search.getCellPathLength()];
+			search.getCellPath(cells);
+		} else {
+			AStarSearch search = AStarSearch.get();
+			if (!search.search(grid, from, to)) {
+				return null;
+			}
+			cells = new int[search.getPathLength()];
+			search.getPath(cells);
+		}
+		ArrayList<IPathNode<T, K>> path = new ArrayList<>(cells.length);
+		for (int cell : cells) {
+			path.add(nodes.apply(cell));
+		}
+		return path;
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.ai.pathfinding;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Compares the <code>HierarchicalPathfinder</code> with the flat
+ * <code>AStarSearch</code> on a large square map of scattered rectangular
+ * walls. Reports the time to build the hierarchy and to rebuild it after a
+ * single cell changes, the time per query to find a path and to read every
+ * cell of it, and how much more the paths found cost than the cheapest.
+ *
+ * Arguments, all optional, in order: map size, base two logarithm of the
+ * smallest cluster side, levels, queries, share of the map walled.
+ *
+ * @author LittleRover
+ */
+public final class HierarchicalBenchmark {
+	private static final Logger LOG = AuroraLogs.getLogger(
+					HierarchicalBenchmark.class.getName());
+	private static final int PASSES = 10;
+
+	/**
+	 * Runs the benchmark described by the provided arguments.
+	 *
+	 * @param args The arguments
+	 */
+	@SuppressWarnings("UseOfSystemOutOrSystemErr")
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+		int shift = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		int levels = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+		int queries = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+		double walls = args.length > 4 ? Double.parseDouble(args[4]) : 0.2;
+
+		Random random = new Random(1L);
+		WalkableGrid grid = new WalkableGrid(new int[2], new int[]{size, size});
+		grid.fill(true);
+		long walled = 0L, target = (long) (walls * size * size);
+		while (walled < target) {
+			int w = 1 + random.nextInt(24), h = 1 + random.nextInt(24);
+			int x0 = random.nextInt(size - w), y0 = random.nextInt(size - h);
+			for (int y = y0; y < y0 + h; y++) {
+				for (int x = x0; x < x0 + w; x++) {
+					int cell = y * size + x;
+					if (grid.isWalkable(cell)) {
+						grid.setWalkable(cell, false);
+						walled++;
+					}
+				}
+			}
+		}
+		long start = System.nanoTime();
+		HierarchicalPathfinder hierarchy = new HierarchicalPathfinder(grid, shift,
+																																	levels);
+		System.out.printf("%d^2 map, %d levels from %d cells: built in %.0f ms, " +
+											"nodes per level", size, levels, 1 << shift,
+											(System.nanoTime() - start) / 1E6);
+		for (int k = 1; k <= levels; k++) {
+			System.out.print(" " + hierarchy.getNodeCount(k));
+		}
+		System.out.println();
+
+		int[] starts = new int[queries], ends = new int[queries];
+		for (int q = 0; q < queries; q++) {
+			do {
+				starts[q] = random.nextInt(size * size);
+				ends[q] = random.nextInt(size * size);
+			} while (!grid.isWalkable(starts[q]) || !grid.isWalkable(ends[q]));
+		}
+		AStarSearch flat = AStarSearch.get();
+		double[] costs = new double[queries];
+		long flat_time = 0L;
+		for (int q = 0; q < queries; q++) {
+			long t = System.nanoTime();
+			costs[q] = flat.search(grid, starts[q], ends[q]) ? flat.getCost() :
+								 Double.POSITIVE_INFINITY;
+			flat_time += System.nanoTime() - t;
+		}
+		// Warms up, then times the last pass.
+		int[] cells = new int[256];
+		long find_time = 0L, read_time = 0L;
+		double excess = 0.0;
+		int found = 0, mismatches = 0;
+		for (int pass = 0; pass < PASSES; pass++) {
+			find_time = 0L;
+			read_time = 0L;
+			excess = 0.0;
+			found = 0;
+			mismatches = 0;
+			for (int q = 0; q < queries; q++) {
+				long t = System.nanoTime();
+				HierarchicalPath path = hierarchy.findPath(starts[q], ends[q]);
+				long t2 = System.nanoTime();
+				if (path != null) {
+					while (path.next(cells) > 0) {
+						// Reads the whole path.
+					}
+				}
+				read_time += System.nanoTime() - t2;
+				find_time += t2 - t;
+				if ((path != null) != (costs[q] != Double.POSITIVE_INFINITY)) {
+					mismatches++;
+				} else if (path != null) {
+					found++;
+					excess += path.getCost() / costs[q] - 1.0;
+				}
+			}
+		}
+		System.out.printf("%d queries, %d found, %d disagreeing on reachability:%n" +
+											"  flat A* %.1f ms per path%n" +
+											"  hierarchical %.1f us to find, %.1f us to read, " +
+											"paths %.1f%% longer%n", queries, found, mismatches,
+											flat_time / 1E6 / queries, find_time / 1E3 / queries,
+											read_time / 1E3 / queries, 100.0 * excess / found);
+
+		int updates = 20;
+		long update_time = 0L;
+		for (int u = 0; u < updates; u++) {
+			int cell = random.nextInt(size * size);
+			grid.setWalkable(cell, !grid.isWalkable(cell));
+			long t = System.nanoTime();
+			hierarchy.update(cell);
+			hierarchy.rebuild();
+			update_time += System.nanoTime() - t;
+		}
+		System.out.printf("  rebuilt after a cell changed in %.2f ms%n",
+											update_time / 1E6 / updates);
+	}
+
+	private HierarchicalBenchmark() {
+	}
+}
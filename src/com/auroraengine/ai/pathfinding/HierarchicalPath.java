@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.ai.pathfinding;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * A path found by a <code>HierarchicalPathfinder</code>, which is refined into
+ * cells as it is read. The first and last stretches of the path are refined
+ * when it is found, and each stretch between them only when it is reached, so
+ * an agent that is given a new path before reaching the end of the old one
+ * never pays to refine the rest.
+ *
+ * Stretches are refined against the abstract graphs as they stand when read,
+ * so once the pathfinder has been rebuilt after a change to the grid the rest
+ * of the path can no longer be read and a new path should be found.
+ *
+ * @author LittleRover
+ */
+public final class HierarchicalPath {
+	private static final Logger LOG = AuroraLogs.getLogger(HierarchicalPath.class
+					.getName());
+
+	HierarchicalPath(HierarchicalPathfinder owner, int version, double cost,
+									 int[] route, int route_length) {
+		this.owner = owner;
+		this.version = version;
+		this.cost = cost;
+		this.route = Arrays.copyOf(route, route_length);
+	}
+	private int[] cells = new int[64];
+	private final double cost;
+	private final HierarchicalPathfinder owner;
+	private int position;
+	private final int[] route;
+	private int segment = 1;
+	private int size;
+	private int[] tail;
+	private final int version;
+
+	/**
+	 * Returns the cost of the path, which is that of every cell moved through.
+	 *
+	 * @return The path cost
+	 */
+	public double getCost() {
+		return cost;
+	}
+
+	/**
+	 * Returns false if the pathfinder has been rebuilt since the path was found,
+	 * in which case the rest of the path cannot be read.
+	 *
+	 * @return If the path is valid
+	 */
+	public boolean isValid() {
+		return owner.getVersion() == version;
+	}
+
+	/**
+	 * Writes the next cells of the path into the provided array, refining more
+	 * of the path if needed, and returns the number written. The first cell
+	 * written is the start and the last the end. Returns zero once the whole
+	 * path has been read, or if the path is no longer valid.
+	 *
+	 * @param into The array to write the cells to
+	 *
+	 * @return The number of cells written
+	 */
+	public int next(int[] into) {
+		int written = 0;
+		while (written < into.length) {
+			if (position == size && !refine()) {
+				break;
+			}
+			int n = Math.min(into.length - written, size - position);
+			System.arraycopy(cells, position, into, written, n);
+			position += n;
+			written += n;
+		}
+		return written;
+	}
+
+	/**
+	 * Adds a cell to the end of the refined cells.
+	 *
+	 * @param cell The cell
+	 */
+	void add(int cell) {
+		if (size == cells.length) {
+			cells = Arrays.copyOf(cells, size * 2);
+		}
+		cells[size++] = cell;
+	}
+
+	/**
+	 * Moves the cells refined so far to be the last stretch of the path, which
+	 * is read once every other stretch has been.
+	 */
+	void keepTail() {
+		tail = Arrays.copyOf(cells, size);
+		size = 0;
+	}
+
+	/**
+	 * Refines the next stretch of the path, returning false if there is none
+	 * left or the path is no longer valid.
+	 */
+	private boolean refine() {
+		if (segment < 0 || !isValid()) {
+			return false;
+		}
+		position = 0;
+		size = 0;
+		if (segment + 1 < route.length - 1) {
+			if (!owner.refine(route[segment], route[segment + 1], this)) {
+				LOG.warning("Failed to refine a path that is still valid.");
+				segment = -1;
+				return false;
+			}
+			segment++;
+			return true;
+		}
+		segment = -1;
+		if (tail != null) {
+			cells = tail;
+			size = tail.length;
+			tail = null;
+		}
+		return size > 0;
+	}
+}
@@ -0,0 +1,1078 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.ai.pathfinding;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * Finds paths across a large two dimensional <code>WalkableGrid</code> by
+ * searching abstract graphs of clusters of cells, as in HPA*.
+ *
+ * The grid is split into square clusters, and wherever open cells meet across
+ * the border of two clusters an entrance is made: a node either side of the
+ * border joined by a step. The nodes of each cluster are joined by the cost
+ * of the cheapest path between them that stays within the cluster. Each
+ * further level groups the clusters of the level below four to a side, as the
+ * scales of a <code>DivisibleGridElement</code> do two at a time, and keeps
+ * only the entrances on its own borders, joined by searching the level below.
+ * A query joins its ends to the nodes of their clusters at every level,
+ * searches the top level, and returns a <code>HierarchicalPath</code> that is
+ * refined back down into cells as it is read.
+ *
+ * Paths found this way are not always the cheapest, as they must pass
+ * through the entrances, but are usually close. When cells change, the
+ * clusters holding them are marked with <code>update</code> and rebuilt,
+ * along with their neighbours and the clusters above them, before the next
+ * query. The pathfinder is not thread safe.
+ *
+ * @author LittleRover
+ */
+public final class HierarchicalPathfinder {
+	private static final Logger LOG = AuroraLogs.getLogger(
+					HierarchicalPathfinder.class.getName());
+	/**
+	 * The base two logarithm of the number of clusters to a side grouped into
+	 * each cluster of the level above.
+	 */
+	public static final int LEVEL_SHIFT = 2;
+	/**
+	 * The shortest run of open cells along a border given an entrance at each
+	 * end rather than one in the middle.
+	 */
+	public static final int ENTRANCE_SPLIT = 6;
+	private static final double EPSILON = 1E-9;
+	private static final int START = 0;
+	private static final int GOAL = 1;
+
+	/**
+	 * Creates a new pathfinder over the provided grid and builds every level.
+	 *
+	 * @param grid          The two dimensional grid
+	 * @param cluster_shift The base two logarithm of the side of the smallest
+	 *                      clusters
+	 * @param levels        The number of abstract levels
+	 */
+	public HierarchicalPathfinder(WalkableGrid grid, int cluster_shift,
+																int levels) {
+		if (grid.getDimension() != 2) {
+			throw new IllegalArgumentException("Only two dimensional grids are " +
+																				 "supported! Found " + grid
+																				 .getDimension() + ".");
+		}
+		if (cluster_shift < 1 || levels < 1 || cluster_shift + (levels - 1) *
+																					 LEVEL_SHIFT > 30) {
+			throw new IllegalArgumentException("Invalid cluster shift or levels! " +
+																				 "Found " + cluster_shift + " and " +
+																				 levels + ".");
+		}
+		this.grid = grid;
+		this.width = grid.getWidth();
+		this.height = grid.getHeight();
+		this.levels = new Layer[levels + 1];
+		this.paths = new int[levels + 1][];
+		for (int k = 1; k <= levels; k++) {
+			this.levels[k] = new Layer(k, cluster_shift + (k - 1) * LEVEL_SHIFT);
+			this.paths[k] = new int[64];
+		}
+		this.grid_view = new GridView();
+		this.level_view = new LayerView();
+		Arrays.fill(this.levels[1].dirty, true);
+		dirty = true;
+		rebuild();
+	}
+	private boolean dirty;
+	private int[] entrances = new int[16];
+	private double[] flood_costs = new double[0];
+	private int flood_generation;
+	private int[] flood_stamps = new int[0];
+	private final WalkableGrid grid;
+	private final GridView grid_view;
+	private final IndexedHeap heap = new IndexedHeap(0);
+	private final int height;
+	private final LayerView level_view;
+	private final Layer[] levels;
+	private boolean linked;
+	private int[] order = new int[16];
+	private final int[][] paths;
+	private int[] saved = new int[64];
+	private double[] saved_costs = new double[64];
+	private int[] saved_starts = new int[16];
+	private int version;
+	private final int width;
+
+	/**
+	 * Finds a path between the provided cells, returning null if there is none.
+	 * Any clusters changed since the last query are rebuilt first.
+	 *
+	 * @param start The start cell
+	 * @param end   The end cell
+	 *
+	 * @return The path, or null
+	 */
+	public HierarchicalPath findPath(int start, int end) {
+		if (start < 0 || start >= grid.getNodeCount() || end < 0 ||
+				end >= grid.getNodeCount()) {
+			throw new IllegalArgumentException("Cell out of range! Found " + start +
+																				 " and " + end + ".");
+		}
+		rebuild();
+		if (!grid.isWalkable(start) || !grid.isWalkable(end)) {
+			return null;
+		}
+		linked = true;
+		try {
+			for (int k = 1; k < levels.length; k++) {
+				insert(k, GOAL, end);
+				insert(k, START, start);
+			}
+			return search(start);
+		} finally {
+			// Keeps the ends out of the stretches refined later.
+			linked = false;
+		}
+	}
+
+	/**
+	 * Returns the number of abstract levels.
+	 *
+	 * @return The level count
+	 */
+	public int getLevelCount() {
+		return levels.length - 1;
+	}
+
+	/**
+	 * Returns the number of nodes in the provided abstract level.
+	 *
+	 * @param level The level, from one
+	 *
+	 * @return The node count
+	 */
+	public int getNodeCount(int level) {
+		Layer layer = levels[level];
+		return layer.count - layer.free_count - 2;
+	}
+
+	/**
+	 * Rebuilds every cluster marked as changed, then every cluster beside them,
+	 * then every cluster above those whose nodes or the costs between them
+	 * changed. This is done before each query, so need only be called to choose
+	 * when the cost is paid.
+	 */
+	public void rebuild() {
+		if (!dirty) {
+			return;
+		}
+		for (int k = 1; k < levels.length; k++) {
+			Layer layer = levels[k];
+			Layer above = k + 1 < levels.length ? levels[k + 1] : null;
+			int[] touched = layer.touched;
+			int count = 0;
+			for (int c = 0; c < layer.clusters; c++) {
+				if (!layer.dirty[c]) {
+					continue;
+				}
+				int cx = c % layer.cols, cy = c / layer.cols;
+				count = touch(layer, c, touched, count);
+				if (cx > 0) {
+					count = touch(layer, c - 1, touched, count);
+				}
+				if (cx + 1 < layer.cols) {
+					count = touch(layer, c + 1, touched, count);
+				}
+				if (cy > 0) {
+					count = touch(layer, c - layer.cols, touched, count);
+				}
+				if (cy + 1 < layer.rows) {
+					count = touch(layer, c + layer.cols, touched, count);
+				}
+			}
+			// Records the touched clusters before their borders are rebuilt, so that
+			// only those that come out differently are rebuilt above.
+			if (saved_starts.length < count + 1) {
+				saved_starts = new int[count + 1];
+			}
+			int at = 0;
+			for (int i = 0; i < count; i++) {
+				saved_starts[i] = at;
+				at = save(layer, touched[i], at);
+			}
+			for (int c = 0; c < layer.clusters; c++) {
+				if (!layer.dirty[c]) {
+					continue;
+				}
+				int cx = c % layer.cols, cy = c / layer.cols;
+				if (cx + 1 < layer.cols) {
+					buildBorder(layer, c, c + 1);
+				}
+				if (cx > 0 && !layer.dirty[c - 1]) {
+					buildBorder(layer, c - 1, c);
+				}
+				if (cy + 1 < layer.rows) {
+					buildBorder(layer, c, c + layer.cols);
+				}
+				if (cy > 0 && !layer.dirty[c - layer.cols]) {
+					buildBorder(layer, c - layer.cols, c);
+				}
+			}
+			for (int i = 0; i < count; i++) {
+				int c = touched[i];
+				connect(layer, c);
+				layer.dirty[c] = false;
+				layer.marks[c] = false;
+				if (above != null && !isSaved(layer, c, saved_starts[i])) {
+					above.dirty[above.clusterOf(layer.getX(c), layer.getY(c))] = true;
+				}
+			}
+		}
+		dirty = false;
+		version++;
+	}
+
+	/**
+	 * Marks the cluster holding the provided cell to be rebuilt, to be called
+	 * whenever the walkability of the cell changes.
+	 *
+	 * @param cell The cell
+	 */
+	public void update(int cell) {
+		Layer layer = levels[1];
+		layer.dirty[layer.clusterOf(cell % width, cell / width)] = true;
+		dirty = true;
+	}
+
+	/**
+	 * Returns a number that changes whenever the pathfinder is rebuilt.
+	 *
+	 * @return The version
+	 */
+	int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Refines the step between the provided nodes of the top level into cells,
+	 * adding to the provided path every cell after the first up to the last.
+	 * Returns false if the step could not be refined.
+	 *
+	 * @param a    The first node
+	 * @param b    The second node
+	 * @param path The path to add to
+	 *
+	 * @return If refined
+	 */
+	boolean refine(int a, int b, HierarchicalPath path) {
+		return refine(levels.length - 1, a, b, path);
+	}
+
+	/**
+	 * Makes the entrances across the border between the provided neighbouring
+	 * clusters, the second being to the right of or below the first, removing
+	 * those made before.
+	 */
+	private void buildBorder(Layer layer, int a, int b) {
+		for (int i = layer.member_counts[a] - 1; i >= 0; i--) {
+			int n = layer.members[a][i];
+			int p = layer.partners[n];
+			if (p >= 0 && layer.clusterOf(layer.cells[p]) == b) {
+				layer.remove(p);
+				layer.remove(n);
+			}
+		}
+		boolean across = b == a + 1;
+		if (layer.level == 1) {
+			// Runs along the border cell by cell.
+			int x0 = layer.getX(a), y0 = layer.getY(a);
+			int side = 1 << layer.shift;
+			int x = across ? x0 + side - 1 : x0, y = across ? y0 : y0 + side - 1;
+			int dx = across ? 0 : 1, dy = across ? 1 : 0;
+			int step = across ? 1 : width;
+			int length = across ? Math.min(side, height - y0) :
+									 Math.min(side, width - x0);
+			int run = -1;
+			for (int i = 0; i <= length; i++) {
+				int cx = x + i * dx, cy = y + i * dy;
+				boolean open = i < length && grid.isWalkable(cx, cy) && grid
+								.isWalkable(cx + (across ? 1 : 0), cy + (across ? 0 : 1));
+				if (open && run < 0) {
+					run = i;
+				} else if (!open && run >= 0) {
+					int first = (y + run * dy) * width + x + run * dx;
+					int last = first + (i - 1 - run) * (across ? width : 1);
+					if (i - run < ENTRANCE_SPLIT) {
+						int mid = first + (i - 1 - run) / 2 * (across ? width : 1);
+						layer.pair(mid, -1, mid + step, -1);
+					} else {
+						layer.pair(first, -1, first + step, -1);
+						layer.pair(last, -1, last + step, -1);
+					}
+					run = -1;
+				}
+			}
+			return;
+		}
+		// Keeps the entrances of the level below that cross this border, but only
+		// one of those joined on both sides within the clusters of the level below.
+		Layer below = levels[layer.level - 1];
+		int x0 = layer.getX(a), y0 = layer.getY(a);
+		int x1 = Math.min(x0 + (1 << layer.shift), width);
+		int y1 = Math.min(y0 + (1 << layer.shift), height);
+		int from_x = across ? x1 - 1 : x0, from_y = across ? y0 : y1 - 1;
+		for (int sy = from_y >> below.shift; sy <= (y1 - 1) >> below.shift; sy++) {
+			for (int sx = from_x >> below.shift; sx <= (x1 - 1) >> below.shift;
+					 sx++) {
+				int c = sy * below.cols + sx;
+				int kept = 0;
+				if (entrances.length < below.member_counts[c]) {
+					entrances = new int[below.member_counts[c]];
+				}
+				for (int i = 0; i < below.member_counts[c]; i++) {
+					int n = below.members[c][i];
+					int p = below.partners[n];
+					if (p < 0 || layer.clusterOf(below.cells[p]) != b) {
+						continue;
+					}
+					boolean joined = false;
+					for (int j = 0; j < kept && !joined; j++) {
+						int m = entrances[j];
+						joined = below.isJoined(n, m) && below.isJoined(p, below.partners[m]);
+					}
+					if (!joined) {
+						layer.pair(below.cells[n], n, below.cells[p], p);
+						entrances[kept++] = n;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Joins every pair of nodes of the provided cluster by the cost of the
+	 * cheapest path between them within the cluster.
+	 */
+	private void connect(Layer layer, int cluster) {
+		int count = layer.member_counts[cluster];
+		int[] members = layer.members[cluster];
+		for (int i = 0; i < count; i++) {
+			layer.degrees[members[i]] = 0;
+		}
+		for (int i = 0; i < count; i++) {
+			int a = members[i];
+			flood(layer, cluster, a);
+			for (int j = i + 1; j < count; j++) {
+				int b = members[j];
+				double cost = flooded(lower(layer, b));
+				if (cost != Double.POSITIVE_INFINITY) {
+					layer.addEdge(a, b, cost);
+					layer.addEdge(b, a, cost);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds the cost of the cheapest path from the provided node to every node
+	 * of the level below within its cluster, to be read with
+	 * <code>flooded</code>. This is run for every pair of nodes of every
+	 * cluster, so walks the level below directly rather than through a view.
+	 */
+	private void flood(Layer layer, int cluster, int node) {
+		view(layer, cluster);
+		int source = lower(layer, node);
+		if (layer.level == 1) {
+			GridView v = grid_view;
+			begin(v.w * v.h);
+			relax(source, 0.0);
+			while (!heap.isEmpty()) {
+				int n = heap.poll();
+				double cost = flood_costs[n];
+				int lx = n % v.w, ly = n / v.w, x = v.x0 + lx, y = v.y0 + ly;
+				boolean west = lx > 0 && grid.isWalkable(x - 1, y);
+				boolean east = lx + 1 < v.w && grid.isWalkable(x + 1, y);
+				boolean south = ly > 0 && grid.isWalkable(x, y - 1);
+				boolean north = ly + 1 < v.h && grid.isWalkable(x, y + 1);
+				double straight = cost + 1.0;
+				double diagonal = cost + WalkableGrid.DIAGONAL_COST;
+				if (west) {
+					relax(n - 1, straight);
+				}
+				if (east) {
+					relax(n + 1, straight);
+				}
+				if (south) {
+					relax(n - v.w, straight);
+				}
+				if (north) {
+					relax(n + v.w, straight);
+				}
+				if (west && south && grid.isWalkable(x - 1, y - 1)) {
+					relax(n - v.w - 1, diagonal);
+				}
+				if (east && south && grid.isWalkable(x + 1, y - 1)) {
+					relax(n - v.w + 1, diagonal);
+				}
+				if (west && north && grid.isWalkable(x - 1, y + 1)) {
+					relax(n + v.w - 1, diagonal);
+				}
+				if (east && north && grid.isWalkable(x + 1, y + 1)) {
+					relax(n + v.w + 1, diagonal);
+				}
+			}
+			return;
+		}
+		LayerView v = level_view;
+		Layer below = v.layer;
+		begin(below.count);
+		relax(source, 0.0);
+		while (!heap.isEmpty()) {
+			int n = heap.poll();
+			double cost = flood_costs[n];
+			int p = below.partners[n];
+			if (p >= 0 && v.contains(p)) {
+				relax(p, cost + 1.0);
+			}
+			int[] edges = below.edges[n];
+			double[] costs = below.edge_costs[n];
+			for (int i = 0, d = below.degrees[n]; i < d; i++) {
+				if (v.contains(edges[i])) {
+					relax(edges[i], cost + costs[i]);
+				}
+			}
+			if (linked && n != GOAL) {
+				int[] goal = below.edges[GOAL];
+				for (int i = 0; i < below.degrees[GOAL]; i++) {
+					if (goal[i] == n && v.contains(GOAL)) {
+						relax(GOAL, cost + below.edge_costs[GOAL][i]);
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the cost to the provided node found by the last flood, or
+	 * positive infinity if it was not reached.
+	 */
+	private double flooded(int node) {
+		return flood_stamps[node] == flood_generation ? flood_costs[node] :
+					 Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Starts a new flood over the provided number of nodes.
+	 */
+	private void begin(int count) {
+		if (count > flood_stamps.length) {
+			flood_costs = new double[count];
+			flood_stamps = new int[count];
+			flood_generation = 0;
+			heap.ensureCapacity(count);
+		}
+		if (++flood_generation == 0) {
+			Arrays.fill(flood_stamps, 0);
+			flood_generation = 1;
+		}
+		heap.clear();
+	}
+
+	private void relax(int node, double cost) {
+		if (flood_stamps[node] != flood_generation || cost < flood_costs[node]) {
+			flood_stamps[node] = flood_generation;
+			flood_costs[node] = cost;
+			heap.push(node, cost);
+		}
+	}
+
+	/**
+	 * Joins the provided end of a query to the nodes of its cluster in the
+	 * provided level, and to the start if it is the goal in the same cluster.
+	 */
+	private void insert(int level, int temp, int cell) {
+		Layer layer = levels[level];
+		layer.cells[temp] = cell;
+		layer.xs[temp] = cell % width;
+		layer.ys[temp] = cell / width;
+		layer.downs[temp] = temp;
+		layer.degrees[temp] = 0;
+		int cluster = layer.clusterOf(cell);
+		flood(layer, cluster, temp);
+		for (int i = 0; i < layer.member_counts[cluster]; i++) {
+			int m = layer.members[cluster][i];
+			double cost = flooded(lower(layer, m));
+			if (cost != Double.POSITIVE_INFINITY) {
+				layer.addEdge(temp, m, cost);
+			}
+		}
+		if (temp == START && layer.clusterOf(layer.cells[GOAL]) == cluster) {
+			double cost = flooded(lower(layer, GOAL));
+			if (cost != Double.POSITIVE_INFINITY) {
+				layer.addEdge(START, GOAL, cost);
+			}
+		}
+	}
+
+	/**
+	 * Returns the node of the level below the provided level matching the
+	 * provided node, numbered as in the view of its cluster.
+	 */
+	private int lower(Layer layer, int node) {
+		return layer.level == 1 ? grid_view.local(layer.cells[node]) :
+					 layer.downs[node];
+	}
+
+	/**
+	 * Refines the step between the provided nodes of the provided level into
+	 * cells, adding every cell after the first up to the last.
+	 */
+	private boolean refine(int level, int a, int b, HierarchicalPath path) {
+		Layer layer = levels[level];
+		if (layer.partners[a] == b) {
+			if (level == 1) {
+				path.add(layer.cells[b]);
+				return true;
+			}
+			return refine(level - 1, layer.downs[a], layer.downs[b], path);
+		}
+		IPathGraph view = view(layer, layer.clusterOf(layer.cells[a]));
+		AStarSearch search = AStarSearch.get();
+		if (!search.search(view, lower(layer, a), lower(layer, b))) {
+			return false;
+		}
+		int n = search.getPathLength();
+		int[] route = paths[level];
+		if (route.length < n) {
+			route = paths[level] = new int[n];
+		}
+		search.getPath(route);
+		if (level == 1) {
+			for (int i = 1; i < n; i++) {
+				path.add(grid_view.global(route[i]));
+			}
+			return true;
+		}
+		for (int i = 1; i < n; i++) {
+			// The route of this level is reused below, so is read before each step.
+			int from = paths[level][i - 1], to = paths[level][i];
+			if (!refine(level - 1, from, to, path)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Adds the provided cluster to the list of those to be joined up, if not
+	 * already on it.
+	 */
+	private int touch(Layer layer, int cluster, int[] touched, int count) {
+		if (!layer.marks[cluster]) {
+			layer.marks[cluster] = true;
+			touched[count++] = cluster;
+		}
+		return count;
+	}
+
+	/**
+	 * Records the nodes of the provided cluster and the edges between them from
+	 * the provided position, returning the position after them.
+	 */
+	private int save(Layer layer, int cluster, int at) {
+		int count = sort(layer, cluster), size = at + 1 + count * 5;
+		for (int i = 0; i < count; i++) {
+			size += layer.degrees[order[i]];
+		}
+		if (saved.length < size) {
+			saved = Arrays.copyOf(saved, Math.max(size, saved.length * 2));
+			saved_costs = Arrays.copyOf(saved_costs, saved.length);
+		}
+		saved[at++] = count;
+		for (int i = 0; i < count; i++) {
+			int n = order[i], d = layer.degrees[n];
+			saved[at++] = n;
+			saved[at++] = layer.cells[n];
+			saved[at++] = layer.partners[n];
+			saved[at++] = layer.downs[n];
+			saved[at++] = d;
+			System.arraycopy(layer.edges[n], 0, saved, at, d);
+			System.arraycopy(layer.edge_costs[n], 0, saved_costs, at, d);
+			at += d;
+		}
+		return at;
+	}
+
+	/**
+	 * Returns if the nodes of the provided cluster and the edges between them
+	 * are those recorded by <code>save</code> at the provided position, taking
+	 * costs within <code>EPSILON</code> of each other relative to their size to
+	 * be equal.
+	 */
+	private boolean isSaved(Layer layer, int cluster, int at) {
+		int count = sort(layer, cluster);
+		if (saved[at++] != count) {
+			return false;
+		}
+		for (int i = 0; i < count; i++) {
+			int n = order[i], d = layer.degrees[n];
+			if (saved[at] != n || saved[at + 1] != layer.cells[n] ||
+					saved[at + 2] != layer.partners[n] ||
+					saved[at + 3] != layer.downs[n] || saved[at + 4] != d) {
+				return false;
+			}
+			at += 5;
+			// Each node is joined at most once to each other, but not always in the
+			// same order, and costs summed in another order may differ slightly.
+			for (int j = 0; j < d; j++) {
+				int e = layer.edges[n][j];
+				double cost = layer.edge_costs[n][j];
+				boolean found = false;
+				for (int k = at; k < at + d && !found; k++) {
+					found = saved[k] == e && Math.abs(saved_costs[k] - cost) <= EPSILON *
+																											 cost;
+				}
+				if (!found) {
+					return false;
+				}
+			}
+			at += d;
+		}
+		return true;
+	}
+
+	/**
+	 * Puts the nodes of the provided cluster in order of number, returning how
+	 * many there are.
+	 */
+	private int sort(Layer layer, int cluster) {
+		int count = layer.member_counts[cluster];
+		if (order.length < count) {
+			order = new int[count * 2];
+		}
+		if (count > 0) {
+			System.arraycopy(layer.members[cluster], 0, order, 0, count);
+			Arrays.sort(order, 0, count);
+		}
+		return count;
+	}
+
+	/**
+	 * Searches the top level between the ends of the query, refining the first
+	 * and last stretches of the path.
+	 */
+	private HierarchicalPath search(int start) {
+		Layer top = levels[levels.length - 1];
+		AStarSearch search = AStarSearch.get();
+		if (!search.search(top, START, GOAL)) {
+			return null;
+		}
+		int n = search.getPathLength();
+		int[] route = paths[levels.length - 1];
+		if (route.length < n) {
+			route = paths[levels.length - 1] = new int[n];
+		}
+		search.getPath(route);
+		int first = route[1];
+		HierarchicalPath path = new HierarchicalPath(this, version, search
+																								 .getCost(), route, n);
+		if (n > 2) {
+			if (!refine(levels.length - 1, route[n - 2], GOAL, path)) {
+				return null;
+			}
+			path.keepTail();
+		}
+		path.add(start);
+		if (!refine(levels.length - 1, START, first, path)) {
+			return null;
+		}
+		return path;
+	}
+
+	/**
+	 * Returns the level below the provided level limited to the provided
+	 * cluster.
+	 */
+	private IPathGraph view(Layer layer, int cluster) {
+		int x0 = layer.getX(cluster), y0 = layer.getY(cluster);
+		int x1 = Math.min(x0 + (1 << layer.shift), width);
+		int y1 = Math.min(y0 + (1 << layer.shift), height);
+		if (layer.level == 1) {
+			grid_view.set(x0, y0, x1, y1);
+			return grid_view;
+		}
+		level_view.set(levels[layer.level - 1], x0, y0, x1, y1);
+		return level_view;
+	}
+
+	/**
+	 * A box of the grid, with its cells numbered from zero within the box.
+	 */
+	private final class GridView implements IPathGraph {
+		private int h;
+		private int w;
+		private int x0;
+		private int y0;
+
+		@Override
+		public double getEstimate(int from, int to) {
+			return grid.getEstimate(global(from), global(to));
+		}
+
+		@Override
+		public int getMaxDegree() {
+			return 8;
+		}
+
+		@Override
+		public int getNeighbours(int node, int[] into, double[] into_costs) {
+			int lx = node % w, ly = node / w, x = x0 + lx, y = y0 + ly, n = 0;
+			boolean west = lx > 0 && grid.isWalkable(x - 1, y);
+			boolean east = lx + 1 < w && grid.isWalkable(x + 1, y);
+			boolean south = ly > 0 && grid.isWalkable(x, y - 1);
+			boolean north = ly + 1 < h && grid.isWalkable(x, y + 1);
+			if (west) {
+				into[n] = node - 1;
+				into_costs[n++] = 1.0;
+			}
+			if (east) {
+				into[n] = node + 1;
+				into_costs[n++] = 1.0;
+			}
+			if (south) {
+				into[n] = node - w;
+				into_costs[n++] = 1.0;
+			}
+			if (north) {
+				into[n] = node + w;
+				into_costs[n++] = 1.0;
+			}
+			if (west && south && grid.isWalkable(x - 1, y - 1)) {
+				into[n] = node - w - 1;
+				into_costs[n++] = WalkableGrid.DIAGONAL_COST;
+			}
+			if (east && south && grid.isWalkable(x + 1, y - 1)) {
+				into[n] = node - w + 1;
+				into_costs[n++] = WalkableGrid.DIAGONAL_COST;
+			}
+			if (west && north && grid.isWalkable(x - 1, y + 1)) {
+				into[n] = node + w - 1;
+				into_costs[n++] = WalkableGrid.DIAGONAL_COST;
+			}
+			if (east && north && grid.isWalkable(x + 1, y + 1)) {
+				into[n] = node + w + 1;
+				into_costs[n++] = WalkableGrid.DIAGONAL_COST;
+			}
+			return n;
+		}
+
+		@Override
+		public int getNodeCount() {
+			return w * h;
+		}
+
+		int global(int local) {
+			return (y0 + local / w) * width + x0 + local % w;
+		}
+
+		int local(int cell) {
+			return (cell / width - y0) * w + cell % width - x0;
+		}
+
+		void set(int x0, int y0, int x1, int y1) {
+			this.x0 = x0;
+			this.y0 = y0;
+			this.w = x1 - x0;
+			this.h = y1 - y0;
+		}
+	}
+
+	/**
+	 * An abstract level, whose first two nodes are the start and goal of the
+	 * current query.
+	 */
+	private final class Layer implements IPathGraph {
+		Layer(int level, int shift) {
+			this.level = level;
+			this.shift = shift;
+			this.cols = (width + (1 << shift) - 1) >> shift;
+			this.rows = (height + (1 << shift) - 1) >> shift;
+			this.clusters = cols * rows;
+			this.dirty = new boolean[clusters];
+			this.marks = new boolean[clusters];
+			this.touched = new int[clusters];
+			this.members = new int[clusters][];
+			this.member_counts = new int[clusters];
+			grow(64);
+			count = 2;
+			cells[START] = cells[GOAL] = 0;
+			partners[START] = partners[GOAL] = -1;
+		}
+		int[] cells;
+		final int clusters;
+		final int cols;
+		int count;
+		int[] degrees;
+		final boolean[] dirty;
+		int[] downs;
+		double[][] edge_costs;
+		int[][] edges;
+		int[] free = new int[16];
+		int[] free_cells = new int[16];
+		int free_count;
+		final int level;
+		final boolean[] marks;
+		int max_degree = 1;
+		final int[] member_counts;
+		final int[][] members;
+		int[] partners;
+		final int rows;
+		final int shift;
+		final int[] touched;
+		int[] xs;
+		int[] ys;
+
+		@Override
+		public double getEstimate(int from, int to) {
+			return grid.getEstimate(cells[from], cells[to]);
+		}
+
+		@Override
+		public int getMaxDegree() {
+			return max_degree + 2;
+		}
+
+		@Override
+		public int getNeighbours(int node, int[] nodes, double[] costs) {
+			int n = 0;
+			if (partners[node] >= 0) {
+				nodes[n] = partners[node];
+				costs[n++] = 1.0;
+			}
+			int degree = degrees[node];
+			System.arraycopy(edges[node], 0, nodes, n, degree);
+			System.arraycopy(edge_costs[node], 0, costs, n, degree);
+			n += degree;
+			if (linked && node != GOAL) {
+				int[] goal = edges[GOAL];
+				for (int i = 0; i < degrees[GOAL]; i++) {
+					if (goal[i] == node) {
+						nodes[n] = GOAL;
+						costs[n++] = edge_costs[GOAL][i];
+						break;
+					}
+				}
+			}
+			return n;
+		}
+
+		@Override
+		public int getNodeCount() {
+			return count;
+		}
+
+		void addEdge(int from, int to, double cost) {
+			int d = degrees[from];
+			if (d == edges[from].length) {
+				edges[from] = Arrays.copyOf(edges[from], d * 2);
+				edge_costs[from] = Arrays.copyOf(edge_costs[from], d * 2);
+			}
+			edges[from][d] = to;
+			edge_costs[from][d] = cost;
+			degrees[from] = d + 1;
+			if (d + 1 > max_degree) {
+				max_degree = d + 1;
+			}
+		}
+
+		/**
+		 * Returns if the provided nodes are joined by an edge within their
+		 * cluster.
+		 */
+		boolean isJoined(int a, int b) {
+			int[] list = edges[a];
+			for (int i = 0, d = degrees[a]; i < d; i++) {
+				if (list[i] == b) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		int clusterOf(int cell) {
+			return clusterOf(cell % width, cell / width);
+		}
+
+		int clusterOf(int x, int y) {
+			return (y >> shift) * cols + (x >> shift);
+		}
+
+		int getX(int cluster) {
+			return cluster % cols << shift;
+		}
+
+		int getY(int cluster) {
+			return cluster / cols << shift;
+		}
+
+		void grow(int capacity) {
+			int old = cells == null ? 0 : cells.length;
+			cells = cells == null ? new int[capacity] : Arrays.copyOf(cells,
+																																capacity);
+			degrees = degrees == null ? new int[capacity] : Arrays.copyOf(degrees,
+																																		capacity);
+			downs = downs == null ? new int[capacity] : Arrays.copyOf(downs,
+																																capacity);
+			partners = partners == null ? new int[capacity] : Arrays.copyOf(
+							partners, capacity);
+			xs = xs == null ? new int[capacity] : Arrays.copyOf(xs, capacity);
+			ys = ys == null ? new int[capacity] : Arrays.copyOf(ys, capacity);
+			edges = edges == null ? new int[capacity][] : Arrays.copyOf(edges,
+																																	capacity);
+			edge_costs = edge_costs == null ? new double[capacity][] : Arrays
+							.copyOf(edge_costs, capacity);
+			for (int i = old; i < capacity; i++) {
+				edges[i] = new int[4];
+				edge_costs[i] = new double[4];
+			}
+		}
+
+		/**
+		 * Makes a node either side of a border, joined as partners.
+		 */
+		void pair(int a_cell, int a_down, int b_cell, int b_down) {
+			int a = add(a_cell, a_down), b = add(b_cell, b_down);
+			partners[a] = b;
+			partners[b] = a;
+		}
+
+		void remove(int node) {
+			int c = clusterOf(cells[node]);
+			int[] list = members[c];
+			for (int i = 0; i < member_counts[c]; i++) {
+				if (list[i] == node) {
+					list[i] = list[--member_counts[c]];
+					break;
+				}
+			}
+			if (free_count == free.length) {
+				free = Arrays.copyOf(free, free_count * 2);
+				free_cells = Arrays.copyOf(free_cells, free.length);
+			}
+			free_cells[free_count] = cells[node];
+			free[free_count++] = node;
+			partners[node] = -1;
+			degrees[node] = 0;
+			cells[node] = -1;
+		}
+
+		private int add(int cell, int down) {
+			int node;
+			if (free_count > 0) {
+				// Takes back the node last on the same cell if there is one, so that
+				// rebuilding a border keeps the numbers the level above refers to.
+				int f = free_count - 1;
+				for (int i = f; i >= 0; i--) {
+					if (free_cells[i] == cell) {
+						int swap = free[i];
+						free[i] = free[f];
+						free_cells[i] = free_cells[f];
+						free[f] = swap;
+						break;
+					}
+				}
+				node = free[--free_count];
+			} else {
+				if (count == cells.length) {
+					grow(count * 2);
+				}
+				node = count++;
+			}
+			cells[node] = cell;
+			xs[node] = cell % width;
+			ys[node] = cell / width;
+			downs[node] = down;
+			degrees[node] = 0;
+			partners[node] = -1;
+			int c = clusterOf(cell);
+			if (members[c] == null) {
+				members[c] = new int[8];
+			} else if (member_counts[c] == members[c].length) {
+				members[c] = Arrays.copyOf(members[c], member_counts[c] * 2);
+			}
+			members[c][member_counts[c]++] = node;
+			return node;
+		}
+	}
+
+	/**
+	 * An abstract level limited to the nodes within a box.
+	 */
+	private final class LayerView implements IPathGraph {
+		private double[] costs = new double[0];
+		private Layer layer;
+		private int[] nodes = new int[0];
+		private int x0;
+		private int x1;
+		private int y0;
+		private int y1;
+
+		@Override
+		public double getEstimate(int from, int to) {
+			return layer.getEstimate(from, to);
+		}
+
+		@Override
+		public int getMaxDegree() {
+			return layer.getMaxDegree();
+		}
+
+		@Override
+		public int getNeighbours(int node, int[] into, double[] into_costs) {
+			int count = layer.getNeighbours(node, nodes, costs), n = 0;
+			for (int i = 0; i < count; i++) {
+				if (contains(nodes[i])) {
+					into[n] = nodes[i];
+					into_costs[n++] = costs[i];
+				}
+			}
+			return n;
+		}
+
+		@Override
+		public int getNodeCount() {
+			return layer.getNodeCount();
+		}
+
+		boolean contains(int node) {
+			int x = layer.xs[node], y = layer.ys[node];
+			return x >= x0 && y >= y0 && x < x1 && y < y1;
+		}
+
+		void set(Layer layer, int x0, int y0, int x1, int y1) {
+			this.layer = layer;
+			this.x0 = x0;
+			this.y0 = y0;
+			this.x1 = x1;
+			this.y1 = y1;
+			if (nodes.length < layer.getMaxDegree()) {
+				nodes = new int[layer.getMaxDegree() * 2];
+				costs = new double[nodes.length];
+			}
+		}
+	}
+}
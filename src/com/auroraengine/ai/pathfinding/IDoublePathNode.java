@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.ai.pathfinding;
+
+/**
+ * A node whose move costs may also be read as plain doubles, so that
+ * pathfinders may search through it without making a cost object for every
+ * step. The double cost must agree with the value of the cost object.
+ *
+ * @author LittleRover
+ * @param <T> The class of takers of the path consisting of these nodes.
+ * @param <K> The implementation used of IPathCost.
+ */
+public interface IDoublePathNode<T, K extends IPathCost> extends
+				IPathNode<T, K> {
+	/**
+	 * Returns the cost of moving from this to the specified node as a double,
+	 * exactly when the node is a neighbour and as an estimate otherwise, as
+	 * <code>getMoveCost</code> does.
+	 *
+	 * @param p_walker      The walker
+	 * @param p_destination The destination
+	 *
+	 * @return The estimated or actual cost to reach the destination
+	 */
+	public double getMoveCostD(T p_walker, IPathNode<T, K> p_destination);
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.ai.pathfinding;
+
+/**
+ * A graph searched by the primitive pathfinders, in which nodes are numbered
+ * from zero and costs are doubles. Neighbours are written into arrays owned by
+ * the caller, so searching creates no objects.
+ *
+ * @author LittleRover
+ */
+public interface IPathGraph {
+	/**
+	 * Returns an estimate of the cost of moving between the provided nodes,
+	 * which must never be more than the true cost for paths found to be the
+	 * cheapest.
+	 *
+	 * @param from The first node
+	 * @param to   The second node
+	 *
+	 * @return The estimated cost
+	 */
+	public double getEstimate(int from, int to);
+
+	/**
+	 * Returns the most neighbours any node has, which is the least room that
+	 * must be given to <code>getNeighbours</code>.
+	 *
+	 * @return The maximum degree
+	 */
+	public int getMaxDegree();
+
+	/**
+	 * Writes the nodes that can be reached directly from the provided node and
+	 * the cost of moving to each, returning how many were written.
+	 *
+	 * @param node  The node
+	 * @param nodes The array to write the neighbours to
+	 * @param costs The array to write the costs to
+	 *
+	 * @return The number of neighbours
+	 */
+	public int getNeighbours(int node, int[] nodes, double[] costs);
+
+	/**
+	 * Returns the number of nodes, which are numbered from zero.
+	 *
+	 * @return The node count
+	 */
+	public int getNodeCount();
+}
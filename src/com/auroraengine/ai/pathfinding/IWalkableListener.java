@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.ai.pathfinding;
+
+/**
+ * Receives the changes made to a <code>WalkableGrid</code>, so that searches
+ * over it can repair what they have found rather than start again. All
+ * methods are called on the thread changing the grid, after the change.
+ *
+ * @author LittleRover
+ */
+public interface IWalkableListener {
+	/**
+	 * Called when the walkability of a cell has changed.
+	 *
+	 * @param cell     The cell
+	 * @param walkable If the cell is now walkable
+	 */
+	public void changed(int cell, boolean walkable);
+
+	/**
+	 * Called when every cell has been set to the same walkability.
+	 *
+	 * @param walkable If the cells are walkable
+	 */
+	public void filled(boolean walkable);
+}
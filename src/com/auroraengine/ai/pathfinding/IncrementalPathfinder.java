@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.ai.pathfinding;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+import java.util.logging.Logger;
+
+/**
+ * A pathfinder for a single agent that keeps its path up to date with a
+ * <code>DStarLite</code> search listening to a <code>WalkableGrid</code>.
+ * Asking again for a path to the same end, from wherever the agent has moved
+ * to, only repairs what the changes to the grid since have affected. The
+ * pathfinder listens to the grid until <code>destroy</code> is called, and
+ * is not thread safe.
+ *
+ * @author LittleRover
+ * @param <T> The taker of the path
+ * @param <K> The cost being evaluated
+ */
+public class IncrementalPathfinder<T, K extends IPathCost> implements
+				IPathFinder<T, K> {
+	private static final Logger LOG = AuroraLogs.getLogger(
+					IncrementalPathfinder.class.getName());
+
+	/**
+	 * Creates a new pathfinder over the provided grid and starts listening to
+	 * it.
+	 *
+	 * @param grid    The grid searched
+	 * @param nodes   Returns the node of the provided cell
+	 * @param indices Returns the cell of the provided node
+	 */
+	public IncrementalPathfinder(WalkableGrid grid,
+															 IntFunction<? extends IPathNode<T, K>> nodes,
+															 ToIntFunction<? super IPathNode<T, K>> indices) {
+		if (grid == null) {
+			throw new NullPointerException("Grid is Null!");
+		}
+		this.grid = grid;
+		this.nodes = nodes;
+		this.indices = indices;
+		this.search = new DStarLite(grid);
+		grid.addListener(search);
+	}
+	private final WalkableGrid grid;
+	private final ToIntFunction<? super IPathNode<T, K>> indices;
+	private final IntFunction<? extends IPathNode<T, K>> nodes;
+	private final DStarLite search;
+
+	/**
+	 * Stops listening to the grid. The pathfinder should not be used after.
+	 */
+	public void destroy() {
+		grid.removeListener(search);
+	}
+
+	/**
+	 * Returns the grid searched.
+	 *
+	 * @return The grid
+	 */
+	public WalkableGrid getGrid() {
+		return grid;
+	}
+
+	@Override
+	public List<IPathNode<T, K>> getPath(T taker, IPathNode<T, K> start,
+																			 IPathNode<T, K> end) {
+		if (!search.search(indices.applyAsInt(start), indices.applyAsInt(end))) {
+			return null;
+		}
+		int[] cells = new int[search.getPathLength()];
+		search.getPath(cells);
+		ArrayList<IPathNode<T, K>> path = new ArrayList<>(cells.length);
+		for (int cell : cells) {
+			path.add(nodes.apply(cell));
+		}
+		return path;
+	}
+
+	/**
+	 * Returns the search kept up to date.
+	 *
+	 * @return The search
+	 */
+	public DStarLite getSearch() {
+		return search;
+	}
+}
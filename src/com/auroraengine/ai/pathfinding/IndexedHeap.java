@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.ai.pathfinding;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.logging.Logger;
+
+/**
+ * A binary min-heap of node ids keyed by doubles, which records where each id
+ * sits so that its key may be lowered in place.
+ *
+ * An id is only held if the recorded position is in the heap and the id found
+ * there is the same, so clearing the heap only resets its size and the
+ * positions of removed ids never need to be wiped.
+ *
+ * @author LittleRover
+ */
+public final class IndexedHeap {
+	private static final Logger LOG = AuroraLogs.getLogger(IndexedHeap.class
+					.getName());
+
+	/**
+	 * Creates a new empty heap for ids below the provided capacity.
+	 *
+	 * @param capacity The id capacity
+	 */
+	public IndexedHeap(int capacity) {
+		this.ids = new int[Math.max(16, capacity)];
+		this.keys = new double[ids.length];
+		this.positions = new int[Math.max(1, capacity)];
+	}
+	private int[] ids;
+	private double[] keys;
+	private int[] positions;
+	private int size;
+
+	/**
+	 * Removes every id from the heap.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Returns true if the heap holds the provided id.
+	 *
+	 * @param id The id
+	 *
+	 * @return If held
+	 */
+	public boolean contains(int id) {
+		int p = positions[id];
+		return p < size && ids[p] == id;
+	}
+
+	/**
+	 * Makes room for ids below the provided capacity.
+	 *
+	 * @param capacity The id capacity
+	 */
+	public void ensureCapacity(int capacity) {
+		if (capacity > positions.length) {
+			positions = Arrays.copyOf(positions, Math.max(capacity,
+																										positions.length * 2));
+		}
+	}
+
+	/**
+	 * Returns the key of the provided id, which must be held.
+	 *
+	 * @param id The id
+	 *
+	 * @return The key
+	 */
+	public double getKey(int id) {
+		return keys[positions[id]];
+	}
+
+	/**
+	 * Returns true if the heap is empty.
+	 *
+	 * @return If empty
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns the id with the lowest key without removing it.
+	 *
+	 * @return The id
+	 */
+	public int peek() {
+		if (size == 0) {
+			throw new NoSuchElementException("Heap is empty!");
+		}
+		return ids[0];
+	}
+
+	/**
+	 * Returns the lowest key in the heap.
+	 *
+	 * @return The key
+	 */
+	public double peekKey() {
+		if (size == 0) {
+			throw new NoSuchElementException("Heap is empty!");
+		}
+		return keys[0];
+	}
+
+	/**
+	 * Removes and returns the id with the lowest key.
+	 *
+	 * @return The id
+	 */
+	public int poll() {
+		if (size == 0) {
+			throw new NoSuchElementException("Heap is empty!");
+		}
+		int id = ids[0];
+		size--;
+		if (size > 0) {
+			siftDown(0, ids[size], keys[size]);
+		}
+		return id;
+	}
+
+	/**
+	 * Adds the provided id with the provided key, or if it is already held
+	 * moves it to the provided key, whether lower or higher.
+	 *
+	 * @param id  The id
+	 * @param key The key
+	 */
+	public void push(int id, double key) {
+		if (contains(id)) {
+			int p = positions[id];
+			if (key < keys[p]) {
+				siftUp(p, id, key);
+			} else {
+				siftDown(p, id, key);
+			}
+			return;
+		}
+		if (size == ids.length) {
+			ids = Arrays.copyOf(ids, size * 2);
+			keys = Arrays.copyOf(keys, size * 2);
+		}
+		siftUp(size++, id, key);
+	}
+
+	/**
+	 * Removes the provided id if it is held, returning true if it was.
+	 *
+	 * @param id The id
+	 *
+	 * @return If removed
+	 */
+	public boolean remove(int id) {
+		if (!contains(id)) {
+			return false;
+		}
+		int p = positions[id];
+		size--;
+		if (p < size) {
+			int last = ids[size];
+			double key = keys[size];
+			if (p > 0 && key < keys[(p - 1) >>> 1]) {
+				siftUp(p, last, key);
+			} else {
+				siftDown(p, last, key);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of ids held.
+	 *
+	 * @return The size
+	 */
+	public int size() {
+		return size;
+	}
+
+	private void siftDown(int p, int id, double key) {
+		int half = size >>> 1;
+		while (p < half) {
+			int c = 2 * p + 1;
+			if (c + 1 < size && keys[c + 1] < keys[c]) {
+				c++;
+			}
+			if (key <= keys[c]) {
+				break;
+			}
+			ids[p] = ids[c];
+			keys[p] = keys[c];
+			positions[ids[p]] = p;
+			p = c;
+		}
+		ids[p] = id;
+		keys[p] = key;
+		positions[id] = p;
+	}
+
+	private void siftUp(int p, int id, double key) {
+		while (p > 0) {
+			int parent = (p - 1) >>> 1;
+			if (keys[parent] <= key) {
+				break;
+			}
+			ids[p] = ids[parent];
+			keys[p] = keys[parent];
+			positions[ids[p]] = p;
+			p = parent;
+		}
+		ids[p] = id;
+		keys[p] = key;
+		positions[id] = p;
+	}
+}
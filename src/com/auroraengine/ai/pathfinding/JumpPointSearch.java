@@ -0,0 +1,390 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.ai.pathfinding;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * Utilises Jump Point Search to find the cheapest path across a two
+ * dimensional <code>WalkableGrid</code>. Rather than expanding every cell, the
+ * search runs in straight and diagonal lines from each cell and only stops at
+ * cells where a wall opens up a turn that no other path could take as
+ * cheaply, so on open ground only a handful of cells are ever expanded. Paths
+ * never cut corners, matching the neighbours of the grid as a graph, so the
+ * paths found cost the same as those of <code>AStarSearch</code>. Straight
+ * lines are run sixty four cells at a time using the packed walkability of
+ * the grid, so crossing open ground is cheap even though every diagonal step
+ * runs a straight line either side of it.
+ *
+ * As with <code>AStarSearch</code>, the scratch arrays are reused between
+ * searches by stamping them with a generation, and a search is not thread
+ * safe, so each thread should use the one returned by <code>get()</code>.
+ *
+ * @author LittleRover
+ */
+public final class JumpPointSearch {
+	private static final Logger LOG = AuroraLogs.getLogger(JumpPointSearch.class
+					.getName());
+	private static final ThreadLocal<JumpPointSearch> LOCAL = ThreadLocal
+					.withInitial(JumpPointSearch::new);
+
+	/**
+	 * Returns the search owned by the calling thread.
+	 *
+	 * @return The search
+	 */
+	public static JumpPointSearch get() {
+		return LOCAL.get();
+	}
+
+	/**
+	 * Creates a new search. Its scratch arrays grow to fit the largest grid it
+	 * is used on.
+	 */
+	public JumpPointSearch() {
+	}
+	private double[] costs = new double[0];
+	private int end = -1;
+	private int expanded;
+	private final IndexedHeap frontier = new IndexedHeap(0);
+	private int generation;
+	private WalkableGrid grid;
+	private int[] parents = new int[0];
+	private int[] stamps = new int[0];
+	private int target;
+	private int width;
+
+	/**
+	 * Returns the cost of the path found by the last search, or positive
+	 * infinity if none was found.
+	 *
+	 * @return The path cost
+	 */
+	public double getCost() {
+		return end < 0 ? Double.POSITIVE_INFINITY : costs[end];
+	}
+
+	/**
+	 * Writes every cell of the path found by the last search from start to end
+	 * into the provided array, returning the number written.
+	 *
+	 * @param path The array to write the path to
+	 *
+	 * @return The path length in cells
+	 */
+	public int getCellPath(int[] path) {
+		int length = getCellPathLength();
+		if (length > path.length) {
+			throw new IllegalArgumentException("Path array too small! Found " +
+																				 path.length + " for " + length +
+																				 " cells.");
+		}
+		if (length == 0) {
+			return 0;
+		}
+		int i = length - 1;
+		path[i] = end;
+		for (int n = end, p = parents[n]; p >= 0; n = p, p = parents[n]) {
+			int dx = Integer.signum(p % width - n % width);
+			int dy = Integer.signum(p / width - n / width);
+			int step = dy * width + dx;
+			for (int c = n + step; c != p; c += step) {
+				path[--i] = c;
+			}
+			path[--i] = p;
+		}
+		return length;
+	}
+
+	/**
+	 * Returns the number of cells in the path found by the last search, or zero
+	 * if none was found.
+	 *
+	 * @return The path length in cells
+	 */
+	public int getCellPathLength() {
+		if (end < 0) {
+			return 0;
+		}
+		int length = 1;
+		for (int n = end, p = parents[n]; p >= 0; n = p, p = parents[n]) {
+			length += Math.max(Math.abs(p % width - n % width), Math.abs(p / width -
+																																	 n / width));
+		}
+		return length;
+	}
+
+	/**
+	 * Returns the number of jump points expanded by the last search.
+	 *
+	 * @return The expanded count
+	 */
+	public int getExpandedCount() {
+		return expanded;
+	}
+
+	/**
+	 * Writes the jump points of the path found by the last search from start to
+	 * end into the provided array, returning the number written. Consecutive
+	 * points are always joined by a straight or diagonal line.
+	 *
+	 * @param path The array to write the path to
+	 *
+	 * @return The number of points
+	 */
+	public int getPath(int[] path) {
+		int length = getPathLength();
+		if (length > path.length) {
+			throw new IllegalArgumentException("Path array too small! Found " +
+																				 path.length + " for " + length +
+																				 " points.");
+		}
+		for (int i = length - 1, n = end; i >= 0; i--, n = parents[n]) {
+			path[i] = n;
+		}
+		return length;
+	}
+
+	/**
+	 * Returns the number of jump points in the path found by the last search,
+	 * or zero if none was found.
+	 *
+	 * @return The number of points
+	 */
+	public int getPathLength() {
+		int length = 0;
+		for (int n = end; n >= 0; n = parents[n]) {
+			length++;
+		}
+		return length;
+	}
+
+	/**
+	 * Searches for the cheapest path between the provided cells, returning true
+	 * if one was found. The path may then be read with <code>getPath</code> or
+	 * <code>getCellPath</code>.
+	 *
+	 * @param grid  The two dimensional grid
+	 * @param start The start cell
+	 * @param end   The end cell
+	 *
+	 * @return If a path was found
+	 */
+	public boolean search(WalkableGrid grid, int start, int end) {
+		if (grid.getDimension() != 2) {
+			throw new IllegalArgumentException("Only two dimensional grids are " +
+																				 "supported! Found " + grid
+																				 .getDimension() + ".");
+		}
+		int count = grid.getNodeCount();
+		if (start < 0 || start >= count || end < 0 || end >= count) {
+			throw new IllegalArgumentException("Cell out of range! Found " + start +
+																				 " and " + end + " of " + count + ".");
+		}
+		prepare(count);
+		this.grid = grid;
+		this.width = grid.getWidth();
+		this.target = end;
+		this.end = -1;
+		expanded = 0;
+		frontier.clear();
+		if (!grid.isWalkable(start) || !grid.isWalkable(end)) {
+			return false;
+		}
+		visit(start, 0.0, -1);
+		frontier.push(start, grid.getEstimate(start, end));
+		while (!frontier.isEmpty()) {
+			int node = frontier.poll();
+			if (node == end) {
+				this.end = end;
+				return true;
+			}
+			expanded++;
+			expand(node);
+		}
+		return false;
+	}
+
+	/**
+	 * Jumps from the provided cell in every direction that a path through it
+	 * could continue, adding each jump point found to the frontier.
+	 *
+	 * @param node The cell
+	 */
+	private void expand(int node) {
+		int x = node % width, y = node / width, parent = parents[node];
+		if (parent < 0) {
+			boolean w = grid.isWalkable(x - 1, y), e = grid.isWalkable(x + 1, y);
+			boolean s = grid.isWalkable(x, y - 1), n = grid.isWalkable(x, y + 1);
+			successor(node, x, y, -1, 0, w);
+			successor(node, x, y, 1, 0, e);
+			successor(node, x, y, 0, -1, s);
+			successor(node, x, y, 0, 1, n);
+			successor(node, x, y, -1, -1, w && s);
+			successor(node, x, y, 1, -1, e && s);
+			successor(node, x, y, -1, 1, w && n);
+			successor(node, x, y, 1, 1, e && n);
+			return;
+		}
+		int dx = Integer.signum(x - parent % width);
+		int dy = Integer.signum(y - parent / width);
+		if (dx != 0 && dy != 0) {
+			boolean v = grid.isWalkable(x, y + dy), h = grid.isWalkable(x + dx, y);
+			successor(node, x, y, 0, dy, v);
+			successor(node, x, y, dx, 0, h);
+			successor(node, x, y, dx, dy, v && h);
+		} else if (dx != 0) {
+			boolean next = grid.isWalkable(x + dx, y);
+			boolean up = grid.isWalkable(x, y + 1), down = grid.isWalkable(x, y - 1);
+			successor(node, x, y, dx, 0, next);
+			successor(node, x, y, dx, 1, next && up);
+			successor(node, x, y, dx, -1, next && down);
+			successor(node, x, y, 0, 1, up);
+			successor(node, x, y, 0, -1, down);
+		} else {
+			boolean next = grid.isWalkable(x, y + dy);
+			boolean right = grid.isWalkable(x + 1, y);
+			boolean left = grid.isWalkable(x - 1, y);
+			successor(node, x, y, 0, dy, next);
+			successor(node, x, y, 1, dy, next && right);
+			successor(node, x, y, -1, dy, next && left);
+			successor(node, x, y, 1, 0, right);
+			successor(node, x, y, -1, 0, left);
+		}
+	}
+
+	/**
+	 * Moves from the provided cell in the provided direction until a jump point
+	 * is found, returning it, or -1 if a wall or the edge is reached first.
+	 *
+	 * @param x  The x coordinate of the first cell to test
+	 * @param y  The y coordinate of the first cell to test
+	 * @param dx The x direction
+	 * @param dy The y direction
+	 *
+	 * @return The jump point, or -1
+	 */
+	private int jump(int x, int y, int dx, int dy) {
+		for (;;) {
+			if (!grid.isWalkable(x, y)) {
+				return -1;
+			}
+			int cell = y * width + x;
+			if (cell == target) {
+				return cell;
+			}
+			if (dx == 0 || dy == 0) {
+				return jumpStraight(x, y, dx, dy);
+			}
+			if (jumpStraight(x + dx, y, dx, 0) >= 0 ||
+					jumpStraight(x, y + dy, 0, dy) >= 0) {
+				return cell;
+			}
+			if (!grid.isWalkable(x + dx, y) || !grid.isWalkable(x, y + dy)) {
+				return -1;
+			}
+			x += dx;
+			y += dy;
+		}
+	}
+
+	/**
+	 * Moves from the provided walkable cell along an axis until a jump point is
+	 * found, returning it, or -1 if a wall or the edge is reached first. A cell
+	 * is a jump point if a cell beside it is walkable but the one behind that
+	 * is not, as only there might a path have to turn.
+	 *
+	 * @param x  The x coordinate of the first cell to test
+	 * @param y  The y coordinate of the first cell to test
+	 * @param dx The x direction
+	 * @param dy The y direction
+	 *
+	 * @return The jump point, or -1
+	 */
+	private int jumpStraight(int x, int y, int dx, int dy) {
+		int sx = dy != 0 ? 1 : 0, sy = dx != 0 ? 1 : 0;
+		int tx = target % width, ty = target / width;
+		for (;;) {
+			long open = grid.getRun(x, y, dx, dy);
+			long stops = ~open |
+									 grid.getRun(x + sx, y + sy, dx, dy) &
+									 ~grid.getRun(x + sx - dx, y + sy - dy, dx, dy) |
+									 grid.getRun(x - sx, y - sy, dx, dy) &
+									 ~grid.getRun(x - sx - dx, y - sy - dy, dx, dy);
+			// The steps along the line to the target, if it lies ahead on it.
+			int t = dx != 0 ? (ty == y ? (tx - x) * dx : -1) :
+							(tx == x ? (ty - y) * dy : -1);
+			int k = Long.numberOfTrailingZeros(stops);
+			if (t >= 0 && t <= k && t < 64) {
+				return target;
+			}
+			if (k < 64) {
+				return (open & (1L << k)) == 0L ? -1 : (y + k * dy) * width + x + k *
+																																			dx;
+			}
+			x += 64 * dx;
+			y += 64 * dy;
+		}
+	}
+
+	/**
+	 * Starts a new generation, growing the scratch arrays if needed.
+	 *
+	 * @param count The cell count
+	 */
+	private void prepare(int count) {
+		if (count > stamps.length) {
+			costs = new double[count];
+			parents = new int[count];
+			stamps = new int[count];
+			generation = 0;
+			frontier.ensureCapacity(count);
+		}
+		if (++generation == 0) {
+			Arrays.fill(stamps, 0);
+			generation = 1;
+		}
+	}
+
+	/**
+	 * Jumps from the provided cell in the provided direction if the first step
+	 * is open, adding the jump point found to the frontier if it is reached
+	 * more cheaply than before.
+	 */
+	private void successor(int node, int x, int y, int dx, int dy, boolean open) {
+		if (!open) {
+			return;
+		}
+		int next = jump(x + dx, y + dy, dx, dy);
+		if (next < 0) {
+			return;
+		}
+		double cost = costs[node] + grid.getEstimate(node, next);
+		if (stamps[next] != generation || cost < costs[next]) {
+			visit(next, cost, node);
+			frontier.push(next, cost + grid.getEstimate(next, target));
+		}
+	}
+
+	private void visit(int node, double cost, int parent) {
+		stamps[node] = generation;
+		costs[node] = cost;
+		parents[node] = parent;
+	}
+}
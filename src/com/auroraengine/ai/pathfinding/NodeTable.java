@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.ai.pathfinding;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * Numbers the node objects met during a search from zero in the order they
+ * are added, so that their costs and parents may be kept in arrays. Nodes
+ * are found by <code>hashCode</code> and <code>equals</code> in an open
+ * addressed table which, like the arrays, is kept from one search to the
+ * next, so numbering nodes creates no objects once it has grown to fit.
+ *
+ * @author LittleRover
+ */
+final class NodeTable {
+	private static final Logger LOG = AuroraLogs.getLogger(NodeTable.class
+					.getName());
+
+	NodeTable() {
+		Arrays.fill(slots, -1);
+	}
+	private Object[] nodes = new Object[64];
+	private int size;
+	private int[] slots = new int[128];
+
+	/**
+	 * Numbers the provided node, which must not already be numbered, and
+	 * returns its number.
+	 */
+	int add(Object node) {
+		if (size == nodes.length) {
+			nodes = Arrays.copyOf(nodes, size * 2);
+		}
+		if (size * 2 >= slots.length) {
+			grow();
+		}
+		int mask = slots.length - 1;
+		int s = mix(node.hashCode()) & mask;
+		while (slots[s] >= 0) {
+			s = (s + 1) & mask;
+		}
+		slots[s] = size;
+		nodes[size] = node;
+		return size++;
+	}
+
+	/**
+	 * Forgets every node numbered, clearing only the slots they used.
+	 */
+	void clear() {
+		int mask = slots.length - 1;
+		for (int i = 0; i < size; i++) {
+			int s = mix(nodes[i].hashCode()) & mask;
+			while (slots[s] >= 0) {
+				slots[s] = -1;
+				s = (s + 1) & mask;
+			}
+			nodes[i] = null;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Returns the node with the provided number.
+	 */
+	Object get(int id) {
+		return nodes[id];
+	}
+
+	/**
+	 * Returns the number of the provided node, or -1 if it is not numbered.
+	 */
+	int indexOf(Object node) {
+		int mask = slots.length - 1;
+		int s = mix(node.hashCode()) & mask;
+		for (int id = slots[s]; id >= 0; id = slots[s]) {
+			Object other = nodes[id];
+			if (other == node || other.equals(node)) {
+				return id;
+			}
+			s = (s + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the number of nodes numbered.
+	 */
+	int size() {
+		return size;
+	}
+
+	private static int mix(int h) {
+		h *= 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private void grow() {
+		slots = new int[slots.length * 2];
+		Arrays.fill(slots, -1);
+		int mask = slots.length - 1;
+		for (int i = 0; i < size; i++) {
+			int s = mix(nodes[i].hashCode()) & mask;
+			while (slots[s] >= 0) {
+				s = (s + 1) & mask;
+			}
+			slots[s] = i;
+		}
+	}
+}
@@ -0,0 +1,421 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.ai.pathfinding;
+
+import com.auroraengine.debug.AuroraException;
+import com.auroraengine.debug.AuroraLogs;
+import com.auroraengine.threading.JobGraph;
+import com.auroraengine.threading.JobScheduler;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Answers path queries in batches, once per tick, rather than on the thread
+ * asking. Queries are queued by <code>submit</code> and solved by
+ * <code>update</code>, which shares the queue between the workers of a
+ * <code>JobScheduler</code> until the queue is empty or the budget for the
+ * tick has been spent, leaving the rest for the next tick. At least one query
+ * is solved each tick however small the budget, so every query is solved in
+ * time. The same query submitted more than once before it is solved is only
+ * solved once.
+ *
+ * Paths found are cached by start, end and the class of the taker, so the
+ * pathfinder must give the same path to every taker of the same class. The
+ * cache is cleared whenever the provided version changes, such as the
+ * modification count of a <code>WalkableGrid</code>, or when
+ * <code>invalidate</code> is called.
+ *
+ * Futures are completed, and so callbacks run, on the thread calling
+ * <code>update</code>, or on the thread calling <code>submit</code> if the
+ * path was cached. The pathfinder is called from the workers in parallel, so
+ * must be thread safe, as <code>GraphPathfinder</code> and
+ * <code>GridPathfinder</code> are. The service itself is not thread safe.
+ *
+ * @author LittleRover
+ * @param <T> The taker of the path
+ * @param <K> The cost being evaluated
+ */
+public final class PathService<T, K extends IPathCost> {
+	private static final Logger LOG = AuroraLogs.getLogger(PathService.class
+					.getName());
+	/**
+	 * The number of paths cached by default.
+	 */
+	public static final int DEFAULT_CACHE_SIZE = 4096;
+	/**
+	 * The number of the most recent solve times kept for the percentiles.
+	 */
+	public static final int MAX_SAMPLES = 1024;
+
+	/**
+	 * Creates a new service solving with the provided pathfinder on the shared
+	 * scheduler, with the default cache size.
+	 *
+	 * @param finder  The pathfinder
+	 * @param version Returns a number that changes whenever paths may have
+	 *                changed, or null if only <code>invalidate</code> is used
+	 */
+	public PathService(IPathFinder<T, K> finder, LongSupplier version) {
+		this(finder, version, JobScheduler.getShared(), DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * Creates a new service solving with the provided pathfinder on the
+	 * provided scheduler, caching up to the provided number of paths.
+	 *
+	 * @param finder     The pathfinder
+	 * @param version    Returns a number that changes whenever paths may have
+	 *                   changed, or null if only <code>invalidate</code> is
+	 *                   used
+	 * @param scheduler  The scheduler to solve on
+	 * @param cache_size The number of paths cached
+	 */
+	public PathService(IPathFinder<T, K> finder, LongSupplier version,
+										 JobScheduler scheduler, int cache_size) {
+		if (finder == null) {
+			throw new NullPointerException("Finder is Null!");
+		}
+		if (scheduler == null) {
+			throw new NullPointerException("Scheduler is Null!");
+		}
+		if (cache_size < 0) {
+			throw new IllegalArgumentException("Cache size must be non-negative! " +
+																				 "Found " + cache_size + ".");
+		}
+		this.finder = finder;
+		this.version = version;
+		this.scheduler = scheduler;
+		this.cache = new LinkedHashMap<Key, List<IPathNode<T, K>>>(16, 0.75f,
+																																true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+							Map.Entry<Key, List<IPathNode<T, K>>> eldest) {
+				return size() > cache_size;
+			}
+		};
+		this.last_version = version != null ? version.getAsLong() : 0L;
+		for (int i = 0; i < scheduler.getParallelism(); i++) {
+			jobs.add(this::solve);
+		}
+	}
+	private final LinkedHashMap<Key, List<IPathNode<T, K>>> cache;
+	private final AtomicInteger claimed = new AtomicInteger();
+	private volatile long deadline;
+	private final IPathFinder<T, K> finder;
+	private long hits;
+	private final JobGraph jobs = new JobGraph();
+	private long last_version;
+	private long misses;
+	private final HashMap<Key, Request<T, K>> pending = new HashMap<>();
+	private final ArrayList<Request<T, K>> queue = new ArrayList<>();
+	private final long[] samples = new long[MAX_SAMPLES];
+	private final JobScheduler scheduler;
+	private long solved;
+	private final LongSupplier version;
+
+	/**
+	 * Returns the share of queries answered from the cache.
+	 *
+	 * @return The hit rate, from zero to one
+	 */
+	public double getHitRate() {
+		long total = hits + misses;
+		return total == 0L ? 0.0 : (double) hits / total;
+	}
+
+	/**
+	 * Returns the number of queries answered from the cache.
+	 *
+	 * @return The hit count
+	 */
+	public long getHitCount() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of queries not answered from the cache, including
+	 * those joining a query already queued.
+	 *
+	 * @return The miss count
+	 */
+	public long getMissCount() {
+		return misses;
+	}
+
+	/**
+	 * Returns the number of queries waiting to be solved.
+	 *
+	 * @return The queue depth
+	 */
+	public int getQueueDepth() {
+		return queue.size();
+	}
+
+	/**
+	 * Returns the number of queries solved so far.
+	 *
+	 * @return The solved count
+	 */
+	public long getSolvedCount() {
+		return solved;
+	}
+
+	/**
+	 * Returns the provided percentile of the time taken to solve the most
+	 * recent queries, in nanoseconds.
+	 *
+	 * @param percentile The percentile, from zero to one
+	 *
+	 * @return The solve time, or zero if nothing has been solved
+	 */
+	public long getSolveTime(double percentile) {
+		if (percentile < 0.0 || percentile > 1.0) {
+			throw new IllegalArgumentException("Percentile must be between zero " +
+																				 "and one! Found " + percentile + ".");
+		}
+		int count = (int) Math.min(solved, MAX_SAMPLES);
+		if (count == 0) {
+			return 0L;
+		}
+		long[] sorted = Arrays.copyOf(samples, count);
+		Arrays.sort(sorted);
+		return sorted[(int) Math.min(count - 1, (long) (percentile * count))];
+	}
+
+	/**
+	 * Empties the cache, to be called whenever paths may have changed in a way
+	 * the version does not show.
+	 */
+	public void invalidate() {
+		cache.clear();
+	}
+
+	/**
+	 * Queues a query for a path between the provided nodes for the provided
+	 * taker, then returns a future completed with the path, or with null if
+	 * there is none.
+	 *
+	 * @param taker The taker of the path
+	 * @param start The start node
+	 * @param end   The end node
+	 *
+	 * @return The future path
+	 */
+	public CompletableFuture<List<IPathNode<T, K>>> submit(T taker,
+																												 IPathNode<T, K> start,
+																												 IPathNode<T, K> end) {
+		if (start == null || end == null) {
+			throw new NullPointerException("Node is Null!");
+		}
+		checkVersion();
+		Key key = new Key(taker == null ? null : taker.getClass(), start, end);
+		List<IPathNode<T, K>> path = cache.get(key);
+		if (path != null || cache.containsKey(key)) {
+			hits++;
+			return CompletableFuture.completedFuture(path);
+		}
+		misses++;
+		Request<T, K> request = pending.get(key);
+		if (request == null) {
+			request = new Request<>(key, taker, start, end);
+			pending.put(key, request);
+			queue.add(request);
+		}
+		return request.future;
+	}
+
+	/**
+	 * Queues a query for a path between the provided nodes for the provided
+	 * taker, calling the provided callback with the path, or with null if there
+	 * is none, once solved.
+	 *
+	 * @param taker    The taker of the path
+	 * @param start    The start node
+	 * @param end      The end node
+	 * @param callback The callback
+	 */
+	public void submit(T taker, IPathNode<T, K> start, IPathNode<T, K> end,
+										 Consumer<? super List<IPathNode<T, K>>> callback) {
+		if (callback == null) {
+			throw new NullPointerException("Callback is Null!");
+		}
+		submit(taker, start, end).thenAccept(callback);
+	}
+
+	/**
+	 * Solves queued queries in parallel until none are left or the provided
+	 * time has been spent, then completes the futures of those solved. A query
+	 * already started when the time runs out is still finished, and the first
+	 * is always started, so a budget of zero solves at least one query.
+	 *
+	 * @param budget The time to spend in nanoseconds, which must not be
+	 *               negative
+	 *
+	 * @return The number of queries solved
+	 *
+	 * @throws AuroraException If the pathfinder failed
+	 */
+	public int update(long budget)
+					throws AuroraException {
+		if (budget < 0L) {
+			throw new IllegalArgumentException("Budget must be non-negative! " +
+																				 "Found " + budget + ".");
+		}
+		checkVersion();
+		if (queue.isEmpty()) {
+			return 0;
+		}
+		deadline = System.nanoTime() + budget;
+		claimed.set(0);
+		int count = 0;
+		try {
+			if (queue.size() == 1 || jobs.size() == 1) {
+				solve();
+			} else {
+				scheduler.invoke(jobs);
+			}
+		} finally {
+			count = Math.min(claimed.get(), queue.size());
+			finish(count);
+		}
+		return count;
+	}
+
+	/**
+	 * Clears the cache if the version has changed since it was last read.
+	 */
+	private void checkVersion() {
+		if (version != null) {
+			long v = version.getAsLong();
+			if (v != last_version) {
+				last_version = v;
+				cache.clear();
+				LOG.log(Level.FINE, "Path cache cleared at version {0}", v);
+			}
+		}
+	}
+
+	/**
+	 * Completes and removes the provided number of queries from the front of
+	 * the queue.
+	 */
+	private void finish(int count) {
+		for (int i = 0; i < count; i++) {
+			Request<T, K> request = queue.get(i);
+			pending.remove(request.key);
+			samples[(int) (solved++ % MAX_SAMPLES)] = request.duration;
+			if (request.failure != null) {
+				request.future.completeExceptionally(request.failure);
+				continue;
+			}
+			List<IPathNode<T, K>> path = request.path == null ? null : Collections
+							.unmodifiableList(request.path);
+			cache.put(request.key, path);
+			request.future.complete(path);
+		}
+		queue.subList(0, count).clear();
+	}
+
+	/**
+	 * Claims and solves queries from the queue until it is empty or the
+	 * deadline has passed, claiming at least one even if it already has. This
+	 * is run by every worker at once.
+	 */
+	private void solve() {
+		int count = queue.size();
+		// Compared by difference, as the deadline of a large budget overflows.
+		while (claimed.get() == 0 || System.nanoTime() - deadline < 0L) {
+			int i = claimed.getAndIncrement();
+			if (i >= count) {
+				return;
+			}
+			Request<T, K> request = queue.get(i);
+			long start = System.nanoTime();
+			try {
+				request.path = finder.getPath(request.taker, request.start,
+																			request.end);
+			} catch (RuntimeException ex) {
+				request.failure = ex;
+			}
+			request.duration = System.nanoTime() - start;
+		}
+	}
+
+	/**
+	 * The start, end and class of taker identifying a cached path.
+	 */
+	private static final class Key {
+		Key(Class<?> taker, Object start, Object end) {
+			this.taker = taker;
+			this.start = start;
+			this.end = end;
+		}
+		final Object end;
+		final Object start;
+		final Class<?> taker;
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key k = (Key) o;
+			return taker == k.taker && start.equals(k.start) && end.equals(k.end);
+		}
+
+		@Override
+		public int hashCode() {
+			return (Objects.hashCode(taker) * 31 + start.hashCode()) * 31 + end
+							.hashCode();
+		}
+	}
+
+	/**
+	 * A query waiting to be solved.
+	 */
+	private static final class Request<T, K extends IPathCost> {
+		Request(Key key, T taker, IPathNode<T, K> start, IPathNode<T, K> end) {
+			this.key = key;
+			this.taker = taker;
+			this.start = start;
+			this.end = end;
+		}
+		long duration;
+		final IPathNode<T, K> end;
+		RuntimeException failure;
+		final CompletableFuture<List<IPathNode<T, K>>> future
+																									 = new CompletableFuture<>();
+		final Key key;
+		List<IPathNode<T, K>> path;
+		final IPathNode<T, K> start;
+		final T taker;
+	}
+}
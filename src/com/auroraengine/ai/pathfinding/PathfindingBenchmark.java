@@ -0,0 +1,274 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.ai.pathfinding;
+
+import com.auroraengine.debug.Allocations;
+import com.auroraengine.debug.AuroraLogs;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Compares the primitive <code>AStarSearch</code> and
+ * <code>JumpPointSearch</code> with the object based
+ * <code>AStarPathfinder</code> on square grids with scattered walls. Each
+ * grid is searched between the same random pairs of open cells by each, and
+ * the time per path, the nodes expanded, and the number of paths whose cost
+ * differs from that of <code>AStarSearch</code> are reported. The object
+ * based pathfinder is run with both object and double costs, reporting the
+ * bytes allocated per path as well, and is skipped on grids too large to
+ * hold a node object per cell.
+ *
+ * Arguments, all optional, in order: queries per grid, greatest distance
+ * between the ends of a path in cells, share of cells walled, then the grid
+ * sizes.
+ *
+ * @author LittleRover
+ */
+public final class PathfindingBenchmark {
+	private static final Logger LOG = AuroraLogs.getLogger(
+					PathfindingBenchmark.class.getName());
+	private static final int MAX_OBJECT_GRID = 1 << 20;
+	private static final int PASSES = 5;
+
+	/**
+	 * Runs the benchmark described by the provided arguments.
+	 *
+	 * @param args The arguments
+	 */
+	@SuppressWarnings("UseOfSystemOutOrSystemErr")
+	public static void main(String[] args) {
+		int queries = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		int range = args.length > 1 ? Integer.parseInt(args[1]) : 128;
+		double walls = args.length > 2 ? Double.parseDouble(args[2]) : 0.2;
+		int[] sizes = {256, 1024, 4096};
+		if (args.length > 3) {
+			sizes = new int[args.length - 3];
+			for (int i = 0; i < sizes.length; i++) {
+				sizes[i] = Integer.parseInt(args[i + 3]);
+			}
+		}
+		for (int size : sizes) {
+			System.out.println(run(size, queries, range, walls));
+		}
+	}
+
+	private static String run(int size, int queries, int range, double walls) {
+		Random random = new Random(size);
+		WalkableGrid grid = new WalkableGrid(new int[2], new int[]{size, size});
+		for (int i = 0; i < grid.getNodeCount(); i++) {
+			grid.setWalkable(i, random.nextDouble() >= walls);
+		}
+		int[] starts = new int[queries], ends = new int[queries];
+		for (int q = 0; q < queries; q++) {
+			int s, e;
+			do {
+				s = random.nextInt(size * size);
+				int x = s % size + random.nextInt(2 * range + 1) - range;
+				int y = s / size + random.nextInt(2 * range + 1) - range;
+				e = x < 0 || y < 0 || x >= size || y >= size ? s : y * size + x;
+			} while (s == e || !grid.isWalkable(s) || !grid.isWalkable(e));
+			starts[q] = s;
+			ends[q] = e;
+		}
+		AStarSearch search = AStarSearch.get();
+		double[] costs = new double[queries];
+		// Warms up, then times the last pass.
+		long time = 0L;
+		int found = 0;
+		long expanded = 0L;
+		for (int pass = 0; pass < PASSES; pass++) {
+			found = 0;
+			expanded = 0L;
+			long start = System.nanoTime();
+			for (int q = 0; q < queries; q++) {
+				if (search.search(grid, starts[q], ends[q])) {
+					found++;
+					costs[q] = search.getCost();
+				} else {
+					costs[q] = Double.POSITIVE_INFINITY;
+				}
+				expanded += search.getExpandedCount();
+			}
+			time = System.nanoTime() - start;
+		}
+		String result = String.format(
+						"%d^2 grid, %d queries, %d found:%n  primitive %.1f us per path, " +
+						"%d expanded", size, queries, found, time / 1E3 / queries,
+						expanded / queries);
+		JumpPointSearch jps = JumpPointSearch.get();
+		int mismatches = 0;
+		for (int pass = 0; pass < PASSES; pass++) {
+			mismatches = 0;
+			expanded = 0L;
+			long start = System.nanoTime();
+			for (int q = 0; q < queries; q++) {
+				double cost = jps.search(grid, starts[q], ends[q]) ? jps.getCost() :
+											Double.POSITIVE_INFINITY;
+				if (cost != costs[q] && !(Math.abs(cost - costs[q]) < 1E-6)) {
+					mismatches++;
+				}
+				expanded += jps.getExpandedCount();
+			}
+			time = System.nanoTime() - start;
+		}
+		result += String.format("%n  jump point %.1f us per path, %d expanded, " +
+														"%d mismatches", time / 1E3 / queries, expanded /
+																																	 queries,
+														mismatches);
+		if (size * size > MAX_OBJECT_GRID) {
+			return result + String.format("%n  object skipped");
+		}
+		GridNode[] nodes = new GridNode[size * size];
+		for (int i = 0; i < nodes.length; i++) {
+			nodes[i] = new GridNode(grid, nodes, i);
+		}
+		result += runObjects("object", nodes, starts, ends, costs);
+		for (int i = 0; i < nodes.length; i++) {
+			nodes[i] = new DoubleGridNode(grid, nodes, i);
+		}
+		return result + runObjects("double", nodes, starts, ends, costs);
+	}
+
+	private static String runObjects(String name, GridNode[] nodes, int[] starts,
+																	 int[] ends, double[] costs) {
+		AStarPathfinder<Object, Distance> pathfinder = new AStarPathfinder<>();
+		int queries = starts.length, mismatches = 0;
+		long time = 0L, allocated = 0L;
+		for (int pass = 0; pass < PASSES; pass++) {
+			mismatches = 0;
+			long bytes = Allocations.getAllocatedBytes();
+			long start = System.nanoTime();
+			for (int q = 0; q < queries; q++) {
+				if (costs[q] == Double.POSITIVE_INFINITY) {
+					// The object pathfinder cannot report a missing path.
+					continue;
+				}
+				List<IPathNode<Object, Distance>> path = pathfinder.getPath(null,
+																																		nodes[starts[q]],
+																																		nodes[ends[q]]);
+				double cost = 0.0;
+				for (int i = 1; i < path.size(); i++) {
+					cost += path.get(i - 1).getMoveCost(null, path.get(i)).value;
+				}
+				if (Math.abs(cost - costs[q]) > 1E-6) {
+					mismatches++;
+				}
+			}
+			time = System.nanoTime() - start;
+			allocated = Allocations.getAllocatedBytes() - bytes;
+		}
+		return String.format("%n  %s %.1f us per path, %d bytes allocated per " +
+												 "path, %d mismatches", name, time / 1E3 / queries,
+												 allocated / queries, mismatches);
+	}
+
+	private PathfindingBenchmark() {
+	}
+
+	/**
+	 * A cell of the grid with double costs as well.
+	 */
+	private static final class DoubleGridNode extends GridNode implements
+					IDoublePathNode<Object, Distance> {
+		DoubleGridNode(WalkableGrid grid, GridNode[] nodes, int index) {
+			super(grid, nodes, index);
+		}
+
+		@Override
+		public double getMoveCostD(Object walker,
+															 IPathNode<Object, Distance> to) {
+			return grid.getEstimate(index, ((GridNode) to).index);
+		}
+	}
+
+	/**
+	 * A cell of the grid as a node for the object based pathfinder, which
+	 * finds its neighbours once as the grid does not change.
+	 */
+	private static class GridNode implements IPathNode<Object, Distance> {
+		GridNode(WalkableGrid grid, GridNode[] nodes, int index) {
+			this.grid = grid;
+			this.nodes = nodes;
+			this.index = index;
+		}
+		final WalkableGrid grid;
+		final int index;
+		private List<IPathNode<Object, Distance>> neighbours;
+		final GridNode[] nodes;
+
+		@Override
+		public Distance getMoveCost(Object walker, IPathNode<Object, Distance> to) {
+			return new Distance(grid.getEstimate(index, ((GridNode) to).index));
+		}
+
+		@Override
+		public List<IPathNode<Object, Distance>> getNeighbours() {
+			if (neighbours == null) {
+				int[] ids = new int[8];
+				int n = grid.getNeighbours(index, ids, new double[8]);
+				ArrayList<IPathNode<Object, Distance>> list = new ArrayList<>(n);
+				for (int i = 0; i < n; i++) {
+					list.add(nodes[ids[i]]);
+				}
+				neighbours = list;
+			}
+			return neighbours;
+		}
+	}
+
+	/**
+	 * A path cost that is a distance.
+	 */
+	private static final class Distance implements IPathCost {
+		Distance(double value) {
+			this.value = value;
+		}
+		final double value;
+
+		@Override
+		public IPathCost add(IPathCost cost) {
+			return new Distance(value + ((Distance) cost).value);
+		}
+
+		@Override
+		public boolean isEqualTo(IPathCost cost) {
+			return cost != null && value == ((Distance) cost).value;
+		}
+
+		@Override
+		public boolean isGreaterThan(IPathCost cost) {
+			return cost != null && value > ((Distance) cost).value;
+		}
+
+		@Override
+		public boolean isLessThan(IPathCost cost) {
+			return cost != null && value < ((Distance) cost).value;
+		}
+
+		@Override
+		public IPathCost minus(IPathCost cost) {
+			return new Distance(value - ((Distance) cost).value);
+		}
+
+		@Override
+		public int signum() {
+			return (int) Math.signum(value);
+		}
+	}
+}
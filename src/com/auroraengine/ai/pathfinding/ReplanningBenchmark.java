@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.ai.pathfinding;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Compares keeping a path up to date with <code>DStarLite</code> against
+ * searching again with <code>AStarSearch</code>, for an agent walking across
+ * a square map of scattered rectangular walls while cells are toggled at
+ * random. Each step some cells anywhere on the map are toggled, and one of
+ * the next few cells along the path is walled off so that every replan has
+ * something to repair. Reports the time and cells expanded per replan, and
+ * how many replans disagreed on the cost.
+ *
+ * Arguments, all optional, in order: map size, steps, cells toggled per step,
+ * share of the map walled.
+ *
+ * @author LittleRover
+ */
+public final class ReplanningBenchmark {
+	private static final Logger LOG = AuroraLogs.getLogger(
+					ReplanningBenchmark.class.getName());
+	private static final int AHEAD = 8;
+
+	/**
+	 * Runs the benchmark described by the provided arguments.
+	 *
+	 * @param args The arguments
+	 */
+	@SuppressWarnings("UseOfSystemOutOrSystemErr")
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+		int steps = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+		int churn = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+		double walls = args.length > 3 ? Double.parseDouble(args[3]) : 0.2;
+
+		Random random = new Random(1L);
+		WalkableGrid grid = new WalkableGrid(new int[2], new int[]{size, size});
+		grid.fill(true);
+		long walled = 0L, target = (long) (walls * size * size);
+		while (walled < target) {
+			int w = 1 + random.nextInt(24), h = 1 + random.nextInt(24);
+			int x0 = random.nextInt(size - w), y0 = random.nextInt(size - h);
+			for (int y = y0; y < y0 + h; y++) {
+				for (int x = x0; x < x0 + w; x++) {
+					int cell = y * size + x;
+					if (grid.isWalkable(cell)) {
+						grid.setWalkable(cell, false);
+						walled++;
+					}
+				}
+			}
+		}
+		// Walks from near one corner to near the other.
+		int start = nearestWalkable(grid, size / 16, size / 16);
+		int goal = nearestWalkable(grid, size - 1 - size / 16, size - 1 - size / 16);
+		DStarLite incremental = new DStarLite(grid);
+		grid.addListener(incremental);
+		AStarSearch full = AStarSearch.get();
+		long[] incremental_times = new long[steps], full_times = new long[steps];
+		long incremental_expanded = 0L, full_expanded = 0L;
+		int[] path = new int[size * size];
+		int count = 0, mismatches = 0, initial = 0;
+		long t = System.nanoTime();
+		incremental.search(start, goal);
+		long initial_time = System.nanoTime() - t;
+		initial = incremental.getExpandedCount();
+		for (int step = 0; step < steps && start != goal; step++) {
+			for (int i = 0; i < churn; i++) {
+				int cell = random.nextInt(size * size);
+				if (cell != start && cell != goal) {
+					grid.setWalkable(cell, !grid.isWalkable(cell));
+				}
+			}
+			// The path is still from the last start, one step behind.
+			int length = incremental.getPathLength();
+			if (length > 3) {
+				incremental.getPath(path);
+				int cell = path[Math.min(length - 2, 2 + random.nextInt(AHEAD))];
+				grid.setWalkable(cell, false);
+			}
+			t = System.nanoTime();
+			boolean found = incremental.search(start, goal);
+			incremental_times[count] = System.nanoTime() - t;
+			incremental_expanded += incremental.getExpandedCount();
+			t = System.nanoTime();
+			boolean expected = full.search(grid, start, goal);
+			full_times[count] = System.nanoTime() - t;
+			full_expanded += full.getExpandedCount();
+			count++;
+			if (found != expected || found && Math.abs(incremental.getCost() - full
+							.getCost()) > 1E-6) {
+				mismatches++;
+			}
+			if (!found) {
+				break;
+			}
+			start = incremental.getNext(start);
+		}
+		Arrays.sort(incremental_times, 0, count);
+		Arrays.sort(full_times, 0, count);
+		System.out.printf("%d^2 map, %d replans with %d cells toggled each, " +
+											"%d disagreeing on cost:%n" +
+											"  D* Lite first search %.1f ms, %d expanded%n" +
+											"  D* Lite replan mean %.1f us, p99 %.1f us, %d expanded%n" +
+											"  A* search mean %.1f us, p99 %.1f us, %d expanded%n",
+											size, count, churn + 1, mismatches, initial_time / 1E6,
+											initial, mean(incremental_times, count) / 1E3,
+											percentile(incremental_times, count, 0.99) / 1E3,
+											count == 0 ? 0L : incremental_expanded / count,
+											mean(full_times, count) / 1E3,
+											percentile(full_times, count, 0.99) / 1E3,
+											count == 0 ? 0L : full_expanded / count);
+	}
+
+	private static double mean(long[] times, int count) {
+		long total = 0L;
+		for (int i = 0; i < count; i++) {
+			total += times[i];
+		}
+		return count == 0 ? 0.0 : (double) total / count;
+	}
+
+	private static int nearestWalkable(WalkableGrid grid, int x, int y) {
+		for (int r = 0;; r++) {
+			for (int dy = -r; dy <= r; dy++) {
+				for (int dx = -r; dx <= r; dx++) {
+					if (x + dx >= 0 && x + dx < grid.getWidth() && y + dy >= 0 && y + dy <
+																															grid.getHeight() &&
+							grid.isWalkable(x + dx, y + dy)) {
+						return grid.getIndex(x + dx, y + dy);
+					}
+				}
+			}
+		}
+	}
+
+	private static long percentile(long[] sorted, int count, double p) {
+		if (count == 0) {
+			return 0L;
+		}
+		return sorted[(int) Math.min(count - 1, (long) (p * count))];
+	}
+
+	private ReplanningBenchmark() {
+	}
+}
@@ -0,0 +1,481 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.ai.pathfinding;
+
+import com.auroraengine.debug.AuroraLogs;
+import com.auroraengine.map.grid.Grid;
+import com.auroraengine.map.grid.GridListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+/**
+ * Records which cells of a box of a two or three dimensional grid may be
+ * walked through, packed one bit to a cell, for the pathfinders to read
+ * without touching the grid's own objects.
+ *
+ * As a graph, moving between neighbouring cells costs one. In two dimensions
+ * a cell may also be left diagonally for a cost of root two, but only when
+ * both cells beside the diagonal are walkable so that paths never cut
+ * corners. In three dimensions only the six faces are neighbours. Cells are
+ * numbered along x, then y, then z. Two dimensional masks also keep a copy
+ * numbered along y first, so that runs of cells in either axis can be read
+ * sixty four at a time.
+ *
+ * @author LittleRover
+ */
+public final class WalkableGrid implements IPathGraph {
+	private static final Logger LOG = AuroraLogs.getLogger(WalkableGrid.class
+					.getName());
+	/**
+	 * The cost of a diagonal move in two dimensions.
+	 */
+	public static final double DIAGONAL_COST = Math.sqrt(2.0);
+
+	/**
+	 * Creates a mask of the provided box of the provided grid, in which a cell
+	 * is walkable if the provided test accepts its object, and keeps it up to
+	 * date as the grid changes. The mask should be removed from the grid with
+	 * <code>Grid.removeListener</code> once it is no longer wanted.
+	 *
+	 * @param <T>      The class of the grid contents
+	 * @param grid     The grid
+	 * @param min      The lowest coordinates of the box
+	 * @param size     The size of the box
+	 * @param walkable The test of whether an object may be walked through
+	 *
+	 * @return The mask
+	 */
+	public static <T> WalkableGrid of(Grid<T> grid, int[] min, int[] size,
+																		Predicate<? super T> walkable) {
+		if (grid.getDimension() != min.length) {
+			throw new IllegalArgumentException("Box is not of the grid dimension! " +
+																				 "Found " + min.length + ".");
+		}
+		WalkableGrid mask = new WalkableGrid(min, size);
+		int[] p = new int[min.length];
+		for (int i = 0; i < mask.count; i++) {
+			mask.getCoordinates(i, p);
+			mask.setWalkable(i, walkable.test(grid.get(p)));
+		}
+		grid.addListener(new GridListener<T>() {
+			@Override
+			public void changed(int[] p, T before, T after) {
+				int i = mask.getIndex(p);
+				if (i >= 0) {
+					mask.setWalkable(i, walkable.test(after));
+				}
+			}
+
+			@Override
+			public void cleared() {
+				mask.fill(walkable.test(null));
+			}
+		});
+		return mask;
+	}
+
+	/**
+	 * Creates a new mask of a box of the specified lowest coordinates and size,
+	 * in which no cell is walkable.
+	 *
+	 * @param min  The lowest coordinates of the box
+	 * @param size The size of the box
+	 */
+	public WalkableGrid(int[] min, int[] size) {
+		if (min.length != size.length) {
+			throw new IllegalArgumentException("Array Lengths are Unequal!");
+		}
+		if (min.length != 2 && min.length != 3) {
+			throw new IllegalArgumentException("Only two or three dimensions are " +
+																				 "supported! Found " + min.length +
+																				 ".");
+		}
+		long cells = 1L;
+		for (int s : size) {
+			if (s < 1) {
+				throw new IllegalArgumentException("Size must be positive! Found " +
+																					 s + ".");
+			}
+			cells *= s;
+		}
+		if (cells > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Too many cells! Found " + cells +
+																				 ".");
+		}
+		this.min = min.clone();
+		this.width = size[0];
+		this.height = size[1];
+		this.depth = size.length > 2 ? size[2] : 1;
+		this.count = (int) cells;
+		this.bits = new long[(count + 63) >>> 6];
+		this.columns = min.length > 2 ? null : new long[bits.length];
+	}
+	private final long[] bits;
+	private final long[] columns;
+	private final int count;
+	private final int depth;
+	private final int height;
+	private final ArrayList<IWalkableListener> listeners = new ArrayList<>(1);
+	private final int[] min;
+	private volatile int modifications;
+	private final int width;
+
+	/**
+	 * Adds a listener to be told of every change to the walkability of the
+	 * grid.
+	 *
+	 * @param listener The listener
+	 */
+	public void addListener(IWalkableListener listener) {
+		if (listener == null) {
+			throw new NullPointerException("Listener is Null!");
+		}
+		listeners.add(listener);
+	}
+
+	/**
+	 * Sets every cell to the provided walkability.
+	 *
+	 * @param walkable If the cells are walkable
+	 */
+	public void fill(boolean walkable) {
+		Arrays.fill(bits, walkable ? -1L : 0L);
+		if (walkable && (count & 63) != 0) {
+			bits[bits.length - 1] = (1L << (count & 63)) - 1L;
+		}
+		if (columns != null) {
+			System.arraycopy(bits, 0, columns, 0, bits.length);
+		}
+		modifications++;
+		for (int i = 0; i < listeners.size(); i++) {
+			listeners.get(i).filled(walkable);
+		}
+	}
+
+	/**
+	 * Writes the grid coordinates of the provided cell into the provided array.
+	 *
+	 * @param cell The cell
+	 * @param p    The array to write the coordinates to
+	 */
+	public void getCoordinates(int cell, int[] p) {
+		p[0] = min[0] + cell % width;
+		p[1] = min[1] + cell / width % height;
+		if (min.length > 2) {
+			p[2] = min[2] + cell / (width * height);
+		}
+	}
+
+	/**
+	 * Returns the depth of the box, which is one in two dimensions.
+	 *
+	 * @return The depth
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Returns the number of dimensions, two or three.
+	 *
+	 * @return The dimension
+	 */
+	public int getDimension() {
+		return min.length;
+	}
+
+	@Override
+	public double getEstimate(int from, int to) {
+		int dx = Math.abs(to % width - from % width);
+		int dy = Math.abs(to / width % height - from / width % height);
+		if (min.length > 2) {
+			return dx + dy + Math.abs(to / (width * height) - from / (width *
+																																height));
+		}
+		return Math.max(dx, dy) + (DIAGONAL_COST - 1.0) * Math.min(dx, dy);
+	}
+
+	/**
+	 * Returns the height of the box.
+	 *
+	 * @return The height
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Returns the cell at the provided local coordinates, or -1 if they are
+	 * outside of the box.
+	 *
+	 * @param x The x coordinate within the box
+	 * @param y The y coordinate within the box
+	 *
+	 * @return The cell, or -1
+	 */
+	public int getIndex(int x, int y) {
+		return x < 0 || y < 0 || x >= width || y >= height || min.length > 2 ?
+					 -1 :
+					 y * width + x;
+	}
+
+	/**
+	 * Returns the cell at the provided local coordinates, or -1 if they are
+	 * outside of the box.
+	 *
+	 * @param x The x coordinate within the box
+	 * @param y The y coordinate within the box
+	 * @param z The z coordinate within the box
+	 *
+	 * @return The cell, or -1
+	 */
+	public int getIndex(int x, int y, int z) {
+		return x < 0 || y < 0 || z < 0 || x >= width || y >= height ||
+					 z >= depth ? -1 : (z * height + y) * width + x;
+	}
+
+	/**
+	 * Returns the cell at the provided grid coordinates, or -1 if they are
+	 * outside of the box.
+	 *
+	 * @param p The grid coordinates
+	 *
+	 * @return The cell, or -1
+	 */
+	public int getIndex(int[] p) {
+		if (p.length != min.length) {
+			throw new IllegalArgumentException("Position is not of the grid " +
+																				 "dimension! Found " + p.length + ".");
+		}
+		return getIndex(p[0] - min[0], p[1] - min[1], p.length > 2 ? p[2] - min[2] :
+																								0);
+	}
+
+	@Override
+	public int getMaxDegree() {
+		return min.length > 2 ? 6 : 8;
+	}
+
+	/**
+	 * Returns the number of times the walkability of the grid has changed,
+	 * which may be compared to tell whether paths found earlier still hold.
+	 *
+	 * @return The modification count
+	 */
+	public int getModificationCount() {
+		return modifications;
+	}
+
+	@Override
+	public int getNeighbours(int node, int[] nodes, double[] costs) {
+		int x = node % width, y = node / width % height, n = 0;
+		if (min.length > 2) {
+			int z = node / (width * height), plane = width * height;
+			if (x > 0 && isWalkable(node - 1)) {
+				nodes[n] = node - 1;
+				costs[n++] = 1.0;
+			}
+			if (x + 1 < width && isWalkable(node + 1)) {
+				nodes[n] = node + 1;
+				costs[n++] = 1.0;
+			}
+			if (y > 0 && isWalkable(node - width)) {
+				nodes[n] = node - width;
+				costs[n++] = 1.0;
+			}
+			if (y + 1 < height && isWalkable(node + width)) {
+				nodes[n] = node + width;
+				costs[n++] = 1.0;
+			}
+			if (z > 0 && isWalkable(node - plane)) {
+				nodes[n] = node - plane;
+				costs[n++] = 1.0;
+			}
+			if (z + 1 < depth && isWalkable(node + plane)) {
+				nodes[n] = node + plane;
+				costs[n++] = 1.0;
+			}
+			return n;
+		}
+		boolean w = isWalkable(x - 1, y), e = isWalkable(x + 1, y);
+		boolean s = isWalkable(x, y - 1), nn = isWalkable(x, y + 1);
+		if (w) {
+			nodes[n] = node - 1;
+			costs[n++] = 1.0;
+		}
+		if (e) {
+			nodes[n] = node + 1;
+			costs[n++] = 1.0;
+		}
+		if (s) {
+			nodes[n] = node - width;
+			costs[n++] = 1.0;
+		}
+		if (nn) {
+			nodes[n] = node + width;
+			costs[n++] = 1.0;
+		}
+		if (w && s && isWalkable(node - width - 1)) {
+			nodes[n] = node - width - 1;
+			costs[n++] = DIAGONAL_COST;
+		}
+		if (e && s && isWalkable(node - width + 1)) {
+			nodes[n] = node - width + 1;
+			costs[n++] = DIAGONAL_COST;
+		}
+		if (w && nn && isWalkable(node + width - 1)) {
+			nodes[n] = node + width - 1;
+			costs[n++] = DIAGONAL_COST;
+		}
+		if (e && nn && isWalkable(node + width + 1)) {
+			nodes[n] = node + width + 1;
+			costs[n++] = DIAGONAL_COST;
+		}
+		return n;
+	}
+
+	@Override
+	public int getNodeCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the width of the box.
+	 *
+	 * @return The width
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Returns true if the provided cell is walkable.
+	 *
+	 * @param cell The cell
+	 *
+	 * @return If walkable
+	 */
+	public boolean isWalkable(int cell) {
+		return (bits[cell >>> 6] & (1L << cell)) != 0L;
+	}
+
+	/**
+	 * Returns true if the cell at the provided local coordinates is walkable,
+	 * or false if they are outside of the box.
+	 *
+	 * @param x The x coordinate within the box
+	 * @param y The y coordinate within the box
+	 *
+	 * @return If walkable
+	 */
+	public boolean isWalkable(int x, int y) {
+		return x >= 0 && y >= 0 && x < width && y < height &&
+					 isWalkable(y * width + x);
+	}
+
+	/**
+	 * Removes a listener added with <code>addListener</code>, returning true if
+	 * it was held.
+	 *
+	 * @param listener The listener
+	 *
+	 * @return If the listener was removed
+	 */
+	public boolean removeListener(IWalkableListener listener) {
+		return listeners.remove(listener);
+	}
+
+	/**
+	 * Sets whether the provided cell is walkable.
+	 *
+	 * @param cell     The cell
+	 * @param walkable If walkable
+	 */
+	public void setWalkable(int cell, boolean walkable) {
+		if (cell < 0 || cell >= count) {
+			throw new IllegalArgumentException("Cell out of range! Found " + cell +
+																				 ".");
+		}
+		long bit = 1L << cell;
+		long word = bits[cell >>> 6];
+		long next = walkable ? word | bit : word & ~bit;
+		if (next != word) {
+			bits[cell >>> 6] = next;
+			if (columns != null) {
+				int c = cell % width * height + cell / width;
+				columns[c >>> 6] = walkable ? columns[c >>> 6] | (1L << c) :
+													 columns[c >>> 6] & ~(1L << c);
+			}
+			modifications++;
+			for (int i = 0; i < listeners.size(); i++) {
+				listeners.get(i).changed(cell, walkable);
+			}
+		}
+	}
+
+	/**
+	 * Returns the walkability of sixty four cells of a two dimensional mask in a
+	 * line, starting at the provided cell and moving one step along an axis at a
+	 * time. Bit k of the result is set if the cell k steps along is walkable, and
+	 * cells outside of the box are not walkable.
+	 *
+	 * @param x  The x coordinate of the first cell
+	 * @param y  The y coordinate of the first cell
+	 * @param dx The x step, which is zero if the y step is not
+	 * @param dy The y step, which is zero if the x step is not
+	 *
+	 * @return The walkability of the line
+	 */
+	long getRun(int x, int y, int dx, int dy) {
+		if (dx > 0) {
+			return getRun(bits, width, height, x, y);
+		} else if (dx < 0) {
+			return Long.reverse(getRun(bits, width, height, x - 63, y));
+		} else if (dy > 0) {
+			return getRun(columns, height, width, y, x);
+		} else {
+			return Long.reverse(getRun(columns, height, width, y - 63, x));
+		}
+	}
+
+	/**
+	 * Returns sixty four bits of a line of the provided bitset, starting at the
+	 * provided position, where bits outside of the lines are zero.
+	 */
+	private static long getRun(long[] words, int length, int lines, int a,
+														 int line) {
+		if (line < 0 || line >= lines) {
+			return 0L;
+		}
+		int lo = Math.max(a, 0), hi = Math.min(a + 64, length);
+		if (lo >= hi) {
+			return 0L;
+		}
+		long start = (long) line * length + lo;
+		int index = (int) (start >>> 6), shift = (int) (start & 63), n = hi - lo;
+		long value = words[index] >>> shift;
+		if (shift != 0 && shift + n > 64) {
+			value |= words[index + 1] << (64 - shift);
+		}
+		if (n < 64) {
+			value &= (1L << n) - 1L;
+		}
+		return value << (lo - a);
+	}
+}
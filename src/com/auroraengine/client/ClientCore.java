@@ -41,6 +41,10 @@ public class ClientCore extends SynchroCore {
 
 	private static final Logger LOG = AuroraLogs.getLogger(ClientCore.class
 					.getName());
+	/**
+	 * The rate in Hz at which the client core checks on its dependent threads.
+	 */
+	public static final double TICK_RATE = 5.0;
 
 	/**
 	 * Creates a client core with the specified program properties and the
@@ -57,6 +61,7 @@ public class ClientCore extends SynchroCore {
 		this.properties = properties;
 		this.session = session;
 		this.glcore = new GLCore(this);
+		setTickRate(TICK_RATE, 0);
 	}
 	private final GLCore glcore;
 	private final ProgramProperties properties;
@@ -94,10 +99,7 @@ public class ClientCore extends SynchroCore {
 	@Override
 	protected void update()
 					throws ClientException {
-		try {
-			Thread.sleep(200);
-		} catch (InterruptedException ex) {
-		}
+
 	}
 
 	/**
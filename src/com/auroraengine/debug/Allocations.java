@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.debug;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.logging.Logger;
+
+/**
+ * Measures the memory allocated by the current thread, for the benchmarks to
+ * report the bytes allocated per operation. This relies on the HotSpot
+ * extension of the thread management bean.
+ *
+ * @author LittleRover
+ */
+public final class Allocations {
+	private static final ThreadMXBean BEAN = ManagementFactory.getThreadMXBean();
+	private static final Logger LOG = AuroraLogs.getLogger(Allocations.class
+					.getName());
+
+	/**
+	 * Returns the total number of bytes allocated so far by the current thread.
+	 * Only differences between calls are meaningful.
+	 *
+	 * @return The bytes allocated
+	 */
+	public static long getAllocatedBytes() {
+		if (!(BEAN instanceof com.sun.management.ThreadMXBean)) {
+			throw new UnsupportedOperationException(
+							"Thread allocation is not measured by this JVM!");
+		}
+		return ((com.sun.management.ThreadMXBean) BEAN).getThreadAllocatedBytes(
+						Thread.currentThread().getId());
+	}
+
+	private Allocations() {
+	}
+}
@@ -18,6 +18,7 @@ package com.auroraengine.entity;
 
 import com.auroraengine.debug.AuroraLogs;
 import com.auroraengine.world.LocalPosition;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 /**
@@ -28,6 +29,7 @@ import java.util.logging.Logger;
  */
 public abstract class Entity {
 	private static final Logger LOG = AuroraLogs.getLogger(Entity.class.getName());
+	private static final AtomicInteger NEXT_ID = new AtomicInteger();
 
 	/**
 	 * Creates a new entity located at the specified position.
@@ -38,6 +40,7 @@ public abstract class Entity {
 		this.pos = new LocalPosition(pos);
 		this.prev_pos = new LocalPosition(pos);
 	}
+	private final int id = NEXT_ID.getAndIncrement();
 	private final LocalPosition pos;
 	private final LocalPosition prev_pos;
 
@@ -67,6 +70,26 @@ public abstract class Entity {
 		return est;
 	}
 
+	/**
+	 * Returns the id of this entity, which is unique within the program and is
+	 * used to refer to the entity over the network.
+	 *
+	 * @return The id
+	 */
+	public final int getId() {
+		return id;
+	}
+
+	/**
+	 * Returns the current position of this entity. This is the object held by
+	 * the entity, so should only be read outside of <code>update()</code>.
+	 *
+	 * @return The position
+	 */
+	public final LocalPosition getPosition() {
+		return pos;
+	}
+
 	/**
 	 * Returns the position of this entity at the last frame.
 	 *
@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.map.grid;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * A toroidal grid holding a bit for every cell, as described by
+ * <code>PackedGrid</code>, packed sixty four to a <code>long</code>. Runs of
+ * cells are filled and copied a word at a time.
+ *
+ * @author LittleRover
+ */
+public final class BitGrid extends PackedGrid {
+	private static final Logger LOG = AuroraLogs.getLogger(BitGrid.class
+					.getName());
+
+	/**
+	 * Returns up to sixty four bits starting at the provided bit index, in the
+	 * low bits of the result.
+	 */
+	private static long readBits(long[] source, int from, int length) {
+		int w = from >>> 6, shift = from & 63;
+		long bits = source[w] >>> shift;
+		if (shift != 0 && shift + length > 64) {
+			bits |= source[w + 1] << -shift;
+		}
+		return length == 64 ? bits : bits & (1L << length) - 1L;
+	}
+
+	/**
+	 * Creates a new two dimensional grid of clear bits of the specified sides,
+	 * each a power of two.
+	 *
+	 * @param width  The size along x
+	 * @param height The size along y
+	 */
+	public BitGrid(int width, int height) {
+		super(width, height, 1, 2);
+		words = new long[(getLength() + 63) >>> 6];
+	}
+
+	/**
+	 * Creates a new three dimensional grid of clear bits of the specified sides,
+	 * each a power of two.
+	 *
+	 * @param width  The size along x
+	 * @param height The size along y
+	 * @param depth  The size along z
+	 */
+	public BitGrid(int width, int height, int depth) {
+		super(width, height, depth, 3);
+		words = new long[(getLength() + 63) >>> 6];
+	}
+	private final long[] words;
+
+	@Override
+	public BitGrid copy() {
+		BitGrid grid = getDimension() == 2 ? new BitGrid(getWidth(), getHeight()) :
+									 new BitGrid(getWidth(), getHeight(), getDepth());
+		System.arraycopy(words, 0, grid.words, 0, words.length);
+		return grid;
+	}
+
+	/**
+	 * Returns the number of set bits in the grid.
+	 *
+	 * @return The number of set bits
+	 */
+	public int count() {
+		int count = 0;
+		for (long word : words) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+	/**
+	 * Sets every cell of a rectangle of the grid, which wraps around the grid,
+	 * to the provided value.
+	 *
+	 * @param x      The lowest x coordinate of the rectangle
+	 * @param y      The lowest y coordinate of the rectangle
+	 * @param width  The size of the rectangle along x
+	 * @param height The size of the rectangle along y
+	 * @param value  The value
+	 */
+	public void fill(int x, int y, int width, int height, boolean value) {
+		fill(x, y, 0, width, height, 1, value);
+	}
+
+	/**
+	 * Sets every cell of a box of the grid, which wraps around the grid, to the
+	 * provided value.
+	 *
+	 * @param x      The lowest x coordinate of the box
+	 * @param y      The lowest y coordinate of the box
+	 * @param z      The lowest z coordinate of the box
+	 * @param width  The size of the box along x
+	 * @param height The size of the box along y
+	 * @param depth  The size of the box along z
+	 * @param value  The value
+	 */
+	public void fill(int x, int y, int z, int width, int height, int depth,
+									 boolean value) {
+		fill(x, y, z, width, height, depth, value ? 1L : 0L);
+	}
+
+	/**
+	 * Sets every cell of the grid to the provided value.
+	 *
+	 * @param value The value
+	 */
+	public void fill(boolean value) {
+		fillRange(0, getLength(), value ? 1L : 0L);
+	}
+
+	/**
+	 * Returns the value of the cell at the provided coordinates.
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 *
+	 * @return The value
+	 */
+	public boolean get(int x, int y) {
+		return getAt(getIndex(x, y));
+	}
+
+	/**
+	 * Returns the value of the cell at the provided coordinates.
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @param z The z coordinate
+	 *
+	 * @return The value
+	 */
+	public boolean get(int x, int y, int z) {
+		return getAt(getIndex(x, y, z));
+	}
+
+	/**
+	 * Returns the value of the cell of the provided index, as given by
+	 * <code>getIndex</code>.
+	 *
+	 * @param index The index
+	 *
+	 * @return The value
+	 */
+	public boolean getAt(int index) {
+		return (words[index >>> 6] & 1L << index) != 0L;
+	}
+
+	/**
+	 * Sets the value of the cell at the provided coordinates.
+	 *
+	 * @param x     The x coordinate
+	 * @param y     The y coordinate
+	 * @param value The value
+	 */
+	public void set(int x, int y, boolean value) {
+		setAt(getIndex(x, y), value);
+	}
+
+	/**
+	 * Sets the value of the cell at the provided coordinates.
+	 *
+	 * @param x     The x coordinate
+	 * @param y     The y coordinate
+	 * @param z     The z coordinate
+	 * @param value The value
+	 */
+	public void set(int x, int y, int z, boolean value) {
+		setAt(getIndex(x, y, z), value);
+	}
+
+	/**
+	 * Sets the value of the cell of the provided index, as given by
+	 * <code>getIndex</code>.
+	 *
+	 * @param index The index
+	 * @param value The value
+	 */
+	public void setAt(int index, boolean value) {
+		if (value) {
+			words[index >>> 6] |= 1L << index;
+		} else {
+			words[index >>> 6] &= ~(1L << index);
+		}
+	}
+
+	@Override
+	void copyRange(PackedGrid src, int from, int to, int length) {
+		long[] source = ((BitGrid) src).words;
+		while (length > 0) {
+			// Write up to the end of the current word of this grid.
+			int run = Math.min(length, 64 - (to & 63));
+			long bits = readBits(source, from, run);
+			long mask = (run == 64 ? -1L : (1L << run) - 1L) << to;
+			int w = to >>> 6;
+			words[w] = words[w] & ~mask | bits << to & mask;
+			from += run;
+			to += run;
+			length -= run;
+		}
+	}
+
+	@Override
+	void fillRange(int from, int to, long value) {
+		if (from >= to) {
+			return;
+		}
+		long fill = value != 0L ? -1L : 0L;
+		int first = from >>> 6, last = (to - 1) >>> 6;
+		long head = -1L << from, tail = -1L >>> -to;
+		if (first == last) {
+			long mask = head & tail;
+			words[first] = words[first] & ~mask | fill & mask;
+			return;
+		}
+		words[first] = words[first] & ~head | fill & head;
+		Arrays.fill(words, first + 1, last, fill);
+		words[last] = words[last] & ~tail | fill & tail;
+	}
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.map.grid;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.logging.Logger;
+
+/**
+ * The cells of a chunk of a <code>ChunkedGrid</code>. A chunk holds a palette
+ * of the distinct values in it and packs the index into the palette of every
+ * cell into as few bits as the palette needs, none at all while the chunk
+ * holds a single value. Once the palette outgrows <code>MAX_BITS</code> the
+ * values are held directly instead.
+ *
+ * @author LittleRover
+ */
+final class Chunk {
+	private static final Logger LOG = AuroraLogs.getLogger(Chunk.class
+					.getName());
+	static final int MAX_BITS = 8;
+
+	/**
+	 * Creates a new chunk of the specified number of cells, all of the provided
+	 * value.
+	 *
+	 * @param key    The key of the chunk in its grid
+	 * @param length The number of cells
+	 * @param value  The value
+	 */
+	Chunk(long key, int length, int value) {
+		this.key = key;
+		this.length = length;
+		palette = new int[]{value};
+		palette_size = 1;
+	}
+	private int bits;
+	private long[] data;
+	private int[] direct;
+	final long key;
+	private final int length;
+	/**
+	 * The neighbours in the order of use of the grid.
+	 */
+	Chunk newer, older;
+	private int[] palette;
+	private int palette_size;
+
+	/**
+	 * Returns the value of the cell of the provided index.
+	 *
+	 * @param index The index
+	 *
+	 * @return The value
+	 */
+	int get(int index) {
+		if (direct != null) {
+			return direct[index];
+		}
+		if (bits == 0) {
+			return palette[0];
+		}
+		int bit = index * bits;
+		return palette[(int) (data[bit >>> 6] >>> bit) & (1 << bits) - 1];
+	}
+
+	/**
+	 * Returns the approximate number of bytes used by the chunk.
+	 *
+	 * @return The number of bytes
+	 */
+	long getMemory() {
+		long bytes = 48L + 16L + 4L * palette.length;
+		if (data != null) {
+			bytes += 16L + 8L * data.length;
+		}
+		if (direct != null) {
+			bytes += 16L + 4L * direct.length;
+		}
+		return bytes;
+	}
+
+	/**
+	 * Returns the values of every cell.
+	 *
+	 * @return The values
+	 */
+	int[] getValues() {
+		int[] values = new int[length];
+		for (int i = 0; i < length; i++) {
+			values[i] = get(i);
+		}
+		return values;
+	}
+
+	/**
+	 * Returns true if every cell holds the provided value, as far as the
+	 * palette shows without reading the cells.
+	 *
+	 * @param value The value
+	 *
+	 * @return If the chunk is all of the value
+	 */
+	boolean isUniform(int value) {
+		return direct == null && bits == 0 && palette[0] == value;
+	}
+
+	/**
+	 * Packs the cells again into as few bits as their values need, dropping the
+	 * values no longer used, unless they are held directly and still too many.
+	 */
+	void pack() {
+		int[] values = getValues();
+		int[] distinct = new int[(1 << MAX_BITS) + 1];
+		int count = 0;
+		for (int value : values) {
+			int i = 0;
+			while (i < count && distinct[i] != value) {
+				i++;
+			}
+			if (i == count) {
+				if (count == distinct.length) {
+					return;
+				}
+				distinct[count++] = value;
+			}
+		}
+		if (count > 1 << MAX_BITS) {
+			return;
+		}
+		bits = 0;
+		data = null;
+		direct = null;
+		palette = new int[]{values[0]};
+		palette_size = 1;
+		for (int i = 0; i < length; i++) {
+			set(i, values[i]);
+		}
+	}
+
+	/**
+	 * Sets the value of the cell of the provided index.
+	 *
+	 * @param index The index
+	 * @param value The value
+	 */
+	void set(int index, int value) {
+		if (direct != null) {
+			direct[index] = value;
+			return;
+		}
+		int entry = indexOf(value);
+		if (entry < 0) {
+			if (palette_size == 1 << bits && !compact()) {
+				grow();
+				if (direct != null) {
+					direct[index] = value;
+					return;
+				}
+			}
+			if (palette_size == palette.length) {
+				int[] larger = new int[palette.length * 2];
+				System.arraycopy(palette, 0, larger, 0, palette_size);
+				palette = larger;
+			}
+			entry = palette_size++;
+			palette[entry] = value;
+		}
+		if (bits != 0) {
+			setEntry(index, entry);
+		}
+	}
+
+	/**
+	 * Drops the palette values no cell uses, returning false if every one is
+	 * used.
+	 */
+	private boolean compact() {
+		if (bits == 0) {
+			return false;
+		}
+		int[] counts = new int[palette_size];
+		for (int i = 0; i < length; i++) {
+			counts[getEntry(i)]++;
+		}
+		int used = 0;
+		for (int i = 0; i < palette_size; i++) {
+			if (counts[i] != 0) {
+				palette[used] = palette[i];
+				counts[i] = used++;
+			}
+		}
+		if (used == palette_size) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			setEntry(i, counts[getEntry(i)]);
+		}
+		palette_size = used;
+		return true;
+	}
+
+	private int getEntry(int index) {
+		int bit = index * bits;
+		return (int) (data[bit >>> 6] >>> bit) & (1 << bits) - 1;
+	}
+
+	/**
+	 * Doubles the bits of every cell, or holds the values directly once past
+	 * <code>MAX_BITS</code>.
+	 */
+	private void grow() {
+		int next = bits == 0 ? 1 : bits * 2;
+		if (next > MAX_BITS) {
+			direct = getValues();
+			data = null;
+			palette = new int[0];
+			palette_size = 0;
+			return;
+		}
+		long[] old = data;
+		int old_bits = bits;
+		data = new long[(length * next + 63) >>> 6];
+		bits = next;
+		if (old != null) {
+			for (int i = 0; i < length; i++) {
+				int bit = i * old_bits;
+				setEntry(i, (int) (old[bit >>> 6] >>> bit) & (1 << old_bits) - 1);
+			}
+		}
+	}
+
+	private int indexOf(int value) {
+		for (int i = 0; i < palette_size; i++) {
+			if (palette[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private void setEntry(int index, int entry) {
+		int bit = index * bits;
+		long mask = (long) ((1 << bits) - 1) << bit;
+		data[bit >>> 6] = data[bit >>> 6] & ~mask | (long) entry << bit & mask;
+	}
+}
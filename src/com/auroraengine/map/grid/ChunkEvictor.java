@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.map.grid;
+
+/**
+ * Receives the chunks which a <code>ChunkedGrid</code> drops once it holds
+ * more than its capacity, so that they may be saved and set again when next
+ * needed.
+ *
+ * @author LittleRover
+ */
+public interface ChunkEvictor {
+	/**
+	 * Called when a chunk has been dropped from the grid.
+	 *
+	 * @param x      The lowest x coordinate of the chunk
+	 * @param y      The lowest y coordinate of the chunk
+	 * @param z      The lowest z coordinate of the chunk, zero in two dimensions
+	 * @param values The values of the cells of the chunk, with x varying
+	 *               fastest, which may be kept
+	 */
+	public void evicted(int x, int y, int z, int[] values);
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.map.grid;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * An open addressing map from the <code>long</code> keys of chunks to the
+ * chunks, probing linearly and removing by shifting the following entries
+ * back, so that no key is boxed and no tombstones build up.
+ *
+ * @author LittleRover
+ */
+final class ChunkMap {
+	private static final Logger LOG = AuroraLogs.getLogger(ChunkMap.class
+					.getName());
+
+	private static int mix(long key, int mask) {
+		key = (key ^ key >>> 33) * 0xFF51AFD7ED558CCDL;
+		key = (key ^ key >>> 33) * 0xC4CEB9FE1A85EC53L;
+		return (int) (key ^ key >>> 33) & mask;
+	}
+
+	/**
+	 * Creates a new empty map.
+	 */
+	ChunkMap() {
+		chunks = new Chunk[16];
+		keys = new long[16];
+	}
+	private Chunk[] chunks;
+	private long[] keys;
+	private int size;
+
+	/**
+	 * Removes every chunk.
+	 */
+	void clear() {
+		Arrays.fill(chunks, null);
+		size = 0;
+	}
+
+	/**
+	 * Returns the chunk of the provided key, or null if there is none.
+	 *
+	 * @param key The key
+	 *
+	 * @return The chunk, or null
+	 */
+	Chunk get(long key) {
+		int mask = keys.length - 1;
+		for (int i = mix(key, mask);; i = i + 1 & mask) {
+			Chunk chunk = chunks[i];
+			if (chunk == null || keys[i] == key) {
+				return chunk;
+			}
+		}
+	}
+
+	/**
+	 * Returns the approximate number of bytes used by the map itself.
+	 *
+	 * @return The number of bytes
+	 */
+	long getMemory() {
+		return 32L + 16L + 8L * keys.length + 16L + 4L * chunks.length;
+	}
+
+	/**
+	 * Adds a chunk, which must not share its key with one already present.
+	 *
+	 * @param chunk The chunk
+	 */
+	void put(Chunk chunk) {
+		if (size * 4 >= keys.length * 3) {
+			Chunk[] old = chunks;
+			chunks = new Chunk[old.length * 2];
+			keys = new long[old.length * 2];
+			size = 0;
+			for (Chunk c : old) {
+				if (c != null) {
+					put(c);
+				}
+			}
+		}
+		int mask = keys.length - 1;
+		int i = mix(chunk.key, mask);
+		while (chunks[i] != null) {
+			i = i + 1 & mask;
+		}
+		chunks[i] = chunk;
+		keys[i] = chunk.key;
+		size++;
+	}
+
+	/**
+	 * Removes the chunk of the provided key, if present.
+	 *
+	 * @param key The key
+	 */
+	void remove(long key) {
+		int mask = keys.length - 1;
+		int i = mix(key, mask);
+		while (chunks[i] != null && keys[i] != key) {
+			i = i + 1 & mask;
+		}
+		if (chunks[i] == null) {
+			return;
+		}
+		// Moves back every following entry which may no longer be reached.
+		for (int j = i + 1 & mask; chunks[j] != null; j = j + 1 & mask) {
+			int home = mix(keys[j], mask);
+			if ((j - home & mask) >= (j - i & mask)) {
+				chunks[i] = chunks[j];
+				keys[i] = keys[j];
+				i = j;
+			}
+		}
+		chunks[i] = null;
+		size--;
+	}
+
+	/**
+	 * Returns the number of chunks.
+	 *
+	 * @return The number of chunks
+	 */
+	int size() {
+		return size;
+	}
+}
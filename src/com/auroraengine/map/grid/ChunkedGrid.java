@@ -0,0 +1,323 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.map.grid;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.logging.Logger;
+
+/**
+ * A sparse two or three dimensional grid holding an <code>int</code> for every
+ * cell of an unbounded world, so that memory grows with the area explored
+ * rather than with its bounding box. Cells are held in chunks of
+ * <code>CHUNK_LENGTH</code> cells, 64 by 64 in two dimensions and 16 by 16 by
+ * 16 in three, which are only created once a cell in them is set to a value
+ * other than the empty value. Each chunk packs its cells against a palette of
+ * its values, so that chunks of few values, such as terrain, take a few bits
+ * per cell.
+ * <p>
+ * A grid may be given a capacity of chunks, past which the chunk least
+ * recently read or written is dropped and handed to the
+ * <code>ChunkEvictor</code>, if any. A two dimensional grid ignores the z
+ * coordinate, and three dimensional coordinates must lie within
+ * <code>MAX_COORDINATE</code> of zero. Like the other grids, it is not safe
+ * for use by several threads at once.
+ *
+ * @author LittleRover
+ */
+public final class ChunkedGrid {
+	private static final Logger LOG = AuroraLogs.getLogger(ChunkedGrid.class
+					.getName());
+	/**
+	 * The number of cells of a chunk.
+	 */
+	public static final int CHUNK_LENGTH = 4096;
+	/**
+	 * The greatest distance of a coordinate of a three dimensional grid from
+	 * zero.
+	 */
+	public static final int MAX_COORDINATE = (1 << 24) - 1;
+
+	/**
+	 * Creates a new grid of the specified dimension with no capacity, in which
+	 * every cell holds the empty value.
+	 *
+	 * @param dim   The dimension, two or three
+	 * @param empty The value of cells never set
+	 */
+	public ChunkedGrid(int dim, int empty) {
+		this(dim, empty, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Creates a new grid of the specified dimension and capacity, in which every
+	 * cell holds the empty value.
+	 *
+	 * @param dim      The dimension, two or three
+	 * @param empty    The value of cells never set
+	 * @param capacity The greatest number of chunks held
+	 */
+	public ChunkedGrid(int dim, int empty, int capacity) {
+		if (dim != 2 && dim != 3) {
+			throw new IllegalArgumentException("Only two or three dimensions are " +
+																				 "supported! Found " + dim + ".");
+		}
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive! Found " +
+																				 capacity + ".");
+		}
+		this.dim = dim;
+		this.empty = empty;
+		this.capacity = capacity;
+		shift = dim == 2 ? 6 : 4;
+	}
+	private final int capacity;
+	private final ChunkMap chunks = new ChunkMap();
+	private final int dim;
+	private final int empty;
+	private long evicted;
+	private ChunkEvictor evictor;
+	private Chunk newest, oldest;
+	private final int shift;
+
+	/**
+	 * Drops every chunk without handing them to the evictor, so that every cell
+	 * holds the empty value.
+	 */
+	public void clear() {
+		chunks.clear();
+		newest = null;
+		oldest = null;
+	}
+
+	/**
+	 * Packs every chunk again into as few bits as its values need, and drops
+	 * the chunks holding only the empty value. Chunks only grow as values are
+	 * set, so this is worth calling after filling or clearing large areas.
+	 */
+	public void compact() {
+		for (Chunk c = newest; c != null;) {
+			Chunk older = c.older;
+			c.pack();
+			if (c.isUniform(empty)) {
+				remove(c);
+			}
+			c = older;
+		}
+	}
+
+	/**
+	 * Returns the value of the cell at the provided coordinates.
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 *
+	 * @return The value
+	 */
+	public int get(int x, int y) {
+		return get(x, y, 0);
+	}
+
+	/**
+	 * Returns the value of the cell at the provided coordinates.
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @param z The z coordinate
+	 *
+	 * @return The value
+	 */
+	public int get(int x, int y, int z) {
+		Chunk chunk = getChunk(getKey(x, y, z));
+		return chunk == null ? empty : chunk.get(getCell(x, y, z));
+	}
+
+	/**
+	 * Returns the number of chunks held.
+	 *
+	 * @return The number of chunks
+	 */
+	public int getChunkCount() {
+		return chunks.size();
+	}
+
+	/**
+	 * Returns the dimension of the grid, two or three.
+	 *
+	 * @return The dimension
+	 */
+	public int getDimension() {
+		return dim;
+	}
+
+	/**
+	 * Returns the number of chunks dropped for exceeding the capacity.
+	 *
+	 * @return The number of chunks evicted
+	 */
+	public long getEvictedCount() {
+		return evicted;
+	}
+
+	/**
+	 * Returns the approximate number of bytes used by the grid, by adding up the
+	 * arrays and objects of the chunks and of the map holding them.
+	 *
+	 * @return The number of bytes
+	 */
+	public long getMemory() {
+		long bytes = chunks.getMemory();
+		for (Chunk c = newest; c != null; c = c.older) {
+			bytes += c.getMemory();
+		}
+		return bytes;
+	}
+
+	/**
+	 * Sets the value of the cell at the provided coordinates.
+	 *
+	 * @param x     The x coordinate
+	 * @param y     The y coordinate
+	 * @param value The value
+	 */
+	public void set(int x, int y, int value) {
+		set(x, y, 0, value);
+	}
+
+	/**
+	 * Sets the value of the cell at the provided coordinates, creating its
+	 * chunk unless the value is the empty value.
+	 *
+	 * @param x     The x coordinate
+	 * @param y     The y coordinate
+	 * @param z     The z coordinate
+	 * @param value The value
+	 */
+	public void set(int x, int y, int z, int value) {
+		long key = getKey(x, y, z);
+		Chunk chunk = getChunk(key);
+		if (chunk == null) {
+			if (value == empty) {
+				return;
+			}
+			chunk = new Chunk(key, CHUNK_LENGTH, empty);
+			chunks.put(chunk);
+			chunk.older = newest;
+			if (newest != null) {
+				newest.newer = chunk;
+			} else {
+				oldest = chunk;
+			}
+			newest = chunk;
+			if (chunks.size() > capacity) {
+				evict();
+			}
+		}
+		chunk.set(getCell(x, y, z), value);
+	}
+
+	/**
+	 * Sets the evictor handed the chunks dropped for exceeding the capacity, or
+	 * null to drop them silently.
+	 *
+	 * @param evictor The evictor, or null
+	 */
+	public void setEvictor(ChunkEvictor evictor) {
+		this.evictor = evictor;
+	}
+
+	private void evict() {
+		Chunk chunk = oldest;
+		remove(chunk);
+		evicted++;
+		if (evictor != null) {
+			int side = 1 << shift;
+			int x, y, z;
+			if (dim == 2) {
+				x = (int) (chunk.key >> 32) * side;
+				y = (int) chunk.key * side;
+				z = 0;
+			} else {
+				x = ((int) chunk.key << 11 >> 11) * side;
+				y = ((int) (chunk.key >>> 21) << 11 >> 11) * side;
+				z = ((int) (chunk.key >>> 42) << 11 >> 11) * side;
+			}
+			evictor.evicted(x, y, z, chunk.getValues());
+		}
+	}
+
+	private int getCell(int x, int y, int z) {
+		int mask = (1 << shift) - 1;
+		int cell = x & mask | (y & mask) << shift;
+		return dim == 2 ? cell : cell | (z & mask) << 2 * shift;
+	}
+
+	/**
+	 * Returns the chunk of the provided key, or null, making it the most
+	 * recently used.
+	 */
+	private Chunk getChunk(long key) {
+		if (newest != null && newest.key == key) {
+			return newest;
+		}
+		Chunk chunk = chunks.get(key);
+		if (chunk != null) {
+			// Moves the chunk to the front of the order of use.
+			chunk.newer.older = chunk.older;
+			if (chunk.older != null) {
+				chunk.older.newer = chunk.newer;
+			} else {
+				oldest = chunk.newer;
+			}
+			chunk.newer = null;
+			chunk.older = newest;
+			newest.newer = chunk;
+			newest = chunk;
+		}
+		return chunk;
+	}
+
+	private long getKey(int x, int y, int z) {
+		if (dim == 2) {
+			return (long) (x >> shift) << 32 | (y >> shift) & 0xFFFFFFFFL;
+		}
+		if (x < -MAX_COORDINATE || x > MAX_COORDINATE || y < -MAX_COORDINATE ||
+				y > MAX_COORDINATE || z < -MAX_COORDINATE || z > MAX_COORDINATE) {
+			throw new IllegalArgumentException("Coordinates must be within " +
+																				 MAX_COORDINATE + "! Found (" + x +
+																				 ", " + y + ", " + z + ").");
+		}
+		long mask = (1L << 21) - 1L;
+		return (x >> shift) & mask | ((y >> shift) & mask) << 21 |
+					 ((z >> shift) & mask) << 42;
+	}
+
+	private void remove(Chunk chunk) {
+		chunks.remove(chunk.key);
+		if (chunk.newer != null) {
+			chunk.newer.older = chunk.older;
+		} else {
+			newest = chunk.older;
+		}
+		if (chunk.older != null) {
+			chunk.older.newer = chunk.newer;
+		} else {
+			oldest = chunk.newer;
+		}
+		chunk.newer = null;
+		chunk.older = null;
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.map.grid;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Measures the memory and lookup time of a two dimensional
+ * <code>ChunkedGrid</code> holding terrain of four kinds of cell, explored in
+ * square regions scattered across a world millions of cells wide. The memory
+ * is reported both as estimated by the grid and as measured on the heap,
+ * along with what a dense array over the bounding box would need. Lookups are
+ * timed at random explored cells and by scanning the regions in order, and
+ * filling the regions again with a capacity of a quarter of the chunks
+ * reports the cost of eviction.
+ *
+ * Arguments, all optional, in order: random reads, then the numbers of cells
+ * explored.
+ *
+ * @author LittleRover
+ */
+public final class ChunkedGridBenchmark {
+	private static final Logger LOG = AuroraLogs.getLogger(
+					ChunkedGridBenchmark.class.getName());
+	private static final int PASSES = 3;
+	private static final int REGION = 256;
+	private static final int WORLD = 1 << 24;
+
+	/**
+	 * Runs the benchmark described by the provided arguments.
+	 *
+	 * @param args The arguments
+	 */
+	@SuppressWarnings("UseOfSystemOutOrSystemErr")
+	public static void main(String[] args) {
+		int reads = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 22;
+		long[] cells = {1000000L, 100000000L};
+		if (args.length > 1) {
+			cells = new long[args.length - 1];
+			for (int i = 0; i < cells.length; i++) {
+				cells[i] = Long.parseLong(args[i + 1]);
+			}
+		}
+		for (long count : cells) {
+			System.out.println(run(count, reads));
+		}
+	}
+
+	private static void fill(ChunkedGrid grid, int[] xs, int[] ys) {
+		for (int r = 0; r < xs.length; r++) {
+			for (int y = ys[r]; y < ys[r] + REGION; y++) {
+				for (int x = xs[r]; x < xs[r] + REGION; x++) {
+					grid.set(x, y, getTerrain(x, y));
+				}
+			}
+		}
+	}
+
+	private static long getHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static int getTerrain(int x, int y) {
+		return ((x >> 4) * 73 ^ (y >> 4) * 151) & 3;
+	}
+
+	private static String run(long cells, int reads) {
+		Random random = new Random(cells);
+		int regions = (int) Math.max(1L, cells / (REGION * REGION));
+		int[] xs = new int[regions], ys = new int[regions];
+		for (int r = 0; r < regions; r++) {
+			xs[r] = random.nextInt(WORLD / REGION) * REGION - WORLD / 2;
+			ys[r] = random.nextInt(WORLD / REGION) * REGION - WORLD / 2;
+		}
+		long heap = getHeap();
+		long start = System.nanoTime();
+		ChunkedGrid grid = new ChunkedGrid(2, -1);
+		fill(grid, xs, ys);
+		grid.compact();
+		long filling = System.nanoTime() - start;
+		heap = getHeap() - heap;
+		int[] px = new int[reads], py = new int[reads];
+		for (int i = 0; i < reads; i++) {
+			int r = random.nextInt(regions);
+			px[i] = xs[r] + random.nextInt(REGION);
+			py[i] = ys[r] + random.nextInt(REGION);
+		}
+		long sum = 0L, reading = 0L, scanning = 0L;
+		int mismatches = 0;
+		for (int pass = 0; pass < PASSES; pass++) {
+			start = System.nanoTime();
+			for (int i = 0; i < reads; i++) {
+				sum += grid.get(px[i], py[i]);
+			}
+			reading = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int r = 0; r < regions; r++) {
+				for (int y = ys[r]; y < ys[r] + REGION; y++) {
+					for (int x = xs[r]; x < xs[r] + REGION; x++) {
+						sum += grid.get(x, y);
+					}
+				}
+			}
+			scanning = System.nanoTime() - start;
+		}
+		for (int i = 0; i < reads; i++) {
+			if (grid.get(px[i], py[i]) != getTerrain(px[i], py[i])) {
+				mismatches++;
+			}
+		}
+		long explored = (long) regions * REGION * REGION;
+		String result = String.format(
+						"%d cells in %d chunks, %.1f s to fill and compact, checksum %d, %d " +
+						"mismatches:%n  memory %.1f MB estimated, %.1f MB on the heap, " +
+						"%.2f bits per cell, dense bounding box %.0f TB%n" +
+						"  random %.1f ns per read, scan %.1f ns per cell", explored, grid
+						.getChunkCount(), filling / 1E9, sum, mismatches, grid.getMemory() /
+																																	 1E6, heap /
+																																				1E6,
+						8.0 * heap / explored, 4.0 * WORLD * WORLD / 1E12, reading /
+																															(double) reads,
+						scanning / (double) explored);
+		int chunks = grid.getChunkCount();
+		grid = null;
+		ChunkedGrid bounded = new ChunkedGrid(2, -1, Math.max(1, chunks / 4));
+		start = System.nanoTime();
+		fill(bounded, xs, ys);
+		return result + String.format("%n  capacity %d chunks: %d evicted, %.1f " +
+																	"ns per cell set", Math.max(1, chunks / 4),
+																	bounded.getEvictedCount(), (System.nanoTime() -
+																															start) /
+																														 (double) explored);
+	}
+
+	private ChunkedGridBenchmark() {
+	}
+}
@@ -18,13 +18,19 @@ package com.auroraengine.map.grid;
 
 import com.auroraengine.debug.AuroraLogs;
 import static java.lang.Math.abs;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiFunction;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * A grid object
+ * A grid object, holding a window of positions centred on a position which may
+ * be moved with <code>translate</code>. Positions which stay within the window
+ * keep their objects, while those that scroll into it start empty and, if a
+ * <code>GridLoader</code> is set, are filled from it by <code>update</code>.
  *
  * @author LittleRover
  * @param <T>
@@ -89,13 +95,21 @@ public class Grid<T> {
 		System.arraycopy(pos, 0, position, 0, pos.length);
 		System.arraycopy(max, 0, maximum, 0, pos.length);
 
-		int length = 0;
+		long length = 1L;
 		for (int m : maximum) {
-			length += 2 * m + 1;
+			length *= 2 * m + 1;
 		}
-		grid = new Object[length];
+		if (length > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Too many cells! Found " + length +
+																				 ".");
+		}
+		grid = new Object[(int) length];
 	}
 	private final Object[] grid;
+	private final ArrayList<GridListener<? super T>> listeners
+																									= new ArrayList<>(1);
+	private GridLoader<? extends T> loader;
+	private final ArrayList<Load<? extends T>> loads = new ArrayList<>();
 	private final int[] maximum;
 	private final int[] offset;
 	private final int[] position;
@@ -118,17 +132,32 @@ public class Grid<T> {
 				return -1; // Outside of range, or get it from the list.
 			}
 		}
+		// The offsets are kept within [0, 2 * max], so the sums are never negative.
 		int e = 0;
 		for (int i = 0; i < position.length; i++) {
-			// TODO: Verify
 			e = e * (2 * maximum[i] + 1) + (maximum[i] + position[i] - p[i] +
 																			offset[i]) % (2 * maximum[i] + 1);
 		}
 		return e;
 	}
 
+	/**
+	 * Adds a listener to be told of every change to the contents of the grid.
+	 *
+	 * @param listener The listener
+	 */
+	public void addListener(GridListener<? super T> listener) {
+		if (listener == null) {
+			throw new NullPointerException("Listener is Null!");
+		}
+		listeners.add(listener);
+	}
+
 	public void clear() {
 		Arrays.fill(grid, null);
+		for (int i = 0; i < listeners.size(); i++) {
+			listeners.get(i).cleared();
+		}
 	}
 
 	/**
@@ -162,6 +191,39 @@ public class Grid<T> {
 		return position.length;
 	}
 
+	/**
+	 * Returns the number of boxes requested from the loader which have not yet
+	 * been placed by <code>update</code>.
+	 *
+	 * @return The number of loads pending
+	 */
+	public int getLoadingCount() {
+		return loads.size();
+	}
+
+	/**
+	 * Removes a listener added with <code>addListener</code>, returning true if
+	 * it was present.
+	 *
+	 * @param listener The listener
+	 *
+	 * @return If the listener was removed
+	 */
+	public boolean removeListener(GridListener<? super T> listener) {
+		return listeners.remove(listener);
+	}
+
+	/**
+	 * Sets the loader asked for the contents of the positions that scroll into
+	 * the window, or null to leave them empty. Loads already started are still
+	 * placed.
+	 *
+	 * @param loader The loader, or null
+	 */
+	public void setLoader(GridLoader<? extends T> loader) {
+		this.loader = loader;
+	}
+
 	/**
 	 * Sets the target of the grid based on the check and make functions that are
 	 * provided.
@@ -187,38 +249,189 @@ public class Grid<T> {
 		T t = (T) grid[ref];
 		boolean b = check.apply(p, t);
 		if (b) {
-			grid[ref] = make.apply(p, t);
+			T made = make.apply(p, t);
+			grid[ref] = made;
+			if (made != t) {
+				for (int i = 0; i < listeners.size(); i++) {
+					listeners.get(i).changed(p, t, made);
+				}
+			}
 		}
 		return b;
 	}
 
+	/**
+	 * Moves the window of the grid by the specified offset. Positions which are
+	 * in the window both before and after keep their objects, and nothing is
+	 * copied. The positions which scroll out of the window are emptied, telling
+	 * the listeners of their old positions, and the boxes which scroll into it
+	 * are requested from the loader, if any, to be placed by
+	 * <code>update</code>. If the offset is at least the size of the window
+	 * along any axis, the whole grid is cleared instead.
+	 *
+	 * @param dp The offset
+	 *
+	 * @return true if the whole grid was cleared
+	 */
 	public boolean translate(int[] dp) {
 		if (dp.length != position.length) {
 			LOG.log(Level.WARNING, "Invalid position submitted!");
 			return false;
 		}
-		boolean done = false;
-		for (int i = 0; i < position.length; i++) {
-			if (abs(dp[i]) > maximum[i]) {
+		int dim = position.length;
+		for (int i = 0; i < dim; i++) {
+			if (abs(dp[i]) > 2 * maximum[i]) {
 				clear();
-				for (int j = 0; j < position.length; j++) {
+				int[] min = new int[dim], size = new int[dim];
+				for (int j = 0; j < dim; j++) {
 					position[j] += dp[j];
 					offset[j] = 0;
+					min[j] = position[j] - maximum[j];
+					size[j] = 2 * maximum[j] + 1;
+				}
+				startLoad(min, size);
+				return true;
+			}
+		}
+		// The lowest coordinate and size of the box of each axis which stays.
+		int[] kept_min = new int[dim], kept_size = new int[dim];
+		for (int i = 0; i < dim; i++) {
+			int width = 2 * maximum[i] + 1;
+			kept_min[i] = position[i] - maximum[i] + Math.max(dp[i], 0);
+			kept_size[i] = width - abs(dp[i]);
+			position[i] += dp[i];
+			// Keeps the slot of every position which stays in the window.
+			offset[i] = Math.floorMod(offset[i] - dp[i], width);
+		}
+		// The exposed slab of each axis, limited to the kept range on the axes
+		// before it so that the slabs do not overlap.
+		int[] min = new int[dim], size = new int[dim];
+		int[] p = new int[dim], old = new int[dim];
+		for (int i = 0; i < dim; i++) {
+			if (dp[i] == 0) {
+				continue;
+			}
+			for (int j = 0; j < dim; j++) {
+				if (j < i) {
+					min[j] = kept_min[j];
+					size[j] = kept_size[j];
+				} else if (j == i) {
+					min[j] = dp[j] > 0 ? kept_min[j] + kept_size[j] : position[j] -
+																														maximum[j];
+					size[j] = abs(dp[j]);
+				} else {
+					min[j] = position[j] - maximum[j];
+					size[j] = 2 * maximum[j] + 1;
 				}
-				done = true;
-				break;
 			}
+			System.arraycopy(min, 0, p, 0, dim);
+			do {
+				int ref = getRef(p);
+				@SuppressWarnings("unchecked")
+				T t = (T) grid[ref];
+				if (t != null) {
+					grid[ref] = null;
+					for (int j = 0; j < dim; j++) {
+						boolean kept = p[j] >= kept_min[j] && p[j] < kept_min[j] +
+																												 kept_size[j];
+						old[j] = kept ? p[j] : p[j] - Integer.signum(dp[j]) * (2 *
+																																 maximum[j] +
+																																 1);
+					}
+					for (int j = 0; j < listeners.size(); j++) {
+						listeners.get(j).changed(old, t, null);
+					}
+				}
+			} while (next(p, min, size));
+			startLoad(min, size);
 		}
-		if (!done) {
-			for (int i = 0; i < position.length; i++) {
+		return false;
+	}
 
+	/**
+	 * Places the objects of every finished load in the positions they were
+	 * loaded for which are still in the window and still empty, so that objects
+	 * set while loading are kept. This should be called on the thread using the
+	 * grid.
+	 *
+	 * @return The number of objects placed
+	 */
+	public int update() {
+		int placed = 0;
+		for (int i = 0; i < loads.size(); i++) {
+			Load<? extends T> load = loads.get(i);
+			if (!load.future.isDone()) {
+				continue;
 			}
-			for (int i = 0; i < position.length; i++) {
-				position[i] += dp[i];
-				offset[i] = (offset[i] + dp[i]) % (2 * maximum[i] + 1);
+			loads.remove(i--);
+			List<? extends T> list;
+			try {
+				list = load.future.join();
+			} catch (RuntimeException ex) {
+				LOG.log(Level.WARNING, "Failed to load a box of the grid!", ex);
+				continue;
 			}
+			int[] p = new int[position.length];
+			System.arraycopy(load.min, 0, p, 0, p.length);
+			int n = 0;
+			do {
+				T t = n < list.size() ? list.get(n++) : null;
+				int ref = t == null ? -1 : getRef(p);
+				if (ref >= 0 && grid[ref] == null) {
+					grid[ref] = t;
+					placed++;
+					for (int j = 0; j < listeners.size(); j++) {
+						listeners.get(j).changed(p, null, t);
+					}
+				}
+			} while (next(p, load.min, load.size));
 		}
-		return done;
+		return placed;
 	}
 
+	/**
+	 * Moves the provided position to the next of the box, with the last
+	 * coordinate varying fastest, returning false once the box is done.
+	 */
+	private static boolean next(int[] p, int[] min, int[] size) {
+		for (int i = p.length - 1; i >= 0; i--) {
+			if (++p[i] < min[i] + size[i]) {
+				return true;
+			}
+			p[i] = min[i];
+		}
+		return false;
+	}
+
+	private void startLoad(int[] min, int[] size) {
+		if (loader == null) {
+			return;
+		}
+		for (int s : size) {
+			if (s == 0) {
+				return;
+			}
+		}
+		CompletableFuture<? extends List<? extends T>> future = loader.load(min,
+																																				size);
+		if (future == null) {
+			throw new NullPointerException("Load is Null!");
+		}
+		loads.add(new Load<>(min.clone(), size.clone(), future));
+	}
+
+	/**
+	 * A box of positions requested from the loader.
+	 */
+	private static final class Load<T> {
+		Load(int[] min, int[] size,
+				 CompletableFuture<? extends List<? extends T>> future) {
+			this.min = min;
+			this.size = size;
+			this.future = future;
+		}
+		final CompletableFuture<? extends List<? extends T>> future;
+		final int[] min;
+		final int[] size;
+	}
 }
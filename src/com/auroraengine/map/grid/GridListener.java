@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.map.grid;
+
+/**
+ * Receives the changes made to the contents of a grid, so that views of the
+ * grid such as walkability masks can be kept up to date without reading the
+ * whole grid again. All methods are called on the thread changing the grid.
+ *
+ * @author LittleRover
+ * @param <T> The class of the grid contents
+ */
+public interface GridListener<T> {
+	/**
+	 * Called when the object at a position of the grid has changed.
+	 *
+	 * @param p      The position coordinates, which must not be kept
+	 * @param before The previous object, or null
+	 * @param after  The new object, or null
+	 */
+	public void changed(int[] p, T before, T after);
+
+	/**
+	 * Called when every position of the grid has been emptied.
+	 */
+	public void cleared();
+}
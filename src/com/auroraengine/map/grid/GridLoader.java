@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.map.grid;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Loads the contents of the boxes of positions that scroll into the window of
+ * a grid as it is translated, typically from a store of chunks on disk or
+ * across the network. Loading may finish on any thread, as the grid only
+ * places the loaded objects when <code>Grid.update</code> is called.
+ *
+ * @author LittleRover
+ * @param <T> The class of the grid contents
+ */
+public interface GridLoader<T> {
+	/**
+	 * Starts loading the objects of the specified box of positions, returning a
+	 * future of them listed with the last coordinate varying fastest. Null
+	 * elements leave their positions empty.
+	 *
+	 * @param min  The lowest coordinates of the box, which must not be kept
+	 * @param size The size of the box, which must not be kept
+	 *
+	 * @return The future objects
+	 */
+	public CompletableFuture<? extends List<? extends T>> load(int[] min,
+																														 int[] size);
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.map.grid;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
+
+/**
+ * Measures a window of a <code>Grid</code> following a player on a random walk
+ * across a two dimensional world, whose objects are made up from their
+ * coordinates by a loader standing in for a store of chunks. Every step
+ * translates the window and places the loaded objects with
+ * <code>update</code>, and the time per step and the number of positions
+ * loaded per step are reported, against moving the window past its own
+ * width at every step, which clears and loads it all. Positions which hold the
+ * wrong object after a step are counted as mismatches.
+ *
+ * Arguments, all optional, in order: steps, greatest distance of the window
+ * edge from its centre, share of steps which jump several cells.
+ *
+ * @author LittleRover
+ */
+public final class GridStreamingBenchmark {
+	private static final Logger LOG = AuroraLogs.getLogger(
+					GridStreamingBenchmark.class.getName());
+	private static final int JUMP = 8;
+	private static final int PASSES = 3;
+
+	/**
+	 * Runs the benchmark described by the provided arguments.
+	 *
+	 * @param args The arguments
+	 */
+	@SuppressWarnings("UseOfSystemOutOrSystemErr")
+	public static void main(String[] args) {
+		int steps = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		int max = args.length > 1 ? Integer.parseInt(args[1]) : 128;
+		double jumps = args.length > 2 ? Double.parseDouble(args[2]) : 0.05;
+		System.out.println(run(steps, max, jumps, false));
+		System.out.println(run(steps, max, jumps, true));
+	}
+
+	private static String run(int steps, int max, double jumps, boolean full) {
+		long time = 0L, loaded = 0L;
+		int mismatches = 0;
+		for (int pass = 0; pass < PASSES; pass++) {
+			Random random = new Random(steps);
+			Grid<Integer> grid = new Grid<>(new int[2], new int[]{max, max});
+			grid.setLoader(GridStreamingBenchmark::load);
+			int[] dp = {4 * max, 4 * max}, pos = {dp[0], dp[1]};
+			grid.translate(dp);
+			grid.update();
+			time = 0L;
+			loaded = 0L;
+			mismatches = 0;
+			int[] p = new int[2];
+			for (int step = 0; step < steps; step++) {
+				int reach = random.nextDouble() < jumps ? JUMP : 1;
+				dp[0] = random.nextInt(2 * reach + 1) - reach;
+				dp[1] = random.nextInt(2 * reach + 1) - reach;
+				if (full) {
+					// Moves past the whole window to clear and reload every position.
+					dp[0] += 2 * max + 1;
+				}
+				long start = System.nanoTime();
+				grid.translate(dp);
+				loaded += grid.update();
+				time += System.nanoTime() - start;
+				pos[0] += dp[0];
+				pos[1] += dp[1];
+				// Checks a row and a column through the centre.
+				for (int i = -max; i <= max; i++) {
+					p[0] = pos[0] + i;
+					p[1] = pos[1];
+					if (!getObject(p[0], p[1]).equals(grid.get(p))) {
+						mismatches++;
+					}
+					p[0] = pos[0];
+					p[1] = pos[1] + i;
+					if (!getObject(p[0], p[1]).equals(grid.get(p))) {
+						mismatches++;
+					}
+				}
+			}
+		}
+		return String.format("%s, %d^2 window, %d steps: %.1f us per step, %.0f " +
+												 "positions loaded per step, %d mismatches",
+												 full ? "full reload" : "streaming", 2 * max + 1, steps,
+												 time / 1E3 / steps, loaded / (double) steps, mismatches);
+	}
+
+	private static Integer getObject(int x, int y) {
+		return x * 0x9E3779B9 ^ y * 0x85EBCA6B;
+	}
+
+	private static CompletableFuture<List<Integer>> load(int[] min, int[] size) {
+		ArrayList<Integer> list = new ArrayList<>(size[0] * size[1]);
+		for (int x = min[0]; x < min[0] + size[0]; x++) {
+			for (int y = min[1]; y < min[1] + size[1]; y++) {
+				list.add(getObject(x, y));
+			}
+		}
+		return CompletableFuture.completedFuture(list);
+	}
+
+	private GridStreamingBenchmark() {
+	}
+}
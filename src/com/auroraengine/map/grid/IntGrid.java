@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.map.grid;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * A toroidal grid holding an <code>int</code> for every cell, as described by
+ * <code>PackedGrid</code>. Unlike <code>Grid</code>, nothing is boxed and no
+ * coordinate arrays are needed to read or write a cell.
+ *
+ * @author LittleRover
+ */
+public final class IntGrid extends PackedGrid {
+	private static final Logger LOG = AuroraLogs.getLogger(IntGrid.class
+					.getName());
+
+	/**
+	 * Creates a new two dimensional grid of zeros of the specified sides, each a
+	 * power of two.
+	 *
+	 * @param width  The size along x
+	 * @param height The size along y
+	 */
+	public IntGrid(int width, int height) {
+		super(width, height, 1, 2);
+		values = new int[getLength()];
+	}
+
+	/**
+	 * Creates a new three dimensional grid of zeros of the specified sides, each
+	 * a power of two.
+	 *
+	 * @param width  The size along x
+	 * @param height The size along y
+	 * @param depth  The size along z
+	 */
+	public IntGrid(int width, int height, int depth) {
+		super(width, height, depth, 3);
+		values = new int[getLength()];
+	}
+	private final int[] values;
+
+	@Override
+	public IntGrid copy() {
+		IntGrid grid = getDimension() == 2 ? new IntGrid(getWidth(), getHeight()) :
+									 new IntGrid(getWidth(), getHeight(), getDepth());
+		System.arraycopy(values, 0, grid.values, 0, values.length);
+		return grid;
+	}
+
+	/**
+	 * Sets every cell of a rectangle of the grid, which wraps around the grid,
+	 * to the provided value.
+	 *
+	 * @param x      The lowest x coordinate of the rectangle
+	 * @param y      The lowest y coordinate of the rectangle
+	 * @param width  The size of the rectangle along x
+	 * @param height The size of the rectangle along y
+	 * @param value  The value
+	 */
+	public void fill(int x, int y, int width, int height, int value) {
+		fill(x, y, 0, width, height, 1, value);
+	}
+
+	/**
+	 * Sets every cell of a box of the grid, which wraps around the grid, to the
+	 * provided value.
+	 *
+	 * @param x      The lowest x coordinate of the box
+	 * @param y      The lowest y coordinate of the box
+	 * @param z      The lowest z coordinate of the box
+	 * @param width  The size of the box along x
+	 * @param height The size of the box along y
+	 * @param depth  The size of the box along z
+	 * @param value  The value
+	 */
+	public void fill(int x, int y, int z, int width, int height, int depth,
+									 int value) {
+		fill(x, y, z, width, height, depth, (long) value);
+	}
+
+	/**
+	 * Sets every cell of the grid to the provided value.
+	 *
+	 * @param value The value
+	 */
+	public void fill(int value) {
+		Arrays.fill(values, value);
+	}
+
+	/**
+	 * Returns the value of the cell at the provided coordinates.
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 *
+	 * @return The value
+	 */
+	public int get(int x, int y) {
+		return values[getIndex(x, y)];
+	}
+
+	/**
+	 * Returns the value of the cell at the provided coordinates.
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @param z The z coordinate
+	 *
+	 * @return The value
+	 */
+	public int get(int x, int y, int z) {
+		return values[getIndex(x, y, z)];
+	}
+
+	/**
+	 * Returns the value of the cell of the provided index, as given by
+	 * <code>getIndex</code>.
+	 *
+	 * @param index The index
+	 *
+	 * @return The value
+	 */
+	public int getAt(int index) {
+		return values[index];
+	}
+
+	/**
+	 * Sets the value of the cell at the provided coordinates.
+	 *
+	 * @param x     The x coordinate
+	 * @param y     The y coordinate
+	 * @param value The value
+	 */
+	public void set(int x, int y, int value) {
+		values[getIndex(x, y)] = value;
+	}
+
+	/**
+	 * Sets the value of the cell at the provided coordinates.
+	 *
+	 * @param x     The x coordinate
+	 * @param y     The y coordinate
+	 * @param z     The z coordinate
+	 * @param value The value
+	 */
+	public void set(int x, int y, int z, int value) {
+		values[getIndex(x, y, z)] = value;
+	}
+
+	/**
+	 * Sets the value of the cell of the provided index, as given by
+	 * <code>getIndex</code>.
+	 *
+	 * @param index The index
+	 * @param value The value
+	 */
+	public void setAt(int index, int value) {
+		values[index] = value;
+	}
+
+	@Override
+	void copyRange(PackedGrid src, int from, int to, int length) {
+		System.arraycopy(((IntGrid) src).values, from, values, to, length);
+	}
+
+	@Override
+	void fillRange(int from, int to, long value) {
+		Arrays.fill(values, from, to, (int) value);
+	}
+}
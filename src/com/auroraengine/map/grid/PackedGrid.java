@@ -0,0 +1,319 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.map.grid;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.logging.Logger;
+
+/**
+ * The base of the grids storing a primitive value for every cell of a two or
+ * three dimensional box. Each side is a power of two so that coordinates wrap
+ * around the box with a mask rather than a modulo, making the grid a torus: a
+ * cell may be addressed by any coordinates, and those beyond a side land back
+ * on the other side. A two dimensional grid has a depth of one, and its three
+ * coordinate methods ignore the z coordinate.
+ * <p>
+ * Cells are stored along x first, then y, then z, so that full scans of the
+ * index from <code>0</code> to <code>getLength()</code> walk memory in order.
+ *
+ * @author LittleRover
+ */
+public abstract class PackedGrid {
+	private static final Logger LOG = AuroraLogs.getLogger(PackedGrid.class
+					.getName());
+
+	private static int getShift(String name, int side) {
+		if (side < 1 || (side & side - 1) != 0) {
+			throw new IllegalArgumentException(name + " must be a positive power " +
+																				 "of two! Found " + side + ".");
+		}
+		return Integer.numberOfTrailingZeros(side);
+	}
+
+	/**
+	 * Creates a new grid of the specified sides, each a power of two.
+	 *
+	 * @param width  The size along x
+	 * @param height The size along y
+	 * @param depth  The size along z, or one for a two dimensional grid
+	 * @param dim    The dimension, two or three
+	 */
+	PackedGrid(int width, int height, int depth, int dim) {
+		x_shift = getShift("Width", width);
+		y_shift = x_shift + getShift("Height", height);
+		if (y_shift + getShift("Depth", depth) > 30) {
+			throw new IllegalArgumentException("Too many cells! Found " +
+																				 (long) width * height * depth + ".");
+		}
+		this.dim = dim;
+		x_mask = width - 1;
+		y_mask = height - 1;
+		z_mask = depth - 1;
+		length = width * height * depth;
+	}
+	private final int dim;
+	private final int length;
+	private final int x_mask;
+	private final int x_shift;
+	private final int y_mask;
+	private final int y_shift;
+	private final int z_mask;
+
+	/**
+	 * Copies a rectangle of the provided two dimensional grid, of the same class
+	 * as this, into this grid, as the three dimensional <code>copy</code>.
+	 *
+	 * @param src    The grid to copy from
+	 * @param sx     The lowest x coordinate of the rectangle in the source
+	 * @param sy     The lowest y coordinate of the rectangle in the source
+	 * @param dx     The lowest x coordinate of the rectangle in this grid
+	 * @param dy     The lowest y coordinate of the rectangle in this grid
+	 * @param width  The size of the rectangle along x
+	 * @param height The size of the rectangle along y
+	 */
+	public void copy(PackedGrid src, int sx, int sy, int dx, int dy, int width,
+									 int height) {
+		copy(src, sx, sy, 0, dx, dy, 0, width, height, 1);
+	}
+
+	/**
+	 * Copies a box of the provided grid, of the same class as this, into this
+	 * grid. Both boxes wrap around their grids, and the box must be no larger
+	 * than either grid. The grids may be the same, in which case the source box
+	 * is read as it was before the copy.
+	 *
+	 * @param src    The grid to copy from
+	 * @param sx     The lowest x coordinate of the box in the source
+	 * @param sy     The lowest y coordinate of the box in the source
+	 * @param sz     The lowest z coordinate of the box in the source
+	 * @param dx     The lowest x coordinate of the box in this grid
+	 * @param dy     The lowest y coordinate of the box in this grid
+	 * @param dz     The lowest z coordinate of the box in this grid
+	 * @param width  The size of the box along x
+	 * @param height The size of the box along y
+	 * @param depth  The size of the box along z
+	 */
+	public void copy(PackedGrid src, int sx, int sy, int sz, int dx, int dy,
+									 int dz, int width, int height, int depth) {
+		if (src == null) {
+			throw new NullPointerException("Source is Null!");
+		}
+		if (src.getClass() != getClass()) {
+			throw new IllegalArgumentException("Source is not a " + getClass()
+							.getSimpleName() + "! Found " + src.getClass().getSimpleName() +
+																				 ".");
+		}
+		checkBox(width, height, depth);
+		src.checkBox(width, height, depth);
+		if (src == this) {
+			src = copy();
+		}
+		for (int z = 0; z < depth; z++) {
+			for (int y = 0; y < height; y++) {
+				int from = src.getIndex(0, sy + y, sz + z);
+				int to = getIndex(0, dy + y, dz + z);
+				int fx = sx & src.x_mask, tx = dx & x_mask;
+				// Split the run wherever either row wraps around.
+				for (int left = width; left > 0;) {
+					int run = Math.min(left, Math.min(src.x_mask + 1 - fx, x_mask + 1 -
+																												 tx));
+					copyRange(src, from + fx, to + tx, run);
+					fx = fx + run & src.x_mask;
+					tx = tx + run & x_mask;
+					left -= run;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns a new grid of the same class and sides as this, holding the same
+	 * values.
+	 *
+	 * @return The copy
+	 */
+	public abstract PackedGrid copy();
+
+	/**
+	 * Returns the size of the grid along z, which is one for a two dimensional
+	 * grid.
+	 *
+	 * @return The depth
+	 */
+	public int getDepth() {
+		return z_mask + 1;
+	}
+
+	/**
+	 * Returns the dimension of the grid, two or three.
+	 *
+	 * @return The dimension
+	 */
+	public int getDimension() {
+		return dim;
+	}
+
+	/**
+	 * Returns the size of the grid along y.
+	 *
+	 * @return The height
+	 */
+	public int getHeight() {
+		return y_mask + 1;
+	}
+
+	/**
+	 * Returns the index of the cell at the provided coordinates, wrapped around
+	 * the grid.
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 *
+	 * @return The index
+	 */
+	public final int getIndex(int x, int y) {
+		return x & x_mask | (y & y_mask) << x_shift;
+	}
+
+	/**
+	 * Returns the index of the cell at the provided coordinates, wrapped around
+	 * the grid.
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @param z The z coordinate
+	 *
+	 * @return The index
+	 */
+	public final int getIndex(int x, int y, int z) {
+		return x & x_mask | (y & y_mask) << x_shift | (z & z_mask) << y_shift;
+	}
+
+	/**
+	 * Returns the number of cells in the grid.
+	 *
+	 * @return The number of cells
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Returns the size of the grid along x.
+	 *
+	 * @return The width
+	 */
+	public int getWidth() {
+		return x_mask + 1;
+	}
+
+	/**
+	 * Returns the x coordinate of the cell of the provided index.
+	 *
+	 * @param index The index
+	 *
+	 * @return The x coordinate
+	 */
+	public final int getX(int index) {
+		return index & x_mask;
+	}
+
+	/**
+	 * Returns the y coordinate of the cell of the provided index.
+	 *
+	 * @param index The index
+	 *
+	 * @return The y coordinate
+	 */
+	public final int getY(int index) {
+		return index >>> x_shift & y_mask;
+	}
+
+	/**
+	 * Returns the z coordinate of the cell of the provided index.
+	 *
+	 * @param index The index
+	 *
+	 * @return The z coordinate
+	 */
+	public final int getZ(int index) {
+		return index >>> y_shift;
+	}
+
+	/**
+	 * Sets every cell of a box of the grid, which wraps around the grid, to the
+	 * provided value.
+	 *
+	 * @param x      The lowest x coordinate of the box
+	 * @param y      The lowest y coordinate of the box
+	 * @param z      The lowest z coordinate of the box
+	 * @param width  The size of the box along x
+	 * @param height The size of the box along y
+	 * @param depth  The size of the box along z
+	 * @param value  The value, narrowed to that held by the grid
+	 */
+	void fill(int x, int y, int z, int width, int height, int depth,
+						long value) {
+		checkBox(width, height, depth);
+		for (int k = 0; k < depth; k++) {
+			for (int j = 0; j < height; j++) {
+				int row = getIndex(0, y + j, z + k);
+				int fx = x & x_mask;
+				int run = Math.min(width, x_mask + 1 - fx);
+				fillRange(row + fx, row + fx + run, value);
+				if (run < width) {
+					fillRange(row, row + width - run, value);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Copies a run of cells of a grid of the same class into this grid, where
+	 * neither run wraps.
+	 *
+	 * @param src    The grid to copy from
+	 * @param from   The index of the first cell in the source
+	 * @param to     The index of the first cell in this grid
+	 * @param length The number of cells
+	 */
+	abstract void copyRange(PackedGrid src, int from, int to, int length);
+
+	/**
+	 * Sets a run of cells to the provided value.
+	 *
+	 * @param from  The index of the first cell
+	 * @param to    The index after the last cell
+	 * @param value The value, narrowed to that held by the grid
+	 */
+	abstract void fillRange(int from, int to, long value);
+
+	private void checkBox(int width, int height, int depth) {
+		if (width < 0 || width > x_mask + 1) {
+			throw new IllegalArgumentException("Width must be within the grid! " +
+																				 "Found " + width + ".");
+		}
+		if (height < 0 || height > y_mask + 1) {
+			throw new IllegalArgumentException("Height must be within the grid! " +
+																				 "Found " + height + ".");
+		}
+		if (depth < 0 || depth > z_mask + 1) {
+			throw new IllegalArgumentException("Depth must be within the grid! " +
+																				 "Found " + depth + ".");
+		}
+	}
+}
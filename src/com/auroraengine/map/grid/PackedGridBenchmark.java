@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.map.grid;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Compares reading the generic <code>Grid</code> of boxed integers with the
+ * primitive <code>IntGrid</code>, <code>ShortGrid</code> and
+ * <code>BitGrid</code> on square two dimensional grids. Each is read at the
+ * same random cells, then scanned in full, and the time per cell read is
+ * reported along with a checksum so that the reads cannot be skipped. The
+ * generic grid is read with a single coordinate array, which is the best
+ * case for it, and has an odd side so is one cell short of the others.
+ *
+ * Arguments, all optional, in order: random reads per grid, then the grid
+ * sizes, each a power of two.
+ *
+ * @author LittleRover
+ */
+public final class PackedGridBenchmark {
+	private static final Logger LOG = AuroraLogs.getLogger(
+					PackedGridBenchmark.class.getName());
+	private static final int PASSES = 5;
+
+	/**
+	 * Runs the benchmark described by the provided arguments.
+	 *
+	 * @param args The arguments
+	 */
+	@SuppressWarnings("UseOfSystemOutOrSystemErr")
+	public static void main(String[] args) {
+		int reads = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 22;
+		int[] sizes = {256, 1024, 4096};
+		if (args.length > 1) {
+			sizes = new int[args.length - 1];
+			for (int i = 0; i < sizes.length; i++) {
+				sizes[i] = Integer.parseInt(args[i + 1]);
+			}
+		}
+		for (int size : sizes) {
+			System.out.println(run(size, reads));
+		}
+	}
+
+	private static String run(int size, int reads) {
+		Random random = new Random(size);
+		int half = size / 2 - 1;
+		Grid<Integer> grid = new Grid<>(new int[2], new int[]{half, half});
+		IntGrid ints = new IntGrid(size, size);
+		ShortGrid shorts = new ShortGrid(size, size);
+		BitGrid bits = new BitGrid(size, size);
+		int[] p = new int[2];
+		for (int y = -half; y <= half; y++) {
+			for (int x = -half; x <= half; x++) {
+				int value = random.nextInt(1 << 15);
+				p[0] = x;
+				p[1] = y;
+				grid.set(p, Grid::func_check_null, (q, t) -> value);
+				ints.set(x, y, value);
+				shorts.set(x, y, (short) value);
+				bits.set(x, y, (value & 1) != 0);
+			}
+		}
+		int[] xs = new int[reads], ys = new int[reads];
+		for (int i = 0; i < reads; i++) {
+			xs[i] = random.nextInt(2 * half + 1) - half;
+			ys[i] = random.nextInt(2 * half + 1) - half;
+		}
+		long[] times = new long[8];
+		long sum = 0L;
+		for (int pass = 0; pass < PASSES; pass++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < reads; i++) {
+				p[0] = xs[i];
+				p[1] = ys[i];
+				sum += grid.get(p);
+			}
+			times[0] = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int i = 0; i < reads; i++) {
+				sum += ints.get(xs[i], ys[i]);
+			}
+			times[1] = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int i = 0; i < reads; i++) {
+				sum += shorts.get(xs[i], ys[i]);
+			}
+			times[2] = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int i = 0; i < reads; i++) {
+				sum += bits.get(xs[i], ys[i]) ? 1 : 0;
+			}
+			times[3] = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int y = -half; y <= half; y++) {
+				p[1] = y;
+				for (int x = -half; x <= half; x++) {
+					p[0] = x;
+					sum += grid.get(p);
+				}
+			}
+			times[4] = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int y = 0; y < size; y++) {
+				for (int x = 0; x < size; x++) {
+					sum += ints.get(x, y);
+				}
+			}
+			times[5] = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int i = 0, n = shorts.getLength(); i < n; i++) {
+				sum += shorts.getAt(i);
+			}
+			times[6] = System.nanoTime() - start;
+			start = System.nanoTime();
+			sum += bits.count();
+			times[7] = System.nanoTime() - start;
+		}
+		double cells = (double) size * size;
+		return String.format("%d^2 grid, checksum %d:%n" +
+												 "  random  generic %.2f ns, int %.2f ns, short %.2f " +
+												 "ns, bit %.2f ns per read%n" +
+												 "  scan    generic %.2f ns, int %.2f ns, short %.2f " +
+												 "ns, bit count %.3f ns per cell", size, sum,
+												 times[0] / (double) reads, times[1] / (double) reads,
+												 times[2] / (double) reads, times[3] / (double) reads,
+												 times[4] / cells, times[5] / cells, times[6] / cells,
+												 times[7] / cells);
+	}
+
+	private PackedGridBenchmark() {
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.math;
+
+import com.auroraengine.debug.Allocations;
+import com.auroraengine.debug.AuroraLogs;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Measures the time and bytes allocated per object of a per frame update of
+ * many frames: rotating and translating each frame, transforming a point into
+ * it and taking the distance and normal to another point, once through the
+ * methods returning new objects and once through those taking a target. Also
+ * reports the bytes allocated per call of the operations which now use the
+ * working objects of the thread rather than temporaries.
+ *
+ * Arguments, all optional, in order: the number of frames.
+ *
+ * @author LittleRover
+ */
+public final class AllocationBenchmark {
+	private static final Logger LOG = AuroraLogs.getLogger(
+					AllocationBenchmark.class.getName());
+	private static final int PASSES = 20;
+
+	/**
+	 * Runs the benchmark described by the provided arguments.
+	 *
+	 * @param args The arguments
+	 */
+	@SuppressWarnings("UseOfSystemOutOrSystemErr")
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		System.out.println(runFrames(count));
+		System.out.println(runOperations(count));
+	}
+
+	private static String runFrames(int count) {
+		Random random = new Random(count);
+		LDMat[] frames = new LDMat[count];
+		LDVec[] points = new LDVec[count];
+		for (int i = 0; i < count; i++) {
+			frames[i] = new LDMat(new LDVec(random.nextFloat(), random.nextFloat(),
+																			random.nextFloat()));
+			points[i] = new LDVec(random.nextFloat(), random.nextFloat(), random
+														.nextFloat());
+		}
+		LDAng ang = new LDAng(0.01f, 0.3f, 0.4f, 0.5f);
+		LDVec step = new LDVec(0.001f, 0.0f, 0.0f, 0.0f);
+		LDVec eye = new LDVec(0.5f, 0.5f, 0.5f);
+		LDVec local = new LDVec(), dist = new LDVec(), normal = new LDVec();
+		long[] times = new long[2], bytes = new long[2];
+		double sum = 0.0;
+		for (int pass = 0; pass < PASSES; pass++) {
+			long allocated = Allocations.getAllocatedBytes();
+			long start = System.nanoTime();
+			for (int i = 0; i < count; i++) {
+				LDMat frame = frames[i].rotateLocally(ang).translateLocally(step);
+				LDVec point = frame.transform(points[i]);
+				LDVec to = LDVec.getDistVec(point, frame.getOrigin());
+				sum += to.cross(eye).getSqrLen();
+			}
+			times[0] = System.nanoTime() - start;
+			bytes[0] = Allocations.getAllocatedBytes() - allocated;
+			allocated = Allocations.getAllocatedBytes();
+			start = System.nanoTime();
+			for (int i = 0; i < count; i++) {
+				LDMat frame = frames[i].rotateLocally(ang).translateLocally(step);
+				frame.transform(points[i], local);
+				LDVec.getDistVec(local, frame.getOrigin(dist), dist);
+				sum -= dist.cross(eye, normal).getSqrLen();
+			}
+			times[1] = System.nanoTime() - start;
+			bytes[1] = Allocations.getAllocatedBytes() - allocated;
+		}
+		return String.format("%d frames, checksum %.3g:%n" +
+												 "  new objects %.1f ns, %d bytes per frame%n" +
+												 "  targets     %.1f ns, %d bytes per frame", count,
+												 sum, times[0] / (double) count, bytes[0] / count,
+												 times[1] / (double) count, bytes[1] / count);
+	}
+
+	private static String runOperations(int count) {
+		LDAng ang = new LDAng(0.01f, 0.3f, 0.4f, 0.5f);
+		LDVec a = new LDVec(0.1f, 0.2f, 0.3f), b = new LDVec(0.9f, 0.1f, 0.4f);
+		LDVec c = new LDVec(0.4f, 0.7f, 0.2f), d = new LDVec(0.0f, 0.0f, 1.0f,
+																													0.0f);
+		LDVec[] closest = {new LDVec(), new LDVec()};
+		LDMat affine = new LDMat(), projective = new LDMat(new float[]{1.0f, 0.0f,
+																																	 0.0f, 0.1f,
+																																	 0.0f, 1.0f,
+																																	 0.0f, 0.0f,
+																																	 0.0f, 0.0f,
+																																	 1.0f, 0.0f,
+																																	 0.0f, 0.0f,
+																																	 0.0f, 1.0f});
+		long[] bytes = new long[5];
+		boolean found = false;
+		for (int pass = 0; pass < PASSES; pass++) {
+			long allocated = Allocations.getAllocatedBytes();
+			for (int i = 0; i < count; i++) {
+				affine.rotateGlobally(ang).rotateLocally(ang);
+			}
+			bytes[0] = Allocations.getAllocatedBytes() - allocated;
+			allocated = Allocations.getAllocatedBytes();
+			for (int i = 0; i < count; i++) {
+				affine.set(a, b, c);
+			}
+			bytes[1] = Allocations.getAllocatedBytes() - allocated;
+			allocated = Allocations.getAllocatedBytes();
+			for (int i = 0; i < count; i++) {
+				projective.translateGlobally(d).translateLocally(d);
+			}
+			bytes[2] = Allocations.getAllocatedBytes() - allocated;
+			allocated = Allocations.getAllocatedBytes();
+			for (int i = 0; i < count; i++) {
+				found ^= LDVec.getIntersecting(a, d, b, c, 0.1f);
+			}
+			bytes[3] = Allocations.getAllocatedBytes() - allocated;
+			allocated = Allocations.getAllocatedBytes();
+			for (int i = 0; i < count; i++) {
+				LDVec.getClosestVecs(a, d, b, c, closest);
+			}
+			bytes[4] = Allocations.getAllocatedBytes() - allocated;
+		}
+		return String.format("Bytes per call over %d calls, intersecting %b:%n" +
+												 "  rotate globally and locally %d%n" +
+												 "  set from three points       %d%n" +
+												 "  projective translations     %d%n" +
+												 "  intersection test           %d%n" +
+												 "  closest points into targets %d", count, found,
+												 bytes[0] / count,
+												 bytes[1] / count, bytes[2] / count, bytes[3] / count,
+												 bytes[4] / count);
+	}
+
+	private AllocationBenchmark() {
+	}
+}
@@ -0,0 +1,671 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.math;
+
+import com.auroraengine.debug.AuroraLogs;
+import static com.auroraengine.math.HDQVec.CONTEXT;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * <code>DDMat</code>s are special orthogonal affine reference frames held in
+ * double-double precision, as <code>DDVec</code> is to <code>HDQVec</code>. The
+ * rotations are given by <code>HDAng</code>s, as an orientation needs no more
+ * than double precision, while the products with positions are carried to full
+ * precision.
+ *
+ * @author LittleRover
+ */
+public final class DDMat {
+	private static final double[] IDENTITY = new double[32];
+	private static final Logger LOG = AuroraLogs.getLogger(DDMat.class.getName());
+
+	static {
+		IDENTITY[0] = 1.0;
+		IDENTITY[10] = 1.0;
+		IDENTITY[20] = 1.0;
+		IDENTITY[30] = 1.0;
+	}
+
+	/**
+	 * Performs the matrix multiplication of ref1 on ref2, returning the result as
+	 * a new reference matrix.
+	 *
+	 * @param ref1 The inner reference frame
+	 * @param ref2 The second reference frame
+	 *
+	 * @return The final reference frame
+	 */
+	public static DDMat mult(DDMat ref1, DDMat ref2) {
+		return mult(ref1, ref2, null);
+	}
+
+	/**
+	 * Performs the matrix multiplication of ref1 on ref2, placing the result in
+	 * the provided target reference frame, which may be either of them.
+	 *
+	 * @param ref1   The inner reference frame
+	 * @param ref2   The second reference frame
+	 * @param target The target reference frame
+	 *
+	 * @return The final reference frame
+	 */
+	public static DDMat mult(DDMat ref1, DDMat ref2, DDMat target) {
+		double[] a = ref1.data, b = ref2.data, d = Scratch.get().dd_matrix;
+		for (int c = 0; c < 4; c++) {
+			for (int i = 0; i < 3; i++) {
+				int k = 2 * (4 * c + i);
+				DoubleDouble.mul(a, 2 * i, b, 8 * c, d, k);
+				DoubleDouble.mulAdd(a, 2 * (4 + i), b, 8 * c + 2, d, k);
+				DoubleDouble.mulAdd(a, 2 * (8 + i), b, 8 * c + 4, d, k);
+			}
+		}
+		for (int i = 0; i < 3; i++) {
+			DoubleDouble.add(d, 2 * (12 + i), a, 2 * (12 + i), d, 2 * (12 + i));
+		}
+		setBottomRow(d);
+		return target != null ? target.set(d) : new DDMat().set(d);
+	}
+
+	private static void setBottomRow(double[] d) {
+		for (int k = 6; k < 32; k += 8) {
+			d[k] = 0.0;
+			d[k + 1] = 0.0;
+		}
+		d[30] = 1.0;
+	}
+
+	/**
+	 * Creates a new reference frame which performs no transformation.
+	 */
+	public DDMat() {
+		identity();
+	}
+
+	/**
+	 * Creates a new reference frame translated by the given vector.
+	 *
+	 * @param vec The translation vector
+	 */
+	public DDMat(DDVec vec) {
+		set(vec);
+	}
+
+	/**
+	 * Creates a new reference frame rotated by the given angle
+	 *
+	 * @param ang The rotation angle
+	 */
+	public DDMat(HDAng ang) {
+		set(ang);
+	}
+
+	/**
+	 * Creates a new reference frame, such that the three provided vectors form
+	 * the X, Y, Z basis for the space. The AB direction is the z-axis, the cross
+	 * product of AB and AC form the y-axis, and the cross product of the y-axis
+	 * and z-axis form the x-axis.
+	 *
+	 * @param vecA Position Vector A
+	 * @param vecB Position Vector B
+	 * @param vecC Position Vector C
+	 */
+	public DDMat(DDVec vecA, DDVec vecB, DDVec vecC) {
+		set(vecA, vecB, vecC);
+	}
+
+	/**
+	 * Creates a new reference frame depending on the number of vectors provided.
+	 * If one is provided, the new reference frame is translated by the given
+	 * vector. If three are provided, the vectors form the X, Y, Z basis for the
+	 * space. Otherwise, an <code>IllegalArgumentException</code> is thrown.
+	 *
+	 * @param vecs The vectors
+	 */
+	public DDMat(DDVec[] vecs) {
+		set(vecs);
+	}
+
+	/**
+	 * Creates a new reference frame with the provided column-major 4x4 matrix
+	 * given as a 16 BigDecimal array. The matrix given should be a special
+	 * orthogonal affine matrix.
+	 *
+	 * @param matrix The matrix.
+	 */
+	public DDMat(BigDecimal[] matrix) {
+		set(matrix);
+	}
+
+	/**
+	 * Creates a new reference frame which is a duplicate of the provided frame.
+	 *
+	 * @param ref The frame to copy
+	 */
+	public DDMat(DDMat ref) {
+		set(ref);
+	}
+	private final DoubleBuffer buffer = ByteBuffer
+					.allocateDirect(16 * Double.BYTES)
+					.order(ByteOrder.nativeOrder()).asDoubleBuffer();
+	/**
+	 * The column-major matrix, each element as the nearest double followed by
+	 * the remainder.
+	 */
+	final double[] data = new double[32];
+	private volatile boolean modified = true;
+	private final DoubleBuffer read_only = buffer.asReadOnlyBuffer();
+
+	/**
+	 * Returns a read-only version of the matrix, rounded to the nearest doubles,
+	 * in a double-buffer.
+	 *
+	 * @return The matrix as a read-only buffer
+	 */
+	public DoubleBuffer buffer() {
+		if (modified) {
+			for (int k = 0; k < data.length; k += 2) {
+				buffer.put(data[k]);
+			}
+			buffer.flip();
+			modified = false;
+		}
+		return this.read_only;
+	}
+
+	/**
+	 * Returns true only if the provided object is a <code>DDMat</code> object
+	 * with the same transformation matrix as this.
+	 *
+	 * @param obj The object check
+	 *
+	 * @return If it is equivalent
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof DDMat && Arrays.equals(data, ((DDMat) obj).data);
+	}
+
+	/**
+	 * Returns the global origin in the reference frame.
+	 *
+	 * @return The local position of the global origin
+	 */
+	public DDVec getOrigin() {
+		return getOrigin(new DDVec());
+	}
+
+	/**
+	 * Places the global origin in the reference frame into the target vector,
+	 * then returns the target.
+	 *
+	 * @param target The target vector
+	 *
+	 * @return The target vector
+	 */
+	public DDVec getOrigin(DDVec target) {
+		System.arraycopy(data, 24, target.data, 0, 6);
+		return target;
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = 3;
+		hash = 97 * hash + Arrays.hashCode(this.data);
+		return hash;
+	}
+
+	/**
+	 * Sets this to the identity reference frame, then returns this.
+	 *
+	 * @return This
+	 */
+	public DDMat identity() {
+		return set(IDENTITY);
+	}
+
+	/**
+	 * Sets this to its inverse. Note this expolits the fact this matrix is a
+	 * special orthogonal affine matrix, and so does not transform arbitrary
+	 * matrix arguments.
+	 *
+	 * @return This
+	 */
+	public DDMat invert() {
+		double[] d = Scratch.get().dd_matrix;
+		for (int c = 0; c < 3; c++) {
+			for (int i = 0; i < 3; i++) {
+				d[2 * (4 * c + i)] = data[2 * (4 * i + c)];
+				d[2 * (4 * c + i) + 1] = data[2 * (4 * i + c) + 1];
+			}
+		}
+		for (int i = 0; i < 3; i++) {
+			int k = 2 * (12 + i);
+			DoubleDouble.mul(data, 8 * i, data, 24, d, k);
+			DoubleDouble.mulAdd(data, 8 * i + 2, data, 26, d, k);
+			DoubleDouble.mulAdd(data, 8 * i + 4, data, 28, d, k);
+			d[k] = -d[k];
+			d[k + 1] = -d[k + 1];
+		}
+		setBottomRow(d);
+		return set(d);
+	}
+
+	/**
+	 * Transforms this reference frame globally with the provided reference frame
+	 * transformation, that is before the transformation described by this frame,
+	 * then returns this. It is analogous to moving an object outside of this
+	 * reference frame.
+	 *
+	 * @param ref The transformation frame
+	 *
+	 * @return This
+	 */
+	public DDMat multiplyGlobally(DDMat ref) {
+		return mult(this, ref, this);
+	}
+
+	/**
+	 *
+	 * Transforms this reference frame locally with the provided reference frame
+	 * transformation, that is after the transformation described by this frame,
+	 * then returns this. It is analogous to moving an object within this
+	 * reference frame.
+	 *
+	 * @param ref The transformation frame
+	 *
+	 * @return This
+	 */
+	public DDMat multiplyLocally(DDMat ref) {
+		return mult(ref, this, this);
+	}
+
+	/**
+	 * Rotates the reference frame globally, that is before the transformation
+	 * described by this frame, then returns this. It is analogous to moving an
+	 * object outside of this reference frame.
+	 *
+	 * @param ang The Rotation Object
+	 *
+	 * @return This
+	 */
+	public DDMat rotateGlobally(HDAng ang) {
+		Scratch scratch = Scratch.get();
+		double[] r = scratch.hd_rotation, d = scratch.dd_matrix;
+		setRotation(ang, r);
+		for (int c = 0; c < 3; c++) {
+			for (int i = 0; i < 3; i++) {
+				int k = 2 * (4 * c + i);
+				DoubleDouble.mul(data[2 * i], data[2 * i + 1], r[3 * c], 0.0, d, k);
+				DoubleDouble.mulAdd(data[2 * (4 + i)], data[2 * (4 + i) + 1],
+														r[3 * c + 1], 0.0, d, k);
+				DoubleDouble.mulAdd(data[2 * (8 + i)], data[2 * (8 + i) + 1],
+														r[3 * c + 2], 0.0, d, k);
+			}
+		}
+		System.arraycopy(data, 24, d, 24, 6);
+		setBottomRow(d);
+		return set(d);
+	}
+
+	/**
+	 * Rotates the reference frame locally, that is after the transformation
+	 * described by this frame, then returns this. It is analogous to moving an
+	 * object within this reference frame.
+	 *
+	 * @param ang The rotation angle
+	 *
+	 * @return This
+	 */
+	public DDMat rotateLocally(HDAng ang) {
+		Scratch scratch = Scratch.get();
+		double[] r = scratch.hd_rotation, d = scratch.dd_matrix;
+		setRotation(ang, r);
+		for (int c = 0; c < 4; c++) {
+			for (int i = 0; i < 3; i++) {
+				int k = 2 * (4 * c + i);
+				DoubleDouble.mul(r[i], 0.0, data[8 * c], data[8 * c + 1], d, k);
+				DoubleDouble.mulAdd(r[i + 3], 0.0, data[8 * c + 2], data[8 * c + 3], d,
+														k);
+				DoubleDouble.mulAdd(r[i + 6], 0.0, data[8 * c + 4], data[8 * c + 5], d,
+														k);
+			}
+		}
+		setBottomRow(d);
+		return set(d);
+	}
+
+	/**
+	 * Clears the reference frame and sets it to a translation by the given
+	 * vector, then returns this.
+	 *
+	 * @param vec The translation vector
+	 *
+	 * @return This
+	 */
+	public DDMat set(DDVec vec) {
+		identity();
+		System.arraycopy(vec.data, 0, data, 24, 6);
+		return this;
+	}
+
+	/**
+	 * Clears the reference frame and sets it to a rotation by the given angle,
+	 * then returns this.
+	 *
+	 * @param ang The rotation angle
+	 *
+	 * @return This
+	 */
+	public DDMat set(HDAng ang) {
+		double[] r = Scratch.get().hd_rotation;
+		setRotation(ang, r);
+		identity();
+		for (int c = 0; c < 3; c++) {
+			for (int i = 0; i < 3; i++) {
+				data[2 * (4 * c + i)] = r[3 * c + i];
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Clears the reference frame and sets it to the basis provided by the three
+	 * vectors. The AB direction is the z-axis, the cross product of AB and AC
+	 * form the y-axis, and the cross product of the y-axis and z-axis form the
+	 * x-axis.
+	 *
+	 * @param vecA Position Vector A
+	 * @param vecB Position Vector B
+	 * @param vecC Position Vector C
+	 *
+	 * @return This
+	 */
+	public DDMat set(DDVec vecA, DDVec vecB, DDVec vecC) {
+		DDVec[] vecs = Scratch.get().dd_vecs;
+		DDVec z = vecs[0].set(vecB).negTranslate(vecA);
+		DDVec y = z.cross(vecs[1].set(vecC).negTranslate(vecA), vecs[1]);
+		DDVec x = y.cross(z, vecs[2]).normalise();
+		y.normalise();
+		z.normalise();
+
+		identity();
+		System.arraycopy(x.data, 0, data, 0, 6);
+		System.arraycopy(y.data, 0, data, 8, 6);
+		System.arraycopy(z.data, 0, data, 16, 6);
+		return this;
+	}
+
+	/**
+	 * Clears the reference frame and sets it depending on the number of vectors
+	 * provided, then returns this. If one is provided, the new reference frame is
+	 * translated by the given vector. If three are provided, the vectors form the
+	 * X, Y, Z basis for the space. Otherwise, an
+	 * <code>IllegalArgumentException</code> is thrown.
+	 *
+	 * @param vecs The vectors
+	 *
+	 * @return This
+	 */
+	public DDMat set(DDVec[] vecs) {
+		switch (vecs.length) {
+			case 1:
+				return set(vecs[0]);
+			case 3:
+				return set(vecs[0], vecs[1], vecs[2]);
+			default:
+				throw new IllegalArgumentException(
+								"Array must be of length 1 or 3! Found " + vecs.length + ".");
+		}
+	}
+
+	/**
+	 * Sets the reference frame to be described by the provided column-major 4x4
+	 * matrix given as a 16 BigDecimal array, rounded to the nearest
+	 * double-doubles. The matrix given should be a special orthogonal affine
+	 * matrix.
+	 *
+	 * @param matrix The matrix
+	 *
+	 * @return This
+	 */
+	public DDMat set(BigDecimal[] matrix) {
+		if (matrix.length == 16) {
+			for (int i = 0; i < 16; i++) {
+				DoubleDouble.set(matrix[i], data, 2 * i);
+			}
+			modified = true;
+		} else {
+			throw new IllegalArgumentException("Array must be of length 16! Found " +
+																				 matrix.length + ".");
+		}
+		return this;
+	}
+
+	/**
+	 * Sets the reference frame to be a copy of the provided reference frame.
+	 *
+	 * @param ref The frame to copy
+	 *
+	 * @return This
+	 */
+	public DDMat set(DDMat ref) {
+		return set(ref.data);
+	}
+
+	/**
+	 * Returns a copy of this reference frame in a <code>HDMat</code> object.
+	 *
+	 * @return
+	 */
+	public HDMat toHD() {
+		double[] d = new double[16];
+		for (int i = 0; i < d.length; i++) {
+			d[i] = data[2 * i];
+		}
+		return new HDMat(d);
+	}
+
+	/**
+	 * Returns an exact copy of this reference frame in a <code>HDQMat</code>
+	 * object.
+	 *
+	 * @return A <code>HDQMat</code> copy of this.
+	 */
+	public HDQMat toHDQ() {
+		BigDecimal[] d = new BigDecimal[16];
+		for (int i = 0; i < d.length; i++) {
+			d[i] = DoubleDouble.toBigDecimal(data, 2 * i);
+		}
+		return new HDQMat(d);
+	}
+
+	/**
+	 * Returns a copy of this reference frame in a <code>LDMat</code> object.
+	 *
+	 * @return A copy of this.
+	 */
+	public LDMat toLD() {
+		float[] d = new float[16];
+		for (int i = 0; i < d.length; i++) {
+			d[i] = (float) data[2 * i];
+		}
+		return new LDMat(d);
+	}
+
+	/**
+	 * Returns the transformation matrix of this reference frame in the format
+	 * "{{0,4,8,12}\\n{1,5,9,13}\\n{2,6,10,14}\\n{3,7,11,15}}".
+	 *
+	 * @return The transformation matrix in text.
+	 */
+	@Override
+	public String toString() {
+		return "{{" + get(0) + "," + get(4) + "," + get(8) + "," + get(12) + "}\n" +
+					 " {" + get(1) + "," + get(5) + "," + get(9) + "," + get(13) + "}\n" +
+					 " {" + get(2) + "," + get(6) + "," + get(10) + "," + get(14) + "}\n" +
+					 " {" + get(3) + "," + get(7) + "," + get(11) + "," + get(15) + "}}";
+	}
+
+	/**
+	 * Returns the position vector transformed to inside this reference frame.
+	 * This is equivalent to calling <code>transform(vec, true)<\code>.
+	 *
+	 * @param vec The global position vector
+	 *
+	 * @return The local position vector
+	 */
+	public DDVec transform(DDVec vec) {
+		return transform(vec, true);
+	}
+
+	/**
+	 * Returns the vector transformed to inside this reference frame. The position
+	 * flag should be true if the vector is a position vector.
+	 *
+	 * @param vec      The global vector
+	 * @param position True if provided vector is a position vector
+	 *
+	 * @return The local vector
+	 */
+	public DDVec transform(DDVec vec, boolean position) {
+		return transform(vec, position, new DDVec());
+	}
+
+	/**
+	 * Places the vector transformed to inside this reference frame into the
+	 * target vector, which may be the same vector, then returns the target. The
+	 * position flag should be true if the vector is a position vector.
+	 *
+	 * @param vec      The global vector
+	 * @param position True if provided vector is a position vector
+	 * @param target   The target vector
+	 *
+	 * @return The target vector
+	 */
+	public DDVec transform(DDVec vec, boolean position, DDVec target) {
+		double[] d = Scratch.get().dd_vector;
+		for (int i = 0; i < 3; i++) {
+			DoubleDouble.mul(data, 2 * i, vec.data, 0, d, 2 * i);
+			DoubleDouble.mulAdd(data, 2 * (4 + i), vec.data, 2, d, 2 * i);
+			DoubleDouble.mulAdd(data, 2 * (8 + i), vec.data, 4, d, 2 * i);
+			if (position) {
+				DoubleDouble.add(d, 2 * i, data, 2 * (12 + i), d, 2 * i);
+			}
+		}
+		System.arraycopy(d, 0, target.data, 0, 6);
+		return target;
+	}
+
+	/**
+	 * Returns the angle transformed to inside this reference frame.
+	 *
+	 * @param ang The global angle
+	 *
+	 * @return The local angle
+	 */
+	public HDAng transform(HDAng ang) {
+		return ang.set(data[0] * ang.X() + data[8] * ang.Y() + data[16] * ang.Z(),
+									 data[2] * ang.X() + data[10] * ang.Y() + data[18] * ang.Z(),
+									 data[4] * ang.X() + data[12] * ang.Y() + data[20] * ang.Z());
+	}
+
+	/**
+	 * Translates the reference frame globally, that is before the transformation
+	 * described by this frame, then returns this. It is analogous to moving an
+	 * object outside of this reference frame.
+	 *
+	 * @param vec The translation vector
+	 *
+	 * @return This
+	 */
+	public DDMat translateGlobally(DDVec vec) {
+		for (int i = 0; i < 3; i++) {
+			int k = 2 * (12 + i);
+			DoubleDouble.mulAdd(data, 2 * i, vec.data, 0, data, k);
+			DoubleDouble.mulAdd(data, 2 * (4 + i), vec.data, 2, data, k);
+			DoubleDouble.mulAdd(data, 2 * (8 + i), vec.data, 4, data, k);
+		}
+		modified = true;
+		return this;
+	}
+
+	/**
+	 * Translates the reference frame locally, that is after the transformation
+	 * described by this frame, then returns this. It is analogous to moving an
+	 * object within this reference frame.
+	 *
+	 * @param vec The translation vector
+	 *
+	 * @return This
+	 */
+	public DDMat translateLocally(DDVec vec) {
+		DoubleDouble.add(data, 24, vec.data, 0, data, 24);
+		DoubleDouble.add(data, 26, vec.data, 2, data, 26);
+		DoubleDouble.add(data, 28, vec.data, 4, data, 28);
+		modified = true;
+		return this;
+	}
+
+	/**
+	 * Writes the 16 double matrix, rounded to the nearest doubles, in
+	 * major-column format into the byte buffer, then returns the provided buffer.
+	 *
+	 * @param bb The Buffer to write to
+	 *
+	 * @return The Buffer written to
+	 */
+	public ByteBuffer write(ByteBuffer bb) {
+		for (int k = 0; k < data.length; k += 2) {
+			bb.putDouble(data[k]);
+		}
+		return bb;
+	}
+
+	/**
+	 * Sets the reference frame to the provided column-major matrix of 16
+	 * double-doubles, then returns this.
+	 */
+	DDMat set(double[] matrix) {
+		System.arraycopy(matrix, 0, data, 0, 32);
+		modified = true;
+		return this;
+	}
+
+	private BigDecimal get(int i) {
+		return DoubleDouble.toBigDecimal(data, 2 * i).round(CONTEXT);
+	}
+
+	/**
+	 * Places the rotation matrix of the angle into the array by column.
+	 */
+	private void setRotation(HDAng ang, double[] r) {
+		r[0] = ang.cos() + ang.X() * ang.X() * (1 - ang.cos());
+		r[1] = ang.Y() * ang.X() * (1 - ang.cos()) + ang.Z() * ang.sin();
+		r[2] = ang.X() * ang.Z() * (1 - ang.cos()) - ang.Y() * ang.sin();
+		r[3] = ang.X() * ang.Y() * (1 - ang.cos()) - ang.Z() * ang.sin();
+		r[4] = ang.cos() + ang.Y() * ang.Y() * (1 - ang.cos());
+		r[5] = ang.Y() * ang.Z() * (1 - ang.cos()) + ang.X() * ang.sin();
+		r[6] = ang.X() * ang.Z() * (1 - ang.cos()) + ang.Y() * ang.sin();
+		r[7] = ang.Y() * ang.Z() * (1 - ang.cos()) - ang.X() * ang.sin();
+		r[8] = ang.cos() + ang.Z() * ang.Z() * (1 - ang.cos());
+	}
+}
@@ -0,0 +1,663 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.math;
+
+import com.auroraengine.debug.AuroraLogs;
+import static com.auroraengine.math.HDQVec.CONTEXT;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * <code>DDVec</code>s are modifiable objects that denote a translation in
+ * Cartesian space using double-double precision, each component being held as
+ * the sum of two doubles. This carries about 32 significant digits, enough for
+ * millimetres across a solar system, at a small multiple of the cost of a
+ * <code>HDVec</code> and with no allocation, where a <code>HDQVec</code>
+ * allocates a <code>BigDecimal</code> per operation. Results are the same on
+ * every platform. It is important to duplicate the object whenever making
+ * modifications that are not to be reflected in the original.
+ *
+ * @author LittleRover
+ */
+public final class DDVec implements Cloneable {
+	private static final Logger LOG = AuroraLogs.getLogger(DDVec.class.getName());
+
+	/**
+	 * Returns the average of the vectors, that is the sum of all vectors divided
+	 * by the number of vectors provided.
+	 *
+	 * @param vecs The vectors to average.
+	 *
+	 * @return The average vector.
+	 */
+	public static DDVec getAverage(DDVec... vecs) {
+		DDVec avg = new DDVec();
+		for (DDVec vec : vecs) {
+			avg.translate(vec);
+		}
+		return avg.invscale(vecs.length);
+	}
+
+	/**
+	 * Returns the distance between A and B. This is equivalent to getting the
+	 * length of the vector produced from <code>getDistVec()</code>.
+	 *
+	 * @param A The starting point
+	 * @param B The destination point
+	 *
+	 * @return The separation
+	 */
+	public static double getDist(DDVec A, DDVec B) {
+		return Math.sqrt(getSqrDist(A, B));
+	}
+
+	/**
+	 * Returns the vector which denotes B - A, which is the translation vector for
+	 * moving from the point A to point B.
+	 *
+	 * @param A The starting point
+	 * @param B The destination point
+	 *
+	 * @return The translation vector
+	 */
+	public static DDVec getDistVec(DDVec A, DDVec B) {
+		return getDistVec(A, B, new DDVec());
+	}
+
+	/**
+	 * Places the vector which denotes B - A into the target vector, which may be
+	 * either of them, then returns the target.
+	 *
+	 * @param A      The starting point
+	 * @param B      The destination point
+	 * @param target The target vector
+	 *
+	 * @return The target vector
+	 */
+	public static DDVec getDistVec(DDVec A, DDVec B, DDVec target) {
+		getDistVec(A, B, target.data);
+		return target;
+	}
+
+	/**
+	 * Returns the square distance between A and B. This is equivalent to getting
+	 * the square length of the vector produced from <code>getDistVec()</code>.
+	 * The separation is found to full precision before it is rounded, so nearby
+	 * points far from the origin keep their separation.
+	 *
+	 * @param A The starting point
+	 * @param B The destination point
+	 *
+	 * @return The separation squared
+	 */
+	public static double getSqrDist(DDVec A, DDVec B) {
+		Scratch scratch = Scratch.get();
+		double[] d = scratch.dd_vector, s = scratch.dd_scalar;
+		getDistVec(A, B, d);
+		DoubleDouble.mul(d, 0, d, 0, s, 0);
+		DoubleDouble.mulAdd(d, 2, d, 2, s, 0);
+		DoubleDouble.mulAdd(d, 4, d, 4, s, 0);
+		return s[0];
+	}
+
+	private static void getDistVec(DDVec A, DDVec B, double[] target) {
+		DoubleDouble.sub(B.data, 0, A.data, 0, target, 0);
+		DoubleDouble.sub(B.data, 2, A.data, 2, target, 2);
+		DoubleDouble.sub(B.data, 4, A.data, 4, target, 4);
+	}
+
+	/**
+	 * Creates a new vector of zero length.
+	 */
+	public DDVec() {
+	}
+
+	/**
+	 * Creates a new vector with the provided X and Y components and zero for the
+	 * Z component.
+	 *
+	 * @param x The X component
+	 * @param y The Y component
+	 */
+	public DDVec(double x, double y) {
+		set(x, y, 0.0);
+	}
+
+	/**
+	 * Creates a new vector with the provided X and Y components and zero for the
+	 * Z component.
+	 *
+	 * @param x The X component
+	 * @param y The Y component
+	 */
+	public DDVec(BigDecimal x, BigDecimal y) {
+		set(x, y, BigDecimal.ZERO);
+	}
+
+	/**
+	 * Creates a new vector with the provided X, Y, and Z components
+	 *
+	 * @param x The X component
+	 * @param y The Y component
+	 * @param z The Z component
+	 */
+	public DDVec(double x, double y, double z) {
+		set(x, y, z);
+	}
+
+	/**
+	 * Creates a new vector with the provided X, Y, and Z components, rounded to
+	 * the nearest double-double.
+	 *
+	 * @param x The X component
+	 * @param y The Y component
+	 * @param z The Z component
+	 */
+	public DDVec(BigDecimal x, BigDecimal y, BigDecimal z) {
+		set(x, y, z);
+	}
+
+	/**
+	 * Creates a new vector which has the same X, Y, and Z components as the
+	 * provided vector.
+	 *
+	 * @param vec The vector to copy.
+	 */
+	public DDVec(DDVec vec) {
+		set(vec);
+	}
+	/**
+	 * The components, each as the nearest double followed by the remainder.
+	 */
+	final double[] data = new double[6];
+
+	/**
+	 * Returns the X component of this vector, rounded to the nearest double.
+	 *
+	 * @return The X component
+	 */
+	public double X() {
+		return data[0];
+	}
+
+	/**
+	 * Sets the X component to the provided value, then returns this vector.
+	 *
+	 * @param x The new X component
+	 *
+	 * @return This
+	 */
+	public DDVec X(double x) {
+		data[0] = x;
+		data[1] = 0.0;
+		return this;
+	}
+
+	/**
+	 * Sets the X component to the provided value, then returns this vector.
+	 *
+	 * @param x The new X component
+	 *
+	 * @return This
+	 */
+	public DDVec X(BigDecimal x) {
+		DoubleDouble.set(x, data, 0);
+		return this;
+	}
+
+	/**
+	 * Returns the Y component of this vector, rounded to the nearest double.
+	 *
+	 * @return The Y component
+	 */
+	public double Y() {
+		return data[2];
+	}
+
+	/**
+	 * Sets the Y component to the provided value, then returns this vector.
+	 *
+	 * @param y The new Y component
+	 *
+	 * @return This
+	 */
+	public DDVec Y(double y) {
+		data[2] = y;
+		data[3] = 0.0;
+		return this;
+	}
+
+	/**
+	 * Sets the Y component to the provided value, then returns this vector.
+	 *
+	 * @param y The new Y component
+	 *
+	 * @return This
+	 */
+	public DDVec Y(BigDecimal y) {
+		DoubleDouble.set(y, data, 2);
+		return this;
+	}
+
+	/**
+	 * Returns the Z component of this vector, rounded to the nearest double.
+	 *
+	 * @return The Z component
+	 */
+	public double Z() {
+		return data[4];
+	}
+
+	/**
+	 * Sets the Z component to the provided value, then returns this vector.
+	 *
+	 * @param z The new Z component
+	 *
+	 * @return This
+	 */
+	public DDVec Z(double z) {
+		data[4] = z;
+		data[5] = 0.0;
+		return this;
+	}
+
+	/**
+	 * Sets the Z component to the provided value, then returns this vector.
+	 *
+	 * @param z The new Z component
+	 *
+	 * @return This
+	 */
+	public DDVec Z(BigDecimal z) {
+		DoubleDouble.set(z, data, 4);
+		return this;
+	}
+
+	/**
+	 * Creates a copy of this.
+	 *
+	 * @return
+	 */
+	@Override
+	public DDVec clone() {
+		return new DDVec(this);
+	}
+
+	/**
+	 * Returns the cross product of this vector and the specified vector as a new
+	 * vector. The order of arguments is as written, so <code>A.cross(B)</code> is
+	 * equivalent to A × B.
+	 *
+	 * @param v The second vector
+	 *
+	 * @return The cross product vector
+	 */
+	public DDVec cross(DDVec v) {
+		return cross(v, new DDVec());
+	}
+
+	/**
+	 * Places the cross product of this vector and the specified vector into the
+	 * target vector, which may be either of them, then returns the target.
+	 *
+	 * @param v      The second vector
+	 * @param target The target vector
+	 *
+	 * @return The target vector
+	 */
+	public DDVec cross(DDVec v, DDVec target) {
+		double[] d = Scratch.get().dd_vector;
+		DoubleDouble.mul(data, 2, v.data, 4, d, 0);
+		DoubleDouble.mulAdd(-data[4], -data[5], v.data[2], v.data[3], d, 0);
+		DoubleDouble.mul(data, 4, v.data, 0, d, 2);
+		DoubleDouble.mulAdd(-data[0], -data[1], v.data[4], v.data[5], d, 2);
+		DoubleDouble.mul(data, 0, v.data, 2, d, 4);
+		DoubleDouble.mulAdd(-data[2], -data[3], v.data[0], v.data[1], d, 4);
+		System.arraycopy(d, 0, target.data, 0, 6);
+		return target;
+	}
+
+	/**
+	 * Returns the dot product of this vector and the specified vector, rounded
+	 * to the nearest double.
+	 *
+	 * @param v The second vector
+	 *
+	 * @return The dot product
+	 */
+	public double dot(DDVec v) {
+		double[] s = Scratch.get().dd_scalar;
+		dot(v, s);
+		return s[0];
+	}
+
+	/**
+	 * Returns true if the provided object is a <code>DDVec</code> with the same
+	 * components as this. Use a comparison of square separation with some
+	 * tolerance to determine when two vectors are similar
+	 *
+	 * @param obj The object to check
+	 *
+	 * @return True if the provided object is the same as this.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		final DDVec other = (DDVec) obj;
+		return Arrays.equals(this.data, other.data);
+	}
+
+	/**
+	 * Returns the length of this vector. If used for comparison, try using the
+	 * faster <code>sqrLength()</code> method.
+	 *
+	 * @return The length
+	 */
+	public double getLen() {
+		return Math.sqrt(getSqrLen());
+	}
+
+	/**
+	 * Returns the square length of this vector. This is faster than finding the
+	 * length.
+	 *
+	 * @return The square length
+	 */
+	public double getSqrLen() {
+		return dot(this);
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = 7;
+		hash = 83 * hash + Arrays.hashCode(this.data);
+		return hash;
+	}
+
+	/**
+	 * Scales all components in this vector by the inverse of the specified scale
+	 * factor, then returns this.
+	 *
+	 * @param s The inverse of the scale factor
+	 *
+	 * @return This
+	 */
+	public DDVec invscale(double s) {
+		DoubleDouble.div(data[0], data[1], s, 0.0, data, 0);
+		DoubleDouble.div(data[2], data[3], s, 0.0, data, 2);
+		DoubleDouble.div(data[4], data[5], s, 0.0, data, 4);
+		return this;
+	}
+
+	/**
+	 * Subtracts the provided vector to this vector, then returns this. This has
+	 * the effect of translating this by the negative of the specified vector.
+	 *
+	 * @param v The translation vector
+	 *
+	 * @return This
+	 */
+	public DDVec negTranslate(DDVec v) {
+		DoubleDouble.sub(data, 0, v.data, 0, data, 0);
+		DoubleDouble.sub(data, 2, v.data, 2, data, 2);
+		DoubleDouble.sub(data, 4, v.data, 4, data, 4);
+		return this;
+	}
+
+	/**
+	 * Scales this vector by -1, then returns this.
+	 *
+	 * @return This
+	 */
+	public DDVec negate() {
+		for (int i = 0; i < data.length; i++) {
+			data[i] = -data[i];
+		}
+		return this;
+	}
+
+	/**
+	 * Normalises this vector (sets the length to 1) to full precision, then
+	 * returns this.
+	 *
+	 * @return This
+	 */
+	public DDVec normalise() {
+		double[] s = Scratch.get().dd_scalar;
+		dot(this, s);
+		DoubleDouble.sqrt(s[0], s[1], s, 0);
+		DoubleDouble.div(data, 0, s, 0, data, 0);
+		DoubleDouble.div(data, 2, s, 0, data, 2);
+		DoubleDouble.div(data, 4, s, 0, data, 4);
+		return this;
+	}
+
+	/**
+	 * Reflects this vector through the plane defined by the provided normal
+	 * vector, then returns this. If the provided vector is not normalised, the
+	 * result will be scaled by the same amount as the provided vector length.
+	 *
+	 * @param n The plane normal vector.
+	 *
+	 * @return This
+	 */
+	public DDVec reflect(DDVec n) {
+		double[] s = Scratch.get().dd_scalar;
+		dot(n, s);
+		double h = -2.0 * s[0], l = -2.0 * s[1];
+		DoubleDouble.mulAdd(h, l, n.data[0], n.data[1], data, 0);
+		DoubleDouble.mulAdd(h, l, n.data[2], n.data[3], data, 2);
+		DoubleDouble.mulAdd(h, l, n.data[4], n.data[5], data, 4);
+		return this;
+	}
+
+	/**
+	 * Sets each component to the remainder of the division by the corresponding
+	 * component in the provided vector, then returns this. As with
+	 * <code>BigDecimal</code>, the remainder takes the sign of this component.
+	 *
+	 * @param n The wrapping vector
+	 *
+	 * @return This
+	 */
+	public DDVec remainder(DDVec n) {
+		double[] q = Scratch.get().dd_scalar;
+		for (int i = 0; i < data.length; i += 2) {
+			DoubleDouble.div(data, i, n.data, i, q, 0);
+			DoubleDouble.trunc(q[0], q[1], q, 0);
+			DoubleDouble.mulAdd(-q[0], -q[1], n.data[i], n.data[i + 1], data, i);
+		}
+		return this;
+	}
+
+	/**
+	 * Scales all components in this vector by the specified scale factor, then
+	 * returns this.
+	 *
+	 * @param s The scale factor
+	 *
+	 * @return This
+	 */
+	public DDVec scale(double s) {
+		DoubleDouble.mul(data[0], data[1], s, 0.0, data, 0);
+		DoubleDouble.mul(data[2], data[3], s, 0.0, data, 2);
+		DoubleDouble.mul(data[4], data[5], s, 0.0, data, 4);
+		return this;
+	}
+
+	/**
+	 * Sets the X, Y, and Z components to the provided values, then returns this
+	 * vector.
+	 *
+	 * @param x The new X component
+	 * @param y The new Y component
+	 * @param z The new Z component
+	 *
+	 * @return This
+	 */
+	public DDVec set(double x, double y, double z) {
+		return X(x).Y(y).Z(z);
+	}
+
+	/**
+	 * Sets the X, Y, and Z components to the provided values, rounded to the
+	 * nearest double-double, then returns this vector.
+	 *
+	 * @param x The new X component
+	 * @param y The new Y component
+	 * @param z The new Z component
+	 *
+	 * @return This
+	 */
+	public DDVec set(BigDecimal x, BigDecimal y, BigDecimal z) {
+		return X(x).Y(y).Z(z);
+	}
+
+	/**
+	 * Sets the X, Y, and Z components to those of the provided vector, then
+	 * returns this vector.
+	 *
+	 * @param v The vector to copy
+	 *
+	 * @return This
+	 */
+	public DDVec set(DDVec v) {
+		System.arraycopy(v.data, 0, data, 0, 6);
+		return this;
+	}
+
+	/**
+	 * Returns a copy of this vector as a <code>HDVec</code>
+	 *
+	 * @return A copy of This
+	 */
+	public HDVec toHD() {
+		return toHD(new HDVec());
+	}
+
+	/**
+	 * Places a copy of this vector into the provided <code>HDVec</code>, then
+	 * returns it.
+	 *
+	 * @param target The target vector
+	 *
+	 * @return The target vector
+	 */
+	public HDVec toHD(HDVec target) {
+		return target.set(data[0], data[2], data[4], 1.0);
+	}
+
+	/**
+	 * Returns an exact copy of this vector as a <code>HDQVec</code>.
+	 *
+	 * @return A copy of This
+	 */
+	public HDQVec toHDQ() {
+		return new HDQVec(DoubleDouble.toBigDecimal(data, 0), DoubleDouble
+											.toBigDecimal(data, 2), DoubleDouble.toBigDecimal(data, 4));
+	}
+
+	/**
+	 * Returns a copy of this vector as a <code>LDVec</code>.
+	 *
+	 * @return A copy of This
+	 */
+	public LDVec toLD() {
+		return new LDVec((float) data[0], (float) data[2], (float) data[4]);
+	}
+
+	/**
+	 * Returns this vector as a string in the format "(x,y,z)", where x, y, and z
+	 * are the corresponding components of this vector.
+	 *
+	 * @return A string representation of this vector.
+	 */
+	@Override
+	public String toString() {
+		return "(" + DoubleDouble.toBigDecimal(data, 0).round(CONTEXT) + "," +
+					 DoubleDouble.toBigDecimal(data, 2).round(CONTEXT) + "," +
+					 DoubleDouble.toBigDecimal(data, 4).round(CONTEXT) + ")";
+	}
+
+	/**
+	 * Adds the provided X, Y, and Z values to the corresponding components in
+	 * this vector, then returns this. This has the effect of translating this by
+	 * the specified amount in each component.
+	 *
+	 * @param x The X component to add
+	 * @param y The Y component to add
+	 * @param z The Z component to add
+	 *
+	 * @return This
+	 */
+	public DDVec translate(double x, double y, double z) {
+		DoubleDouble.add(data[0], data[1], x, 0.0, data, 0);
+		DoubleDouble.add(data[2], data[3], y, 0.0, data, 2);
+		DoubleDouble.add(data[4], data[5], z, 0.0, data, 4);
+		return this;
+	}
+
+	/**
+	 * Adds the provided vector to this vector, then returns this. This has the
+	 * effect of translating this by the specified vector.
+	 *
+	 * @param v The translation vector
+	 *
+	 * @return This
+	 */
+	public DDVec translate(DDVec v) {
+		DoubleDouble.add(data, 0, v.data, 0, data, 0);
+		DoubleDouble.add(data, 2, v.data, 2, data, 2);
+		DoubleDouble.add(data, 4, v.data, 4, data, 4);
+		return this;
+	}
+
+	/**
+	 * Places the X, Y, and Z components, rounded to the nearest doubles, into the
+	 * provided buffer in that order, then returns the provided buffer.
+	 *
+	 * @param bb The Buffer
+	 *
+	 * @return The Provided Buffer
+	 */
+	public ByteBuffer write(ByteBuffer bb) {
+		bb.putDouble(data[0]);
+		bb.putDouble(data[2]);
+		bb.putDouble(data[4]);
+		return bb;
+	}
+
+	/**
+	 * Places the dot product of this vector and the provided vector into the
+	 * first two elements of the target.
+	 */
+	private void dot(DDVec v, double[] target) {
+		DoubleDouble.mul(data, 0, v.data, 0, target, 0);
+		DoubleDouble.mulAdd(data, 2, v.data, 2, target, 0);
+		DoubleDouble.mulAdd(data, 4, v.data, 4, target, 0);
+	}
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.math;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.math.BigDecimal;
+import java.util.logging.Logger;
+
+/**
+ * The arithmetic behind the double-double classes, acting on values held as an
+ * unevaluated sum of two doubles, the nearest double to the value and the
+ * remainder, stored at an index and the one after it in an array. This gives
+ * 106 bits of mantissa, close to the 113 of IEEE quadruple precision, with
+ * none of the allocation of <code>BigDecimal</code>.
+ *
+ * The operations are the error-free transformations of Dekker and Knuth
+ * written without fused multiply-add, so under strict floating point they give
+ * the same bits on every platform. Like the kernels, each reads all of its
+ * inputs before writing, so that the result may overwrite an input. Products
+ * overflow for magnitudes beyond about 1e300.
+ *
+ * @author LittleRover
+ */
+@SuppressWarnings("strictfp")
+final strictfp class DoubleDouble {
+	private static final Logger LOG = AuroraLogs.getLogger(DoubleDouble.class
+					.getName());
+	/**
+	 * 2^27 + 1, which splits a double into two halves whose products are exact.
+	 */
+	private static final double SPLITTER = 134217729.0;
+
+	/**
+	 * Places a + b into the target.
+	 */
+	static void add(double ah, double al, double bh, double bl, double[] r, int k) {
+		double s = ah + bh;
+		double v = s - ah;
+		double e = (ah - (s - v)) + (bh - v);
+		double t = al + bl;
+		double w = t - al;
+		double f = (al - (t - w)) + (bl - w);
+		e += t;
+		double h = s + e;
+		e -= h - s;
+		e += f;
+		s = h + e;
+		r[k] = s;
+		r[k + 1] = e - (s - h);
+	}
+
+	/**
+	 * Places a + b into the target.
+	 */
+	static void add(double[] a, int i, double[] b, int j, double[] r, int k) {
+		add(a[i], a[i + 1], b[j], b[j + 1], r, k);
+	}
+
+	/**
+	 * Places a / b into the target.
+	 */
+	static void div(double ah, double al, double bh, double bl, double[] r, int k) {
+		double q = ah / bh;
+		// The remainder a - q * b, to find the correction to the quotient.
+		double p = q * bh;
+		double pe = prodErr(q, bh, p) + q * bl;
+		double s = ah - p;
+		double v = s - ah;
+		double e = (ah - (s - v)) + (-p - v) - pe + al;
+		double c = (s + e) / bh;
+		double h = q + c;
+		r[k] = h;
+		r[k + 1] = c - (h - q);
+	}
+
+	/**
+	 * Places a / b into the target.
+	 */
+	static void div(double[] a, int i, double[] b, int j, double[] r, int k) {
+		div(a[i], a[i + 1], b[j], b[j + 1], r, k);
+	}
+
+	/**
+	 * Places the provided value, rounded to the nearest double-double, into the
+	 * target.
+	 */
+	static void set(BigDecimal b, double[] r, int k) {
+		double h = b.doubleValue();
+		r[k] = h;
+		r[k + 1] = b.subtract(new BigDecimal(h)).doubleValue();
+	}
+
+	/**
+	 * Places a * b into the target.
+	 */
+	static void mul(double ah, double al, double bh, double bl, double[] r, int k) {
+		double p = ah * bh;
+		double e = prodErr(ah, bh, p) + (ah * bl + al * bh);
+		double h = p + e;
+		r[k] = h;
+		r[k + 1] = e - (h - p);
+	}
+
+	/**
+	 * Places a * b into the target.
+	 */
+	static void mul(double[] a, int i, double[] b, int j, double[] r, int k) {
+		mul(a[i], a[i + 1], b[j], b[j + 1], r, k);
+	}
+
+	/**
+	 * Adds a * b to the value in the target.
+	 */
+	static void mulAdd(double ah, double al, double bh, double bl, double[] r,
+										 int k) {
+		double p = ah * bh;
+		double e = prodErr(ah, bh, p) + (ah * bl + al * bh);
+		double h = p + e;
+		add(r[k], r[k + 1], h, e - (h - p), r, k);
+	}
+
+	/**
+	 * Adds a * b to the value in the target.
+	 */
+	static void mulAdd(double[] a, int i, double[] b, int j, double[] r, int k) {
+		mulAdd(a[i], a[i + 1], b[j], b[j + 1], r, k);
+	}
+
+	/**
+	 * Places the square root of a into the target, NaN if a is negative.
+	 */
+	static void sqrt(double ah, double al, double[] r, int k) {
+		if (ah <= 0.0) {
+			r[k] = ah == 0.0 ? 0.0 : Double.NaN;
+			r[k + 1] = 0.0;
+			return;
+		}
+		double x = Math.sqrt(ah);
+		double p = x * x;
+		double c = ((ah - p) - prodErr(x, x, p) + al) / (2.0 * x);
+		double h = x + c;
+		r[k] = h;
+		r[k + 1] = c - (h - x);
+	}
+
+	/**
+	 * Places a - b into the target.
+	 */
+	static void sub(double[] a, int i, double[] b, int j, double[] r, int k) {
+		add(a[i], a[i + 1], -b[j], -b[j + 1], r, k);
+	}
+
+	/**
+	 * Returns the exact value of a.
+	 */
+	static BigDecimal toBigDecimal(double[] a, int i) {
+		return new BigDecimal(a[i]).add(new BigDecimal(a[i + 1]));
+	}
+
+	/**
+	 * Places a rounded towards zero to an integer into the target.
+	 */
+	static void trunc(double ah, double al, double[] r, int k) {
+		double sign = ah < 0.0 ? -1.0 : 1.0;
+		ah *= sign;
+		al *= sign;
+		double h = Math.floor(ah), l = 0.0;
+		if (h == ah) {
+			l = Math.floor(al);
+			double s = h + l;
+			l -= s - h;
+			h = s;
+		}
+		r[k] = h * sign;
+		r[k + 1] = l * sign;
+	}
+
+	/**
+	 * Returns the rounding error of the product p = a * b, so that a * b is
+	 * exactly p plus the error.
+	 */
+	private static double prodErr(double a, double b, double p) {
+		double t = SPLITTER * a;
+		double ah = t - (t - a);
+		double al = a - ah;
+		t = SPLITTER * b;
+		double bh = t - (t - b);
+		double bl = b - bh;
+		return ((ah * bh - p) + ah * bl + al * bh) + al * bl;
+	}
+
+	private DoubleDouble() {
+	}
+}
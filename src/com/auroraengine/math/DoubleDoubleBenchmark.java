@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.math;
+
+import com.auroraengine.debug.Allocations;
+import com.auroraengine.debug.AuroraLogs;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Compares the double-double <code>DDVec</code> and <code>DDMat</code> with the
+ * <code>BigDecimal</code> <code>HDQVec</code> and <code>HDQMat</code> on
+ * points spread across a solar system with millimetre detail. First checks
+ * the accuracy of translation, transformation, separation, normalisation and
+ * inversion against the <code>BigDecimal</code> results, with the error of
+ * plain doubles for scale, then measures the time and bytes allocated per
+ * operation of each.
+ *
+ * Arguments, all optional, in order: the number of points, the number of
+ * operations per pass.
+ *
+ * @author LittleRover
+ */
+public final class DoubleDoubleBenchmark {
+	private static final Logger LOG = AuroraLogs.getLogger(
+					DoubleDoubleBenchmark.class.getName());
+	private static final int PASSES = 5;
+	/**
+	 * The radius of the points, 100 AU in metres.
+	 */
+	private static final double RADIUS = 1.5e13;
+	private static final int STEPS = 1000;
+
+	/**
+	 * Runs the benchmark described by the provided arguments.
+	 *
+	 * @param args The arguments
+	 */
+	@SuppressWarnings("UseOfSystemOutOrSystemErr")
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int ops = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+		System.out.println(runAccuracy(count));
+		System.out.println(runTimes(ops));
+	}
+
+	private static double getAbsError(BigDecimal value, BigDecimal expected) {
+		return value.subtract(expected).abs().doubleValue();
+	}
+
+	private static double getError(DDVec value, HDQVec expected) {
+		HDQVec exact = value.toHDQ();
+		return Math.max(getAbsError(exact.X(), expected.X()), Math.max(
+										getAbsError(exact.Y(), expected.Y()), getAbsError(exact
+														.Z(), expected.Z())));
+	}
+
+	private static double getError(HDVec value, HDQVec expected) {
+		return Math.max(getAbsError(new BigDecimal(value.X()), expected.X()), Math
+										.max(getAbsError(new BigDecimal(value.Y()), expected.Y()),
+												 getAbsError(new BigDecimal(value.Z()), expected.Z())));
+	}
+
+	private static DDVec getPoint(Random random) {
+		return new DDVec(random.nextDouble() * RADIUS, random.nextDouble() * RADIUS,
+										 random.nextDouble() * RADIUS).translate(random.nextDouble() *
+																																	1e-3, random
+																														.nextDouble() * 1e-3,
+																														random
+																														.nextDouble() * 1e-3);
+	}
+
+	private static DDMat getFrame(Random random) {
+		return new DDMat(getPoint(random)).rotateLocally(new HDAng(random
+						.nextDouble() * 6.0, random.nextDouble(), random.nextDouble(), random
+																													 .nextDouble()));
+	}
+
+	private static String runAccuracy(int count) {
+		Random random = new Random(count);
+		// The worst absolute errors in metres, of double-doubles then doubles.
+		double[] translate = new double[2], transform = new double[2];
+		double[] separation = new double[2], normal = new double[2];
+		double[] inverse = new double[2];
+		long checksum = 17;
+		for (int n = 0; n < count; n++) {
+			DDVec dd = getPoint(random), step = new DDVec(random.nextDouble(), random
+																										.nextDouble(), random
+																										.nextDouble())
+							.scale(1e-4);
+			HDQVec hdq = dd.toHDQ(), hdq_step = step.toHDQ();
+			HDVec hd = dd.toHD(), hd_step = step.toHD();
+			for (int i = 0; i < STEPS; i++) {
+				dd.translate(step);
+				hdq.translate(hdq_step);
+				hd.translate(hd_step);
+			}
+			translate[0] = Math.max(translate[0], getError(dd, hdq));
+			translate[1] = Math.max(translate[1], getError(hd, hdq));
+
+			DDMat frame = getFrame(random);
+			HDQMat hdq_frame = frame.toHDQ();
+			HDMat hd_frame = frame.toHD();
+			transform[0] = Math.max(transform[0], getError(frame.transform(dd),
+																										 hdq_frame.transform(hdq)));
+			transform[1] = Math.max(transform[1], getError(hd_frame.transform(hd),
+																										 hdq_frame.transform(hdq)));
+
+			DDVec near = new DDVec(dd).translate(step);
+			BigDecimal exact = HDQVec.getSqrDist(dd.toHDQ(), near.toHDQ());
+			separation[0] = Math.max(separation[0], Math.abs(DDVec.getSqrDist(dd,
+																																				near) /
+																												exact.doubleValue() - 1.0));
+			separation[1] = Math.max(separation[1], Math.abs(HDVec.getSqrDist(dd.toHD(),
+																																				near
+																																				.toHD()) / exact.doubleValue() -
+																											 1.0));
+
+			normal[0] = Math.max(normal[0], getError(new DDVec(dd).normalise(),
+																							 new HDQVec(hdq).normalise()));
+			normal[1] = Math.max(normal[1], getError(new HDVec(hd).normalise(),
+																							 new HDQVec(hdq).normalise()));
+
+			DDMat dd_inverse = new DDMat(frame).invert();
+			HDQMat hdq_inverse = new HDQMat(hdq_frame).invert();
+			inverse[0] = Math.max(inverse[0], getError(dd_inverse.getOrigin(),
+																								 hdq_inverse.getOrigin()));
+			inverse[1] = Math.max(inverse[1], getError(new HDMat(hd_frame).invert()
+							.getOrigin(), hdq_inverse.getOrigin()));
+			checksum = 31 * checksum + dd.hashCode() + dd_inverse.hashCode();
+		}
+		return String.format("Worst errors over %d points within %.3g m, " +
+												 "double-double against double, checksum %016x:%n" +
+												 "  %d translations %.3g m, %.3g m%n" +
+												 "  transform       %.3g m, %.3g m%n" +
+												 "  separation      %.3g, %.3g relative%n" +
+												 "  normalise       %.3g, %.3g%n" +
+												 "  invert origin   %.3g m, %.3g m", count, RADIUS,
+												 checksum, STEPS, translate[0], translate[1],
+												 transform[0], transform[1], separation[0],
+												 separation[1], normal[0], normal[1], inverse[0],
+												 inverse[1]);
+	}
+
+	private static String runTimes(int ops) {
+		Random random = new Random(ops);
+		DDVec dd = getPoint(random), dd_step = new DDVec(1e-4, 2e-4, 3e-4);
+		DDVec dd_local = new DDVec();
+		DDMat dd_frame = getFrame(random), dd_other = getFrame(random);
+		DDMat dd_product = new DDMat();
+		HDQVec hdq = dd.toHDQ(), hdq_step = dd_step.toHDQ();
+		HDQMat hdq_frame = dd_frame.toHDQ(), hdq_other = dd_other.toHDQ();
+		HDQMat hdq_product = new HDQMat();
+		String[] names = {"translate", "transform", "separation", "multiply"};
+		long[][] times = new long[2][names.length], bytes = new long[2][names.length];
+		double sum = 0.0;
+		for (int pass = 0; pass < PASSES; pass++) {
+			for (int op = 0; op < names.length; op++) {
+				long allocated = Allocations.getAllocatedBytes();
+				long start = System.nanoTime();
+				for (int i = 0; i < ops; i++) {
+					switch (op) {
+						case 0:
+							dd.translate(dd_step);
+							break;
+						case 1:
+							dd_frame.transform(dd, true, dd_local);
+							break;
+						case 2:
+							sum += DDVec.getSqrDist(dd, dd_local);
+							break;
+						default:
+							DDMat.mult(dd_frame, dd_other, dd_product);
+					}
+				}
+				times[0][op] = System.nanoTime() - start;
+				bytes[0][op] = Allocations.getAllocatedBytes() - allocated;
+				allocated = Allocations.getAllocatedBytes();
+				start = System.nanoTime();
+				for (int i = 0; i < ops; i++) {
+					switch (op) {
+						case 0:
+							hdq.translate(hdq_step);
+							break;
+						case 1:
+							hdq_frame.transform(hdq);
+							break;
+						case 2:
+							sum -= HDQVec.getSqrDist(hdq, hdq_step).doubleValue();
+							break;
+						default:
+							HDQMat.mult(hdq_frame, hdq_other, hdq_product);
+					}
+				}
+				times[1][op] = System.nanoTime() - start;
+				bytes[1][op] = Allocations.getAllocatedBytes() - allocated;
+			}
+		}
+		StringBuilder sb = new StringBuilder(String.format(
+						"%d operations, checksum %.3g, double-double against BigDecimal:",
+						ops, sum + dd.X() + hdq.X().doubleValue() + dd_product.buffer().get(
+						12) + hdq_product.buffer().get(12)));
+		for (int op = 0; op < names.length; op++) {
+			sb.append(String.format("%n  %-10s %8.1f ns %5d bytes, %8.1f ns %5d " +
+															"bytes, %.0fx", names[op], times[0][op] /
+																												(double) ops,
+															bytes[0][op] / ops, times[1][op] / (double) ops,
+															bytes[1][op] / ops, times[1][op] /
+																									(double) times[0][op]));
+		}
+		return sb.toString();
+	}
+
+	private DoubleDoubleBenchmark() {
+	}
+}
@@ -93,6 +93,9 @@ public final class HDQMat {
 		d[14] = (ref1.dat[2].multiply(ref2.dat[12])).add(ref1.dat[6].multiply(
 						ref2.dat[13])).add(ref1.dat[10].multiply(ref2.dat[14])).add(
 						ref1.dat[14]);
+		d[3] = ZERO;
+		d[7] = ZERO;
+		d[11] = ZERO;
 		d[15] = ONE;
 		return target != null ? target.set(d) : new HDQMat(d);
 	}
@@ -261,6 +264,9 @@ public final class HDQMat {
 						.multiply(dat[14]))).negate();
 		d[14] = (dat[8].multiply(dat[12]).add(dat[9].multiply(dat[13])).add(dat[10]
 						.multiply(dat[14]))).negate();
+		d[3] = ZERO;
+		d[7] = ZERO;
+		d[11] = ZERO;
 		d[15] = ONE;
 		return set(d);
 	}
@@ -547,6 +553,16 @@ public final class HDQMat {
 		return set(ref.dat);
 	}
 
+	/**
+	 * Returns a copy of this reference frame in a <code>DDMat</code> object,
+	 * rounded to the nearest double-doubles.
+	 *
+	 * @return A <code>DDMat</code> copy of this.
+	 */
+	public DDMat toDD() {
+		return new DDMat(dat);
+	}
+
 	/**
 	 * Returns a copy of this reference frame in a <code>HDRef</code> object.
 	 *
@@ -661,9 +677,9 @@ public final class HDQMat {
 	public HDQMat translateGlobally(HDQVec vec) {
 		dat[12] = dat[12].add(dat[0].multiply(vec.X()))
 						.add(dat[4].multiply(vec.Y())).add(dat[8].multiply(vec.Z()));
-		dat[13] = dat[14].add(dat[1].multiply(vec.X()))
+		dat[13] = dat[13].add(dat[1].multiply(vec.X()))
 						.add(dat[5].multiply(vec.Y())).add(dat[9].multiply(vec.Z()));
-		dat[14] = dat[13].add(dat[2].multiply(vec.X()))
+		dat[14] = dat[14].add(dat[2].multiply(vec.X()))
 						.add(dat[6].multiply(vec.Y())).add(dat[10].multiply(vec.Z()));
 		modified = true;
 		return this;
@@ -332,10 +332,10 @@ public final class HDQVec implements Cloneable {
 	 * @return The dot product
 	 */
 	public BigDecimal dot(HDQVec v) {
-		return data[0].multiply(data[0], CONTEXT).add(data[1].multiply(data[1],
-																																	 CONTEXT),
-																									CONTEXT).add(data[2].multiply(
-										data[2], CONTEXT), CONTEXT);
+		return data[0].multiply(v.data[0], CONTEXT).add(data[1].multiply(
+						v.data[1], CONTEXT), CONTEXT).add(data[2].multiply(v.data[2],
+																															 CONTEXT),
+																							CONTEXT);
 	}
 
 	/**
@@ -556,6 +556,16 @@ public final class HDQVec implements Cloneable {
 		return this;
 	}
 
+	/**
+	 * Returns a copy of this vector as a <code>DDVec</code>, rounded to the
+	 * nearest double-doubles.
+	 *
+	 * @return A copy of This
+	 */
+	public DDVec toDD() {
+		return new DDVec(data[0], data[1], data[2]);
+	}
+
 	/**
 	 * Returns a copy of this vector as a <code>HDVec</code>
 	 *
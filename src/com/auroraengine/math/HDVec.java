@@ -43,11 +43,24 @@ public final class HDVec implements Cloneable {
 	 * @return The average vector.
 	 */
 	public static HDVec getAverage(HDVec... vecs) {
-		HDVec avg = new HDVec();
+		return getAverage(vecs, new HDVec());
+	}
+
+	/**
+	 * Places the average of the vectors into the target vector, which must not
+	 * be one of them, then returns the target.
+	 *
+	 * @param vecs   The vectors to average
+	 * @param target The target vector
+	 *
+	 * @return The target vector
+	 */
+	public static HDVec getAverage(HDVec[] vecs, HDVec target) {
+		target.zero();
 		for (HDVec vec : vecs) {
-			avg.translate(vec);
+			target.translate(vec);
 		}
-		return avg.invscale(vecs.length);
+		return target.invscale(vecs.length);
 	}
 
 	/**
@@ -63,12 +76,33 @@ public final class HDVec implements Cloneable {
 	 * @return
 	 */
 	public static double[] getClosest(HDVec A, HDVec dA, HDVec B, HDVec dB) {
-		HDVec C = A.clone().negTranslate(B);
+		return getClosest(A, dA, B, dB, new double[2]);
+	}
+
+	/**
+	 * Places the multiples of the direction vectors away from the position
+	 * vectors of the points on the defined lines which are closest together
+	 * into the target, then returns the target.
+	 *
+	 * @param A      Line A position vector.
+	 * @param dA     Line A direction vector.
+	 * @param B      Line B position vector.
+	 * @param dB     Line B direction vector.
+	 * @param target The target, of at least two elements
+	 *
+	 * @return The target
+	 */
+	public static double[] getClosest(HDVec A, HDVec dA, HDVec B, HDVec dB,
+																 double[] target) {
+		// The separation of A from B, as A.clone().negTranslate(B).
+		double cx = A.data[0] - B.data[0] * A.data[3];
+		double cy = A.data[1] - B.data[1] * A.data[3];
+		double cz = A.data[2] - B.data[2] * A.data[3];
 		double da2 = dA.getSqrLen();
 		double db2 = dB.getSqrLen();
 		double dadb = dA.dot(dB);
-		double cda = C.dot(dA);
-		double cdb = C.dot(dB);
+		double cda = cx * dA.data[0] + cy * dA.data[1] + cz * dA.data[2];
+		double cdb = cx * dB.data[0] + cy * dB.data[1] + cz * dB.data[2];
 
 		double eps = EPSILON * Math.min(da2, db2);
 
@@ -92,7 +126,9 @@ public final class HDVec implements Cloneable {
 			}
 		}
 
-		return new double[]{a, b};
+		target[0] = a;
+		target[1] = b;
+		return target;
 	}
 
 	/**
@@ -107,9 +143,28 @@ public final class HDVec implements Cloneable {
 	 * @return Closest points on Line A and Line B to each other.
 	 */
 	public static HDVec[] getClosestVecs(HDVec A, HDVec dA, HDVec B, HDVec dB) {
-		double[] fa = getClosest(A, dA, B, dB);
-		return new HDVec[]{dA.clone().scale(fa[0]).translate(A),
-											 dB.clone().scale(fa[1]).translate(B)};
+		return getClosestVecs(A, dA, B, dB, new HDVec[]{new HDVec(), new HDVec()});
+	}
+
+	/**
+	 * Places the position vectors of the points on the defined lines which are
+	 * closest together into the first two vectors of the target, which must not
+	 * be any of the provided vectors, then returns the target.
+	 *
+	 * @param A      Line A position vector.
+	 * @param dA     Line A direction vector.
+	 * @param B      Line B position vector.
+	 * @param dB     Line B direction vector.
+	 * @param target The target vectors
+	 *
+	 * @return The target vectors
+	 */
+	public static HDVec[] getClosestVecs(HDVec A, HDVec dA, HDVec B, HDVec dB,
+																			 HDVec[] target) {
+		double[] fa = getClosest(A, dA, B, dB, Scratch.get().hd_pair);
+		target[0].set(dA).scale(fa[0]).translate(A);
+		target[1].set(dB).scale(fa[1]).translate(B);
+		return target;
 	}
 
 	/**
@@ -135,7 +190,24 @@ public final class HDVec implements Cloneable {
 	 * @return The translation vector
 	 */
 	public static HDVec getDistVec(HDVec A, HDVec B) {
-		return new HDVec(B).negTranslate(A);
+		return getDistVec(A, B, new HDVec());
+	}
+
+	/**
+	 * Places the vector which denotes B - A into the target vector, which may be
+	 * either of them, then returns the target.
+	 *
+	 * @param A      The starting point
+	 * @param B      The destination point
+	 * @param target The target vector
+	 *
+	 * @return The target vector
+	 */
+	public static HDVec getDistVec(HDVec A, HDVec B, HDVec target) {
+		return target.set(B.data[0] - A.data[0] * B.data[3],
+											B.data[1] - A.data[1] * B.data[3],
+											B.data[2] - A.data[2] * B.data[3],
+											B.data[3] * A.data[3]);
 	}
 
 	/**
@@ -183,7 +255,7 @@ public final class HDVec implements Cloneable {
 	 */
 	public static boolean getIntersecting(HDVec A, HDVec dA, HDVec B, HDVec dB,
 																				double eps) {
-		HDVec[] va = getClosestVecs(A, dA, B, dB);
+		HDVec[] va = getClosestVecs(A, dA, B, dB, Scratch.get().hd_closest);
 		return va[0].negTranslate(va[1]).getSqrLen() < eps * eps;
 	}
 
@@ -197,7 +269,10 @@ public final class HDVec implements Cloneable {
 	 * @return The separation squared
 	 */
 	public static double getSqrDist(HDVec A, HDVec B) {
-		return getDistVec(A, B).getSqrLen();
+		double x = B.data[0] - A.data[0] * B.data[3];
+		double y = B.data[1] - A.data[1] * B.data[3];
+		double z = B.data[2] - A.data[2] * B.data[3];
+		return x * x + y * y + z * z;
 	}
 
 	// The Local Method classes
@@ -373,10 +448,23 @@ public final class HDVec implements Cloneable {
 	 * @return The cross product vector
 	 */
 	public HDVec cross(HDVec v) {
-		return new HDVec(data[1] * v.data[2] - data[2] * v.data[1],
-										 data[2] * v.data[0] - data[0] * v.data[2],
-										 data[0] * v.data[1] - data[1] * v.data[0],
-										 data[3] * v.data[3]);
+		return cross(v, new HDVec());
+	}
+
+	/**
+	 * Places the cross product of this vector and the specified vector into the
+	 * target vector, which may be either of them, then returns the target.
+	 *
+	 * @param v      The second vector
+	 * @param target The target vector
+	 *
+	 * @return The target vector
+	 */
+	public HDVec cross(HDVec v, HDVec target) {
+		return target.set(data[1] * v.data[2] - data[2] * v.data[1],
+											data[2] * v.data[0] - data[0] * v.data[2],
+											data[0] * v.data[1] - data[1] * v.data[0],
+											data[3] * v.data[3]);
 	}
 
 	/**
@@ -613,8 +701,20 @@ public final class HDVec implements Cloneable {
 	 * @return A copy of This
 	 */
 	public LDVec toLD() {
-		return new LDVec((float) data[0], (float) data[1],
-										 (float) data[2], (float) data[3]);
+		return toLD(new LDVec());
+	}
+
+	/**
+	 * Places a copy of this vector into the provided <code>LDVec</code>, then
+	 * returns it.
+	 *
+	 * @param target The target vector
+	 *
+	 * @return The target vector
+	 */
+	public LDVec toLD(LDVec target) {
+		return target.set((float) data[0], (float) data[1],
+											(float) data[2], (float) data[3]);
 	}
 
 	/**
@@ -661,6 +761,39 @@ public final class HDVec implements Cloneable {
 		return this;
 	}
 
+	/**
+	 * Sets the X, Y, and Z components to the next three doubles read from the
+	 * provided buffer, then returns this. This is the reverse of
+	 * <code>writeXYZ()</code>.
+	 *
+	 * @param bb The Buffer
+	 *
+	 * @return This
+	 */
+	public HDVec readXYZ(ByteBuffer bb) {
+		data[0] = bb.getDouble();
+		data[1] = bb.getDouble();
+		data[2] = bb.getDouble();
+		return this;
+	}
+
+	/**
+	 * Sets the X, Y, Z, and W components to the next four doubles read from the
+	 * provided buffer, then returns this. This is the reverse of
+	 * <code>writeXYZW()</code>.
+	 *
+	 * @param bb The Buffer
+	 *
+	 * @return This
+	 */
+	public HDVec readXYZW(ByteBuffer bb) {
+		data[0] = bb.getDouble();
+		data[1] = bb.getDouble();
+		data[2] = bb.getDouble();
+		data[3] = bb.getDouble();
+		return this;
+	}
+
 	/**
 	 * Places the X, Y, and Z components into the provided buffer in that order,
 	 * then returns the provided buffer.
@@ -0,0 +1,465 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.math;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * <code>HDVecArray</code>s hold a fixed number of double precision vectors as
+ * separate arrays of their X, Y, Z, and W components, so that operating on a
+ * great many vectors walks a few arrays in order rather than visiting an
+ * <code>HDVec</code> object for each. The bulk operations act on every vector
+ * in the same way as the <code>HDVec</code> method of the same name, in loops
+ * simple enough for the JIT to unroll and vectorise.
+ *
+ * @author LittleRover
+ */
+public final class HDVecArray {
+	private static final Logger LOG = AuroraLogs.getLogger(HDVecArray.class
+					.getName());
+
+	/**
+	 * Creates a new array of the specified number of zero vectors.
+	 *
+	 * @param count The number of vectors
+	 */
+	public HDVecArray(int count) {
+		if (count < 0) {
+			throw new IllegalArgumentException("Count must not be negative! Found " +
+																				 count + ".");
+		}
+		this.count = count;
+		x = new double[count];
+		y = new double[count];
+		z = new double[count];
+		w = new double[count];
+		Arrays.fill(w, 1.0);
+	}
+
+	/**
+	 * Creates a new array holding copies of the provided vectors.
+	 *
+	 * @param vecs The vectors
+	 */
+	public HDVecArray(HDVec... vecs) {
+		this(vecs.length);
+		for (int i = 0; i < count; i++) {
+			set(i, vecs[i]);
+		}
+	}
+	private final int count;
+	final double[] w;
+	final double[] x;
+	final double[] y;
+	final double[] z;
+
+	/**
+	 * Returns the W component of the vector of the provided index.
+	 *
+	 * @param i The index
+	 *
+	 * @return The W component
+	 */
+	public double W(int i) {
+		return w[i];
+	}
+
+	/**
+	 * Sets the W component of the vector of the provided index, then returns
+	 * this.
+	 *
+	 * @param i The index
+	 * @param v The new W component
+	 *
+	 * @return This
+	 */
+	public HDVecArray W(int i, double v) {
+		w[i] = v;
+		return this;
+	}
+
+	/**
+	 * Returns the X component of the vector of the provided index.
+	 *
+	 * @param i The index
+	 *
+	 * @return The X component
+	 */
+	public double X(int i) {
+		return x[i];
+	}
+
+	/**
+	 * Sets the X component of the vector of the provided index, then returns
+	 * this.
+	 *
+	 * @param i The index
+	 * @param v The new X component
+	 *
+	 * @return This
+	 */
+	public HDVecArray X(int i, double v) {
+		x[i] = v;
+		return this;
+	}
+
+	/**
+	 * Returns the Y component of the vector of the provided index.
+	 *
+	 * @param i The index
+	 *
+	 * @return The Y component
+	 */
+	public double Y(int i) {
+		return y[i];
+	}
+
+	/**
+	 * Sets the Y component of the vector of the provided index, then returns
+	 * this.
+	 *
+	 * @param i The index
+	 * @param v The new Y component
+	 *
+	 * @return This
+	 */
+	public HDVecArray Y(int i, double v) {
+		y[i] = v;
+		return this;
+	}
+
+	/**
+	 * Returns the Z component of the vector of the provided index.
+	 *
+	 * @param i The index
+	 *
+	 * @return The Z component
+	 */
+	public double Z(int i) {
+		return z[i];
+	}
+
+	/**
+	 * Sets the Z component of the vector of the provided index, then returns
+	 * this.
+	 *
+	 * @param i The index
+	 * @param v The new Z component
+	 *
+	 * @return This
+	 */
+	public HDVecArray Z(int i, double v) {
+		z[i] = v;
+		return this;
+	}
+
+	/**
+	 * Places the cross product of each vector of this and the vector of the
+	 * same index of the provided array into the target array, then returns the
+	 * target. The target may be either array.
+	 *
+	 * @param v      The second vectors
+	 * @param target The target array
+	 *
+	 * @return The target array
+	 */
+	public HDVecArray cross(HDVecArray v, HDVecArray target) {
+		check(v);
+		check(target);
+		double[] ax = x, ay = y, az = z, aw = w;
+		double[] bx = v.x, by = v.y, bz = v.z, bw = v.w;
+		double[] tx = target.x, ty = target.y, tz = target.z, tw = target.w;
+		for (int i = 0; i < count; i++) {
+			double cx = ay[i] * bz[i] - az[i] * by[i];
+			double cy = az[i] * bx[i] - ax[i] * bz[i];
+			double cz = ax[i] * by[i] - ay[i] * bx[i];
+			tw[i] = aw[i] * bw[i];
+			tx[i] = cx;
+			ty[i] = cy;
+			tz[i] = cz;
+		}
+		return target;
+	}
+
+	/**
+	 * Places the dot product of each vector of this and the vector of the same
+	 * index of the provided array into the target, then returns the target.
+	 *
+	 * @param v      The second vectors
+	 * @param target The target, at least as long as this
+	 *
+	 * @return The target
+	 */
+	public double[] dot(HDVecArray v, double[] target) {
+		check(v);
+		check(target);
+		double[] ax = x, ay = y, az = z;
+		double[] bx = v.x, by = v.y, bz = v.z;
+		for (int i = 0; i < count; i++) {
+			target[i] = ax[i] * bx[i] + ay[i] * by[i] + az[i] * bz[i];
+		}
+		return target;
+	}
+
+	/**
+	 * Copies the vector of the provided index into the provided vector, then
+	 * returns the provided vector.
+	 *
+	 * @param i      The index
+	 * @param target The target vector
+	 *
+	 * @return The target vector
+	 */
+	public HDVec get(int i, HDVec target) {
+		return target.set(x[i], y[i], z[i], w[i]);
+	}
+
+	/**
+	 * Returns the number of vectors in the array.
+	 *
+	 * @return The number of vectors
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Places the distance between each vector of this and the vector of the
+	 * same index of the provided array into the target, then returns the
+	 * target.
+	 *
+	 * @param v      The second vectors
+	 * @param target The target, at least as long as this
+	 *
+	 * @return The target
+	 */
+	public double[] getDist(HDVecArray v, double[] target) {
+		getSqrDist(v, target);
+		for (int i = 0; i < count; i++) {
+			target[i] = Math.sqrt(target[i]);
+		}
+		return target;
+	}
+
+	/**
+	 * Places the length of each vector into the target, then returns the
+	 * target.
+	 *
+	 * @param target The target, at least as long as this
+	 *
+	 * @return The target
+	 */
+	public double[] getLen(double[] target) {
+		return getDist(null, target);
+	}
+
+	/**
+	 * Places the square distance between each vector of this and the vector of
+	 * the same index of the provided array into the target, then returns the
+	 * target. A null array is taken as zero vectors, giving the square lengths.
+	 *
+	 * @param v      The second vectors, or null
+	 * @param target The target, at least as long as this
+	 *
+	 * @return The target
+	 */
+	public double[] getSqrDist(HDVecArray v, double[] target) {
+		check(target);
+		double[] ax = x, ay = y, az = z;
+		if (v == null) {
+			for (int i = 0; i < count; i++) {
+				target[i] = ax[i] * ax[i] + ay[i] * ay[i] + az[i] * az[i];
+			}
+			return target;
+		}
+		check(v);
+		double[] bx = v.x, by = v.y, bz = v.z;
+		for (int i = 0; i < count; i++) {
+			double dx = bx[i] - ax[i], dy = by[i] - ay[i], dz = bz[i] - az[i];
+			target[i] = dx * dx + dy * dy + dz * dz;
+		}
+		return target;
+	}
+
+	/**
+	 * Normalises every vector (sets the length to 1), then returns this.
+	 *
+	 * @return This
+	 */
+	public HDVecArray normalise() {
+		double[] ax = x, ay = y, az = z;
+		for (int i = 0; i < count; i++) {
+			double s = 1.0 / Math.sqrt(ax[i] * ax[i] + ay[i] * ay[i] + az[i] *
+																																		 az[i]);
+			ax[i] *= s;
+			ay[i] *= s;
+			az[i] *= s;
+		}
+		return this;
+	}
+
+	/**
+	 * Rotates every vector by the provided angle, as the matrix of the angle
+	 * would, then returns this.
+	 *
+	 * @param ang The rotation angle
+	 *
+	 * @return This
+	 */
+	public HDVecArray rotate(HDAng ang) {
+		Kernels.rotate(ang.X(), ang.Y(), ang.Z(), ang.sin(), ang.cos(), x, y, z, 0,
+									 count);
+		return this;
+	}
+
+	/**
+	 * Scales every vector by the specified scale factor, then returns this.
+	 *
+	 * @param s The scale factor
+	 *
+	 * @return This
+	 */
+	public HDVecArray scale(double s) {
+		double[] ax = x, ay = y, az = z;
+		for (int i = 0; i < count; i++) {
+			ax[i] *= s;
+			ay[i] *= s;
+			az[i] *= s;
+		}
+		return this;
+	}
+
+	/**
+	 * Scales each vector by the scale factor of the same index, then returns
+	 * this.
+	 *
+	 * @param s The scale factors, at least as long as this
+	 *
+	 * @return This
+	 */
+	public HDVecArray scale(double[] s) {
+		check(s);
+		double[] ax = x, ay = y, az = z;
+		for (int i = 0; i < count; i++) {
+			ax[i] *= s[i];
+			ay[i] *= s[i];
+			az[i] *= s[i];
+		}
+		return this;
+	}
+
+	/**
+	 * Sets the vector of the provided index to the provided vector, then
+	 * returns this.
+	 *
+	 * @param i The index
+	 * @param v The vector to copy
+	 *
+	 * @return This
+	 */
+	public HDVecArray set(int i, HDVec v) {
+		x[i] = v.data[0];
+		y[i] = v.data[1];
+		z[i] = v.data[2];
+		w[i] = v.data[3];
+		return this;
+	}
+
+	/**
+	 * Sets every vector to the vector of the same index of the provided array,
+	 * then returns this.
+	 *
+	 * @param v The vectors to copy
+	 *
+	 * @return This
+	 */
+	public HDVecArray set(HDVecArray v) {
+		check(v);
+		System.arraycopy(v.x, 0, x, 0, count);
+		System.arraycopy(v.y, 0, y, 0, count);
+		System.arraycopy(v.z, 0, z, 0, count);
+		System.arraycopy(v.w, 0, w, 0, count);
+		return this;
+	}
+
+	/**
+	 * Transforms every vector to inside the provided reference frame, as
+	 * <code>HDMat.transform</code>, then returns this.
+	 *
+	 * @param mat The reference frame
+	 *
+	 * @return This
+	 */
+	public HDVecArray transform(HDMat mat) {
+		Kernels.transform(mat.data, x, y, z, w, 0, count);
+		return this;
+	}
+
+	/**
+	 * Adds the provided vector to every vector, then returns this.
+	 *
+	 * @param v The translation vector
+	 *
+	 * @return This
+	 */
+	public HDVecArray translate(HDVec v) {
+		double vx = v.data[0], vy = v.data[1], vz = v.data[2];
+		double[] ax = x, ay = y, az = z;
+		for (int i = 0; i < count; i++) {
+			ax[i] += vx;
+			ay[i] += vy;
+			az[i] += vz;
+		}
+		return this;
+	}
+
+	/**
+	 * Adds to each vector the vector of the same index of the provided array,
+	 * then returns this.
+	 *
+	 * @param v The translation vectors
+	 *
+	 * @return This
+	 */
+	public HDVecArray translate(HDVecArray v) {
+		check(v);
+		double[] ax = x, ay = y, az = z;
+		double[] bx = v.x, by = v.y, bz = v.z;
+		for (int i = 0; i < count; i++) {
+			ax[i] += bx[i];
+			ay[i] += by[i];
+			az[i] += bz[i];
+		}
+		return this;
+	}
+
+	private void check(HDVecArray v) {
+		if (v.count != count) {
+			throw new IllegalArgumentException("Arrays must hold the same number of " +
+																				 "vectors! Found " + v.count + ".");
+		}
+	}
+
+	private void check(double[] target) {
+		if (target.length < count) {
+			throw new IllegalArgumentException("Array is shorter than the vectors! " +
+																				 "Found " + target.length + ".");
+		}
+	}
+}
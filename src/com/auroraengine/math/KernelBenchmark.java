@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.math;
+
+import com.auroraengine.debug.Allocations;
+import com.auroraengine.debug.AuroraLogs;
+import com.auroraengine.math.geometry.AxisAlignedBoundingBox;
+import com.auroraengine.math.geometry.BoundingBoxArray;
+import com.auroraengine.math.geometry.Plane;
+import com.auroraengine.math.geometry.Side;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Measures the <code>Kernels</code> behind the matrices and the batch
+ * operations: the time and bytes allocated per 4x4 multiply and inverse, and
+ * the time per element of rotating vectors and of testing boxes against a
+ * plane, in batches against one object at a time.
+ *
+ * Arguments, all optional, in order: matrix operations per pass, the number
+ * of vectors and boxes.
+ *
+ * @author LittleRover
+ */
+public final class KernelBenchmark {
+	private static final Logger LOG = AuroraLogs.getLogger(KernelBenchmark.class
+					.getName());
+	private static final int BATCH_PASSES = 20;
+	private static final int PASSES = 5;
+
+	/**
+	 * Runs the benchmark described by the provided arguments.
+	 *
+	 * @param args The arguments
+	 */
+	@SuppressWarnings("UseOfSystemOutOrSystemErr")
+	public static void main(String[] args) {
+		int ops = args.length > 0 ? Integer.parseInt(args[0]) : 5000000;
+		int count = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+		System.out.println(runMatrices(ops));
+		System.out.println(runBatches(count));
+	}
+
+	private static String runBatches(int count) {
+		Random random = new Random(count);
+		LDVec[] vecs = new LDVec[count];
+		AxisAlignedBoundingBox[] boxes = new AxisAlignedBoundingBox[count];
+		BoundingBoxArray array = new BoundingBoxArray(count);
+		for (int i = 0; i < count; i++) {
+			vecs[i] = new LDVec(random.nextFloat() * 100.0f, random.nextFloat() *
+																											 100.0f, random
+													.nextFloat() * 100.0f);
+			float size = random.nextFloat() * 4.0f;
+			boxes[i] = new AxisAlignedBoundingBox(vecs[i], size, size, size);
+			array.set(i, vecs[i], size, size, size);
+		}
+		LDVecArray points = new LDVecArray(vecs);
+		LDAng ang = new LDAng(0.01f, 0.3f, 0.4f, 0.5f);
+		LDMat rotation = new LDMat(ang);
+		Plane plane = new Plane(new LDVec(0.6f, 0.0f, -0.8f));
+		Side[] sides = new Side[count];
+		long[] times = new long[4];
+		int mismatches = 0;
+		for (int pass = 0; pass < BATCH_PASSES; pass++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < count; i++) {
+				vecs[i] = rotation.transform(vecs[i]);
+			}
+			times[0] = System.nanoTime() - start;
+			start = System.nanoTime();
+			points.rotate(ang);
+			times[1] = System.nanoTime() - start;
+			mismatches = 0;
+			start = System.nanoTime();
+			for (int i = 0; i < count; i++) {
+				if (boxes[i].getSideOf(plane) != sides[i]) {
+					mismatches++;
+				}
+			}
+			times[2] = System.nanoTime() - start;
+			start = System.nanoTime();
+			array.getSidesOf(plane, sides);
+			times[3] = System.nanoTime() - start;
+		}
+		mismatches = 0;
+		LDVec vec = new LDVec();
+		double error = 0.0;
+		for (int i = 0; i < count; i++) {
+			if (boxes[i].getSideOf(plane) != sides[i]) {
+				mismatches++;
+			}
+			error = Math.max(error, LDVec.getDist(vecs[i], points.get(i, vec)));
+		}
+		return String.format("%d vectors and boxes:%n" +
+												 "  rotate   objects %.2f ns, batch %.2f ns per vector, " +
+												 "greatest difference %.3g%n" +
+												 "  box side objects %.2f ns, batch %.2f ns per box, %d " +
+												 "mismatches", count, times[0] / (double) count,
+												 times[1] / (double) count, error, times[2] /
+																													 (double) count,
+												 times[3] / (double) count, mismatches);
+	}
+
+	private static String runMatrices(int ops) {
+		Random random = new Random(ops);
+		double[] d = new double[16];
+		float[] f = new float[16];
+		for (int i = 0; i < 16; i++) {
+			d[i] = random.nextDouble() * 2.0 - 1.0;
+			f[i] = (float) d[i];
+		}
+		HDMat a = new HDMat(d), b = new HDMat(a).invert(), hd = new HDMat();
+		LDMat c = new LDMat(f), e = new LDMat(c).invert(), ld = new LDMat();
+		long[] times = new long[3], bytes = new long[3];
+		double sum = 0.0;
+		for (int pass = 0; pass < PASSES; pass++) {
+			long allocated = Allocations.getAllocatedBytes();
+			long start = System.nanoTime();
+			for (int i = 0; i < ops; i++) {
+				HDMat.mult(a, b, hd);
+			}
+			times[0] = System.nanoTime() - start;
+			bytes[0] = Allocations.getAllocatedBytes() - allocated;
+			allocated = Allocations.getAllocatedBytes();
+			start = System.nanoTime();
+			for (int i = 0; i < ops; i++) {
+				LDMat.mult(c, e, ld);
+			}
+			times[1] = System.nanoTime() - start;
+			bytes[1] = Allocations.getAllocatedBytes() - allocated;
+			allocated = Allocations.getAllocatedBytes();
+			start = System.nanoTime();
+			for (int i = 0; i < ops; i++) {
+				hd.set(a).invert();
+			}
+			times[2] = System.nanoTime() - start;
+			bytes[2] = Allocations.getAllocatedBytes() - allocated;
+			sum += hd.buffer().get(0) + ld.buffer().get(0);
+		}
+		return String.format("%d matrix operations, checksum %.6g:%n" +
+												 "  HD multiply %.1f ns, %d bytes%n" +
+												 "  LD multiply %.1f ns, %d bytes%n" +
+												 "  HD set and invert %.1f ns, %d bytes", ops, sum,
+												 times[0] / (double) ops, bytes[0] / ops, times[1] /
+																																	(double) ops,
+												 bytes[1] / ops, times[2] / (double) ops, bytes[2] /
+																																	ops);
+	}
+
+	private KernelBenchmark() {
+	}
+}
@@ -0,0 +1,342 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.math;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.logging.Logger;
+
+/**
+ * The kernels behind the bulk operations of the matrices and vector arrays,
+ * acting on 4x4 matrices held as sixteen values by column, and on vectors held
+ * as arrays of their components. They allocate nothing, read all of their
+ * inputs before writing so that results may overwrite their inputs, and are
+ * written as straight-line code and flat loops which the JIT unrolls and
+ * vectorises where the processor allows.
+ *
+ * @author LittleRover
+ */
+public final class Kernels {
+	private static final Logger LOG = AuroraLogs.getLogger(Kernels.class
+					.getName());
+
+	/**
+	 * Inverts the provided 4x4 matrix into the target, which may be the same
+	 * array, then returns the determinant. A singular matrix leaves the target
+	 * full of infinities and NaNs.
+	 *
+	 * @param m      The matrix
+	 * @param target The target matrix
+	 *
+	 * @return The determinant
+	 */
+	public static double invert(double[] m, double[] target) {
+		double m0 = m[0], m1 = m[1], m2 = m[2], m3 = m[3];
+		double m4 = m[4], m5 = m[5], m6 = m[6], m7 = m[7];
+		double m8 = m[8], m9 = m[9], m10 = m[10], m11 = m[11];
+		double m12 = m[12], m13 = m[13], m14 = m[14], m15 = m[15];
+		// The 2x2 determinants of the first two and last two columns.
+		double s0 = m0 * m5 - m4 * m1, s1 = m0 * m6 - m4 * m2;
+		double s2 = m0 * m7 - m4 * m3, s3 = m1 * m6 - m5 * m2;
+		double s4 = m1 * m7 - m5 * m3, s5 = m2 * m7 - m6 * m3;
+		double c0 = m8 * m13 - m12 * m9, c1 = m8 * m14 - m12 * m10;
+		double c2 = m8 * m15 - m12 * m11, c3 = m9 * m14 - m13 * m10;
+		double c4 = m9 * m15 - m13 * m11, c5 = m10 * m15 - m14 * m11;
+		double det = s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+		double inv = 1.0 / det;
+		target[0] = (m5 * c5 - m6 * c4 + m7 * c3) * inv;
+		target[1] = (-m1 * c5 + m2 * c4 - m3 * c3) * inv;
+		target[2] = (m13 * s5 - m14 * s4 + m15 * s3) * inv;
+		target[3] = (-m9 * s5 + m10 * s4 - m11 * s3) * inv;
+		target[4] = (-m4 * c5 + m6 * c2 - m7 * c1) * inv;
+		target[5] = (m0 * c5 - m2 * c2 + m3 * c1) * inv;
+		target[6] = (-m12 * s5 + m14 * s2 - m15 * s1) * inv;
+		target[7] = (m8 * s5 - m10 * s2 + m11 * s1) * inv;
+		target[8] = (m4 * c4 - m5 * c2 + m7 * c0) * inv;
+		target[9] = (-m0 * c4 + m1 * c2 - m3 * c0) * inv;
+		target[10] = (m12 * s4 - m13 * s2 + m15 * s0) * inv;
+		target[11] = (-m8 * s4 + m9 * s2 - m11 * s0) * inv;
+		target[12] = (-m4 * c3 + m5 * c1 - m6 * c0) * inv;
+		target[13] = (m0 * c3 - m1 * c1 + m2 * c0) * inv;
+		target[14] = (-m12 * s3 + m13 * s1 - m14 * s0) * inv;
+		target[15] = (m8 * s3 - m9 * s1 + m10 * s0) * inv;
+		return det;
+	}
+
+	/**
+	 * Inverts the provided 4x4 matrix into the target, which may be the same
+	 * array, then returns the determinant. A singular matrix leaves the target
+	 * full of infinities and NaNs.
+	 *
+	 * @param m      The matrix
+	 * @param target The target matrix
+	 *
+	 * @return The determinant
+	 */
+	public static float invert(float[] m, float[] target) {
+		float m0 = m[0], m1 = m[1], m2 = m[2], m3 = m[3];
+		float m4 = m[4], m5 = m[5], m6 = m[6], m7 = m[7];
+		float m8 = m[8], m9 = m[9], m10 = m[10], m11 = m[11];
+		float m12 = m[12], m13 = m[13], m14 = m[14], m15 = m[15];
+		// The 2x2 determinants of the first two and last two columns.
+		float s0 = m0 * m5 - m4 * m1, s1 = m0 * m6 - m4 * m2;
+		float s2 = m0 * m7 - m4 * m3, s3 = m1 * m6 - m5 * m2;
+		float s4 = m1 * m7 - m5 * m3, s5 = m2 * m7 - m6 * m3;
+		float c0 = m8 * m13 - m12 * m9, c1 = m8 * m14 - m12 * m10;
+		float c2 = m8 * m15 - m12 * m11, c3 = m9 * m14 - m13 * m10;
+		float c4 = m9 * m15 - m13 * m11, c5 = m10 * m15 - m14 * m11;
+		float det = s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+		float inv = 1.0f / det;
+		target[0] = (m5 * c5 - m6 * c4 + m7 * c3) * inv;
+		target[1] = (-m1 * c5 + m2 * c4 - m3 * c3) * inv;
+		target[2] = (m13 * s5 - m14 * s4 + m15 * s3) * inv;
+		target[3] = (-m9 * s5 + m10 * s4 - m11 * s3) * inv;
+		target[4] = (-m4 * c5 + m6 * c2 - m7 * c1) * inv;
+		target[5] = (m0 * c5 - m2 * c2 + m3 * c1) * inv;
+		target[6] = (-m12 * s5 + m14 * s2 - m15 * s1) * inv;
+		target[7] = (m8 * s5 - m10 * s2 + m11 * s1) * inv;
+		target[8] = (m4 * c4 - m5 * c2 + m7 * c0) * inv;
+		target[9] = (-m0 * c4 + m1 * c2 - m3 * c0) * inv;
+		target[10] = (m12 * s4 - m13 * s2 + m15 * s0) * inv;
+		target[11] = (-m8 * s4 + m9 * s2 - m11 * s0) * inv;
+		target[12] = (-m4 * c3 + m5 * c1 - m6 * c0) * inv;
+		target[13] = (m0 * c3 - m1 * c1 + m2 * c0) * inv;
+		target[14] = (-m12 * s3 + m13 * s1 - m14 * s0) * inv;
+		target[15] = (m8 * s3 - m9 * s1 + m10 * s0) * inv;
+		return det;
+	}
+
+	/**
+	 * Inverts the provided 4x4 matrix of a rotation and a translation into the
+	 * target, which may be the same array, by transposing the rotation.
+	 *
+	 * @param m      The matrix
+	 * @param target The target matrix
+	 */
+	public static void invertRigid(double[] m, double[] target) {
+		double m0 = m[0], m1 = m[1], m2 = m[2];
+		double m4 = m[4], m5 = m[5], m6 = m[6];
+		double m8 = m[8], m9 = m[9], m10 = m[10];
+		double m12 = m[12], m13 = m[13], m14 = m[14];
+		target[0] = m0;
+		target[1] = m4;
+		target[2] = m8;
+		target[3] = 0.0;
+		target[4] = m1;
+		target[5] = m5;
+		target[6] = m9;
+		target[7] = 0.0;
+		target[8] = m2;
+		target[9] = m6;
+		target[10] = m10;
+		target[11] = 0.0;
+		target[12] = -(m0 * m12 + m1 * m13 + m2 * m14);
+		target[13] = -(m4 * m12 + m5 * m13 + m6 * m14);
+		target[14] = -(m8 * m12 + m9 * m13 + m10 * m14);
+		target[15] = 1.0;
+	}
+
+	/**
+	 * Inverts the provided 4x4 matrix of a rotation and a translation into the
+	 * target, which may be the same array, by transposing the rotation.
+	 *
+	 * @param m      The matrix
+	 * @param target The target matrix
+	 */
+	public static void invertRigid(float[] m, float[] target) {
+		float m0 = m[0], m1 = m[1], m2 = m[2];
+		float m4 = m[4], m5 = m[5], m6 = m[6];
+		float m8 = m[8], m9 = m[9], m10 = m[10];
+		float m12 = m[12], m13 = m[13], m14 = m[14];
+		target[0] = m0;
+		target[1] = m4;
+		target[2] = m8;
+		target[3] = 0.0f;
+		target[4] = m1;
+		target[5] = m5;
+		target[6] = m9;
+		target[7] = 0.0f;
+		target[8] = m2;
+		target[9] = m6;
+		target[10] = m10;
+		target[11] = 0.0f;
+		target[12] = -(m0 * m12 + m1 * m13 + m2 * m14);
+		target[13] = -(m4 * m12 + m5 * m13 + m6 * m14);
+		target[14] = -(m8 * m12 + m9 * m13 + m10 * m14);
+		target[15] = 1.0f;
+	}
+
+	/**
+	 * Places the product of the two 4x4 matrices, <code>a</code> applied after
+	 * <code>b</code>, into the target, which may be either of them.
+	 *
+	 * @param a      The outer matrix
+	 * @param b      The inner matrix
+	 * @param target The target matrix
+	 */
+	public static void mult(double[] a, double[] b, double[] target) {
+		double a0 = a[0], a1 = a[1], a2 = a[2], a3 = a[3];
+		double a4 = a[4], a5 = a[5], a6 = a[6], a7 = a[7];
+		double a8 = a[8], a9 = a[9], a10 = a[10], a11 = a[11];
+		double a12 = a[12], a13 = a[13], a14 = a[14], a15 = a[15];
+		// Each column of b is read before the same column of the target is set.
+		for (int j = 0; j < 16; j += 4) {
+			double b0 = b[j], b1 = b[j + 1], b2 = b[j + 2], b3 = b[j + 3];
+			target[j] = a0 * b0 + a4 * b1 + a8 * b2 + a12 * b3;
+			target[j + 1] = a1 * b0 + a5 * b1 + a9 * b2 + a13 * b3;
+			target[j + 2] = a2 * b0 + a6 * b1 + a10 * b2 + a14 * b3;
+			target[j + 3] = a3 * b0 + a7 * b1 + a11 * b2 + a15 * b3;
+		}
+	}
+
+	/**
+	 * Places the product of the two 4x4 matrices, <code>a</code> applied after
+	 * <code>b</code>, into the target, which may be either of them.
+	 *
+	 * @param a      The outer matrix
+	 * @param b      The inner matrix
+	 * @param target The target matrix
+	 */
+	public static void mult(float[] a, float[] b, float[] target) {
+		float a0 = a[0], a1 = a[1], a2 = a[2], a3 = a[3];
+		float a4 = a[4], a5 = a[5], a6 = a[6], a7 = a[7];
+		float a8 = a[8], a9 = a[9], a10 = a[10], a11 = a[11];
+		float a12 = a[12], a13 = a[13], a14 = a[14], a15 = a[15];
+		// Each column of b is read before the same column of the target is set.
+		for (int j = 0; j < 16; j += 4) {
+			float b0 = b[j], b1 = b[j + 1], b2 = b[j + 2], b3 = b[j + 3];
+			target[j] = a0 * b0 + a4 * b1 + a8 * b2 + a12 * b3;
+			target[j + 1] = a1 * b0 + a5 * b1 + a9 * b2 + a13 * b3;
+			target[j + 2] = a2 * b0 + a6 * b1 + a10 * b2 + a14 * b3;
+			target[j + 3] = a3 * b0 + a7 * b1 + a11 * b2 + a15 * b3;
+		}
+	}
+
+	/**
+	 * Rotates the vectors of the provided component arrays from the first index
+	 * up to the last around a normalised axis, as the matrix of the same angle
+	 * would.
+	 *
+	 * @param ax   The X component of the axis
+	 * @param ay   The Y component of the axis
+	 * @param az   The Z component of the axis
+	 * @param sin  The sine of the angle
+	 * @param cos  The cosine of the angle
+	 * @param x    The X components
+	 * @param y    The Y components
+	 * @param z    The Z components
+	 * @param from The first index
+	 * @param to   The index after the last
+	 */
+	public static void rotate(double ax, double ay, double az, double sin,
+														double cos, double[] x, double[] y, double[] z,
+														int from, int to) {
+		double k = 1.0 - cos;
+		for (int i = from; i < to; i++) {
+			double vx = x[i], vy = y[i], vz = z[i];
+			double d = (ax * vx + ay * vy + az * vz) * k;
+			x[i] = vx * cos + (ay * vz - az * vy) * sin + ax * d;
+			y[i] = vy * cos + (az * vx - ax * vz) * sin + ay * d;
+			z[i] = vz * cos + (ax * vy - ay * vx) * sin + az * d;
+		}
+	}
+
+	/**
+	 * Rotates the vectors of the provided component arrays from the first index
+	 * up to the last around a normalised axis, as the matrix of the same angle
+	 * would.
+	 *
+	 * @param ax   The X component of the axis
+	 * @param ay   The Y component of the axis
+	 * @param az   The Z component of the axis
+	 * @param sin  The sine of the angle
+	 * @param cos  The cosine of the angle
+	 * @param x    The X components
+	 * @param y    The Y components
+	 * @param z    The Z components
+	 * @param from The first index
+	 * @param to   The index after the last
+	 */
+	public static void rotate(float ax, float ay, float az, float sin,
+														float cos, float[] x, float[] y, float[] z,
+														int from, int to) {
+		float k = 1.0f - cos;
+		for (int i = from; i < to; i++) {
+			float vx = x[i], vy = y[i], vz = z[i];
+			float d = (ax * vx + ay * vy + az * vz) * k;
+			x[i] = vx * cos + (ay * vz - az * vy) * sin + ax * d;
+			y[i] = vy * cos + (az * vx - ax * vz) * sin + ay * d;
+			z[i] = vz * cos + (ax * vy - ay * vx) * sin + az * d;
+		}
+	}
+
+	/**
+	 * Transforms the vectors of the provided component arrays from the first
+	 * index up to the last by the 4x4 matrix.
+	 *
+	 * @param m    The matrix
+	 * @param x    The X components
+	 * @param y    The Y components
+	 * @param z    The Z components
+	 * @param w    The W components
+	 * @param from The first index
+	 * @param to   The index after the last
+	 */
+	public static void transform(double[] m, double[] x, double[] y, double[] z,
+															 double[] w, int from, int to) {
+		double m0 = m[0], m1 = m[1], m2 = m[2], m3 = m[3];
+		double m4 = m[4], m5 = m[5], m6 = m[6], m7 = m[7];
+		double m8 = m[8], m9 = m[9], m10 = m[10], m11 = m[11];
+		double m12 = m[12], m13 = m[13], m14 = m[14], m15 = m[15];
+		for (int i = from; i < to; i++) {
+			double vx = x[i], vy = y[i], vz = z[i], vw = w[i];
+			x[i] = m0 * vx + m4 * vy + m8 * vz + m12 * vw;
+			y[i] = m1 * vx + m5 * vy + m9 * vz + m13 * vw;
+			z[i] = m2 * vx + m6 * vy + m10 * vz + m14 * vw;
+			w[i] = m3 * vx + m7 * vy + m11 * vz + m15 * vw;
+		}
+	}
+
+	/**
+	 * Transforms the vectors of the provided component arrays from the first
+	 * index up to the last by the 4x4 matrix.
+	 *
+	 * @param m    The matrix
+	 * @param x    The X components
+	 * @param y    The Y components
+	 * @param z    The Z components
+	 * @param w    The W components
+	 * @param from The first index
+	 * @param to   The index after the last
+	 */
+	public static void transform(float[] m, float[] x, float[] y, float[] z,
+															 float[] w, int from, int to) {
+		float m0 = m[0], m1 = m[1], m2 = m[2], m3 = m[3];
+		float m4 = m[4], m5 = m[5], m6 = m[6], m7 = m[7];
+		float m8 = m[8], m9 = m[9], m10 = m[10], m11 = m[11];
+		float m12 = m[12], m13 = m[13], m14 = m[14], m15 = m[15];
+		for (int i = from; i < to; i++) {
+			float vx = x[i], vy = y[i], vz = z[i], vw = w[i];
+			x[i] = m0 * vx + m4 * vy + m8 * vz + m12 * vw;
+			y[i] = m1 * vx + m5 * vy + m9 * vz + m13 * vw;
+			z[i] = m2 * vx + m6 * vy + m10 * vz + m14 * vw;
+			w[i] = m3 * vx + m7 * vy + m11 * vz + m15 * vw;
+		}
+	}
+
+	private Kernels() {
+	}
+}
@@ -126,6 +126,18 @@ public final class LDAng {
 		return dat[2];
 	}
 
+	/**
+	 * Places the rotation vector into the target vector, then returns the
+	 * target.
+	 *
+	 * @param target The target vector
+	 *
+	 * @return The target vector
+	 */
+	public LDVec getAxis(LDVec target) {
+		return target.set(vec);
+	}
+
 	/**
 	 * Sets the X, Y, and Z components of the rotation vector to the provided
 	 * values, then returns this.
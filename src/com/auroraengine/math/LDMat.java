@@ -61,16 +61,14 @@ public final class LDMat implements Cloneable {
 	 * @return The final reference frame
 	 */
 	public static LDMat mult(LDMat p_ref1, LDMat p_ref2, LDMat p_target) {
-		float[] d = new float[16];
-		for (int j = 0; j < 4; j++) {
-			for (int i = 0; i < 4; i++) {
-				for (int a = 0; a < 4; a++) {
-					d[j * 4 + i] += p_ref1.data[i + a * 4] * p_ref2.data[j * 4 + a];
-				}
-			}
+		boolean set_affine = p_target != null && p_ref1.affine && p_ref2.affine;
+		if (p_target == null) {
+			p_target = new LDMat();
 		}
-		return p_target != null ? p_target.set(d, p_ref1.affine && p_ref2.affine) :
-					 new LDMat(d);
+		Kernels.mult(p_ref1.data, p_ref2.data, p_target.data);
+		p_target.affine = set_affine;
+		p_target.modified = true;
+		return p_target;
 	}
 
 	LDMat(float[] matrix, boolean set_affine) {
@@ -151,7 +149,7 @@ public final class LDMat implements Cloneable {
 	private boolean affine;
 	private final FloatBuffer buffer = ByteBuffer.allocateDirect(16 * Float.BYTES)
 					.order(ByteOrder.nativeOrder()).asFloatBuffer();
-	private final float[] data = new float[16];
+	final float[] data = new float[16];
 	private boolean modified = true;
 	private final FloatBuffer read_only = buffer.asReadOnlyBuffer();
 
@@ -206,7 +204,19 @@ public final class LDMat implements Cloneable {
 	 * @return The local position of the global origin
 	 */
 	public LDVec getOrigin() {
-		return new LDVec(data[12], data[13], data[14], data[15]);
+		return getOrigin(new LDVec());
+	}
+
+	/**
+	 * Places the global origin in the reference frame into the target vector,
+	 * then returns the target.
+	 *
+	 * @param target The target vector
+	 *
+	 * @return The target vector
+	 */
+	public LDVec getOrigin(LDVec target) {
+		return target.set(data[12], data[13], data[14], data[15]);
 	}
 
 	@Override
@@ -233,142 +243,13 @@ public final class LDMat implements Cloneable {
 	 * @return This
 	 */
 	public LDMat invert() {
-		float[] inv = new float[16];
 		if (affine) {
-			inv[0] = data[0];
-			inv[1] = data[4];
-			inv[2] = data[8];
-			inv[4] = data[1];
-			inv[5] = data[5];
-			inv[6] = data[9];
-			inv[8] = data[2];
-			inv[9] = data[6];
-			inv[10] = data[10];
-			inv[12] = -(data[0] * data[12] + data[1] * data[13] + data[2] * data[14]);
-			inv[13] = -(data[4] * data[12] + data[5] * data[13] + data[6] * data[14]);
-			inv[14] = -(data[8] * data[12] + data[9] * data[13] + data[10] * data[14]);
-			inv[15] = 1.0f;
+			Kernels.invertRigid(data, data);
 		} else {
-			inv[0] = data[5] * data[10] * data[15] -
-							 data[5] * data[11] * data[14] -
-							 data[9] * data[6] * data[15] +
-							 data[9] * data[7] * data[14] +
-							 data[13] * data[6] * data[11] -
-							 data[13] * data[7] * data[10];
-
-			inv[4] = -data[4] * data[10] * data[15] +
-							 data[4] * data[11] * data[14] +
-							 data[8] * data[6] * data[15] -
-							 data[8] * data[7] * data[14] -
-							 data[12] * data[6] * data[11] +
-							 data[12] * data[7] * data[10];
-
-			inv[8] = data[4] * data[9] * data[15] -
-							 data[4] * data[11] * data[13] -
-							 data[8] * data[5] * data[15] +
-							 data[8] * data[7] * data[13] +
-							 data[12] * data[5] * data[11] -
-							 data[12] * data[7] * data[9];
-
-			inv[12] = -data[4] * data[9] * data[14] +
-								data[4] * data[10] * data[13] +
-								data[8] * data[5] * data[14] -
-								data[8] * data[6] * data[13] -
-								data[12] * data[5] * data[10] +
-								data[12] * data[6] * data[9];
-
-			inv[1] = -data[1] * data[10] * data[15] +
-							 data[1] * data[11] * data[14] +
-							 data[9] * data[2] * data[15] -
-							 data[9] * data[3] * data[14] -
-							 data[13] * data[2] * data[11] +
-							 data[13] * data[3] * data[10];
-
-			inv[5] = data[0] * data[10] * data[15] -
-							 data[0] * data[11] * data[14] -
-							 data[8] * data[2] * data[15] +
-							 data[8] * data[3] * data[14] +
-							 data[12] * data[2] * data[11] -
-							 data[12] * data[3] * data[10];
-
-			inv[9] = -data[0] * data[9] * data[15] +
-							 data[0] * data[11] * data[13] +
-							 data[8] * data[1] * data[15] -
-							 data[8] * data[3] * data[13] -
-							 data[12] * data[1] * data[11] +
-							 data[12] * data[3] * data[9];
-
-			inv[13] = data[0] * data[9] * data[14] -
-								data[0] * data[10] * data[13] -
-								data[8] * data[1] * data[14] +
-								data[8] * data[2] * data[13] +
-								data[12] * data[1] * data[10] -
-								data[12] * data[2] * data[9];
-
-			inv[2] = data[1] * data[6] * data[15] -
-							 data[1] * data[7] * data[14] -
-							 data[5] * data[2] * data[15] +
-							 data[5] * data[3] * data[14] +
-							 data[13] * data[2] * data[7] -
-							 data[13] * data[3] * data[6];
-
-			inv[6] = -data[0] * data[6] * data[15] +
-							 data[0] * data[7] * data[14] +
-							 data[4] * data[2] * data[15] -
-							 data[4] * data[3] * data[14] -
-							 data[12] * data[2] * data[7] +
-							 data[12] * data[3] * data[6];
-
-			inv[10] = data[0] * data[5] * data[15] -
-								data[0] * data[7] * data[13] -
-								data[4] * data[1] * data[15] +
-								data[4] * data[3] * data[13] +
-								data[12] * data[1] * data[7] -
-								data[12] * data[3] * data[5];
-
-			inv[14] = -data[0] * data[5] * data[14] +
-								data[0] * data[6] * data[13] +
-								data[4] * data[1] * data[14] -
-								data[4] * data[2] * data[13] -
-								data[12] * data[1] * data[6] +
-								data[12] * data[2] * data[5];
-
-			inv[3] = -data[1] * data[6] * data[11] +
-							 data[1] * data[7] * data[10] +
-							 data[5] * data[2] * data[11] -
-							 data[5] * data[3] * data[10] -
-							 data[9] * data[2] * data[7] +
-							 data[9] * data[3] * data[6];
-
-			inv[7] = data[0] * data[6] * data[11] -
-							 data[0] * data[7] * data[10] -
-							 data[4] * data[2] * data[11] +
-							 data[4] * data[3] * data[10] +
-							 data[8] * data[2] * data[7] -
-							 data[8] * data[3] * data[6];
-
-			inv[11] = -data[0] * data[5] * data[11] +
-								data[0] * data[7] * data[9] +
-								data[4] * data[1] * data[11] -
-								data[4] * data[3] * data[9] -
-								data[8] * data[1] * data[7] +
-								data[8] * data[3] * data[5];
-
-			inv[15] = data[0] * data[5] * data[10] -
-								data[0] * data[6] * data[9] -
-								data[4] * data[1] * data[10] +
-								data[4] * data[2] * data[9] +
-								data[8] * data[1] * data[6] -
-								data[8] * data[2] * data[5];
-
-			float det = data[0] * inv[0] + data[1] * inv[4] +
-									data[2] * inv[8] + data[3] * inv[12];
-
-			for (int i = 0; i < inv.length; i++) {
-				inv[i] /= det;
-			}
+			Kernels.invert(data, data);
 		}
-		return set(inv, affine);
+		modified = true;
+		return this;
 	}
 
 	/**
@@ -410,7 +291,8 @@ public final class LDMat implements Cloneable {
 	 * @return This
 	 */
 	public LDMat rotateGlobally(LDAng ang) {
-		float[] r = new float[9], d = new float[16];
+		Scratch scratch = Scratch.get();
+		float[] r = scratch.ld_rotation, d = scratch.ld_matrix;
 		r[0] = ang.cos() + ang.X() * ang.X() * (1 - ang.cos());
 		r[1] = ang.Y() * ang.X() * (1 - ang.cos()) + ang.Z() * ang.sin();
 		r[2] = ang.X() * ang.Z() * (1 - ang.cos()) - ang.Y() * ang.sin();
@@ -438,6 +320,10 @@ public final class LDMat implements Cloneable {
 			d[3] = data[3] * r[0] + data[7] * r[1] + data[11] * r[2] + data[15];
 			d[7] = data[3] * r[3] + data[7] * r[4] + data[11] * r[5] + data[15];
 			d[11] = data[3] * r[6] + data[7] * r[7] + data[11] * r[8] + data[15];
+		} else {
+			d[3] = 0.0f;
+			d[7] = 0.0f;
+			d[11] = 0.0f;
 		}
 		return set(d, affine);
 	}
@@ -452,7 +338,8 @@ public final class LDMat implements Cloneable {
 	 * @return This
 	 */
 	public LDMat rotateLocally(LDAng ang) {
-		float[] r = new float[9], d = new float[16];
+		Scratch scratch = Scratch.get();
+		float[] r = scratch.ld_rotation, d = scratch.ld_matrix;
 		r[0] = ang.cos() + ang.X() * ang.X() * (1 - ang.cos());
 		r[1] = ang.Y() * ang.X() * (1 - ang.cos()) + ang.Z() * ang.sin();
 		r[2] = ang.X() * ang.Z() * (1 - ang.cos()) - ang.Y() * ang.sin();
@@ -538,18 +425,23 @@ public final class LDMat implements Cloneable {
 	 * @return This
 	 */
 	public LDMat set(LDVec vecA, LDVec vecB, LDVec vecC) {
-		LDVec z = new LDVec(vecB).negTranslate(vecA);
-		LDVec y = z.cross(new LDVec(vecC).negTranslate(vecA));
-		LDVec x = y.cross(z).normalise();
+		LDVec[] vecs = Scratch.get().ld_vecs;
+		LDVec z = vecs[0].set(vecB).negTranslate(vecA);
+		LDVec y = z.cross(vecs[1].set(vecC).negTranslate(vecA), vecs[1]);
+		LDVec x = y.cross(z, vecs[2]).normalise();
 		y.normalise();
 		z.normalise();
 
-		set(new float[]{
-			x.X(), x.Y(), x.Z(), 0.0f,
-			y.X(), y.Y(), y.Z(), 0.0f,
-			z.X(), z.Y(), z.Z(), 0.0f,
-			0.0f, 0.0f, 0.0f, 1.0f
-		}, true);
+		identity();
+		data[0] = x.X();
+		data[1] = x.Y();
+		data[2] = x.Z();
+		data[4] = y.X();
+		data[5] = y.Y();
+		data[6] = y.Z();
+		data[8] = z.X();
+		data[9] = z.Y();
+		data[10] = z.Z();
 		modified = true;
 		return this;
 	}
@@ -607,11 +499,22 @@ public final class LDMat implements Cloneable {
 	 * @return A <code>HDRef</code> copy of this.
 	 */
 	public HDMat toHD() {
-		double[] d = new double[16];
+		return toHD(new HDMat());
+	}
+
+	/**
+	 * Places a copy of this reference frame into the provided
+	 * <code>HDMat</code>, then returns it.
+	 *
+	 * @param target The target frame
+	 *
+	 * @return The target frame
+	 */
+	public HDMat toHD(HDMat target) {
 		for (int i = 0; i < data.length; i++) {
-			d[i] = data[i];
+			target.data[i] = data[i];
 		}
-		return new HDMat(d, affine);
+		return target.set(target.data, affine);
 	}
 
 	/**
@@ -660,7 +563,20 @@ public final class LDMat implements Cloneable {
 	 * @return The local vector
 	 */
 	public LDVec transform(LDVec vec) {
-		return new LDVec(
+		return transform(vec, new LDVec());
+	}
+
+	/**
+	 * Places the vector transformed to inside this reference frame into the
+	 * target vector, which may be the same vector, then returns the target.
+	 *
+	 * @param vec    The global vector
+	 * @param target The target vector
+	 *
+	 * @return The target vector
+	 */
+	public LDVec transform(LDVec vec, LDVec target) {
+		return target.set(
 						data[0] * vec.data[0] + data[4] * vec.data[1] +
 						data[8] * vec.data[2] + data[12] * vec.data[3],
 						data[1] * vec.data[0] + data[5] * vec.data[1] +
@@ -679,7 +595,7 @@ public final class LDMat implements Cloneable {
 	 * @return The local angle
 	 */
 	public LDAng transform(LDAng ang) {
-		return ang.set(transform(ang.vec));
+		return ang.set(transform(ang.vec, Scratch.get().ld_vecs[0]));
 	}
 
 	/**
@@ -703,7 +619,7 @@ public final class LDMat implements Cloneable {
 									data[6] * vec.data[1] +
 									data[10] * vec.data[2];
 		} else {
-			LDMat.mult(this, new LDMat(vec), this);
+			LDMat.mult(this, Scratch.get().ld_mat.set(vec), this);
 		}
 		modified = true;
 		return this;
@@ -725,8 +641,26 @@ public final class LDMat implements Cloneable {
 			data[14] += vec.data[2];
 			modified = true;
 		} else {
-			LDMat.mult(new LDMat(vec), this, this);
+			LDMat.mult(Scratch.get().ld_mat.set(vec), this, this);
+		}
+		return this;
+	}
+
+	/**
+	 * Sets the matrix to the next 16 floats read in major-column format from the
+	 * byte buffer, then returns this. This is the reverse of
+	 * <code>write()</code>. The matrix is not assumed to be affine.
+	 *
+	 * @param bb The Buffer to read from
+	 *
+	 * @return This
+	 */
+	public LDMat read(ByteBuffer bb) {
+		for (int i = 0; i < data.length; i++) {
+			data[i] = bb.getFloat();
 		}
+		affine = false;
+		modified = true;
 		return this;
 	}
 
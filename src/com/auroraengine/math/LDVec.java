@@ -43,11 +43,24 @@ public final class LDVec implements Cloneable {
 	 * @return The average vector.
 	 */
 	public static LDVec getAverage(LDVec... vecs) {
-		LDVec avg = new LDVec();
+		return getAverage(vecs, new LDVec());
+	}
+
+	/**
+	 * Places the average of the vectors into the target vector, which must not
+	 * be one of them, then returns the target.
+	 *
+	 * @param vecs   The vectors to average
+	 * @param target The target vector
+	 *
+	 * @return The target vector
+	 */
+	public static LDVec getAverage(LDVec[] vecs, LDVec target) {
+		target.zero();
 		for (LDVec vec : vecs) {
-			avg.translate(vec);
+			target.translate(vec);
 		}
-		return avg.invscale(vecs.length);
+		return target.invscale(vecs.length);
 	}
 
 	/**
@@ -63,12 +76,33 @@ public final class LDVec implements Cloneable {
 	 * @return
 	 */
 	public static float[] getClosest(LDVec A, LDVec dA, LDVec B, LDVec dB) {
-		LDVec C = A.clone().negTranslate(B);
+		return getClosest(A, dA, B, dB, new float[2]);
+	}
+
+	/**
+	 * Places the multiples of the direction vectors away from the position
+	 * vectors of the points on the defined lines which are closest together
+	 * into the target, then returns the target.
+	 *
+	 * @param A      Line A position vector.
+	 * @param dA     Line A direction vector.
+	 * @param B      Line B position vector.
+	 * @param dB     Line B direction vector.
+	 * @param target The target, of at least two elements
+	 *
+	 * @return The target
+	 */
+	public static float[] getClosest(LDVec A, LDVec dA, LDVec B, LDVec dB,
+																 float[] target) {
+		// The separation of A from B, as A.clone().negTranslate(B).
+		float cx = A.data[0] - B.data[0] * A.data[3];
+		float cy = A.data[1] - B.data[1] * A.data[3];
+		float cz = A.data[2] - B.data[2] * A.data[3];
 		float da2 = dA.getSqrLen();
 		float db2 = dB.getSqrLen();
 		float dadb = dA.dot(dB);
-		float cda = C.dot(dA);
-		float cdb = C.dot(dB);
+		float cda = cx * dA.data[0] + cy * dA.data[1] + cz * dA.data[2];
+		float cdb = cx * dB.data[0] + cy * dB.data[1] + cz * dB.data[2];
 
 		float eps = EPSILON * Math.min(da2, db2);
 
@@ -92,7 +126,9 @@ public final class LDVec implements Cloneable {
 			}
 		}
 
-		return new float[]{a, b};
+		target[0] = a;
+		target[1] = b;
+		return target;
 	}
 
 	/**
@@ -107,9 +143,28 @@ public final class LDVec implements Cloneable {
 	 * @return Closest points on Line A and Line B to each other.
 	 */
 	public static LDVec[] getClosestVecs(LDVec A, LDVec dA, LDVec B, LDVec dB) {
-		float[] fa = getClosest(A, dA, B, dB);
-		return new LDVec[]{dA.clone().scale(fa[0]).translate(A),
-											 dB.clone().scale(fa[1]).translate(B)};
+		return getClosestVecs(A, dA, B, dB, new LDVec[]{new LDVec(), new LDVec()});
+	}
+
+	/**
+	 * Places the position vectors of the points on the defined lines which are
+	 * closest together into the first two vectors of the target, which must not
+	 * be any of the provided vectors, then returns the target.
+	 *
+	 * @param A      Line A position vector.
+	 * @param dA     Line A direction vector.
+	 * @param B      Line B position vector.
+	 * @param dB     Line B direction vector.
+	 * @param target The target vectors
+	 *
+	 * @return The target vectors
+	 */
+	public static LDVec[] getClosestVecs(LDVec A, LDVec dA, LDVec B, LDVec dB,
+																			 LDVec[] target) {
+		float[] fa = getClosest(A, dA, B, dB, Scratch.get().ld_pair);
+		target[0].set(dA).scale(fa[0]).translate(A);
+		target[1].set(dB).scale(fa[1]).translate(B);
+		return target;
 	}
 
 	/**
@@ -135,7 +190,24 @@ public final class LDVec implements Cloneable {
 	 * @return The translation vector
 	 */
 	public static LDVec getDistVec(LDVec A, LDVec B) {
-		return new LDVec(B).negTranslate(A);
+		return getDistVec(A, B, new LDVec());
+	}
+
+	/**
+	 * Places the vector which denotes B - A into the target vector, which may be
+	 * either of them, then returns the target.
+	 *
+	 * @param A      The starting point
+	 * @param B      The destination point
+	 * @param target The target vector
+	 *
+	 * @return The target vector
+	 */
+	public static LDVec getDistVec(LDVec A, LDVec B, LDVec target) {
+		return target.set(B.data[0] - A.data[0] * B.data[3],
+											B.data[1] - A.data[1] * B.data[3],
+											B.data[2] - A.data[2] * B.data[3],
+											B.data[3] * A.data[3]);
 	}
 
 	/**
@@ -183,7 +255,7 @@ public final class LDVec implements Cloneable {
 	 */
 	public static boolean getIntersecting(LDVec A, LDVec dA, LDVec B, LDVec dB,
 																				float eps) {
-		LDVec[] va = getClosestVecs(A, dA, B, dB);
+		LDVec[] va = getClosestVecs(A, dA, B, dB, Scratch.get().ld_closest);
 		return va[0].negTranslate(va[1]).getSqrLen() < eps * eps;
 	}
 
@@ -197,7 +269,10 @@ public final class LDVec implements Cloneable {
 	 * @return The separation squared
 	 */
 	public static float getSqrDist(LDVec A, LDVec B) {
-		return getDistVec(A, B).getSqrLen();
+		float x = B.data[0] - A.data[0] * B.data[3];
+		float y = B.data[1] - A.data[1] * B.data[3];
+		float z = B.data[2] - A.data[2] * B.data[3];
+		return x * x + y * y + z * z;
 	}
 
 	// The Local Method classes
@@ -373,10 +448,23 @@ public final class LDVec implements Cloneable {
 	 * @return The cross product vector
 	 */
 	public LDVec cross(LDVec v) {
-		return new LDVec(data[1] * v.data[2] - data[2] * v.data[1],
-										 data[2] * v.data[0] - data[0] * v.data[2],
-										 data[0] * v.data[1] - data[1] * v.data[0],
-										 data[3] * v.data[3]);
+		return cross(v, new LDVec());
+	}
+
+	/**
+	 * Places the cross product of this vector and the specified vector into the
+	 * target vector, which may be either of them, then returns the target.
+	 *
+	 * @param v      The second vector
+	 * @param target The target vector
+	 *
+	 * @return The target vector
+	 */
+	public LDVec cross(LDVec v, LDVec target) {
+		return target.set(data[1] * v.data[2] - data[2] * v.data[1],
+											data[2] * v.data[0] - data[0] * v.data[2],
+											data[0] * v.data[1] - data[1] * v.data[0],
+											data[3] * v.data[3]);
 	}
 
 	/**
@@ -595,7 +683,19 @@ public final class LDVec implements Cloneable {
 	 * @return A copy of This
 	 */
 	public HDVec toHD() {
-		return new HDVec(data[0], data[1], data[2]);
+		return toHD(new HDVec());
+	}
+
+	/**
+	 * Places a copy of this vector into the provided <code>HDVec</code>, then
+	 * returns it.
+	 *
+	 * @param target The target vector
+	 *
+	 * @return The target vector
+	 */
+	public HDVec toHD(HDVec target) {
+		return target.set(data[0], data[1], data[2], 1.0);
 	}
 
 	/**
@@ -660,6 +760,53 @@ public final class LDVec implements Cloneable {
 		return this;
 	}
 
+	/**
+	 * Sets the X and Y components to the next two floats read from the provided
+	 * buffer, then returns this. This is the reverse of <code>writeXY()</code>.
+	 *
+	 * @param p_bytebuffer The Buffer
+	 *
+	 * @return This
+	 */
+	public LDVec readXY(ByteBuffer p_bytebuffer) {
+		data[0] = p_bytebuffer.getFloat();
+		data[1] = p_bytebuffer.getFloat();
+		return this;
+	}
+
+	/**
+	 * Sets the X, Y, and Z components to the next three floats read from the
+	 * provided buffer, then returns this. This is the reverse of
+	 * <code>writeXYZ()</code>.
+	 *
+	 * @param p_bytebuffer The Buffer
+	 *
+	 * @return This
+	 */
+	public LDVec readXYZ(ByteBuffer p_bytebuffer) {
+		data[0] = p_bytebuffer.getFloat();
+		data[1] = p_bytebuffer.getFloat();
+		data[2] = p_bytebuffer.getFloat();
+		return this;
+	}
+
+	/**
+	 * Sets the X, Y, Z, and W components to the next four floats read from the
+	 * provided buffer, then returns this. This is the reverse of
+	 * <code>writeXYZW()</code>.
+	 *
+	 * @param p_bytebuffer The Buffer
+	 *
+	 * @return This
+	 */
+	public LDVec readXYZW(ByteBuffer p_bytebuffer) {
+		data[0] = p_bytebuffer.getFloat();
+		data[1] = p_bytebuffer.getFloat();
+		data[2] = p_bytebuffer.getFloat();
+		data[3] = p_bytebuffer.getFloat();
+		return this;
+	}
+
 	public ByteBuffer writeXY(ByteBuffer p_bytebuffer) {
 		p_bytebuffer.putFloat(data[0]);
 		p_bytebuffer.putFloat(data[1]);
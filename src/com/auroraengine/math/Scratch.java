@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.math;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.logging.Logger;
+
+/**
+ * The working objects of the math classes for the current thread, so that
+ * operations needing temporary vectors, matrices or arrays allocate nothing.
+ * Each field is only used by methods which do not call another method using
+ * the same field, and never escapes the method using it.
+ *
+ * @author LittleRover
+ */
+final class Scratch {
+	private static final Logger LOG = AuroraLogs.getLogger(Scratch.class
+					.getName());
+	private static final ThreadLocal<Scratch> LOCAL = ThreadLocal.withInitial(
+					Scratch::new);
+
+	/**
+	 * Returns the working objects of the current thread.
+	 *
+	 * @return The working objects
+	 */
+	static Scratch get() {
+		return LOCAL.get();
+	}
+
+	private Scratch() {
+	}
+	final double[] dd_matrix = new double[32];
+	final double[] dd_scalar = new double[2];
+	final double[] dd_vector = new double[6];
+	final DDVec[] dd_vecs = {new DDVec(), new DDVec(), new DDVec()};
+	final HDVec[] hd_closest = {new HDVec(), new HDVec()};
+	final HDMat hd_mat = new HDMat();
+	final double[] hd_matrix = new double[16];
+	final double[] hd_pair = new double[2];
+	final double[] hd_rotation = new double[9];
+	final HDVec[] hd_vecs = {new HDVec(), new HDVec(), new HDVec()};
+	final LDVec[] ld_closest = {new LDVec(), new LDVec()};
+	final LDMat ld_mat = new LDMat();
+	final float[] ld_matrix = new float[16];
+	final float[] ld_pair = new float[2];
+	final float[] ld_rotation = new float[9];
+	final LDVec[] ld_vecs = {new LDVec(), new LDVec(), new LDVec()};
+}
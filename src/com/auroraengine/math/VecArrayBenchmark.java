@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.math;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Compares bulk operations on an <code>LDVecArray</code> and an
+ * <code>HDVecArray</code> with the same operations applied to an array of
+ * <code>LDVec</code> or <code>HDVec</code> objects one at a time. Each
+ * operation is timed over every vector in turn, reporting the time per vector,
+ * and the greatest difference between the results of the two layouts is
+ * reported to show they agree.
+ *
+ * Arguments, all optional, in order: the number of vectors, repeats per pass.
+ *
+ * @author LittleRover
+ */
+public final class VecArrayBenchmark {
+	private static final Logger LOG = AuroraLogs.getLogger(VecArrayBenchmark.class
+					.getName());
+	private static final int PASSES = 5;
+
+	/**
+	 * Runs the benchmark described by the provided arguments.
+	 *
+	 * @param args The arguments
+	 */
+	@SuppressWarnings("UseOfSystemOutOrSystemErr")
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int repeats = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		System.out.println(runLD(count, repeats));
+		System.out.println(runHD(count, repeats));
+	}
+
+	private static String runHD(int count, int repeats) {
+		Random random = new Random(count);
+		HDVec[] vecs = new HDVec[count];
+		for (int i = 0; i < count; i++) {
+			vecs[i] = new HDVec(random.nextDouble() * 100.0 - 50.0, random
+													.nextDouble() * 100.0 - 50.0, random.nextDouble() *
+																												100.0 - 50.0);
+		}
+		HDVecArray array = new HDVecArray(vecs);
+		HDVecArray others = new HDVecArray(vecs).scale(0.5);
+		HDVec shift = new HDVec(0.25, -0.5, 0.125);
+		HDMat mat = new HDMat(new HDAng(0.001, 0.0, 0.0, 1.0))
+						.translateGlobally(new HDVec(0.01, 0.0, 0.0));
+		double[] products = new double[count];
+		long[] objects = new long[4], arrays = new long[4];
+		double sum = 0.0;
+		for (int pass = 0; pass < PASSES; pass++) {
+			long start = System.nanoTime();
+			for (int r = 0; r < repeats; r++) {
+				for (HDVec vec : vecs) {
+					vec.translate(shift).scale(0.999);
+				}
+			}
+			objects[0] = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int r = 0; r < repeats; r++) {
+				array.translate(shift).scale(0.999);
+			}
+			arrays[0] = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int r = 0; r < repeats; r++) {
+				for (int i = 0; i < count; i++) {
+					vecs[i] = mat.transform(vecs[i]);
+				}
+			}
+			objects[1] = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int r = 0; r < repeats; r++) {
+				array.transform(mat);
+			}
+			arrays[1] = System.nanoTime() - start;
+			HDVec other = new HDVec();
+			start = System.nanoTime();
+			for (int r = 0; r < repeats; r++) {
+				for (int i = 0; i < count; i++) {
+					sum += vecs[i].dot(others.get(i, other)) + HDVec.getDist(vecs[i],
+																																	 other);
+				}
+			}
+			objects[2] = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int r = 0; r < repeats; r++) {
+				array.dot(others, products);
+				for (int i = 0; i < count; i++) {
+					sum += products[i];
+				}
+				array.getDist(others, products);
+				for (int i = 0; i < count; i++) {
+					sum += products[i];
+				}
+			}
+			arrays[2] = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int r = 0; r < repeats; r++) {
+				for (HDVec vec : vecs) {
+					vec.normalise().scale(10.0);
+				}
+			}
+			objects[3] = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int r = 0; r < repeats; r++) {
+				array.normalise().scale(10.0);
+			}
+			arrays[3] = System.nanoTime() - start;
+		}
+		double error = 0.0;
+		HDVec vec = new HDVec();
+		for (int i = 0; i < count; i++) {
+			error = Math.max(error, HDVec.getDist(vecs[i], array.get(i, vec)));
+		}
+		return format("HD", count, repeats, objects, arrays, error, sum);
+	}
+
+	private static String runLD(int count, int repeats) {
+		Random random = new Random(count);
+		LDVec[] vecs = new LDVec[count];
+		for (int i = 0; i < count; i++) {
+			vecs[i] = new LDVec(random.nextFloat() * 100.0f - 50.0f, random
+													.nextFloat() * 100.0f - 50.0f, random.nextFloat() *
+																												 100.0f - 50.0f);
+		}
+		LDVecArray array = new LDVecArray(vecs);
+		LDVecArray others = new LDVecArray(vecs).scale(0.5f);
+		LDVec shift = new LDVec(0.25f, -0.5f, 0.125f);
+		LDMat mat = new LDMat(new LDAng(0.001f, 0.0f, 0.0f, 1.0f))
+						.translateGlobally(new LDVec(0.01f, 0.0f, 0.0f));
+		float[] products = new float[count];
+		long[] objects = new long[4], arrays = new long[4];
+		double sum = 0.0;
+		for (int pass = 0; pass < PASSES; pass++) {
+			long start = System.nanoTime();
+			for (int r = 0; r < repeats; r++) {
+				for (LDVec vec : vecs) {
+					vec.translate(shift).scale(0.999f);
+				}
+			}
+			objects[0] = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int r = 0; r < repeats; r++) {
+				array.translate(shift).scale(0.999f);
+			}
+			arrays[0] = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int r = 0; r < repeats; r++) {
+				for (int i = 0; i < count; i++) {
+					vecs[i] = mat.transform(vecs[i]);
+				}
+			}
+			objects[1] = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int r = 0; r < repeats; r++) {
+				array.transform(mat);
+			}
+			arrays[1] = System.nanoTime() - start;
+			LDVec other = new LDVec();
+			start = System.nanoTime();
+			for (int r = 0; r < repeats; r++) {
+				for (int i = 0; i < count; i++) {
+					sum += vecs[i].dot(others.get(i, other)) + LDVec.getDist(vecs[i],
+																																	 other);
+				}
+			}
+			objects[2] = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int r = 0; r < repeats; r++) {
+				array.dot(others, products);
+				for (int i = 0; i < count; i++) {
+					sum += products[i];
+				}
+				array.getDist(others, products);
+				for (int i = 0; i < count; i++) {
+					sum += products[i];
+				}
+			}
+			arrays[2] = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int r = 0; r < repeats; r++) {
+				for (LDVec vec : vecs) {
+					vec.normalise().scale(10.0f);
+				}
+			}
+			objects[3] = System.nanoTime() - start;
+			start = System.nanoTime();
+			for (int r = 0; r < repeats; r++) {
+				array.normalise().scale(10.0f);
+			}
+			arrays[3] = System.nanoTime() - start;
+		}
+		double error = 0.0;
+		LDVec vec = new LDVec();
+		for (int i = 0; i < count; i++) {
+			error = Math.max(error, LDVec.getDist(vecs[i], array.get(i, vec)));
+		}
+		return format("LD", count, repeats, objects, arrays, error, sum);
+	}
+
+	private static String format(String name, int count, int repeats,
+															 long[] objects, long[] arrays, double error,
+															 double sum) {
+		String[] names = {"translate and scale", "transform", "dot and distance",
+											"normalise and scale"};
+		double vectors = (double) count * repeats;
+		StringBuilder sb = new StringBuilder(String.format(
+						"%s, %d vectors, greatest difference %.3g, checksum %.6g:", name,
+						count, error, sum));
+		for (int i = 0; i < names.length; i++) {
+			sb.append(String.format("%n  %-20s objects %6.2f ns, array %6.2f ns " +
+															"per vector", names[i], objects[i] / vectors,
+															arrays[i] / vectors));
+		}
+		return sb.toString();
+	}
+
+	private VecArrayBenchmark() {
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.math.geometry;
+
+import com.auroraengine.debug.AuroraLogs;
+import com.auroraengine.math.LDVec;
+import java.util.logging.Logger;
+
+/**
+ * Holds a fixed number of axis aligned bounding boxes as separate arrays of
+ * their centres and sizes, so that a great many boxes may be tested against a
+ * plane at once, such as when culling against the planes of a view frustum.
+ * Each box is tested as <code>AxisAlignedBoundingBox.getSideOf</code> would.
+ *
+ * @author LittleRover
+ */
+public final class BoundingBoxArray {
+	private static final Logger LOG = AuroraLogs.getLogger(BoundingBoxArray.class
+					.getName());
+	private static final Side[] SIDES = {Side.ACROSS, Side.INSIDE, Side.OUTSIDE};
+
+	/**
+	 * Creates a new array of the specified number of empty boxes at the origin.
+	 *
+	 * @param count The number of boxes
+	 */
+	public BoundingBoxArray(int count) {
+		if (count < 0) {
+			throw new IllegalArgumentException("Count must not be negative! Found " +
+																				 count + ".");
+		}
+		this.count = count;
+		cx = new float[count];
+		cy = new float[count];
+		cz = new float[count];
+		dx = new float[count];
+		dy = new float[count];
+		dz = new float[count];
+	}
+	private final int count;
+	private final float[] cx;
+	private final float[] cy;
+	private final float[] cz;
+	private final float[] dx;
+	private final float[] dy;
+	private final float[] dz;
+
+	/**
+	 * Returns the number of boxes in the array.
+	 *
+	 * @return The number of boxes
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Places the side of the provided plane each box lies on into the target,
+	 * then returns the target.
+	 *
+	 * @param p_plane The plane
+	 * @param target  The target, at least as long as this
+	 *
+	 * @return The target
+	 */
+	public Side[] getSidesOf(Plane p_plane, Side[] target) {
+		if (target.length < count) {
+			throw new IllegalArgumentException("Array is shorter than the boxes! " +
+																				 "Found " + target.length + ".");
+		}
+		float nx = p_plane.normal.X(), ny = p_plane.normal.Y();
+		float nz = p_plane.normal.Z();
+		float ax = Math.abs(nx) * 0.5f, ay = Math.abs(ny) * 0.5f;
+		float az = Math.abs(nz) * 0.5f;
+		for (int i = 0; i < count; i++) {
+			float distance = nx * cx[i] + ny * cy[i] + nz * cz[i];
+			float radius = ax * dx[i] + ay * dy[i] + az * dz[i];
+			// Looks the side up rather than branching, as boxes fall either way.
+			target[i] = SIDES[(distance > radius ? 1 : 0) | (distance < -radius ? 2 :
+																											 0)];
+		}
+		return target;
+	}
+
+	/**
+	 * Sets the box of the provided index to the box of the provided centre and
+	 * sizes, then returns this.
+	 *
+	 * @param i      The index
+	 * @param center The centre
+	 * @param sx     The size along x
+	 * @param sy     The size along y
+	 * @param sz     The size along z
+	 *
+	 * @return This
+	 */
+	public BoundingBoxArray set(int i, LDVec center, float sx, float sy,
+															float sz) {
+		cx[i] = center.X();
+		cy[i] = center.Y();
+		cz[i] = center.Z();
+		dx[i] = sx;
+		dy[i] = sy;
+		dz[i] = sz;
+		return this;
+	}
+}
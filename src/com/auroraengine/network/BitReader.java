@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.network;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.nio.ByteBuffer;
+import java.util.logging.Logger;
+
+/**
+ * Reads values written by a <code>BitWriter</code>. Bytes are taken from the
+ * buffer only as they are needed, so after reading everything that was
+ * written the buffer is positioned just after the padded last byte.
+ *
+ * @author LittleRover
+ */
+public final class BitReader {
+	private static final Logger LOG = AuroraLogs.getLogger(BitReader.class
+					.getName());
+
+	/**
+	 * Creates a new bit reader.
+	 */
+	public BitReader() {
+	}
+	private long acc;
+	private int acc_bits;
+	private ByteBuffer bb;
+
+	/**
+	 * Starts reading at the current position of the provided buffer, then
+	 * returns this.
+	 *
+	 * @param bb The buffer
+	 *
+	 * @return This
+	 */
+	public BitReader begin(ByteBuffer bb) {
+		this.bb = bb;
+		this.acc = 0L;
+		this.acc_bits = 0;
+		return this;
+	}
+
+	/**
+	 * Reads the provided number of bits as the lowest bits of an int. Throws a
+	 * <code>BufferUnderflowException</code> if the buffer runs out.
+	 *
+	 * @param bits The number of bits, from 0 to 32
+	 *
+	 * @return The value
+	 */
+	public int read(int bits) {
+		if (bits == 0) {
+			return 0;
+		}
+		while (acc_bits < bits) {
+			acc = acc << 8 | (bb.get() & 0xFF);
+			acc_bits += 8;
+		}
+		acc_bits -= bits;
+		return (int) ((acc >>> acc_bits) & (-1L >>> (64 - bits)));
+	}
+
+	/**
+	 * Reads a single bit.
+	 *
+	 * @return The bit
+	 */
+	public boolean readBit() {
+		return read(1) != 0;
+	}
+
+	/**
+	 * Reads a value written by <code>BitWriter.writeSignedVar()</code>.
+	 *
+	 * @return The value
+	 */
+	public int readSignedVar() {
+		int n = readVar();
+		return (n >>> 1) ^ -(n & 1);
+	}
+
+	/**
+	 * Reads a value written by <code>BitWriter.writeVar()</code>.
+	 *
+	 * @return The value
+	 */
+	public int readVar() {
+		return read(read(5) + 1);
+	}
+}
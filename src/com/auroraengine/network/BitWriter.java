@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.network;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.nio.ByteBuffer;
+import java.util.logging.Logger;
+
+/**
+ * Writes values of any number of bits into a byte buffer, most significant bit
+ * first, so that small fields need not each take a whole byte. The writer is
+ * reusable: call <code>begin()</code> with a buffer, write, and then call
+ * <code>finish()</code> to pad to the next byte.
+ *
+ * @author LittleRover
+ */
+public final class BitWriter {
+	private static final Logger LOG = AuroraLogs.getLogger(BitWriter.class
+					.getName());
+
+	/**
+	 * Returns the number of bits <code>writeVar()</code> writes for the
+	 * provided value.
+	 *
+	 * @param value The value, treated as unsigned
+	 *
+	 * @return The number of bits
+	 */
+	public static int varBits(int value) {
+		return 5 + Math.max(1, 32 - Integer.numberOfLeadingZeros(value));
+	}
+
+	/**
+	 * Creates a new bit writer.
+	 */
+	public BitWriter() {
+	}
+	private long acc;
+	private int acc_bits;
+	private ByteBuffer bb;
+	private int start;
+	private int written;
+
+	/**
+	 * Starts writing at the current position of the provided buffer, then
+	 * returns this.
+	 *
+	 * @param bb The buffer
+	 *
+	 * @return This
+	 */
+	public BitWriter begin(ByteBuffer bb) {
+		this.bb = bb;
+		this.start = bb.position();
+		this.acc = 0L;
+		this.acc_bits = 0;
+		this.written = 0;
+		return this;
+	}
+
+	/**
+	 * Writes any bits still held, padding the last byte with zeroes, then
+	 * returns the number of bytes written since <code>begin()</code>.
+	 *
+	 * @return The number of bytes
+	 */
+	public int finish() {
+		if (acc_bits > 0) {
+			bb.put((byte) (acc << (8 - acc_bits)));
+			acc_bits = 0;
+		}
+		acc = 0L;
+		return bb.position() - start;
+	}
+
+	/**
+	 * Returns the number of bits written since <code>begin()</code>.
+	 *
+	 * @return The number of bits
+	 */
+	public int getBits() {
+		return written;
+	}
+
+	/**
+	 * Writes the lowest bits of the provided value.
+	 *
+	 * @param value The value
+	 * @param bits  The number of bits, from 0 to 32
+	 */
+	public void write(int value, int bits) {
+		if (bits == 0) {
+			return;
+		}
+		acc = acc << bits | (value & (-1L >>> (64 - bits)));
+		acc_bits += bits;
+		written += bits;
+		while (acc_bits >= 8) {
+			acc_bits -= 8;
+			bb.put((byte) (acc >>> acc_bits));
+		}
+	}
+
+	/**
+	 * Writes a single bit.
+	 *
+	 * @param bit The bit
+	 */
+	public void writeBit(boolean bit) {
+		write(bit ? 1 : 0, 1);
+	}
+
+	/**
+	 * Writes the provided value treated as unsigned as a five bit length
+	 * followed by only as many bits as it needs.
+	 *
+	 * @param value The value
+	 */
+	public void writeVar(int value) {
+		int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(value));
+		write(bits - 1, 5);
+		write(value, bits);
+	}
+
+	/**
+	 * Writes the provided value so that values near zero of either sign are
+	 * short.
+	 *
+	 * @param value The value
+	 */
+	public void writeSignedVar(int value) {
+		writeVar((value << 1) ^ (value >> 31));
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.network;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.nio.ByteBuffer;
+import java.util.logging.Logger;
+
+/**
+ * A pool of direct byte buffers of a fixed size, so that packets can be
+ * encoded without allocating a buffer each time. Buffers that are not released
+ * are simply collected, and buffers released to a full pool are dropped.
+ *
+ * @author LittleRover
+ */
+public final class BufferPool {
+	private static final Logger LOG = AuroraLogs.getLogger(BufferPool.class
+					.getName());
+
+	/**
+	 * Creates a new pool of buffers of the provided size, keeping at most the
+	 * provided number of free buffers.
+	 *
+	 * @param buffer_size The size of each buffer
+	 * @param max_free    The maximum number of free buffers kept
+	 */
+	public BufferPool(int buffer_size, int max_free) {
+		if (buffer_size <= 0) {
+			throw new IllegalArgumentException(
+							"Buffer size must be positive! Found " + buffer_size + ".");
+		}
+		if (max_free < 0) {
+			throw new IllegalArgumentException(
+							"Free buffer count must not be negative! Found " + max_free + ".");
+		}
+		this.buffer_size = buffer_size;
+		this.free = new ByteBuffer[max_free];
+	}
+	private final int buffer_size;
+	private final ByteBuffer[] free;
+	private int free_count = 0;
+
+	/**
+	 * Returns a cleared buffer from the pool, allocating a new one if the pool
+	 * is empty.
+	 *
+	 * @return The buffer
+	 */
+	public ByteBuffer acquire() {
+		synchronized (free) {
+			if (free_count > 0) {
+				ByteBuffer bb = free[--free_count];
+				free[free_count] = null;
+				return bb;
+			}
+		}
+		return ByteBuffer.allocateDirect(buffer_size);
+	}
+
+	/**
+	 * Returns the size of the buffers in this pool.
+	 *
+	 * @return The buffer size
+	 */
+	public int getBufferSize() {
+		return buffer_size;
+	}
+
+	/**
+	 * Returns the number of free buffers currently held by the pool.
+	 *
+	 * @return The free count
+	 */
+	public int getFreeCount() {
+		synchronized (free) {
+			return free_count;
+		}
+	}
+
+	/**
+	 * Returns the provided buffer to the pool. The buffer must have come from
+	 * this pool and must not be used after it is released.
+	 *
+	 * @param bb The buffer
+	 */
+	public void release(ByteBuffer bb) {
+		if (bb == null || bb.capacity() != buffer_size || !bb.isDirect()) {
+			throw new IllegalArgumentException("Buffer is not from this pool!");
+		}
+		bb.clear();
+		synchronized (free) {
+			if (free_count < free.length) {
+				free[free_count++] = bb;
+			}
+		}
+	}
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.network;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Logger;
+
+/**
+ * Estimates the round trip time to the other end of a connection, its
+ * variation, and the offset of its clock from ours, from ping and pong pairs.
+ *
+ * The round trip time is smoothed as in RFC 6298, giving the smoothed round
+ * trip time, the mean deviation of samples from it as the jitter, and a
+ * retransmission timeout. The clock offset is taken from whichever of the
+ * most recent samples had the shortest round trip, as the samples delayed by
+ * queueing have the least symmetric paths and so the worst offsets.
+ *
+ * Samples are added by a single thread, but every getter may be called from
+ * any thread without locking, and the recent samples are kept in a ring that
+ * may be copied out while samples are still being added.
+ *
+ * @author LittleRover
+ */
+public final class LatencyEstimator {
+	private static final Logger LOG = AuroraLogs.getLogger(LatencyEstimator.class
+					.getName());
+	/**
+	 * The number of recent samples kept in the ring.
+	 */
+	public static final int SAMPLE_COUNT = 64;
+	/**
+	 * The number of recent samples the clock offset is chosen from.
+	 */
+	public static final int OFFSET_WINDOW = 8;
+	/**
+	 * The least retransmission timeout, in nanoseconds.
+	 */
+	public static final long MIN_RTO = TimeUnit.MILLISECONDS.toNanos(200L);
+	private static final int MASK = SAMPLE_COUNT - 1;
+
+	/**
+	 * Creates a new estimator with no samples.
+	 */
+	public LatencyEstimator() {
+	}
+	private volatile long count = 0L;
+	private volatile long offset = 0L;
+	private final AtomicLongArray offsets = new AtomicLongArray(SAMPLE_COUNT);
+	private volatile long remote_tick = 0L;
+	private volatile long remote_tick_time = 0L;
+	private volatile long rttvar = 0L;
+	private final AtomicLongArray rtts = new AtomicLongArray(SAMPLE_COUNT);
+	private volatile long srtt = 0L;
+	private final AtomicLongArray times = new AtomicLongArray(SAMPLE_COUNT);
+
+	/**
+	 * Copies the most recent samples into the provided arrays, oldest first,
+	 * then returns the number copied. Any array may be null. Samples are
+	 * copied without locking, and any overwritten while copying are left out.
+	 *
+	 * @param sample_times   The local times the samples were taken
+	 * @param sample_rtts    The round trip times
+	 * @param sample_offsets The clock offsets
+	 *
+	 * @return The number of samples copied
+	 */
+	public int copySamples(long[] sample_times, long[] sample_rtts,
+												 long[] sample_offsets) {
+		int max = SAMPLE_COUNT;
+		if (sample_times != null) {
+			max = Math.min(max, sample_times.length);
+		}
+		if (sample_rtts != null) {
+			max = Math.min(max, sample_rtts.length);
+		}
+		if (sample_offsets != null) {
+			max = Math.min(max, sample_offsets.length);
+		}
+		long end = count;
+		long start = Math.max(0L, end - max);
+		for (long i = start; i < end; i++) {
+			int slot = (int) i & MASK, j = (int) (i - start);
+			if (sample_times != null) {
+				sample_times[j] = times.get(slot);
+			}
+			if (sample_rtts != null) {
+				sample_rtts[j] = rtts.get(slot);
+			}
+			if (sample_offsets != null) {
+				sample_offsets[j] = offsets.get(slot);
+			}
+		}
+		// Anything the writer has since lapped may be torn, so drop it.
+		long overwritten = count - SAMPLE_COUNT + 1L - start;
+		if (overwritten > 0L) {
+			int drop = (int) Math.min(overwritten, end - start);
+			int kept = (int) (end - start) - drop;
+			shift(sample_times, drop, kept);
+			shift(sample_rtts, drop, kept);
+			shift(sample_offsets, drop, kept);
+			return kept;
+		}
+		return (int) (end - start);
+	}
+
+	/**
+	 * Returns the smoothed round trip time variation, in nanoseconds.
+	 *
+	 * @return The jitter
+	 */
+	public long getJitter() {
+		return rttvar;
+	}
+
+	/**
+	 * Returns the estimated offset of the remote clock from the local clock,
+	 * in nanoseconds, so that a remote time less this offset is a local time.
+	 *
+	 * @return The clock offset
+	 */
+	public long getOffset() {
+		return offset;
+	}
+
+	/**
+	 * Returns the last tick reported by the other end.
+	 *
+	 * @return The remote tick
+	 */
+	public long getRemoteTick() {
+		return remote_tick;
+	}
+
+	/**
+	 * Returns the estimated local time at which the other end reported the tick
+	 * returned by <code>getRemoteTick()</code>.
+	 *
+	 * @return The local time in nanoseconds
+	 */
+	public long getRemoteTickTime() {
+		return remote_tick_time;
+	}
+
+	/**
+	 * Returns the retransmission timeout, being the smoothed round trip time
+	 * plus four times the variation, and at least <code>MIN_RTO</code>.
+	 *
+	 * @return The timeout in nanoseconds
+	 */
+	public long getRto() {
+		return Math.max(MIN_RTO, srtt + 4L * rttvar);
+	}
+
+	/**
+	 * Returns the smoothed round trip time, in nanoseconds, or zero if there
+	 * are no samples.
+	 *
+	 * @return The round trip time
+	 */
+	public long getRtt() {
+		return srtt;
+	}
+
+	/**
+	 * Returns the number of samples taken.
+	 *
+	 * @return The sample count
+	 */
+	public long getSampleCount() {
+		return count;
+	}
+
+	/**
+	 * Adds a sample from a pong. The local times must be from
+	 * <code>System.nanoTime()</code>.
+	 *
+	 * @param sent        The local time the ping was sent
+	 * @param remote      The remote clock when the pong was sent
+	 * @param remote_tick The remote tick when the pong was sent
+	 * @param received    The local time the pong was received
+	 */
+	public void sample(long sent, long remote, long remote_tick, long received) {
+		long rtt = received - sent;
+		if (rtt < 0L) {
+			return;
+		}
+		long mid = sent + rtt / 2L;
+		long n = count;
+		int slot = (int) n & MASK;
+		times.set(slot, received);
+		rtts.set(slot, rtt);
+		offsets.set(slot, remote - mid);
+		if (n == 0L) {
+			srtt = rtt;
+			rttvar = rtt / 2L;
+		} else {
+			rttvar = rttvar - (rttvar >> 2) + (Math.abs(srtt - rtt) >> 2);
+			srtt = srtt - (srtt >> 3) + (rtt >> 3);
+		}
+		count = n + 1L;
+
+		int best = slot;
+		for (long i = Math.max(0L, n + 1L - OFFSET_WINDOW); i <= n; i++) {
+			int s = (int) i & MASK;
+			if (rtts.get(s) < rtts.get(best)) {
+				best = s;
+			}
+		}
+		offset = offsets.get(best);
+		this.remote_tick = remote_tick;
+		this.remote_tick_time = remote - offset;
+	}
+
+	/**
+	 * Returns the local time corresponding to the provided remote time.
+	 *
+	 * @param remote The remote time in nanoseconds
+	 *
+	 * @return The local time in nanoseconds
+	 */
+	public long toLocalTime(long remote) {
+		return remote - offset;
+	}
+
+	/**
+	 * Returns the remote time corresponding to the provided local time.
+	 *
+	 * @param local The local time in nanoseconds
+	 *
+	 * @return The remote time in nanoseconds
+	 */
+	public long toRemoteTime(long local) {
+		return local + offset;
+	}
+
+	private static void shift(long[] values, int drop, int kept) {
+		if (values != null) {
+			System.arraycopy(values, drop, values, 0, kept);
+		}
+	}
+}
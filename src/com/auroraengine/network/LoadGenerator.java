@@ -0,0 +1,568 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.network;
+
+import com.auroraengine.data.ProgramProperties;
+import static com.auroraengine.data.ProgramProperties.AURORA_CORE_VERSION;
+import com.auroraengine.debug.AuroraLogs;
+import static com.auroraengine.network.NetworkProtocol.*;
+import com.auroraengine.server.ServerCore;
+import com.auroraengine.server.ServerException;
+import com.auroraengine.server.WorldCore;
+import com.auroraengine.server.network.ActionLimits;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A client for load testing a server. It opens many connections from a single
+ * thread, each sending echo frames at a fixed rate, and reports the number of
+ * frames per second echoed back and the round trip latency percentiles.
+ *
+ * Arguments, all optional, in order: host, port, clients, seconds, frames per
+ * second per client. The flag <code>-u</code> sends over UDP rather than TCP,
+ * and the flag <code>-l</code> starts a server in this process to test on
+ * loopback. The flag <code>-h</code> followed by a fraction makes that share
+ * of the clients hostile, sending action frames as fast as they can. When
+ * testing on loopback the duration of each world tick is also reported.
+ *
+ * With hostile clients, the test is first run without them as a baseline, and
+ * fails, exiting with status 1, if the hostile clients cost the honest ones
+ * more than <code>ECHO_TOLERANCE</code> of their echoes, or raise the 99th
+ * percentile world tick by more than the actions their limits allow plus
+ * <code>TICK_TOLERANCE</code>. The generator shares the processors of a local
+ * server, so the tick check is only meaningful with processors to spare for
+ * the flood.
+ *
+ * @author LittleRover
+ */
+public final class LoadGenerator {
+	private static final Logger LOG = AuroraLogs.getLogger(LoadGenerator.class
+					.getName());
+	/**
+	 * The action type sent by hostile clients.
+	 */
+	public static final int ACTION_TYPE = FIRST_USER_TYPE;
+	/**
+	 * The time in nanoseconds the local server spends on each action, standing
+	 * in for the work of carrying it out.
+	 */
+	public static final long ACTION_COST = TimeUnit.MICROSECONDS.toNanos(20L);
+	/**
+	 * The actions per second the local server accepts from each client.
+	 */
+	public static final double ACTION_RATE = 30.0;
+	/**
+	 * The number of actions the local server accepts from each client at once.
+	 */
+	public static final int ACTION_BURST = 10;
+	/**
+	 * The largest fall allowed in the fraction of honest frames echoed when
+	 * hostile clients are added.
+	 */
+	public static final double ECHO_TOLERANCE = 0.01;
+	/**
+	 * The largest rise in nanoseconds allowed in the 99th percentile world tick
+	 * when hostile clients are added, beyond the actions their limits allow.
+	 */
+	public static final long TICK_TOLERANCE = TimeUnit.MILLISECONDS.toNanos(1L);
+	private static final int MAX_SAMPLES = 1 << 20;
+	private static final long WARMUP = TimeUnit.SECONDS.toNanos(2L);
+
+	/**
+	 * Runs the load test described by the provided arguments.
+	 *
+	 * @param args The arguments
+	 *
+	 * @throws IOException If the test could not connect
+	 */
+	@SuppressWarnings("UseOfSystemOutOrSystemErr")
+	public static void main(String[] args)
+					throws IOException {
+		String host = "localhost";
+		int port = DEFAULT_PORT, clients = 100, seconds = 10;
+		double rate = 20.0, hostile = 0.0;
+		boolean udp = false, local = false;
+		int n = 0;
+		for (int a = 0; a < args.length; a++) {
+			String arg = args[a];
+			switch (arg) {
+				case "-u":
+					udp = true;
+					break;
+				case "-l":
+					local = true;
+					break;
+				case "-h":
+					hostile = Double.parseDouble(args[++a]);
+					break;
+				default:
+					switch (n++) {
+						case 0:
+							host = arg;
+							break;
+						case 1:
+							port = Integer.parseInt(arg);
+							break;
+						case 2:
+							clients = Integer.parseInt(arg);
+							break;
+						case 3:
+							seconds = Integer.parseInt(arg);
+							break;
+						case 4:
+							rate = Double.parseDouble(arg);
+							break;
+						default:
+							LOG.log(Level.WARNING, "Ignoring argument {0}", arg);
+					}
+			}
+		}
+		ServerCore server = null;
+		if (local) {
+			try {
+				server = new ServerCore("Load Test Server",
+																new ProgramProperties("loadtest",
+																											AURORA_CORE_VERSION));
+			} catch (ServerException ex) {
+				throw new IOException("Failed to create the local server!", ex);
+			}
+			server.getNetwork().setLimits(new ActionLimits()
+							.setAction(ACTION_TYPE, ACTION_RATE, ACTION_BURST, false));
+			server.getWorld().setActionHandler((c, type, body) -> {
+				long end = System.nanoTime() + ACTION_COST;
+				while (System.nanoTime() < end) {
+					// Busy, as carrying out a real action would be.
+				}
+				handled.incrementAndGet();
+			});
+			server.start();
+			port = DEFAULT_PORT;
+		}
+		InetSocketAddress to = new InetSocketAddress(host, port);
+		LoadGenerator base = null, gen = new LoadGenerator(to, clients, rate, udp);
+		gen.setHostile((int) (clients * hostile));
+		gen.setServer(server);
+		try {
+			if (gen.hostile > 0) {
+				// Warms up both ends first so the baseline is not inflated.
+				LoadGenerator warmup = new LoadGenerator(to, clients, rate, udp);
+				try {
+					warmup.run(WARMUP);
+				} finally {
+					warmup.close();
+				}
+				base = new LoadGenerator(to, clients, rate, udp);
+				base.setServer(server);
+				try {
+					base.run(TimeUnit.SECONDS.toNanos(seconds));
+				} finally {
+					base.close();
+				}
+				System.out.println("Without hostile clients:");
+				System.out.println(base.report());
+				System.out.println("With hostile clients:");
+			}
+			gen.run(TimeUnit.SECONDS.toNanos(seconds));
+		} finally {
+			gen.close();
+			if (server != null) {
+				server.halt();
+			}
+		}
+		System.out.println(gen.report());
+		if (base != null) {
+			String failure = gen.check(base);
+			System.out.println(failure == null ? "PASS" : "FAIL: " + failure);
+			if (failure != null) {
+				System.exit(1);
+			}
+		}
+	}
+
+	/**
+	 * Creates a new load generator which will connect the specified number of
+	 * clients to the provided address.
+	 *
+	 * @param address The server address
+	 * @param clients The number of clients
+	 * @param rate    The frames per second sent by each client
+	 * @param udp     If frames should be sent over UDP
+	 */
+	public LoadGenerator(InetSocketAddress address, int clients, double rate,
+											 boolean udp) {
+		this.address = address;
+		this.clients = new Client[clients];
+		this.interval = (long) (TimeUnit.SECONDS.toNanos(1L) / rate);
+		this.udp = udp;
+	}
+	private static final AtomicLong handled = new AtomicLong();
+	private final InetSocketAddress address;
+	private final Client[] clients;
+	private long elapsed;
+	private long flooded = 0L;
+	private int hostile = 0;
+	private final long interval;
+	private long last_tick = -1L;
+	private long received = 0L;
+	private final long[] samples = new long[MAX_SAMPLES];
+	private Selector selector;
+	private long sent = 0L;
+	private ServerCore server;
+	private int tick_count = 0;
+	private final long[] ticks = new long[MAX_SAMPLES];
+	private final boolean udp;
+
+	/**
+	 * Compares this run, which should have hostile clients, with the provided
+	 * run without them. Returns why the hostile clients harmed the honest ones
+	 * by more than the tolerances allow, or null if they did not.
+	 *
+	 * @param base The run without hostile clients
+	 *
+	 * @return The failure, or null
+	 */
+	public String check(LoadGenerator base) {
+		double echoed = getEchoedFraction(), base_echoed = base.getEchoedFraction();
+		if (echoed < base_echoed - ECHO_TOLERANCE) {
+			return String.format("honest clients had %.1f%% of frames echoed " +
+													 "against %.1f%% without hostile clients",
+													 100.0 * echoed, 100.0 * base_echoed);
+		}
+		if (tick_count > 0 && base.tick_count > 0) {
+			// Each hostile client may have this much work carried out per tick.
+			long allowed = (long) (hostile * ACTION_RATE * server.getWorld()
+							.getTickPeriod() / 1E9 * ACTION_COST);
+			long p99 = getTickPercentile(0.99);
+			long limit = base.getTickPercentile(0.99) + allowed + TICK_TOLERANCE;
+			if (p99 > limit) {
+				return String.format("world tick p99 rose from %.1f us to %.1f us, " +
+														 "over the %.1f us allowed",
+														 base.getTickPercentile(0.99) / 1E3, p99 / 1E3,
+														 limit / 1E3);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Closes every connection.
+	 */
+	public void close() {
+		for (Client c : clients) {
+			if (c != null) {
+				c.close();
+			}
+		}
+		try {
+			if (selector != null) {
+				selector.close();
+			}
+		} catch (IOException ex) {
+			LOG.log(Level.INFO, "Failed to close selector: {0}", ex);
+		}
+	}
+
+	/**
+	 * Returns the results of the last run.
+	 *
+	 * @return The results
+	 */
+	public String report() {
+		int count = (int) Math.min(received, MAX_SAMPLES);
+		long[] sorted = Arrays.copyOf(samples, count);
+		Arrays.sort(sorted);
+		double secs = elapsed / 1E9;
+		String result = String.format(
+						"%d clients over %s for %.1fs: sent %d, echoed %d (%.0f/s), " +
+						"latency us p50 %.1f p99 %.1f max %.1f", clients.length,
+						udp ? "UDP" : "TCP", secs, sent, received, received / secs,
+						percentile(sorted, 0.50) / 1E3, percentile(sorted, 0.99) / 1E3,
+						percentile(sorted, 1.0) / 1E3);
+		if (hostile > 0) {
+			result += String.format("%n%d hostile clients sent %d actions, " +
+															"%d carried out", hostile, flooded, handled
+															.get());
+		}
+		if (tick_count > 0) {
+			result += String.format("%n%d world ticks, duration us p50 %.1f " +
+															"p99 %.1f max %.1f", tick_count,
+															getTickPercentile(0.50) / 1E3,
+															getTickPercentile(0.99) / 1E3,
+															getTickPercentile(1.0) / 1E3);
+		}
+		return result;
+	}
+
+	/**
+	 * Connects every client, then sends and receives echo frames for the
+	 * specified time.
+	 *
+	 * @param duration The test duration in nanoseconds
+	 *
+	 * @throws IOException If a client could not connect
+	 */
+	public void run(long duration)
+					throws IOException {
+		selector = Selector.open();
+		for (int i = 0; i < clients.length; i++) {
+			clients[i] = connect();
+		}
+		long start = System.nanoTime(), end = start + duration;
+		for (int i = 0; i < clients.length; i++) {
+			// Spreads the clients over the first interval.
+			clients[i].next = start + interval * i / clients.length;
+		}
+		long now;
+		while ((now = System.nanoTime()) < end) {
+			for (int i = 0; i < clients.length; i++) {
+				Client c = clients[i];
+				if (i < hostile) {
+					flooded += c.flood();
+					continue;
+				}
+				while (c.next <= now && c.send(now)) {
+					c.next += interval;
+					sent++;
+				}
+			}
+			if (server != null) {
+				WorldCore world = server.getWorld();
+				long tick = world.getTickCount();
+				if (tick != last_tick && tick > 0L) {
+					last_tick = tick;
+					ticks[tick_count++ % MAX_SAMPLES] = world.getLastTickDuration();
+				}
+			}
+			if (selector.select(1L) > 0) {
+				Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+				while (it.hasNext()) {
+					SelectionKey key = it.next();
+					it.remove();
+					if (key.isValid() && key.isReadable()) {
+						((Client) key.attachment()).read(key.channel() instanceof
+																						 DatagramChannel);
+					}
+				}
+			}
+		}
+		elapsed = System.nanoTime() - start;
+	}
+
+	/**
+	 * Sets the number of clients that flood the server with actions rather than
+	 * sending echo frames.
+	 *
+	 * @param hostile The number of hostile clients
+	 */
+	public void setHostile(int hostile) {
+		this.hostile = Math.max(0, Math.min(hostile, clients.length));
+	}
+
+	/**
+	 * Sets the server being tested if it runs in this process, so that the
+	 * duration of its world ticks can be reported.
+	 *
+	 * @param server The server, or null
+	 */
+	public void setServer(ServerCore server) {
+		this.server = server;
+	}
+
+	private Client connect()
+					throws IOException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+		for (;;) {
+			try {
+				SocketChannel channel = SocketChannel.open(address);
+				channel.socket().setTcpNoDelay(true);
+				Client c = new Client(channel);
+				c.awaitWelcome();
+				channel.configureBlocking(false);
+				channel.register(selector, SelectionKey.OP_READ, c);
+				if (udp) {
+					c.datagram = DatagramChannel.open();
+					c.datagram.connect(address);
+					c.datagram.configureBlocking(false);
+					c.datagram.register(selector, SelectionKey.OP_READ, c);
+				}
+				return c;
+			} catch (IOException ex) {
+				// A local server may still be starting up.
+				if (System.nanoTime() > deadline) {
+					throw ex;
+				}
+				try {
+					Thread.sleep(100L);
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					throw ex;
+				}
+			}
+		}
+	}
+
+	private double getEchoedFraction() {
+		return sent > 0L ? (double) received / sent : 1.0;
+	}
+
+	private long getTickPercentile(double p) {
+		long[] durations = Arrays.copyOf(ticks, Math.min(tick_count, MAX_SAMPLES));
+		Arrays.sort(durations);
+		return percentile(durations, p);
+	}
+
+	private long percentile(long[] sorted, double p) {
+		if (sorted.length == 0) {
+			return 0L;
+		}
+		return sorted[(int) Math.min(sorted.length - 1, (long) (p * sorted.length))];
+	}
+
+	private void record(long latency) {
+		samples[(int) (received++ % MAX_SAMPLES)] = latency;
+	}
+
+	private final class Client {
+		Client(SocketChannel channel) {
+			this.channel = channel;
+		}
+		final SocketChannel channel;
+		DatagramChannel datagram;
+		boolean flooding;
+		int id;
+		final ByteBuffer in = ByteBuffer.allocateDirect(MAX_FRAME_SIZE * 2);
+		long next;
+		final ByteBuffer out = ByteBuffer.allocateDirect(MAX_FRAME_SIZE);
+		int token;
+
+		void awaitWelcome()
+						throws IOException {
+			in.clear().limit(FRAME_HEADER_SIZE + 8);
+			while (in.hasRemaining()) {
+				if (channel.read(in) < 0) {
+					throw new IOException("Server closed the connection!");
+				}
+			}
+			in.flip();
+			in.getShort();
+			if ((in.getShort() & 0xFFFF) != TYPE_WELCOME) {
+				throw new IOException("Server did not welcome the client!");
+			}
+			id = in.getInt();
+			token = in.getInt();
+			in.clear();
+		}
+
+		void close() {
+			try {
+				channel.close();
+				if (datagram != null) {
+					datagram.close();
+				}
+			} catch (IOException ex) {
+				LOG.log(Level.INFO, "Failed to close client: {0}", ex);
+			}
+		}
+
+		void read(boolean from_datagram)
+						throws IOException {
+			if (from_datagram) {
+				in.clear();
+				while (datagram.read(in) > 0) {
+					in.flip();
+					if ((in.getShort() & 0xFFFF) == TYPE_ECHO) {
+						record(System.nanoTime() - in.getLong());
+					}
+					in.clear();
+				}
+				return;
+			}
+			if (channel.read(in) < 0) {
+				throw new IOException("Server closed the connection!");
+			}
+			in.flip();
+			while (in.remaining() >= 2 &&
+						 in.remaining() >= 2 + (in.getShort(in.position()) & 0xFFFF)) {
+				int length = in.getShort() & 0xFFFF;
+				int end = in.position() + length;
+				if ((in.getShort() & 0xFFFF) == TYPE_ECHO) {
+					record(System.nanoTime() - in.getLong());
+				}
+				in.position(end);
+			}
+			in.compact();
+		}
+
+		int flood()
+						throws IOException {
+			int count = 0;
+			if (datagram != null) {
+				for (; count < 64; count++) {
+					out.clear();
+					out.putInt(id).putInt(token).putShort((short) ACTION_TYPE).putLong(
+									count);
+					out.flip();
+					if (datagram.write(out) == 0) {
+						break;
+					}
+				}
+				return count;
+			}
+			if (!flooding) {
+				out.clear().limit(0);
+				flooding = true;
+			}
+			// Keeps any partial frame left from the last write at the front.
+			out.compact();
+			while (out.remaining() >= FRAME_HEADER_SIZE + 8) {
+				out.putShort((short) 10).putShort((short) ACTION_TYPE).putLong(count++);
+			}
+			out.flip();
+			channel.write(out);
+			return count;
+		}
+
+		boolean send(long now)
+						throws IOException {
+			out.clear();
+			if (datagram != null) {
+				out.putInt(id).putInt(token).putShort((short) TYPE_ECHO).putLong(now);
+				out.flip();
+				return datagram.write(out) > 0;
+			}
+			out.putShort((short) 10).putShort((short) TYPE_ECHO).putLong(now);
+			out.flip();
+			channel.write(out);
+			// A partial write would corrupt the stream, so treat it as fatal.
+			if (out.hasRemaining()) {
+				throw new IOException("Send buffer full!");
+			}
+			return true;
+		}
+	}
+}
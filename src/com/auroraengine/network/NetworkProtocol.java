@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.network;
+
+/**
+ * The constants describing how data is framed between clients and servers.
+ *
+ * Over TCP every frame is an unsigned short length, counting the bytes that
+ * follow it, then an unsigned short frame type, then the frame body. Over UDP
+ * every datagram sent to the server begins with the connection id and token
+ * given to the client in its welcome frame, followed by the frame type and
+ * body. Datagrams sent to the client are just the frame type and body.
+ *
+ * Frame types below <code>FIRST_USER_TYPE</code> are handled by the transport
+ * itself, the rest are passed on to the game.
+ *
+ * @author LittleRover
+ */
+public final class NetworkProtocol {
+	/**
+	 * The largest datagram that is sent or accepted, kept below the usual
+	 * internet MTU to avoid fragmentation.
+	 */
+	public static final int MAX_DATAGRAM_SIZE = 1200;
+	/**
+	 * The size of the length and type prefix on each TCP frame.
+	 */
+	public static final int FRAME_HEADER_SIZE = 4;
+	/**
+	 * The size of the id, token, and type prefix on each datagram sent to the
+	 * server.
+	 */
+	public static final int DATAGRAM_HEADER_SIZE = 10;
+	/**
+	 * The port that servers listen on if none is specified.
+	 */
+	public static final int DEFAULT_PORT = 25570;
+	/**
+	 * The lowest frame type passed on to the game.
+	 */
+	public static final int FIRST_USER_TYPE = 16;
+	/**
+	 * The largest TCP frame, including the header.
+	 */
+	public static final int MAX_FRAME_SIZE = 8192;
+	/**
+	 * Sent by either side to close the connection. Has no body.
+	 */
+	public static final int TYPE_DISCONNECT = 2;
+	/**
+	 * Sent back unchanged by the server on whichever channel it arrived. Used to
+	 * measure latency and to keep idle connections alive.
+	 */
+	public static final int TYPE_ECHO = 0;
+	/**
+	 * Sent by either side to measure the round trip time and clock offset. The
+	 * body is the long <code>System.nanoTime()</code> of the sender, and must be
+	 * answered with a pong on the same channel.
+	 */
+	public static final int TYPE_PING = 3;
+	/**
+	 * The answer to a ping. The body is the long time from the ping, then the
+	 * long <code>System.nanoTime()</code> of the answering side, then its long
+	 * current tick.
+	 */
+	public static final int TYPE_PONG = 4;
+	/**
+	 * The size of the body of a pong.
+	 */
+	public static final int PONG_SIZE = 24;
+	/**
+	 * Sent by the server once a connection is accepted. The body is the int
+	 * connection id followed by the int token that must prefix datagrams.
+	 */
+	public static final int TYPE_WELCOME = 1;
+
+	private NetworkProtocol() {
+	}
+}
@@ -16,18 +16,70 @@
  */
 package com.auroraengine.network;
 
+import java.nio.ByteBuffer;
+
 /**
+ * The base of all game packets. Each packet type is registered with a
+ * <code>PacketRegistry</code> under a short id and is encoded by a
+ * <code>PacketCodec</code>, which writes the header before calling
+ * <code>write()</code> to write the body directly into the destination buffer.
+ *
+ * Packets are mutable so that a single instance may be reused for every
+ * message of its type rather than allocating one per message.
  *
  * @author LittleRover
  */
 public abstract class Packet {
+	/**
+	 * The size of the tick number that precedes every packet body.
+	 */
+	public static final int TICK_SIZE = Integer.BYTES;
+
+	private int tick;
 
-	// public final long tick;
-	// public final short id;
 	/**
-	 * Returns the size of the packet minus the header.
+	 * Returns the largest number of bytes that <code>write()</code> may produce
+	 * for this packet in its current state, not including the header.
 	 *
-	 * @return
+	 * @return The maximum body size
 	 */
 	public abstract int getSize();
+
+	/**
+	 * Returns the tick on which this packet was produced.
+	 *
+	 * @return The tick
+	 */
+	public int getTick() {
+		return tick;
+	}
+
+	/**
+	 * Sets the tick on which this packet was produced, then returns this.
+	 *
+	 * @param tick The tick
+	 *
+	 * @return This
+	 */
+	public Packet setTick(int tick) {
+		this.tick = tick;
+		return this;
+	}
+
+	/**
+	 * Sets the contents of this packet from the body in the provided buffer,
+	 * which is positioned just after the header. This should read exactly what
+	 * <code>write()</code> wrote.
+	 *
+	 * @param bb The buffer to read from
+	 */
+	public abstract void read(ByteBuffer bb);
+
+	/**
+	 * Writes the contents of this packet into the provided buffer, which is
+	 * guaranteed to have at least <code>getSize()</code> bytes remaining.
+	 *
+	 * @param bb The buffer to write to
+	 */
+	public abstract void write(ByteBuffer bb);
 }
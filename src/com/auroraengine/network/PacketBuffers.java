@@ -0,0 +1,452 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.network;
+
+import com.auroraengine.debug.AuroraLogs;
+import com.auroraengine.math.LDAng;
+import com.auroraengine.math.LDVec;
+import java.nio.ByteBuffer;
+import java.util.logging.Logger;
+
+/**
+ * Compact encodings for writing packet bodies: variable length integers, which
+ * take one byte for each seven bits actually used, and floats quantised to an
+ * unsigned short over a known range. Vectors and angles are built on these.
+ *
+ * @author LittleRover
+ */
+public final class PacketBuffers {
+	private static final Logger LOG = AuroraLogs.getLogger(PacketBuffers.class
+					.getName());
+	/**
+	 * The size of an angle written by <code>putAngle()</code>.
+	 */
+	public static final int ANGLE_SIZE = 6;
+	/**
+	 * The largest size of an int written by <code>putVarInt()</code>.
+	 */
+	public static final int MAX_VARINT_SIZE = 5;
+	/**
+	 * The largest size of a long written by <code>putVarLong()</code>.
+	 */
+	public static final int MAX_VARLONG_SIZE = 10;
+	/**
+	 * The size of a float written by <code>putQuantised()</code>.
+	 */
+	public static final int QUANTISED_SIZE = 2;
+	/**
+	 * The size of a vector written by <code>putQuantised()</code>.
+	 */
+	public static final int QUANTISED_VEC_SIZE = 3 * QUANTISED_SIZE;
+	/**
+	 * The size of a unit vector written by <code>putUnit()</code>.
+	 */
+	public static final int UNIT_SIZE = 2 * QUANTISED_SIZE;
+	private static final float QUANTA = 0xFFFF;
+	private static final float TWO_PI = (float) (2.0 * Math.PI);
+
+	/**
+	 * Returns the angle encoded by <code>encodeAngle()</code>, set into the
+	 * provided angle.
+	 *
+	 * @param q   The encoded angle
+	 * @param ang The angle to set
+	 *
+	 * @return The angle
+	 */
+	public static LDAng decodeAngle(long q, LDAng ang) {
+		float u = dequantise((int) (q >>> 32) & 0xFFFF, -1.0f, 1.0f);
+		float v = dequantise((int) (q >>> 16) & 0xFFFF, -1.0f, 1.0f);
+		float a = dequantise((int) q & 0xFFFF, 0.0f, TWO_PI);
+		float w = 1.0f - Math.abs(u) - Math.abs(v);
+		if (w < 0.0f) {
+			float t = u;
+			u = (1.0f - Math.abs(v)) * sign(t);
+			v = (1.0f - Math.abs(t)) * sign(v);
+		}
+		return ang.set(a, u, v, w);
+	}
+
+	/**
+	 * Returns the unit vector encoded by <code>encodeUnit()</code>, set into the
+	 * X, Y, and Z components of the provided vector.
+	 *
+	 * @param q   The encoded unit vector
+	 * @param vec The vector to set
+	 *
+	 * @return The vector
+	 */
+	public static LDVec decodeUnit(int q, LDVec vec) {
+		float u = dequantise(q >>> 16, -1.0f, 1.0f);
+		float v = dequantise(q & 0xFFFF, -1.0f, 1.0f);
+		float w = 1.0f - Math.abs(u) - Math.abs(v);
+		if (w < 0.0f) {
+			float t = u;
+			u = (1.0f - Math.abs(v)) * sign(t);
+			v = (1.0f - Math.abs(t)) * sign(v);
+		}
+		return vec.set(u, v, w).normalise();
+	}
+
+	/**
+	 * Returns the value quantised by <code>quantise()</code> over the same
+	 * range.
+	 *
+	 * @param q   The quantised value
+	 * @param min The lowest value of the range
+	 * @param max The highest value of the range
+	 *
+	 * @return The value
+	 */
+	public static float dequantise(int q, float min, float max) {
+		return min + q * (max - min) / QUANTA;
+	}
+
+	/**
+	 * Returns the provided angle quantised into the low 48 bits of a long, as
+	 * written by <code>putAngle()</code>. Equal rotations give equal values,
+	 * so this may be compared to find whether an angle has changed.
+	 *
+	 * @param ang The angle
+	 *
+	 * @return The encoded angle
+	 */
+	public static long encodeAngle(LDAng ang) {
+		float a = ang.ang() % TWO_PI;
+		long q = quantise(a < 0.0f ? a + TWO_PI : a, 0.0f, TWO_PI);
+		return ((long) encodeUnit(ang.X(), ang.Y(), ang.Z()) & 0xFFFFFFFFL) << 16 |
+					 q;
+	}
+
+	/**
+	 * Returns the direction of the provided vector as two quantised floats
+	 * packed into an int. The vector is folded onto an octahedron so that the
+	 * values cover the whole sphere evenly.
+	 *
+	 * @param x The X component
+	 * @param y The Y component
+	 * @param z The Z component
+	 *
+	 * @return The encoded unit vector
+	 */
+	public static int encodeUnit(float x, float y, float z) {
+		float l = Math.abs(x) + Math.abs(y) + Math.abs(z);
+		if (l == 0.0f) {
+			x = y = 0.0f;
+		} else {
+			x /= l;
+			y /= l;
+			if (z < 0.0f) {
+				float t = x;
+				x = (1.0f - Math.abs(y)) * sign(t);
+				y = (1.0f - Math.abs(t)) * sign(y);
+			}
+		}
+		return quantise(x, -1.0f, 1.0f) << 16 | quantise(y, -1.0f, 1.0f);
+	}
+
+	/**
+	 * Reads an angle written by <code>putAngle()</code> into the provided angle,
+	 * then returns it.
+	 *
+	 * @param bb  The buffer
+	 * @param ang The angle to read into
+	 *
+	 * @return The angle
+	 */
+	public static LDAng getAngle(ByteBuffer bb, LDAng ang) {
+		int unit = bb.getInt();
+		return decodeAngle(((long) unit << 16) | (bb.getShort() & 0xFFFF), ang);
+	}
+
+	/**
+	 * Reads a float written by <code>putQuantised()</code> with the same range.
+	 *
+	 * @param bb  The buffer
+	 * @param min The lowest value of the range
+	 * @param max The highest value of the range
+	 *
+	 * @return The value
+	 */
+	public static float getQuantised(ByteBuffer bb, float min, float max) {
+		return dequantise(bb.getShort() & 0xFFFF, min, max);
+	}
+
+	/**
+	 * Reads a vector written by <code>putQuantised()</code> with the same range
+	 * into the X, Y, and Z components of the provided vector, then returns it.
+	 *
+	 * @param bb  The buffer
+	 * @param vec The vector to read into
+	 * @param min The lowest value of the range
+	 * @param max The highest value of the range
+	 *
+	 * @return The vector
+	 */
+	public static LDVec getQuantised(ByteBuffer bb, LDVec vec, float min,
+																	 float max) {
+		float x = getQuantised(bb, min, max);
+		float y = getQuantised(bb, min, max);
+		float z = getQuantised(bb, min, max);
+		return vec.set(x, y, z);
+	}
+
+	/**
+	 * Reads an int written by <code>putSignedVarInt()</code>.
+	 *
+	 * @param bb The buffer
+	 *
+	 * @return The value
+	 */
+	public static int getSignedVarInt(ByteBuffer bb) {
+		int n = getVarInt(bb);
+		return (n >>> 1) ^ -(n & 1);
+	}
+
+	/**
+	 * Reads a long written by <code>putSignedVarLong()</code>.
+	 *
+	 * @param bb The buffer
+	 *
+	 * @return The value
+	 */
+	public static long getSignedVarLong(ByteBuffer bb) {
+		long n = getVarLong(bb);
+		return (n >>> 1) ^ -(n & 1L);
+	}
+
+	/**
+	 * Reads a unit vector written by <code>putUnit()</code> into the X, Y, and
+	 * Z components of the provided vector, then returns it.
+	 *
+	 * @param bb  The buffer
+	 * @param vec The vector to read into
+	 *
+	 * @return The vector
+	 */
+	public static LDVec getUnit(ByteBuffer bb, LDVec vec) {
+		return decodeUnit(bb.getInt(), vec);
+	}
+
+	/**
+	 * Reads an int written by <code>putVarInt()</code>.
+	 *
+	 * @param bb The buffer
+	 *
+	 * @return The value
+	 */
+	public static int getVarInt(ByteBuffer bb) {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			byte b = bb.get();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Malformed variable length int!");
+	}
+
+	/**
+	 * Reads a long written by <code>putVarLong()</code>.
+	 *
+	 * @param bb The buffer
+	 *
+	 * @return The value
+	 */
+	public static long getVarLong(ByteBuffer bb) {
+		long value = 0L;
+		for (int shift = 0; shift < 70; shift += 7) {
+			byte b = bb.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Malformed variable length long!");
+	}
+
+	/**
+	 * Writes the provided angle in six bytes, then returns the buffer. The axis
+	 * is folded onto an octahedron so that two quantised floats cover the whole
+	 * sphere evenly, and the rotation is quantised over a full turn.
+	 *
+	 * @param bb  The buffer
+	 * @param ang The angle
+	 *
+	 * @return The buffer
+	 */
+	public static ByteBuffer putAngle(ByteBuffer bb, LDAng ang) {
+		long q = encodeAngle(ang);
+		bb.putInt((int) (q >>> 16));
+		return bb.putShort((short) q);
+	}
+
+	/**
+	 * Writes the provided value as an unsigned short over the provided range,
+	 * clamping it to the range, then returns the buffer.
+	 *
+	 * @param bb    The buffer
+	 * @param value The value
+	 * @param min   The lowest value of the range
+	 * @param max   The highest value of the range
+	 *
+	 * @return The buffer
+	 */
+	public static ByteBuffer putQuantised(ByteBuffer bb, float value, float min,
+																				float max) {
+		return bb.putShort((short) quantise(value, min, max));
+	}
+
+	/**
+	 * Writes the X, Y, and Z components of the provided vector as quantised
+	 * floats over the provided range, then returns the buffer.
+	 *
+	 * @param bb  The buffer
+	 * @param vec The vector
+	 * @param min The lowest value of the range
+	 * @param max The highest value of the range
+	 *
+	 * @return The buffer
+	 */
+	public static ByteBuffer putQuantised(ByteBuffer bb, LDVec vec, float min,
+																				float max) {
+		putQuantised(bb, vec.X(), min, max);
+		putQuantised(bb, vec.Y(), min, max);
+		return putQuantised(bb, vec.Z(), min, max);
+	}
+
+	/**
+	 * Returns the provided value as an unsigned short over the provided range,
+	 * clamping it to the range. The error is at most
+	 * <code>(max - min) / 131070</code>.
+	 *
+	 * @param value The value
+	 * @param min   The lowest value of the range
+	 * @param max   The highest value of the range
+	 *
+	 * @return The quantised value
+	 */
+	public static int quantise(float value, float min, float max) {
+		float t = (value - min) / (max - min);
+		return t <= 0.0f ? 0 : t >= 1.0f ? 0xFFFF : Math.round(t * QUANTA);
+	}
+
+	/**
+	 * Writes the provided int so that values near zero of either sign are
+	 * short, then returns the buffer.
+	 *
+	 * @param bb    The buffer
+	 * @param value The value
+	 *
+	 * @return The buffer
+	 */
+	public static ByteBuffer putSignedVarInt(ByteBuffer bb, int value) {
+		return putVarInt(bb, (value << 1) ^ (value >> 31));
+	}
+
+	/**
+	 * Writes the provided long so that values near zero of either sign are
+	 * short, then returns the buffer.
+	 *
+	 * @param bb    The buffer
+	 * @param value The value
+	 *
+	 * @return The buffer
+	 */
+	public static ByteBuffer putSignedVarLong(ByteBuffer bb, long value) {
+		return putVarLong(bb, (value << 1) ^ (value >> 63));
+	}
+
+	/**
+	 * Writes the direction of the X, Y, and Z components of the provided vector
+	 * in four bytes, then returns the buffer.
+	 *
+	 * @param bb  The buffer
+	 * @param vec The vector, which need not be normalised
+	 *
+	 * @return The buffer
+	 */
+	public static ByteBuffer putUnit(ByteBuffer bb, LDVec vec) {
+		return bb.putInt(encodeUnit(vec.X(), vec.Y(), vec.Z()));
+	}
+
+	/**
+	 * Writes the provided int treated as unsigned in one to five bytes, then
+	 * returns the buffer.
+	 *
+	 * @param bb    The buffer
+	 * @param value The value
+	 *
+	 * @return The buffer
+	 */
+	public static ByteBuffer putVarInt(ByteBuffer bb, int value) {
+		while ((value & ~0x7F) != 0) {
+			bb.put((byte) (value | 0x80));
+			value >>>= 7;
+		}
+		return bb.put((byte) value);
+	}
+
+	/**
+	 * Writes the provided long treated as unsigned in one to ten bytes, then
+	 * returns the buffer.
+	 *
+	 * @param bb    The buffer
+	 * @param value The value
+	 *
+	 * @return The buffer
+	 */
+	public static ByteBuffer putVarLong(ByteBuffer bb, long value) {
+		while ((value & ~0x7FL) != 0L) {
+			bb.put((byte) (value | 0x80));
+			value >>>= 7;
+		}
+		return bb.put((byte) value);
+	}
+
+	/**
+	 * Returns the number of bytes <code>putVarInt()</code> writes for the
+	 * provided value.
+	 *
+	 * @param value The value
+	 *
+	 * @return The size
+	 */
+	public static int varIntSize(int value) {
+		return value == 0 ? 1 : (38 - Integer.numberOfLeadingZeros(value)) / 7;
+	}
+
+	/**
+	 * Returns the number of bytes <code>putVarLong()</code> writes for the
+	 * provided value.
+	 *
+	 * @param value The value
+	 *
+	 * @return The size
+	 */
+	public static int varLongSize(long value) {
+		return value == 0L ? 1 : (70 - Long.numberOfLeadingZeros(value)) / 7;
+	}
+
+	private static float sign(float f) {
+		return f < 0.0f ? -1.0f : 1.0f;
+	}
+
+	private PacketBuffers() {
+	}
+}
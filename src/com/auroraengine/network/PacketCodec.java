@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.network;
+
+import com.auroraengine.debug.AuroraLogs;
+import static com.auroraengine.network.NetworkProtocol.FRAME_HEADER_SIZE;
+import static com.auroraengine.network.NetworkProtocol.MAX_FRAME_SIZE;
+import java.nio.ByteBuffer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Encodes packets directly into byte buffers and decodes them back again using
+ * the ids in a <code>PacketRegistry</code>.
+ *
+ * A full frame is the unsigned short length of everything after it, the
+ * unsigned short packet id as the frame type, the int tick, then the packet
+ * body. The body of a frame, as given to a connection listener, starts at the
+ * tick. Neither direction copies the body through an intermediate buffer.
+ *
+ * @author LittleRover
+ */
+public final class PacketCodec {
+	private static final Logger LOG = AuroraLogs.getLogger(PacketCodec.class
+					.getName());
+	/**
+	 * The size of everything written before the packet body in a full frame.
+	 */
+	public static final int HEADER_SIZE = FRAME_HEADER_SIZE + Packet.TICK_SIZE;
+
+	/**
+	 * Creates a new codec using the provided registry.
+	 *
+	 * @param registry The registry
+	 */
+	public PacketCodec(PacketRegistry registry) {
+		if (registry == null) {
+			throw new NullPointerException("Registry is Null!");
+		}
+		this.registry = registry;
+	}
+	private final PacketRegistry registry;
+
+	/**
+	 * Reads a new packet of the provided type from the provided frame body,
+	 * which should be positioned at the tick. Returns null if the type is not
+	 * registered or the body is malformed, as frames come from untrusted
+	 * clients.
+	 *
+	 * @param type The frame type
+	 * @param body The frame body
+	 *
+	 * @return The packet, or null
+	 */
+	public Packet decode(int type, ByteBuffer body) {
+		Packet packet = registry.create(type);
+		if (packet == null) {
+			LOG.log(Level.FINE, "Unknown packet type {0}", type);
+			return null;
+		}
+		return decode(body, packet) ? packet : null;
+	}
+
+	/**
+	 * Reads the provided frame body, which should be positioned at the tick,
+	 * into the provided packet so that it may be reused. Returns false if the
+	 * body is malformed or the packet fails to read it, in which case the packet
+	 * contents are undefined.
+	 *
+	 * @param body   The frame body
+	 * @param packet The packet to read into
+	 *
+	 * @return If the packet was read
+	 */
+	public boolean decode(ByteBuffer body, Packet packet) {
+		try {
+			packet.setTick(body.getInt());
+			packet.read(body);
+		} catch (RuntimeException ex) {
+			// Packet reads may fail in any way on a hostile body, so none escape.
+			LOG.log(Level.FINE, "Malformed {0}: {1}",
+							new Object[]{packet.getClass().getSimpleName(), ex});
+			return false;
+		}
+		if (body.hasRemaining()) {
+			LOG.log(Level.FINE, "Malformed {0}: {1} bytes left over",
+							new Object[]{packet.getClass().getSimpleName(), body.remaining()});
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Writes the provided packet as a full frame into the buffer. Returns false,
+	 * leaving the buffer untouched, if there is not enough room for
+	 * <code>getSize()</code> bytes of body.
+	 *
+	 * @param packet The packet
+	 * @param dst    The buffer to write to
+	 *
+	 * @return If the packet was written
+	 */
+	public boolean encode(Packet packet, ByteBuffer dst) {
+		int id = getId(packet);
+		int size = HEADER_SIZE + packet.getSize();
+		if (size > MAX_FRAME_SIZE) {
+			throw new IllegalArgumentException("Frame too large! Found " + size +
+																				 " bytes.");
+		}
+		if (dst.remaining() < size) {
+			return false;
+		}
+		int start = dst.position();
+		dst.putShort(start + 2, (short) id);
+		dst.position(start + FRAME_HEADER_SIZE);
+		dst.putInt(packet.getTick());
+		packet.write(dst);
+		dst.putShort(start, (short) (dst.position() - start - 2));
+		return true;
+	}
+
+	/**
+	 * Writes the tick and body of the provided packet into the buffer without
+	 * the length and type, as is wanted for datagrams. Returns false, leaving
+	 * the buffer untouched, if there is not enough room for
+	 * <code>getSize()</code> bytes of body.
+	 *
+	 * @param packet The packet
+	 * @param dst    The buffer to write to
+	 *
+	 * @return If the packet was written
+	 */
+	public boolean encodeBody(Packet packet, ByteBuffer dst) {
+		getId(packet);
+		if (dst.remaining() < Packet.TICK_SIZE + packet.getSize()) {
+			return false;
+		}
+		dst.putInt(packet.getTick());
+		packet.write(dst);
+		return true;
+	}
+
+	/**
+	 * Returns the id of the provided packet, which is its frame type.
+	 *
+	 * @param packet The packet
+	 *
+	 * @return The id
+	 */
+	public int getId(Packet packet) {
+		int id = registry.getId(packet);
+		if (id < 0) {
+			throw new IllegalArgumentException("Packet not registered! Found " +
+																				 packet.getClass().getName() + ".");
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the registry used by this codec.
+	 *
+	 * @return The registry
+	 */
+	public PacketRegistry getRegistry() {
+		return registry;
+	}
+}
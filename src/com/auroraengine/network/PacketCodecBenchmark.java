@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.network;
+
+import com.auroraengine.debug.Allocations;
+import com.auroraengine.debug.AuroraLogs;
+import com.auroraengine.math.LDAng;
+import com.auroraengine.math.LDVec;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Times encoding entity updates as frames into a pooled buffer and decoding
+ * them back out. The same updates are sent once as raw floats and once with
+ * a varint id and quantised position, rotation and velocity. Decoding is
+ * timed both into a reused packet and into a new packet from the registry,
+ * and the bytes per frame, bytes allocated per packet and the greatest
+ * position error are reported.
+ *
+ * Arguments, all optional, in order: the number of packets per pass.
+ *
+ * @author LittleRover
+ */
+public final class PacketCodecBenchmark {
+	private static final Logger LOG = AuroraLogs.getLogger(
+					PacketCodecBenchmark.class.getName());
+	private static final float MAX_SPEED = 32.0f;
+	private static final int PASSES = 5;
+	private static final float RANGE = 1024.0f;
+
+	/**
+	 * Runs the benchmark described by the provided arguments.
+	 *
+	 * @param args The arguments
+	 */
+	@SuppressWarnings("UseOfSystemOutOrSystemErr")
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		PacketRegistry registry = new PacketRegistry();
+		registry.register(RawPacket.class, RawPacket::new);
+		registry.register(QuantisedPacket.class, QuantisedPacket::new);
+		PacketCodec codec = new PacketCodec(registry);
+		BufferPool pool = new BufferPool(count * (PacketCodec.HEADER_SIZE +
+																							RawPacket.SIZE), 1);
+		System.out.println(String.format("%d packets, fastest of %d passes:",
+																		 count, PASSES));
+		System.out.println(run("raw", RawPacket::new, codec, pool, count));
+		System.out.println(run("quantised", QuantisedPacket::new, codec, pool,
+													 count));
+	}
+
+	private static String run(String name, Supplier<EntityPacket> factory,
+														PacketCodec codec, BufferPool pool, int count) {
+		Random random = new Random(count);
+		EntityPacket[] sent = new EntityPacket[count];
+		for (int i = 0; i < count; i++) {
+			EntityPacket p = factory.get();
+			p.entity = random.nextInt(1 << 20);
+			p.position.set((random.nextFloat() * 2.0f - 1.0f) * RANGE,
+										 (random.nextFloat() * 2.0f - 1.0f) * RANGE,
+										 (random.nextFloat() * 2.0f - 1.0f) * RANGE);
+			p.rotation.set(random.nextFloat() * 6.0f, random.nextFloat() - 0.5f,
+										 random.nextFloat() - 0.5f, random.nextFloat() - 0.5f);
+			p.velocity.set((random.nextFloat() * 2.0f - 1.0f) * MAX_SPEED,
+										 (random.nextFloat() * 2.0f - 1.0f) * MAX_SPEED, 0.0f);
+			p.setTick(i);
+			sent[i] = p;
+		}
+		EntityPacket received = factory.get();
+		ByteBuffer bb = pool.acquire();
+		long[] times = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+		long[] bytes = new long[2];
+		int failed = 0, frame = 0;
+		double error = 0.0;
+		for (int pass = 0; pass < PASSES; pass++) {
+			bb.clear();
+			long allocated = Allocations.getAllocatedBytes();
+			long start = System.nanoTime();
+			for (EntityPacket p : sent) {
+				codec.encode(p, bb);
+			}
+			times[0] = Math.min(times[0], System.nanoTime() - start);
+			bytes[0] = Allocations.getAllocatedBytes() - allocated;
+			frame = bb.position();
+			bb.flip();
+			allocated = Allocations.getAllocatedBytes();
+			start = System.nanoTime();
+			for (int i = 0; i < count; i++) {
+				int end = bb.position() + 2 + (bb.getShort() & 0xFFFF);
+				bb.getShort();
+				bb.limit(end);
+				if (!codec.decode(bb, received)) {
+					failed++;
+				}
+				bb.limit(frame);
+			}
+			times[1] = Math.min(times[1], System.nanoTime() - start);
+			bytes[1] = Allocations.getAllocatedBytes() - allocated;
+			bb.position(0);
+			start = System.nanoTime();
+			for (int i = 0; i < count; i++) {
+				int end = bb.position() + 2 + (bb.getShort() & 0xFFFF);
+				int type = bb.getShort() & 0xFFFF;
+				bb.limit(end);
+				if (codec.decode(type, bb) == null) {
+					failed++;
+				}
+				bb.limit(frame);
+			}
+			times[2] = Math.min(times[2], System.nanoTime() - start);
+		}
+		bb.position(0);
+		for (EntityPacket p : sent) {
+			int end = bb.position() + 2 + (bb.getShort() & 0xFFFF);
+			bb.getShort();
+			bb.limit(end);
+			codec.decode(bb, received);
+			error = Math.max(error, LDVec.getDist(received.position, p.position));
+			bb.limit(frame);
+		}
+		pool.release(bb);
+		return String.format("  %-10s %3d bytes per frame, encode %6.1f ns, " +
+												 "decode %6.1f ns, decode new %6.1f ns, %d bytes " +
+												 "allocated per encode and %d per decode, worst " +
+												 "error %.3g m, %d failed", name, frame / count,
+												 (double) times[0] / count, (double) times[1] / count,
+												 (double) times[2] / count, bytes[0] / count, bytes[1] /
+																											count, error, failed);
+	}
+
+	private PacketCodecBenchmark() {
+	}
+
+	/**
+	 * An update of the position, rotation and velocity of an entity.
+	 */
+	private abstract static class EntityPacket extends Packet {
+		int entity;
+		final LDVec position = new LDVec();
+		final LDAng rotation = new LDAng();
+		final LDVec velocity = new LDVec();
+	}
+
+	/**
+	 * Sends the update as a varint id with the position, rotation and velocity
+	 * quantised.
+	 */
+	private static final class QuantisedPacket extends EntityPacket {
+		@Override
+		public int getSize() {
+			return PacketBuffers.varIntSize(entity) + 2 *
+																								PacketBuffers.QUANTISED_VEC_SIZE +
+						 PacketBuffers.ANGLE_SIZE;
+		}
+
+		@Override
+		public void read(ByteBuffer bb) {
+			entity = PacketBuffers.getVarInt(bb);
+			PacketBuffers.getQuantised(bb, position, -RANGE, RANGE);
+			PacketBuffers.getAngle(bb, rotation);
+			PacketBuffers.getQuantised(bb, velocity, -MAX_SPEED, MAX_SPEED);
+		}
+
+		@Override
+		public void write(ByteBuffer bb) {
+			PacketBuffers.putVarInt(bb, entity);
+			PacketBuffers.putQuantised(bb, position, -RANGE, RANGE);
+			PacketBuffers.putAngle(bb, rotation);
+			PacketBuffers.putQuantised(bb, velocity, -MAX_SPEED, MAX_SPEED);
+		}
+	}
+
+	/**
+	 * Sends the update as an int id and raw floats.
+	 */
+	private static final class RawPacket extends EntityPacket {
+		static final int SIZE = Integer.BYTES + 10 * Float.BYTES;
+
+		@Override
+		public int getSize() {
+			return SIZE;
+		}
+
+		@Override
+		public void read(ByteBuffer bb) {
+			entity = bb.getInt();
+			position.readXYZ(bb);
+			float ang = bb.getFloat(), x = bb.getFloat(), y = bb.getFloat();
+			rotation.set(ang, x, y, bb.getFloat());
+			velocity.readXYZ(bb);
+		}
+
+		@Override
+		public void write(ByteBuffer bb) {
+			bb.putInt(entity);
+			position.writeXYZ(bb);
+			bb.putFloat(rotation.ang()).putFloat(rotation.X()).putFloat(rotation.Y())
+							.putFloat(rotation.Z());
+			velocity.writeXYZ(bb);
+		}
+	}
+}
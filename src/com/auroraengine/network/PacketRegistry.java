@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.network;
+
+import com.auroraengine.debug.AuroraLogs;
+import static com.auroraengine.network.NetworkProtocol.FIRST_USER_TYPE;
+import java.util.HashMap;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Maps packet classes to the short ids used as their frame type, and ids back
+ * to a factory for the packet. All packets should be registered, in the same
+ * order on both sides, before the network is started; the registry may then be
+ * read from any number of threads.
+ *
+ * @author LittleRover
+ */
+public final class PacketRegistry {
+	private static final Logger LOG = AuroraLogs.getLogger(PacketRegistry.class
+					.getName());
+	/**
+	 * The largest id that may be registered.
+	 */
+	public static final int MAX_ID = 0xFFFF;
+
+	/**
+	 * Creates a new empty registry.
+	 */
+	public PacketRegistry() {
+	}
+	private final Supplier<?>[] factories = new Supplier<?>[MAX_ID + 1];
+	private final HashMap<Class<?>, Integer> ids = new HashMap<>();
+	private int next_id = FIRST_USER_TYPE;
+
+	/**
+	 * Creates a new packet of the type registered under the provided id, or
+	 * returns null if there is no such type.
+	 *
+	 * @param id The packet id
+	 *
+	 * @return The new packet, or null
+	 */
+	public Packet create(int id) {
+		if (id < 0 || id > MAX_ID || factories[id] == null) {
+			return null;
+		}
+		return (Packet) factories[id].get();
+	}
+
+	/**
+	 * Returns the id that the provided class is registered under, or -1 if it
+	 * is not registered.
+	 *
+	 * @param type The packet class
+	 *
+	 * @return The id, or -1
+	 */
+	public int getId(Class<? extends Packet> type) {
+		Integer id = ids.get(type);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Returns the id that the class of the provided packet is registered under,
+	 * or -1 if it is not registered.
+	 *
+	 * @param packet The packet
+	 *
+	 * @return The id, or -1
+	 */
+	public int getId(Packet packet) {
+		Integer id = ids.get(packet.getClass());
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Returns true if a packet type has been registered under the provided id.
+	 *
+	 * @param id The packet id
+	 *
+	 * @return If the id is registered
+	 */
+	public boolean isRegistered(int id) {
+		return id >= 0 && id <= MAX_ID && factories[id] != null;
+	}
+
+	/**
+	 * Registers the provided packet class under the next free id, then returns
+	 * the id.
+	 *
+	 * @param <P>     The packet type
+	 * @param type    The packet class
+	 * @param factory Creates new empty packets of the class
+	 *
+	 * @return The id
+	 */
+	public synchronized <P extends Packet> int register(Class<P> type,
+																											Supplier<? extends P> factory) {
+		while (next_id <= MAX_ID && factories[next_id] != null) {
+			next_id++;
+		}
+		register(next_id, type, factory);
+		return next_id;
+	}
+
+	/**
+	 * Registers the provided packet class under the provided id, then returns
+	 * this.
+	 *
+	 * @param <P>     The packet type
+	 * @param id      The id, which must be at least
+	 *                <code>FIRST_USER_TYPE</code>
+	 * @param type    The packet class
+	 * @param factory Creates new empty packets of the class
+	 *
+	 * @return This
+	 */
+	public synchronized <P extends Packet> PacketRegistry register(int id,
+																																 Class<P> type,
+																																 Supplier<? extends P> factory) {
+		if (type == null || factory == null) {
+			throw new NullPointerException("Packet Type is Null!");
+		}
+		if (id < FIRST_USER_TYPE || id > MAX_ID) {
+			throw new IllegalArgumentException("Packet id out of range! Found " + id +
+																				 ".");
+		}
+		if (factories[id] != null) {
+			throw new IllegalArgumentException("Packet id already registered! Found " +
+																				 id + ".");
+		}
+		if (ids.containsKey(type)) {
+			throw new IllegalArgumentException("Packet already registered! Found " +
+																				 type.getName() + ".");
+		}
+		factories[id] = factory;
+		ids.put(type, id);
+		LOG.log(Level.FINE, "Registered packet {0} as {1}",
+						new Object[]{type.getName(), id});
+		return this;
+	}
+
+	/**
+	 * Returns the number of registered packet types.
+	 *
+	 * @return The size
+	 */
+	public synchronized int size() {
+		return ids.size();
+	}
+}
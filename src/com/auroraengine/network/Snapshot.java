@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.network;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * The quantised state of a set of entities on a single tick, held as parallel
+ * arrays sorted by entity id. Positions are fixed point and rotations are
+ * packed by <code>PacketBuffers.encodeAngle()</code>, so two snapshots can be
+ * compared exactly and a client rebuilds exactly what the server sent.
+ *
+ * Snapshots are reused: <code>clear()</code> empties one for a new tick
+ * without releasing its arrays.
+ *
+ * @author LittleRover
+ */
+public final class Snapshot {
+	private static final Logger LOG = AuroraLogs.getLogger(Snapshot.class
+					.getName());
+
+	/**
+	 * Creates a new empty snapshot.
+	 */
+	public Snapshot() {
+		this(64);
+	}
+
+	/**
+	 * Creates a new empty snapshot with room for the provided number of
+	 * entities before it must grow.
+	 *
+	 * @param capacity The initial capacity
+	 */
+	public Snapshot(int capacity) {
+		capacity = Math.max(1, capacity);
+		this.ids = new int[capacity];
+		this.xs = new int[capacity];
+		this.ys = new int[capacity];
+		this.zs = new int[capacity];
+		this.rots = new long[capacity];
+	}
+	private int count = 0;
+	private int[] ids;
+	private long[] keys;
+	private long[] rots;
+	private boolean sorted = true;
+	private int[] swap;
+	private long[] swap_rots;
+	private int tick;
+	private int[] xs;
+	private int[] ys;
+	private int[] zs;
+
+	/**
+	 * Adds the provided entity state. Entities may be added in any order but
+	 * each id only once; call <code>sort()</code> once all are added.
+	 *
+	 * @param id  The entity id
+	 * @param x   The fixed point X position
+	 * @param y   The fixed point Y position
+	 * @param z   The fixed point Z position
+	 * @param rot The packed rotation
+	 */
+	public void add(int id, int x, int y, int z, long rot) {
+		if (count == ids.length) {
+			int capacity = count * 2;
+			ids = Arrays.copyOf(ids, capacity);
+			xs = Arrays.copyOf(xs, capacity);
+			ys = Arrays.copyOf(ys, capacity);
+			zs = Arrays.copyOf(zs, capacity);
+			rots = Arrays.copyOf(rots, capacity);
+		}
+		if (count > 0 && ids[count - 1] >= id) {
+			sorted = false;
+		}
+		ids[count] = id;
+		xs[count] = x;
+		ys[count] = y;
+		zs[count] = z;
+		rots[count] = rot;
+		count++;
+	}
+
+	/**
+	 * Adds the entity state at the provided index of another snapshot.
+	 *
+	 * @param from  The snapshot to copy from
+	 * @param index The index in that snapshot
+	 */
+	public void add(Snapshot from, int index) {
+		add(from.ids[index], from.xs[index], from.ys[index], from.zs[index],
+				from.rots[index]);
+	}
+
+	/**
+	 * Empties this snapshot and sets its tick.
+	 *
+	 * @param tick The tick
+	 */
+	public void clear(int tick) {
+		this.tick = tick;
+		this.count = 0;
+		this.sorted = true;
+	}
+
+	/**
+	 * Returns the id of the entity at the provided index.
+	 *
+	 * @param index The index
+	 *
+	 * @return The id
+	 */
+	public int getId(int index) {
+		return ids[index];
+	}
+
+	/**
+	 * Returns the packed rotation of the entity at the provided index.
+	 *
+	 * @param index The index
+	 *
+	 * @return The rotation
+	 */
+	public long getRotation(int index) {
+		return rots[index];
+	}
+
+	/**
+	 * Returns the tick this snapshot was taken on.
+	 *
+	 * @return The tick
+	 */
+	public int getTick() {
+		return tick;
+	}
+
+	/**
+	 * Returns the fixed point X position of the entity at the provided index.
+	 *
+	 * @param index The index
+	 *
+	 * @return The X position
+	 */
+	public int getX(int index) {
+		return xs[index];
+	}
+
+	/**
+	 * Returns the fixed point Y position of the entity at the provided index.
+	 *
+	 * @param index The index
+	 *
+	 * @return The Y position
+	 */
+	public int getY(int index) {
+		return ys[index];
+	}
+
+	/**
+	 * Returns the fixed point Z position of the entity at the provided index.
+	 *
+	 * @param index The index
+	 *
+	 * @return The Z position
+	 */
+	public int getZ(int index) {
+		return zs[index];
+	}
+
+	/**
+	 * Returns the index of the entity with the provided id, or a negative
+	 * value if it is not in this snapshot. The snapshot must be sorted.
+	 *
+	 * @param id The entity id
+	 *
+	 * @return The index
+	 */
+	public int indexOf(int id) {
+		return Arrays.binarySearch(ids, 0, count, id);
+	}
+
+	/**
+	 * Returns the number of entities in this snapshot.
+	 *
+	 * @return The size
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Sorts the entities by id if they were not added in order. The scratch
+	 * space used is kept, so sorting a reused snapshot does not allocate.
+	 */
+	public void sort() {
+		if (sorted) {
+			return;
+		}
+		if (keys == null || keys.length < count) {
+			keys = new long[ids.length];
+			swap = new int[ids.length];
+			swap_rots = new long[ids.length];
+		}
+		for (int i = 0; i < count; i++) {
+			keys[i] = (long) ids[i] << 32 | i;
+		}
+		Arrays.sort(keys, 0, count);
+		ids = permute(ids);
+		xs = permute(xs);
+		ys = permute(ys);
+		zs = permute(zs);
+		for (int i = 0; i < count; i++) {
+			swap_rots[i] = rots[(int) keys[i]];
+		}
+		long[] r = rots;
+		rots = swap_rots;
+		swap_rots = r;
+		sorted = true;
+	}
+
+	private int[] permute(int[] values) {
+		if (swap.length < values.length) {
+			swap = new int[values.length];
+		}
+		int[] result = swap;
+		for (int i = 0; i < count; i++) {
+			result[i] = values[(int) keys[i]];
+		}
+		swap = values;
+		return result;
+	}
+}
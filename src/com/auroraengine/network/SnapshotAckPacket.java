@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.network;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.nio.ByteBuffer;
+import java.util.logging.Logger;
+
+/**
+ * Sent by a client to acknowledge the snapshot for the tick of the packet,
+ * which the server may then write deltas against. Has no body.
+ *
+ * @author LittleRover
+ */
+public final class SnapshotAckPacket extends Packet {
+	private static final Logger LOG = AuroraLogs.getLogger(SnapshotAckPacket.class
+					.getName());
+
+	/**
+	 * Creates a new acknowledgement.
+	 */
+	public SnapshotAckPacket() {
+	}
+
+	@Override
+	public int getSize() {
+		return 0;
+	}
+
+	@Override
+	public void read(ByteBuffer bb) {
+	}
+
+	@Override
+	public void write(ByteBuffer bb) {
+	}
+}
@@ -0,0 +1,429 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.network;
+
+import com.auroraengine.debug.AuroraLogs;
+import com.auroraengine.math.LDVec;
+import com.auroraengine.world.LocalPosition;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * Quantises entity positions into snapshots and writes the difference between
+ * two snapshots as a bit packed delta.
+ *
+ * A delta is a list of entries in id order, each being the gap from the
+ * previous id, a two bit operation, and then for an update a four bit mask of
+ * the changed fields followed by those fields. Positions are written as the
+ * signed difference from the baseline and rotations whole. Entities that have
+ * not changed are not written at all, and the list ends with an end entry.
+ *
+ * @author LittleRover
+ */
+public final class SnapshotCodec {
+	private static final Logger LOG = AuroraLogs.getLogger(SnapshotCodec.class
+					.getName());
+	/**
+	 * The default size of a fixed point position step, in metres.
+	 */
+	public static final float DEFAULT_RESOLUTION = 1.0f / 64.0f;
+	private static final int FIELD_ROTATION = 8;
+	private static final int FIELD_X = 1;
+	private static final int FIELD_Y = 2;
+	private static final int FIELD_Z = 4;
+	private static final int OP_CREATE = 1;
+	private static final int OP_END = 3;
+	private static final int OP_REMOVE = 2;
+	private static final int OP_UPDATE = 0;
+	private static final int END_BITS = 8;
+	private static final int SELECTION_SHARE = 15;
+
+	/**
+	 * Creates a new codec using the default position resolution.
+	 */
+	public SnapshotCodec() {
+		this(DEFAULT_RESOLUTION);
+	}
+
+	/**
+	 * Creates a new codec that quantises positions to the provided resolution.
+	 *
+	 * @param resolution The size of a fixed point step, in metres
+	 */
+	public SnapshotCodec(float resolution) {
+		if (!(resolution > 0.0f)) {
+			throw new IllegalArgumentException(
+							"Resolution must be positive! Found " + resolution + ".");
+		}
+		this.resolution = resolution;
+		this.scale = 1.0f / resolution;
+	}
+	private int[] costs;
+	private long[] keys;
+	private final float resolution;
+	private final float scale;
+	private boolean[] selected;
+
+	/**
+	 * Quantises the provided position and adds it to the snapshot under the
+	 * provided id.
+	 *
+	 * @param snapshot The snapshot
+	 * @param id       The entity id
+	 * @param pos      The position
+	 */
+	public void add(Snapshot snapshot, int id, LocalPosition pos) {
+		LDVec p = pos.getPoint();
+		snapshot.add(id, Math.round(p.X() * scale), Math.round(p.Y() * scale),
+								 Math.round(p.Z() * scale), PacketBuffers.encodeAngle(pos
+												 .getRotation()));
+	}
+
+	/**
+	 * Sets the provided position to that of the entity at the provided index of
+	 * the snapshot, then returns it.
+	 *
+	 * @param snapshot The snapshot
+	 * @param index    The index
+	 * @param pos      The position to set
+	 *
+	 * @return The position
+	 */
+	public LocalPosition get(Snapshot snapshot, int index, LocalPosition pos) {
+		pos.getPoint().set(snapshot.getX(index) * resolution,
+											 snapshot.getY(index) * resolution,
+											 snapshot.getZ(index) * resolution);
+		PacketBuffers.decodeAngle(snapshot.getRotation(index), pos.getRotation());
+		return pos;
+	}
+
+	/**
+	 * Returns the size of a fixed point position step, in metres.
+	 *
+	 * @return The resolution
+	 */
+	public float getResolution() {
+		return resolution;
+	}
+
+	/**
+	 * Reads a delta written by <code>write()</code> against the same baseline,
+	 * filling the provided snapshot, which should already be cleared, with the
+	 * resulting state. Throws an <code>IllegalArgumentException</code> if the
+	 * delta is malformed.
+	 *
+	 * @param base The baseline, or null if the delta is against nothing
+	 * @param in   The reader, positioned at the start of the delta
+	 * @param out  The snapshot to fill
+	 */
+	public void read(Snapshot base, BitReader in, Snapshot out) {
+		int base_size = base == null ? 0 : base.size();
+		int b = 0;
+		int id = 0;
+		boolean first = true;
+		while (true) {
+			int gap = in.readVar();
+			int op = in.read(2);
+			if (op == OP_END) {
+				break;
+			}
+			id = first ? gap : id + gap + 1;
+			first = false;
+			while (b < base_size && base.getId(b) < id) {
+				out.add(base, b++);
+			}
+			boolean in_base = b < base_size && base.getId(b) == id;
+			switch (op) {
+				case OP_CREATE:
+					if (in_base) {
+						b++;
+					}
+					out.add(id, in.readSignedVar(), in.readSignedVar(),
+									in.readSignedVar(), readRotation(in));
+					break;
+				case OP_REMOVE:
+					if (!in_base) {
+						throw new IllegalArgumentException("Removed entity not in baseline! Found " +
+																							 id + ".");
+					}
+					b++;
+					break;
+				default:
+					if (!in_base) {
+						throw new IllegalArgumentException("Updated entity not in baseline! Found " +
+																							 id + ".");
+					}
+					int mask = in.read(4);
+					int x = base.getX(b), y = base.getY(b), z = base.getZ(b);
+					long rot = base.getRotation(b);
+					b++;
+					if ((mask & FIELD_X) != 0) {
+						x += in.readSignedVar();
+					}
+					if ((mask & FIELD_Y) != 0) {
+						y += in.readSignedVar();
+					}
+					if ((mask & FIELD_Z) != 0) {
+						z += in.readSignedVar();
+					}
+					if ((mask & FIELD_ROTATION) != 0) {
+						rot = readRotation(in);
+					}
+					out.add(id, x, y, z, rot);
+			}
+		}
+		while (b < base_size) {
+			out.add(base, b++);
+		}
+	}
+
+	/**
+	 * Writes the difference from the baseline to the target, stopping once the
+	 * provided number of bits would be exceeded, and fills the provided
+	 * snapshot with the state the reader will have once it reads the delta.
+	 * Entities that do not fit keep their baseline state, and so are sent on a
+	 * later tick. Both snapshots must be sorted.
+	 *
+	 * @param base   The baseline, or null to write against nothing
+	 * @param target The state to send
+	 * @param out    The snapshot to fill with the state sent, already cleared
+	 * @param w      The writer
+	 * @param budget The most bits to write, at least 8
+	 *
+	 * @return The number of entities written
+	 */
+	public int write(Snapshot base, Snapshot target, Snapshot out, BitWriter w,
+									 int budget) {
+		return merge(base, target, out, w, w.getBits() + budget - END_BITS, null,
+								 null);
+	}
+
+	/**
+	 * Writes the difference from the baseline to the target as
+	 * <code>write()</code> does, but when not every change fits in the budget
+	 * the changes to the entities with the highest priority are written first.
+	 * Removals are always written first. The priority of every entity that is
+	 * left up to date is set to zero, so the remaining priorities may be
+	 * carried over to the next tick to stop distant entities starving.
+	 *
+	 * A codec keeps scratch space for this, so should only be used to write
+	 * with priorities from one thread at a time.
+	 *
+	 * @param base     The baseline, or null to write against nothing
+	 * @param target   The state to send
+	 * @param out      The snapshot to fill with the state sent, already cleared
+	 * @param w        The writer
+	 * @param budget   The most bits to write, at least 8
+	 * @param priority The non-negative priority of each entity of the target
+	 *
+	 * @return The number of entities written
+	 */
+	public int write(Snapshot base, Snapshot target, Snapshot out, BitWriter w,
+									 int budget, float[] priority) {
+		int limit = w.getBits() + budget - END_BITS;
+		int n = target.size();
+		if (costs == null || costs.length < n) {
+			costs = new int[Math.max(n, 64)];
+			keys = new long[costs.length];
+			selected = new boolean[costs.length];
+		}
+		int required = merge(base, target, null, null, 0, costs, null);
+		int candidates = 0;
+		for (int t = 0; t < n; t++) {
+			selected[t] = false;
+			if (costs[t] > 0) {
+				keys[candidates++] = (long) Float.floatToIntBits(Math.max(0.0f,
+																																	priority[t])) <<
+														 32 | t;
+			}
+		}
+		if (required + sum(costs, n) <= budget - END_BITS) {
+			for (int t = 0; t < n; t++) {
+				selected[t] = true;
+			}
+		} else {
+			Arrays.sort(keys, 0, candidates);
+			int room = (budget - END_BITS - required) * SELECTION_SHARE / 16;
+			for (int k = candidates - 1; k >= 0 && room > 0; k--) {
+				int t = (int) keys[k];
+				if (costs[t] <= room) {
+					selected[t] = true;
+					room -= costs[t];
+				}
+			}
+		}
+		int written = merge(base, target, out, w, limit, null, selected);
+		for (int t = 0; t < n; t++) {
+			if (costs[t] == 0 || (selected[t] && sameAt(out, target, t))) {
+				priority[t] = 0.0f;
+			}
+		}
+		return written;
+	}
+
+	/**
+	 * Walks the baseline and target together. If a writer is given the delta is
+	 * written, limited to the provided number of bits, and to the selected
+	 * target entities if a selection is given. If costs are given instead, the
+	 * bits each target entity would take are stored and the bits taken by
+	 * removals are returned.
+	 */
+	private int merge(Snapshot base, Snapshot target, Snapshot out, BitWriter w,
+										int limit, int[] cost, boolean[] select) {
+		int base_size = base == null ? 0 : base.size();
+		int target_size = target.size();
+		int b = 0, t = 0, written = 0;
+		int last = 0;
+		boolean first = true;
+		while (b < base_size || t < target_size) {
+			int base_id = b < base_size ? base.getId(b) : Integer.MAX_VALUE;
+			int target_id = t < target_size ? target.getId(t) : Integer.MAX_VALUE;
+			if (b < base_size && (t == target_size || base_id < target_id)) {
+				int gap = first ? base_id : base_id - last - 1;
+				int bits = BitWriter.varBits(gap) + 2;
+				if (w == null) {
+					written += bits;
+					last = base_id;
+					first = false;
+				} else if (w.getBits() + bits <= limit) {
+					w.writeVar(gap);
+					w.write(OP_REMOVE, 2);
+					last = base_id;
+					first = false;
+					written++;
+				} else {
+					out.add(base, b);
+				}
+				b++;
+			} else if (b < base_size && base_id == target_id) {
+				int mask = 0, bits = 4;
+				int dx = target.getX(t) - base.getX(b);
+				int dy = target.getY(t) - base.getY(b);
+				int dz = target.getZ(t) - base.getZ(b);
+				if (dx != 0) {
+					mask |= FIELD_X;
+					bits += signedVarBits(dx);
+				}
+				if (dy != 0) {
+					mask |= FIELD_Y;
+					bits += signedVarBits(dy);
+				}
+				if (dz != 0) {
+					mask |= FIELD_Z;
+					bits += signedVarBits(dz);
+				}
+				if (target.getRotation(t) != base.getRotation(b)) {
+					mask |= FIELD_ROTATION;
+					bits += 48;
+				}
+				int gap = first ? target_id : target_id - last - 1;
+				bits += BitWriter.varBits(gap) + 2;
+				if (mask == 0) {
+					if (w == null) {
+						cost[t] = 0;
+					} else {
+						out.add(target, t);
+					}
+				} else if (w == null) {
+					cost[t] = bits;
+					last = target_id;
+					first = false;
+				} else if ((select == null || select[t]) && w.getBits() + bits <= limit) {
+					w.writeVar(gap);
+					w.write(OP_UPDATE, 2);
+					w.write(mask, 4);
+					if (dx != 0) {
+						w.writeSignedVar(dx);
+					}
+					if (dy != 0) {
+						w.writeSignedVar(dy);
+					}
+					if (dz != 0) {
+						w.writeSignedVar(dz);
+					}
+					if ((mask & FIELD_ROTATION) != 0) {
+						writeRotation(w, target.getRotation(t));
+					}
+					last = target_id;
+					first = false;
+					written++;
+					out.add(target, t);
+				} else {
+					out.add(base, b);
+				}
+				b++;
+				t++;
+			} else {
+				int gap = first ? target_id : target_id - last - 1;
+				int x = target.getX(t), y = target.getY(t), z = target.getZ(t);
+				int bits = BitWriter.varBits(gap) + 2 + signedVarBits(x) +
+									 signedVarBits(y) + signedVarBits(z) + 48;
+				if (w == null) {
+					cost[t] = bits;
+					last = target_id;
+					first = false;
+				} else if ((select == null || select[t]) && w.getBits() + bits <= limit) {
+					w.writeVar(gap);
+					w.write(OP_CREATE, 2);
+					w.writeSignedVar(x);
+					w.writeSignedVar(y);
+					w.writeSignedVar(z);
+					writeRotation(w, target.getRotation(t));
+					last = target_id;
+					first = false;
+					written++;
+					out.add(target, t);
+				}
+				t++;
+			}
+		}
+		if (w != null) {
+			w.writeVar(0);
+			w.write(OP_END, 2);
+		}
+		return written;
+	}
+
+	private static long readRotation(BitReader in) {
+		long high = in.read(16);
+		return high << 32 | (in.read(32) & 0xFFFFFFFFL);
+	}
+
+	private static boolean sameAt(Snapshot out, Snapshot target, int t) {
+		int o = out.indexOf(target.getId(t));
+		return o >= 0 && out.getX(o) == target.getX(t) && out.getY(o) == target.getY(t) &&
+					 out.getZ(o) == target.getZ(t) &&
+					 out.getRotation(o) == target.getRotation(t);
+	}
+
+	private static int signedVarBits(int value) {
+		return BitWriter.varBits((value << 1) ^ (value >> 31));
+	}
+
+	private static int sum(int[] values, int n) {
+		int total = 0;
+		for (int i = 0; i < n; i++) {
+			total += values[i];
+		}
+		return total;
+	}
+
+	private static void writeRotation(BitWriter w, long rot) {
+		w.write((int) (rot >>> 32), 16);
+		w.write((int) rot, 32);
+	}
+}
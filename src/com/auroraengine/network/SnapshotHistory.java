@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.network;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.logging.Logger;
+
+/**
+ * A ring of the most recent snapshots, indexed by tick. Used by both ends of a
+ * connection to keep the snapshots that a delta may be written against.
+ *
+ * @author LittleRover
+ */
+public final class SnapshotHistory {
+	private static final Logger LOG = AuroraLogs.getLogger(SnapshotHistory.class
+					.getName());
+	/**
+	 * The default number of snapshots kept, a little over a second and a half
+	 * at the world tick rate.
+	 */
+	public static final int DEFAULT_SIZE = 32;
+
+	/**
+	 * Creates a new history of the default size.
+	 */
+	public SnapshotHistory() {
+		this(DEFAULT_SIZE);
+	}
+
+	/**
+	 * Creates a new history keeping at least the provided number of snapshots.
+	 * The size is rounded up to a power of two.
+	 *
+	 * @param size The number of snapshots kept
+	 */
+	public SnapshotHistory(int size) {
+		if (size <= 0 || size > 1 << 16) {
+			throw new IllegalArgumentException("Size out of range! Found " + size +
+																				 ".");
+		}
+		int n = Integer.highestOneBit(size);
+		n = n < size ? n << 1 : n;
+		this.snapshots = new Snapshot[n];
+		this.valid = new boolean[n];
+		for (int i = 0; i < n; i++) {
+			snapshots[i] = new Snapshot();
+		}
+	}
+	private final Snapshot[] snapshots;
+	private final boolean[] valid;
+
+	/**
+	 * Returns the snapshot for the provided tick, or null if it has been
+	 * overwritten or was never stored.
+	 *
+	 * @param tick The tick
+	 *
+	 * @return The snapshot, or null
+	 */
+	public Snapshot get(int tick) {
+		int i = tick & (snapshots.length - 1);
+		return valid[i] && snapshots[i].getTick() == tick ? snapshots[i] : null;
+	}
+
+	/**
+	 * Forgets the snapshot for the provided tick, if it is stored.
+	 *
+	 * @param tick The tick
+	 */
+	public void discard(int tick) {
+		int i = tick & (snapshots.length - 1);
+		if (snapshots[i].getTick() == tick) {
+			valid[i] = false;
+		}
+	}
+
+	/**
+	 * Empties every snapshot.
+	 */
+	public void clear() {
+		for (int i = 0; i < valid.length; i++) {
+			valid[i] = false;
+		}
+	}
+
+	/**
+	 * Returns the cleared snapshot to be filled for the provided tick, which
+	 * replaces whatever was stored in its place.
+	 *
+	 * @param tick The tick
+	 *
+	 * @return The snapshot
+	 */
+	public Snapshot next(int tick) {
+		int i = tick & (snapshots.length - 1);
+		valid[i] = true;
+		snapshots[i].clear(tick);
+		return snapshots[i];
+	}
+
+	/**
+	 * Returns the number of snapshots kept.
+	 *
+	 * @return The size
+	 */
+	public int size() {
+		return snapshots.length;
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.network;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.nio.ByteBuffer;
+import java.util.logging.Logger;
+
+/**
+ * Carries a snapshot delta from the server to a client. On the server the
+ * packet is pointed at a sender and the snapshot to send, and the delta is
+ * written straight into the outgoing buffer. On the client the packet is made
+ * with the receiver the delta should be read into.
+ *
+ * @author LittleRover
+ */
+public final class SnapshotPacket extends Packet {
+	private static final Logger LOG = AuroraLogs.getLogger(SnapshotPacket.class
+					.getName());
+
+	/**
+	 * Creates a new packet for sending snapshots.
+	 */
+	public SnapshotPacket() {
+		this(null);
+	}
+
+	/**
+	 * Creates a new packet that reads snapshots into the provided receiver.
+	 *
+	 * @param receiver The receiver
+	 */
+	public SnapshotPacket(SnapshotReceiver receiver) {
+		this.receiver = receiver;
+	}
+	private int budget;
+	private float[] priority;
+	private boolean received = false;
+	private final SnapshotReceiver receiver;
+	private SnapshotSender sender;
+	private Snapshot target;
+
+	@Override
+	public int getSize() {
+		return budget;
+	}
+
+	/**
+	 * Returns true if the last delta read was kept by the receiver, and so
+	 * should be acknowledged.
+	 *
+	 * @return If the delta was received
+	 */
+	public boolean isReceived() {
+		return received;
+	}
+
+	@Override
+	public void read(ByteBuffer bb) {
+		if (receiver == null) {
+			throw new IllegalStateException("Packet has no receiver!");
+		}
+		received = false;
+		received = receiver.read(getTick(), bb);
+	}
+
+	/**
+	 * Sets the snapshot to be written by the provided sender using no more than
+	 * the provided number of bytes, then returns this.
+	 *
+	 * @param sender The sender for the client
+	 * @param target The snapshot, which must be sorted
+	 * @param budget The most bytes to write
+	 *
+	 * @return This
+	 */
+	public SnapshotPacket set(SnapshotSender sender, Snapshot target, int budget) {
+		return set(sender, target, budget, null);
+	}
+
+	/**
+	 * Sets the snapshot to be written by the provided sender using no more than
+	 * the provided number of bytes, sending the changes to the entities with the
+	 * highest priority first, then returns this.
+	 *
+	 * @param sender   The sender for the client
+	 * @param target   The snapshot, which must be sorted
+	 * @param budget   The most bytes to write
+	 * @param priority The priority of each entity of the target, or null
+	 *
+	 * @return This
+	 */
+	public SnapshotPacket set(SnapshotSender sender, Snapshot target, int budget,
+														float[] priority) {
+		this.sender = sender;
+		this.target = target;
+		this.budget = budget;
+		this.priority = priority;
+		setTick(target.getTick());
+		return this;
+	}
+
+	@Override
+	public void write(ByteBuffer bb) {
+		sender.write(target, bb, budget, priority);
+	}
+}
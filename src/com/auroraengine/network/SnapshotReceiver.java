@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.network;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.nio.ByteBuffer;
+import java.util.logging.Logger;
+
+/**
+ * Rebuilds the snapshots sent by a <code>SnapshotSender</code> on the client,
+ * keeping the recent ones as baselines for the deltas still to come. Each
+ * snapshot successfully read should be acknowledged to the server.
+ *
+ * @author LittleRover
+ */
+public final class SnapshotReceiver {
+	private static final Logger LOG = AuroraLogs.getLogger(SnapshotReceiver.class
+					.getName());
+
+	/**
+	 * Creates a new receiver with a history of the default size.
+	 *
+	 * @param codec The codec
+	 */
+	public SnapshotReceiver(SnapshotCodec codec) {
+		this(codec, SnapshotHistory.DEFAULT_SIZE);
+	}
+
+	/**
+	 * Creates a new receiver keeping the provided number of snapshots, which
+	 * should be the same as the sender.
+	 *
+	 * @param codec   The codec
+	 * @param history The number of snapshots kept
+	 */
+	public SnapshotReceiver(SnapshotCodec codec, int history) {
+		this.codec = codec;
+		this.history = new SnapshotHistory(history);
+	}
+	private final SnapshotCodec codec;
+	private boolean has_latest = false;
+	private final SnapshotHistory history;
+	private int latest;
+	private final BitReader reader = new BitReader();
+
+	/**
+	 * Returns the most recent snapshot received, or null if none has been.
+	 *
+	 * @return The snapshot, or null
+	 */
+	public Snapshot getLatest() {
+		return has_latest ? history.get(latest) : null;
+	}
+
+	/**
+	 * Returns the snapshot received for the provided tick, or null if it was
+	 * not received or is no longer held.
+	 *
+	 * @param tick The tick
+	 *
+	 * @return The snapshot, or null
+	 */
+	public Snapshot get(int tick) {
+		return history.get(tick);
+	}
+
+	/**
+	 * Reads the delta for the provided tick from the buffer. Returns false if
+	 * the delta is too old to keep or its baseline is no longer held, in which
+	 * case the rest of the buffer is skipped. Throws an
+	 * <code>IllegalArgumentException</code> if the delta is malformed.
+	 *
+	 * @param tick The tick of the delta
+	 * @param bb   The buffer
+	 *
+	 * @return If the snapshot was read
+	 */
+	public boolean read(int tick, ByteBuffer bb) {
+		int baseline = bb.getInt();
+		Snapshot base = null;
+		if (baseline != tick) {
+			base = tick - baseline > 0 && tick - baseline < history.size() ?
+						 history.get(baseline) : null;
+			if (base == null) {
+				bb.position(bb.limit());
+				return false;
+			}
+		}
+		boolean stale = has_latest && latest - tick >= history.size();
+		if (stale || history.get(tick) != null) {
+			bb.position(bb.limit());
+			return false;
+		}
+		Snapshot out = history.next(tick);
+		try {
+			codec.read(base, reader.begin(bb), out);
+		} catch (RuntimeException ex) {
+			history.discard(tick);
+			throw ex;
+		}
+		if (!has_latest || tick - latest > 0) {
+			latest = tick;
+			has_latest = true;
+		}
+		return true;
+	}
+
+	/**
+	 * Forgets every snapshot received.
+	 */
+	public void reset() {
+		history.clear();
+		has_latest = false;
+	}
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.network;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.nio.ByteBuffer;
+import java.util.logging.Logger;
+
+/**
+ * Keeps what has been sent to one client and writes each new snapshot as a
+ * delta against the last one the client acknowledged. As deltas may be lost,
+ * every delta is written against the acknowledged snapshot rather than the
+ * last one sent, and if that has fallen out of the history the whole state is
+ * sent again.
+ *
+ * @author LittleRover
+ */
+public final class SnapshotSender {
+	private static final Logger LOG = AuroraLogs.getLogger(SnapshotSender.class
+					.getName());
+
+	/**
+	 * Creates a new sender with a history of the default size.
+	 *
+	 * @param codec The codec
+	 */
+	public SnapshotSender(SnapshotCodec codec) {
+		this(codec, SnapshotHistory.DEFAULT_SIZE);
+	}
+
+	/**
+	 * Creates a new sender keeping the provided number of sent snapshots.
+	 *
+	 * @param codec   The codec
+	 * @param history The number of snapshots kept
+	 */
+	public SnapshotSender(SnapshotCodec codec, int history) {
+		this.codec = codec;
+		this.history = new SnapshotHistory(history);
+	}
+	private int acked;
+	private long bytes_total = 0L;
+	private final SnapshotCodec codec;
+	private boolean has_acked = false;
+	private final SnapshotHistory history;
+	private int last_bytes = 0;
+	private int last_tick;
+	private long sent_count = 0L;
+	private final BitWriter writer = new BitWriter();
+
+	/**
+	 * Records that the client has received the snapshot for the provided tick.
+	 * Acknowledgements for older ticks than one already acknowledged, or for
+	 * snapshots no longer held, are ignored.
+	 *
+	 * @param tick The tick
+	 */
+	public void acknowledge(int tick) {
+		if (has_acked && tick - acked <= 0) {
+			return;
+		}
+		if (sent_count > 0L && last_tick - tick >= 0 && history.get(tick) != null) {
+			acked = tick;
+			has_acked = true;
+		}
+	}
+
+	/**
+	 * Returns the tick last acknowledged by the client.
+	 *
+	 * @return The tick
+	 */
+	public int getAcknowledged() {
+		return acked;
+	}
+
+	/**
+	 * Returns the state that the client will have once it has read the delta
+	 * sent for the provided tick, or null if it is no longer held.
+	 *
+	 * @param tick The tick
+	 *
+	 * @return The snapshot, or null
+	 */
+	Snapshot getSent(int tick) {
+		return history.get(tick);
+	}
+
+	/**
+	 * Returns the number of bytes written by the last call to
+	 * <code>write()</code>.
+	 *
+	 * @return The number of bytes
+	 */
+	public int getLastBytes() {
+		return last_bytes;
+	}
+
+	/**
+	 * Returns the number of snapshots written.
+	 *
+	 * @return The count
+	 */
+	public long getSentCount() {
+		return sent_count;
+	}
+
+	/**
+	 * Returns the total number of bytes written.
+	 *
+	 * @return The number of bytes
+	 */
+	public long getTotalBytes() {
+		return bytes_total;
+	}
+
+	/**
+	 * Returns true if the client has acknowledged a snapshot.
+	 *
+	 * @return If there is an acknowledged snapshot
+	 */
+	public boolean hasAcknowledged() {
+		return has_acked;
+	}
+
+	/**
+	 * Forgets everything sent, so that the next snapshot is sent whole.
+	 */
+	public void reset() {
+		history.clear();
+		has_acked = false;
+	}
+
+	/**
+	 * Writes the provided snapshot as a delta into the buffer, using no more
+	 * than the provided number of bytes, then returns the number of bytes
+	 * written. The delta begins with the tick of its baseline, which is the tick
+	 * of the snapshot itself when it is written against nothing.
+	 *
+	 * @param target The snapshot to send, which must be sorted
+	 * @param bb     The buffer to write to
+	 * @param budget The most bytes to write, at least five
+	 *
+	 * @return The number of bytes written
+	 */
+	public int write(Snapshot target, ByteBuffer bb, int budget) {
+		return write(target, bb, budget, null);
+	}
+
+	/**
+	 * Writes the provided snapshot as a delta as <code>write()</code> does, but
+	 * when not every change fits in the budget the changes to the entities with
+	 * the highest priority are written first. The priority of every entity left
+	 * up to date is set to zero.
+	 *
+	 * @param target   The snapshot to send, which must be sorted
+	 * @param bb       The buffer to write to
+	 * @param budget   The most bytes to write, at least five
+	 * @param priority The priority of each entity of the target, or null
+	 *
+	 * @return The number of bytes written
+	 *
+	 * @see SnapshotCodec#write(Snapshot, Snapshot, Snapshot, BitWriter, int,
+	 * float[])
+	 */
+	public int write(Snapshot target, ByteBuffer bb, int budget,
+									 float[] priority) {
+		int tick = target.getTick();
+		Snapshot base = null;
+		if (has_acked && tick - acked > 0 && tick - acked < history.size()) {
+			base = history.get(acked);
+		}
+		int start = bb.position();
+		bb.putInt(base == null ? tick : acked);
+		int bits = (budget - Packet.TICK_SIZE) * 8;
+		try {
+			if (priority == null) {
+				codec.write(base, target, history.next(tick), writer.begin(bb), bits);
+			} else {
+				codec.write(base, target, history.next(tick), writer.begin(bb), bits,
+										priority);
+			}
+			writer.finish();
+		} catch (RuntimeException ex) {
+			history.discard(tick);
+			bb.position(start);
+			throw ex;
+		}
+		last_tick = tick;
+		last_bytes = bb.position() - start;
+		bytes_total += last_bytes;
+		sent_count++;
+		return last_bytes;
+	}
+}
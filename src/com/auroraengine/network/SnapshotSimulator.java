@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.network;
+
+import com.auroraengine.debug.AuroraLogs;
+import com.auroraengine.math.LDVec;
+import com.auroraengine.world.LocalPosition;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Replicates a simulated world to a single client over a simulated lossy link,
+ * without any sockets, and checks that every snapshot the client rebuilds is
+ * exactly what the server believes it sent. Reports the bytes sent per tick.
+ *
+ * Arguments, all optional, in order: entities, ticks, loss rate from 0 to 1,
+ * one way latency in ticks, byte budget per tick, fraction of entities moving
+ * each tick.
+ *
+ * @author LittleRover
+ */
+public final class SnapshotSimulator {
+	private static final Logger LOG = AuroraLogs.getLogger(
+					SnapshotSimulator.class.getName());
+
+	/**
+	 * Runs the simulation described by the provided arguments.
+	 *
+	 * @param args The arguments
+	 */
+	@SuppressWarnings("UseOfSystemOutOrSystemErr")
+	public static void main(String[] args) {
+		int entities = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+		double loss = args.length > 2 ? Double.parseDouble(args[2]) : 0.1;
+		int latency = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+		int budget = args.length > 4 ? Integer.parseInt(args[4]) : 1194;
+		double moving = args.length > 5 ? Double.parseDouble(args[5]) : 0.25;
+
+		Random random = new Random(1L);
+		SnapshotCodec codec = new SnapshotCodec();
+		SnapshotSender sender = new SnapshotSender(codec);
+		SnapshotReceiver receiver = new SnapshotReceiver(codec);
+		Snapshot world = new Snapshot(entities);
+		LocalPosition[] positions = new LocalPosition[entities];
+		boolean[] alive = new boolean[entities];
+		for (int i = 0; i < entities; i++) {
+			positions[i] = new LocalPosition();
+			positions[i].getPoint().set(random.nextFloat() * 1000.0f,
+																	random.nextFloat() * 1000.0f,
+																	random.nextFloat() * 100.0f);
+			alive[i] = true;
+		}
+		ByteBuffer bb = ByteBuffer.allocate(budget);
+		ArrayDeque<byte[]> deltas = new ArrayDeque<>();
+		ArrayDeque<int[]> acks = new ArrayDeque<>();
+		long bytes = 0L;
+		int max_bytes = 0, received = 0, rejected = 0, mismatched = 0;
+		long staleness = 0L;
+
+		for (int tick = 0; tick < ticks; tick++) {
+			for (int i = 0; i < entities; i++) {
+				if (random.nextDouble() < 0.001) {
+					alive[i] = !alive[i];
+				}
+				if (alive[i] && random.nextDouble() < moving) {
+					LDVec p = positions[i].getPoint();
+					p.set(p.X() + random.nextFloat() - 0.5f,
+								p.Y() + random.nextFloat() - 0.5f, p.Z());
+					positions[i].getRotation().set(random.nextFloat() * 6.0f, 0.0f, 0.0f,
+																				 1.0f);
+				}
+			}
+			world.clear(tick);
+			for (int i = 0; i < entities; i++) {
+				if (alive[i]) {
+					codec.add(world, i, positions[i]);
+				}
+			}
+			bb.clear();
+			int n = sender.write(world, bb, budget);
+			bytes += n;
+			max_bytes = Math.max(max_bytes, n);
+			if (random.nextDouble() >= loss) {
+				byte[] delta = new byte[n + 8];
+				ByteBuffer.wrap(delta).putInt(tick + latency).putInt(tick).put(bb
+								.array(), 0, n);
+				deltas.add(delta);
+			}
+
+			while (!deltas.isEmpty() && ByteBuffer.wrap(deltas.peek()).getInt() <=
+																	tick) {
+				ByteBuffer in = ByteBuffer.wrap(deltas.poll());
+				in.getInt();
+				int sent = in.getInt();
+				if (!receiver.read(sent, in)) {
+					rejected++;
+					continue;
+				}
+				received++;
+				if (!equal(receiver.get(sent), sender.getSent(sent))) {
+					mismatched++;
+				}
+				if (random.nextDouble() >= loss) {
+					acks.add(new int[]{tick + latency, sent});
+				}
+			}
+			while (!acks.isEmpty() && acks.peek()[0] <= tick) {
+				sender.acknowledge(acks.poll()[1]);
+			}
+			Snapshot latest = receiver.getLatest();
+			staleness += latest == null ? tick + 1 : tick - latest.getTick();
+		}
+
+		System.out.println("Entities: " + entities + ", ticks: " + ticks +
+											 ", loss: " + loss + ", latency: " + latency +
+											 " ticks, moving: " + moving);
+		System.out.println("Bytes per tick: " + String.format("%.1f", (double) bytes /
+																																	ticks) +
+											 " average, " + max_bytes + " max, budget " + budget);
+		System.out.println("Received: " + received + ", rejected: " + rejected +
+											 ", mismatched: " + mismatched);
+		System.out.println("Average staleness: " + String.format("%.2f",
+																														 (double) staleness /
+																														 ticks) + " ticks");
+	}
+
+	private static boolean equal(Snapshot a, Snapshot b) {
+		if (a == null || b == null || a.size() != b.size()) {
+			return false;
+		}
+		for (int i = 0; i < a.size(); i++) {
+			if (a.getId(i) != b.getId(i) || a.getX(i) != b.getX(i) ||
+					a.getY(i) != b.getY(i) || a.getZ(i) != b.getZ(i) ||
+					a.getRotation(i) != b.getRotation(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private SnapshotSimulator() {
+	}
+}
@@ -19,7 +19,13 @@ package com.auroraengine.server;
 import com.auroraengine.data.ProgramProperties;
 import com.auroraengine.debug.AuroraException;
 import com.auroraengine.debug.AuroraLogs;
+import com.auroraengine.network.PacketCodec;
+import com.auroraengine.network.PacketRegistry;
+import com.auroraengine.network.SnapshotAckPacket;
+import com.auroraengine.network.SnapshotCodec;
+import com.auroraengine.network.SnapshotPacket;
 import com.auroraengine.server.network.ServerNetworkCore;
+import com.auroraengine.server.network.SnapshotReplicator;
 import com.auroraengine.threading.SynchroCore;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -31,6 +37,10 @@ import java.util.logging.Logger;
 public class ServerCore extends SynchroCore {
 	private static final Logger LOG = AuroraLogs.getLogger(ServerCore.class
 					.getName());
+	/**
+	 * The rate in Hz at which the server core checks on its dependent threads.
+	 */
+	public static final double TICK_RATE = 5.0;
 
 	public ServerCore(String name, ProgramProperties properties)
 					throws ServerException {
@@ -44,22 +54,30 @@ public class ServerCore extends SynchroCore {
 		this.properties = properties;
 		this.network = new ServerNetworkCore(name + " Network Core", this);
 		this.world = new WorldCore(name + " World Core", this);
+		PacketRegistry registry = new PacketRegistry();
+		registry.register(SnapshotPacket.class, SnapshotPacket::new);
+		registry.register(SnapshotAckPacket.class, SnapshotAckPacket::new);
+		this.packets = new PacketCodec(registry);
+		this.replicator = new SnapshotReplicator(network, packets,
+																						 new SnapshotCodec());
+		network.setListener(replicator);
+		world.setReplicator(replicator);
+		setTickRate(TICK_RATE, 0);
 	}
 
 	private final ServerNetworkCore network;
+	private final PacketCodec packets;
 	private final ProgramProperties properties;
+	private final SnapshotReplicator replicator;
 	private final WorldCore world;
 
 	@Override
 	protected void initialise()
 					throws ServerException {
 		LOG.info("Initialising");
-		LOG.info("Starting Network Core");
-		waitForStart(network, 8);
-		LOG.info("Started Network Core");
-		LOG.info("Starting World Core");
-		waitForStart(world, 8);
-		LOG.info("Started World Core");
+		LOG.info("Starting Network and World Cores");
+		waitForStart(8, network, world);
+		LOG.info("Started Network and World Cores");
 		LOG.info("Initialised");
 	}
 
@@ -88,6 +106,44 @@ public class ServerCore extends SynchroCore {
 
 	}
 
+	/**
+	 * Returns the network core of this server.
+	 *
+	 * @return The network core.
+	 */
+	public final ServerNetworkCore getNetwork() {
+		return network;
+	}
+
+	/**
+	 * Returns the codec for the packets of this server. Game packets should be
+	 * registered with its registry before the server is started.
+	 *
+	 * @return The packet codec.
+	 */
+	public final PacketCodec getPacketCodec() {
+		return packets;
+	}
+
+	/**
+	 * Returns the replicator sending the world to clients. The game's
+	 * connection listener should be set on this rather than the network core.
+	 *
+	 * @return The replicator.
+	 */
+	public final SnapshotReplicator getReplicator() {
+		return replicator;
+	}
+
+	/**
+	 * Returns the world core of this server.
+	 *
+	 * @return The world core.
+	 */
+	public final WorldCore getWorld() {
+		return world;
+	}
+
 	/**
 	 * Returns the program properties.
 	 *
@@ -18,7 +18,17 @@ package com.auroraengine.server;
 
 import com.auroraengine.debug.AuroraException;
 import com.auroraengine.debug.AuroraLogs;
+import com.auroraengine.entity.Entity;
+import com.auroraengine.server.network.ActionHandler;
+import com.auroraengine.server.network.ActionQueue;
+import com.auroraengine.server.network.ClientConnection;
+import com.auroraengine.server.network.SnapshotReplicator;
+import com.auroraengine.threading.JobGraph;
 import com.auroraengine.threading.SynchroCore;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -29,15 +39,174 @@ public class WorldCore extends SynchroCore {
 
 	private static final Logger LOG = AuroraLogs.getLogger(WorldCore.class
 					.getName());
+	/**
+	 * The rate in Hz at which the world is simulated.
+	 */
+	public static final double TICK_RATE = 20.0;
+	/**
+	 * The number of ticks the world may run back to back to catch up on lost
+	 * time before the lost time is dropped.
+	 */
+	public static final int TICK_CATCHUP = 4;
+	/**
+	 * The fewest entities worth updating in a job of their own. Below this the
+	 * cost of scheduling outweighs the gain from running in parallel.
+	 */
+	public static final int ENTITIES_PER_JOB = 256;
+	/**
+	 * The most actions taken from each connection per tick. Any more are left
+	 * queued for the next tick, so no client can take more than its share of a
+	 * tick however much it sends.
+	 */
+	public static final int ACTIONS_PER_TICK = 8;
 
 	public WorldCore(String name, SynchroCore dependent) {
 		super(name, dependent);
+		setTickRate(TICK_RATE, TICK_CATCHUP);
+	}
+	private final ByteBuffer action = ByteBuffer.allocate(
+					ActionQueue.MAX_ACTION_SIZE);
+	private volatile ActionHandler action_handler;
+	private final ArrayList<ClientConnection> connections = new ArrayList<>();
+	private double delt;
+	private final ArrayList<Entity> entities = new ArrayList<>();
+	private final JobGraph entity_jobs = new JobGraph();
+	private volatile SnapshotReplicator replicator;
+	private int slices;
+
+	/**
+	 * Adds a connection whose actions are taken at the start of each tick.
+	 * This may be called from any thread, and takes effect before the next
+	 * tick. Returns false if the world could not accept the connection.
+	 *
+	 * @param connection The connection
+	 *
+	 * @return If the connection will be added
+	 */
+	public boolean addConnection(ClientConnection connection) {
+		return post(() -> connections.add(connection));
+	}
+
+	/**
+	 * Adds an entity to the world. This should only be called from the world
+	 * thread between ticks.
+	 *
+	 * @param entity The entity
+	 */
+	public void addEntity(Entity entity) {
+		entities.add(entity);
+	}
+
+	/**
+	 * Returns the handler that carries out the actions of clients.
+	 *
+	 * @return The handler, or null
+	 */
+	public ActionHandler getActionHandler() {
+		return action_handler;
+	}
+
+	/**
+	 * Returns the replicator that the world records its entities to each tick.
+	 *
+	 * @return The replicator, or null
+	 */
+	public SnapshotReplicator getReplicator() {
+		return replicator;
+	}
+
+	/**
+	 * Removes a connection so that its actions are no longer taken. This may be
+	 * called from any thread, and takes effect before the next tick.
+	 *
+	 * @param connection The connection
+	 */
+	public void removeConnection(ClientConnection connection) {
+		if (!post(() -> connections.remove(connection))) {
+			LOG.log(Level.WARNING, "Failed to remove {0}; dropping it on the next " +
+														 "tick.", connection);
+		}
+	}
+
+	/**
+	 * Removes an entity from the world. This should only be called from the
+	 * world thread between ticks.
+	 *
+	 * @param entity The entity
+	 *
+	 * @return If the entity was in the world
+	 */
+	public boolean removeEntity(Entity entity) {
+		return entities.remove(entity);
+	}
+
+	/**
+	 * Sets the handler that carries out the actions of clients. Whilst there is
+	 * no handler, actions are discarded.
+	 *
+	 * @param handler The handler, or null
+	 */
+	public void setActionHandler(ActionHandler handler) {
+		this.action_handler = handler;
+	}
+
+	/**
+	 * Sets the replicator that the world records its entities to at the end of
+	 * each tick.
+	 *
+	 * @param replicator The replicator, or null to stop recording
+	 */
+	public void setReplicator(SnapshotReplicator replicator) {
+		this.replicator = replicator;
+	}
+
+	/**
+	 * Takes up to <code>ACTIONS_PER_TICK</code> actions from each connection and
+	 * passes them to the action handler, removing any connection found closed.
+	 */
+	private void takeActions() {
+		ActionHandler handler = action_handler;
+		for (int i = connections.size() - 1; i >= 0; i--) {
+			ClientConnection c = connections.get(i);
+			if (c.isClosed()) {
+				connections.remove(i);
+				continue;
+			}
+			ActionQueue queue = c.getActions();
+			int type;
+			for (int n = 0; n < ACTIONS_PER_TICK && (type = queue.poll(action)) >= 0;
+					 n++) {
+				if (handler != null) {
+					handler.handle(c, type, action);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Updates the entities in the specified slice of the entity list.
+	 *
+	 * @param slice The slice index
+	 */
+	private void updateSlice(int slice) {
+		int size = entities.size();
+		int from = (int) ((long) size * slice / slices);
+		int to = (int) ((long) size * (slice + 1) / slices);
+		for (int i = from; i < to; i++) {
+			entities.get(i).update(delt);
+		}
 	}
 
 	@Override
 	protected void initialise()
 					throws AuroraException {
-
+		// A restarted core initialises again, so rebuild rather than add slices.
+		entity_jobs.clear();
+		slices = getJobScheduler().getParallelism();
+		for (int i = 0; i < slices; i++) {
+			final int slice = i;
+			entity_jobs.add(() -> updateSlice(slice));
+		}
 	}
 
 	@Override
@@ -59,6 +228,18 @@ public class WorldCore extends SynchroCore {
 	@Override
 	protected void update()
 					throws AuroraException {
-
+		delt = (double) getTickPeriod() / TimeUnit.SECONDS.toNanos(1L);
+		takeActions();
+		if (entities.size() < ENTITIES_PER_JOB * 2) {
+			for (int i = 0; i < entities.size(); i++) {
+				entities.get(i).update(delt);
+			}
+		} else {
+			runJobs(entity_jobs);
+		}
+		SnapshotReplicator r = replicator;
+		if (r != null) {
+			r.record((int) getTickCount(), entities);
+		}
 	}
 }
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.server.network;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Carries out the actions clients send, on the world thread at the start of
+ * each tick.
+ *
+ * @author LittleRover
+ */
+public interface ActionHandler {
+	/**
+	 * Called on the world thread for each action taken from a connection. The
+	 * body is only valid until this returns.
+	 *
+	 * @param connection The connection that sent the action
+	 * @param type       The action type
+	 * @param body       The action body
+	 */
+	public void handle(ClientConnection connection, int type, ByteBuffer body);
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.server.network;
+
+import com.auroraengine.debug.AuroraLogs;
+import static com.auroraengine.network.NetworkProtocol.FIRST_USER_TYPE;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * The limits placed on what each client may send. Every frame a client sends
+ * is first taken from a token bucket for the whole connection, and frames
+ * over that rate are dropped unread. Frame types registered as actions are
+ * then taken from a bucket of their own and queued for the world thread
+ * rather than passed to the connection listener. Actions may be coalesced,
+ * in which case an action arriving while one of the same type is still
+ * queued replaces it, as is wanted for inputs where only the latest matters.
+ *
+ * Each connection takes a copy of the limits when it is accepted, so changes
+ * only apply to connections accepted afterwards. The limits may be read and
+ * changed from any thread.
+ *
+ * @author LittleRover
+ */
+public final class ActionLimits {
+	private static final Logger LOG = AuroraLogs.getLogger(ActionLimits.class
+					.getName());
+	/**
+	 * The default frames per second accepted from each connection.
+	 */
+	public static final double DEFAULT_RATE = 1000.0;
+	/**
+	 * The default number of frames a connection may send at once.
+	 */
+	public static final int DEFAULT_BURST = 2000;
+	/**
+	 * The default number of actions that may wait for the world thread.
+	 */
+	public static final int DEFAULT_QUEUE_SIZE = 64;
+
+	/**
+	 * Creates a new set of limits with the default connection limit, no
+	 * actions, and no idle timeout.
+	 */
+	public ActionLimits() {
+	}
+
+	/**
+	 * Creates a copy of the provided limits.
+	 *
+	 * @param limits The limits to copy
+	 */
+	public ActionLimits(ActionLimits limits) {
+		if (limits == null) {
+			throw new NullPointerException("Limits is Null!");
+		}
+		synchronized (limits) {
+			this.afk_timeout = limits.afk_timeout;
+			this.burst = limits.burst;
+			this.limits = limits.limits.clone();
+			this.queue_size = limits.queue_size;
+			this.rate = limits.rate;
+		}
+	}
+	private long afk_timeout = 0L;
+	private int burst = DEFAULT_BURST;
+	private Limit[] limits = new Limit[0];
+	private int queue_size = DEFAULT_QUEUE_SIZE;
+	private double rate = DEFAULT_RATE;
+
+	/**
+	 * Returns the time in nanoseconds a client may go without sending an action
+	 * before it is disconnected, or zero if it never is.
+	 *
+	 * @return The idle timeout
+	 */
+	public synchronized long getAfkTimeout() {
+		return afk_timeout;
+	}
+
+	/**
+	 * Returns the number of frames a connection may send at once.
+	 *
+	 * @return The burst size
+	 */
+	public synchronized int getBurst() {
+		return burst;
+	}
+
+	/**
+	 * Returns the number of actions that may wait for the world thread on each
+	 * connection.
+	 *
+	 * @return The queue size
+	 */
+	public synchronized int getQueueSize() {
+		return queue_size;
+	}
+
+	/**
+	 * Returns the frames per second accepted from each connection.
+	 *
+	 * @return The rate
+	 */
+	public synchronized double getRate() {
+		return rate;
+	}
+
+	/**
+	 * Returns true if the provided frame type is an action.
+	 *
+	 * @param type The frame type
+	 *
+	 * @return If the type is an action
+	 */
+	public synchronized boolean isAction(int type) {
+		return get(type) != null;
+	}
+
+	/**
+	 * Registers the provided frame type as an action, limited to the provided
+	 * rate, then returns this.
+	 *
+	 * @param type     The frame type
+	 * @param rate     The actions per second accepted
+	 * @param burst    The number of actions that may be sent at once
+	 * @param coalesce If a new action replaces one still queued
+	 *
+	 * @return This
+	 */
+	public synchronized ActionLimits setAction(int type, double rate,
+																						 int burst, boolean coalesce) {
+		if (type < FIRST_USER_TYPE || type > 0xFFFF) {
+			throw new IllegalArgumentException("Action type out of range! Found " +
+																				 type + ".");
+		}
+		check(rate, burst);
+		if (type - FIRST_USER_TYPE >= limits.length) {
+			limits = Arrays.copyOf(limits, type - FIRST_USER_TYPE + 1);
+		}
+		limits[type - FIRST_USER_TYPE] = new Limit(rate, burst, coalesce);
+		return this;
+	}
+
+	/**
+	 * Sets the time a client may go without sending an action before it is
+	 * disconnected, then returns this.
+	 *
+	 * @param timeout The idle timeout in nanoseconds, or zero for none
+	 *
+	 * @return This
+	 */
+	public synchronized ActionLimits setAfkTimeout(long timeout) {
+		if (timeout < 0L) {
+			throw new IllegalArgumentException(
+							"Timeout must not be negative! Found " + timeout + ".");
+		}
+		this.afk_timeout = timeout;
+		return this;
+	}
+
+	/**
+	 * Sets the limit on all frames from each connection, then returns this.
+	 *
+	 * @param rate  The frames per second accepted
+	 * @param burst The number of frames that may be sent at once
+	 *
+	 * @return This
+	 */
+	public synchronized ActionLimits setConnectionLimit(double rate, int burst) {
+		check(rate, burst);
+		this.rate = rate;
+		this.burst = burst;
+		return this;
+	}
+
+	/**
+	 * Sets the number of actions that may wait for the world thread on each
+	 * connection, then returns this. Actions arriving when the queue is full
+	 * are dropped.
+	 *
+	 * @param queue_size The queue size
+	 *
+	 * @return This
+	 */
+	public synchronized ActionLimits setQueueSize(int queue_size) {
+		if (queue_size < 1) {
+			throw new IllegalArgumentException("Queue size must be positive! Found " +
+																				 queue_size + ".");
+		}
+		this.queue_size = queue_size;
+		return this;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "Limits of " + rate + "/s, " + TimeUnit.NANOSECONDS.toSeconds(
+						afk_timeout) + "s idle";
+	}
+
+	private static void check(double rate, int burst) {
+		if (!(rate > 0.0) || burst < 1) {
+			throw new IllegalArgumentException("Rate and burst must be positive! " +
+																				 "Found " + rate + " and " + burst +
+																				 ".");
+		}
+	}
+
+	/**
+	 * Returns the limit on the provided frame type, or null if it is not an
+	 * action.
+	 *
+	 * @param type The frame type
+	 *
+	 * @return The limit, or null
+	 */
+	synchronized Limit get(int type) {
+		int i = type - FIRST_USER_TYPE;
+		return i >= 0 && i < limits.length ? limits[i] : null;
+	}
+
+	/**
+	 * Returns one more than the highest action type.
+	 *
+	 * @return The end of the action types
+	 */
+	synchronized int getTypeEnd() {
+		return FIRST_USER_TYPE + limits.length;
+	}
+
+	/**
+	 * The limit on a single action type.
+	 */
+	static final class Limit {
+		Limit(double rate, int burst, boolean coalesce) {
+			this.rate = rate;
+			this.burst = burst;
+			this.coalesce = coalesce;
+		}
+		final int burst;
+		final boolean coalesce;
+		final double rate;
+	}
+}
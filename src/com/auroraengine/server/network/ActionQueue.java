@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.server.network;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.nio.ByteBuffer;
+import java.util.logging.Logger;
+
+/**
+ * A bounded queue of actions received from a client, handed from the network
+ * thread to the world thread. Each action is copied into a slot of a single
+ * buffer made when the queue is, so queueing creates no objects, and when the
+ * queue is full further actions are refused rather than letting a client
+ * build up work for the world.
+ *
+ * @author LittleRover
+ */
+public final class ActionQueue {
+	private static final Logger LOG = AuroraLogs.getLogger(ActionQueue.class
+					.getName());
+	/**
+	 * The largest action body that may be queued.
+	 */
+	public static final int MAX_ACTION_SIZE = 256;
+
+	/**
+	 * Creates a new empty queue that holds up to the provided number of
+	 * actions.
+	 *
+	 * @param capacity The number of actions
+	 */
+	public ActionQueue(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive! Found " +
+																				 capacity + ".");
+		}
+		this.data = ByteBuffer.allocate(capacity * MAX_ACTION_SIZE);
+		this.lengths = new int[capacity];
+		this.types = new int[capacity];
+	}
+	private int count;
+	private final ByteBuffer data;
+	private int head;
+	private final int[] lengths;
+	private final int[] types;
+
+	/**
+	 * Returns the number of actions the queue holds.
+	 *
+	 * @return The capacity
+	 */
+	public int getCapacity() {
+		return types.length;
+	}
+
+	/**
+	 * Adds the provided action to the queue, returning false if there was no
+	 * room or the body is too large. If coalescing, an action of the same type
+	 * still in the queue is replaced instead, keeping its place. The body is
+	 * copied, and its position and limit are left unchanged.
+	 *
+	 * @param type     The action type
+	 * @param body     The action body
+	 * @param coalesce If an action of the same type is replaced
+	 *
+	 * @return If the action was queued
+	 */
+	public synchronized boolean offer(int type, ByteBuffer body,
+																		boolean coalesce) {
+		int length = body.remaining();
+		if (length > MAX_ACTION_SIZE) {
+			return false;
+		}
+		int slot = -1;
+		if (coalesce) {
+			for (int i = 0; i < count; i++) {
+				int s = (head + i) % types.length;
+				if (types[s] == type) {
+					slot = s;
+					break;
+				}
+			}
+		}
+		if (slot < 0) {
+			if (count == types.length) {
+				return false;
+			}
+			slot = (head + count++) % types.length;
+			types[slot] = type;
+		}
+		lengths[slot] = length;
+		int position = body.position();
+		data.limit((slot + 1) * MAX_ACTION_SIZE).position(slot * MAX_ACTION_SIZE);
+		data.put(body);
+		body.position(position);
+		return true;
+	}
+
+	/**
+	 * Removes the oldest action from the queue, copying its body into the
+	 * provided buffer ready to be read, and returns its type. If the queue is
+	 * empty then -1 is returned and the buffer is unchanged.
+	 *
+	 * @param into The buffer to copy the body to, with room for
+	 *             <code>MAX_ACTION_SIZE</code> bytes
+	 *
+	 * @return The action type, or -1
+	 */
+	public synchronized int poll(ByteBuffer into) {
+		if (count == 0) {
+			return -1;
+		}
+		int slot = head;
+		head = (head + 1) % types.length;
+		count--;
+		data.limit(slot * MAX_ACTION_SIZE + lengths[slot])
+						.position(slot * MAX_ACTION_SIZE);
+		into.clear();
+		into.put(data).flip();
+		return types[slot];
+	}
+
+	/**
+	 * Removes every action from the queue.
+	 */
+	public synchronized void clear() {
+		head = 0;
+		count = 0;
+	}
+
+	/**
+	 * Returns the number of actions waiting.
+	 *
+	 * @return The size
+	 */
+	public synchronized int size() {
+		return count;
+	}
+}
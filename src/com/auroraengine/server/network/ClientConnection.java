@@ -17,11 +17,36 @@
 package com.auroraengine.server.network;
 
 import com.auroraengine.debug.AuroraLogs;
+import com.auroraengine.network.LatencyEstimator;
+import static com.auroraengine.network.NetworkProtocol.*;
+import com.auroraengine.network.Packet;
+import com.auroraengine.network.PacketCodec;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Denotes a connection from the server to an individual client.
  *
+ * Each connection owns a direct buffer for each direction. Received bytes are
+ * framed in place and passed on as views of the receive buffer, and frames to
+ * be sent are written straight into the send buffer, so no objects are
+ * created per packet. All methods other than the getters must only be called
+ * on the network thread.
+ *
+ * Every frame received is limited by the <code>ActionLimits</code> of the
+ * network core. Datagrams over the connection's rate are dropped before they
+ * are read, and a connection over its rate is not read from until it is back
+ * within it, so that TCP pushes back on the client. Actions are queued for the
+ * world thread to take at the start of each tick, so a client flooding the
+ * server costs the network thread little and the world thread nothing.
+ *
  * TODO: Not yet implemented fully.
  *
  * @author LittleRover
@@ -29,42 +54,607 @@ import java.util.logging.Logger;
 public class ClientConnection {
 	private static final Logger LOG = AuroraLogs.getLogger(ClientConnection.class
 					.getName());
+	/**
+	 * The size of the send and receive buffers of each connection.
+	 */
+	public static final int BUFFER_SIZE = 2 * MAX_FRAME_SIZE;
+	/**
+	 * The time in nanoseconds between pings sent to each client.
+	 */
+	public static final long PING_INTERVAL = TimeUnit.MILLISECONDS.toNanos(
+					250L);
+	/**
+	 * The number of pings sent that are remembered while waiting for their
+	 * pongs. A pong arriving after this many further pings is ignored.
+	 */
+	public static final int PING_HISTORY = 4;
+	private static final long NO_PING = Long.MIN_VALUE;
 
-	public ClientConnection(Player player) {
-		this.player = player;
+	ClientConnection(ServerNetworkCore core, SocketChannel channel, int id,
+									 int token) {
+		this.core = core;
+		this.channel = channel;
+		this.id = id;
+		this.token = token;
+		this.last_message_time = System.nanoTime();
+		this.last_ping_time = last_message_time - PING_INTERVAL;
+		this.time_last_active = last_message_time;
+		Arrays.fill(pings, NO_PING);
+		// A copy, so that the limits cannot change under an open connection.
+		ActionLimits limits = new ActionLimits(core.getLimits());
+		this.afk_timeout = limits.getAfkTimeout();
+		this.actions = new ActionQueue(limits.getQueueSize());
+		this.bucket = new TokenBucket(limits.getRate(), limits.getBurst());
+		int types = limits.getTypeEnd() - FIRST_USER_TYPE;
+		this.action_buckets = new TokenBucket[types];
+		this.action_limits = new ActionLimits.Limit[types];
+		for (int i = 0; i < types; i++) {
+			ActionLimits.Limit limit = limits.get(FIRST_USER_TYPE + i);
+			if (limit != null) {
+				action_buckets[i] = new TokenBucket(limit.rate, limit.burst);
+				action_limits[i] = limit;
+			}
+		}
 	}
-
+	private final TokenBucket[] action_buckets;
+	private final ActionLimits.Limit[] action_limits;
+	private final ActionQueue actions;
+	private final long afk_timeout;
+	private final TokenBucket bucket;
+	private final SocketChannel channel;
+	private volatile boolean closed = false;
+	private final ByteBuffer control = ByteBuffer.allocate(PONG_SIZE);
+	private final ServerNetworkCore core;
+	private SocketAddress datagram_address;
+	private long dropped;
+	private final int id;
+	private final ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	private int index = -1;
+	private SelectionKey key;
+	// Set whilst reading is stopped for being over the connection rate.
+	private boolean paused = false;
 	// Health of the connection
 	private long last_message_time;
+	private long last_ping_time;
+	private final LatencyEstimator latency = new LatencyEstimator();
+	private final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	// The times of the last pings sent, which a pong must echo to be sampled
+	private final long[] pings = new long[PING_HISTORY];
+	private int pings_next = 0;
 	// Will require an object referring to the in-game player thing.
-	private final Player player;
-	private final long[] recent_pings = new long[10];
+	private Player player;
 
 	// AFK Check
 	private long time_last_active;
+	private final int token;
+
+	/**
+	 * Closes the connection, first attempting to tell the client.
+	 */
+	public void disconnect() {
+		if (!closed) {
+			send(TYPE_DISCONNECT, null);
+			flush();
+			core.close(this);
+		}
+	}
+
+	/**
+	 * Returns the queue of actions received from this client that are waiting
+	 * for the world thread.
+	 *
+	 * @return The action queue
+	 */
+	public ActionQueue getActions() {
+		return actions;
+	}
 
 	/**
-	 * Returns the approximate latency in milliseconds.
+	 * Returns the address datagrams from this client arrive from, or null if no
+	 * datagram has yet been received.
 	 *
-	 * @return
+	 * @return The datagram address
+	 */
+	public SocketAddress getDatagramAddress() {
+		return datagram_address;
+	}
+
+	/**
+	 * Returns the number of frames from this client that have been dropped for
+	 * exceeding its limits.
+	 *
+	 * @return The dropped frame count
+	 */
+	public long getDroppedCount() {
+		return dropped;
+	}
+
+	/**
+	 * Returns the id of this connection, which is unique amongst the currently
+	 * open connections.
+	 *
+	 * @return The connection id
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * Returns the time, from <code>System.nanoTime()</code>, that a frame was
+	 * last received from this client.
+	 *
+	 * @return The time of the last message
+	 */
+	public long getLastMessageTime() {
+		return last_message_time;
+	}
+
+	/**
+	 * Returns the smoothed round trip time to the client in milliseconds, or
+	 * zero if it has not yet been measured.
+	 *
+	 * @return The latency
 	 */
 	public long getLatency() {
-		long l = 0L;
-		for (long li : recent_pings) {
-			l += li;
+		return TimeUnit.NANOSECONDS.toMillis(latency.getRtt());
+	}
+
+	/**
+	 * Returns the estimator of the round trip time and clock offset of the
+	 * client, which may be read from any thread.
+	 *
+	 * @return The latency estimator
+	 */
+	public LatencyEstimator getLatencyEstimator() {
+		return latency;
+	}
+
+	/**
+	 * Returns the player using this connection, or null if they have not yet
+	 * been identified.
+	 *
+	 * @return The player
+	 */
+	public Player getPlayer() {
+		return player;
+	}
+
+	/**
+	 * Returns the time, from <code>System.nanoTime()</code>, that an action was
+	 * last received from this client.
+	 *
+	 * @return The time of the last action
+	 */
+	public long getTimeLastActive() {
+		return time_last_active;
+	}
+
+	/**
+	 * Returns true if the connection has been closed.
+	 *
+	 * @return If closed
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Sends the provided body as a frame of the specified type over TCP. The
+	 * body is copied, so may be reused as soon as this returns, and may be null
+	 * for an empty frame. If there is no room left to queue the frame then false
+	 * is returned and nothing is sent.
+	 *
+	 * @param type The frame type
+	 * @param body The frame body, or null
+	 *
+	 * @return If the frame was queued
+	 */
+	public boolean send(int type, ByteBuffer body) {
+		if (closed) {
+			return false;
+		}
+		int length = body == null ? 0 : body.remaining();
+		if (FRAME_HEADER_SIZE + length > MAX_FRAME_SIZE) {
+			throw new IllegalArgumentException("Frame too large! Found " + length +
+																				 " bytes.");
 		}
-		return l / 1000000L;
+		if (out.remaining() < FRAME_HEADER_SIZE + length) {
+			flush();
+			if (out.remaining() < FRAME_HEADER_SIZE + length) {
+				return false;
+			}
+		}
+		out.putShort((short) (length + 2));
+		out.putShort((short) type);
+		if (body != null) {
+			int limit = body.limit(), position = body.position();
+			out.put(body);
+			body.limit(limit).position(position);
+		}
+		return true;
 	}
 
 	/**
-	 * Called once each tick of the game server.
+	 * Encodes the provided packet straight into the outgoing buffer, flushing
+	 * it first if there is not enough room. Returns false if the connection is
+	 * closed or there is still not enough room, in which case the packet is
+	 * not sent.
+	 *
+	 * @param codec  The codec to encode with
+	 * @param packet The packet
+	 *
+	 * @return If the packet was queued
+	 */
+	public boolean send(PacketCodec codec, Packet packet) {
+		if (closed) {
+			return false;
+		}
+		if (codec.encode(packet, out)) {
+			return true;
+		}
+		flush();
+		return !closed && codec.encode(packet, out);
+	}
+
+	/**
+	 * Sends the provided body as a datagram of the specified type over UDP. The
+	 * body is copied, so may be reused as soon as this returns. If no datagram
+	 * has yet been received from the client then there is nowhere to send to and
+	 * false is returned.
+	 *
+	 * @param type The frame type
+	 * @param body The datagram body, or null
+	 *
+	 * @return If the datagram was sent
+	 */
+	public boolean sendDatagram(int type, ByteBuffer body) {
+		return !closed && datagram_address != null &&
+					 core.sendDatagram(datagram_address, type, body);
+	}
+
+	/**
+	 * Encodes the provided packet straight into a datagram and sends it to the
+	 * client. Returns false if the connection is closed, the client has not yet
+	 * sent a datagram, or the datagram could not be sent.
+	 *
+	 * @param codec  The codec to encode with
+	 * @param packet The packet
+	 *
+	 * @return If the datagram was sent
+	 */
+	public boolean sendDatagram(PacketCodec codec, Packet packet) {
+		return !closed && datagram_address != null &&
+					 core.sendDatagram(datagram_address, codec, packet);
+	}
+
+	/**
+	 * Sets the player using this connection.
+	 *
+	 * @param player The player
+	 */
+	public void setPlayer(Player player) {
+		this.player = player;
+	}
+
+	/**
+	 * Called by the network thread at most once every
+	 * <code>CLIENT_TICK_INTERVAL</code> of the network core. Pings the client
+	 * once every <code>PING_INTERVAL</code>, resumes reading once the client is
+	 * back within its rate, and disconnects it if it has sent no action for
+	 * longer than the idle timeout of the limits.
 	 */
 	public void tick() {
-		// For the previous tick essentially
-		// Get the packets sent
-		// Send a packet to confirm living
-		// Check for limits on actions
-		// Process these actions
+		if (closed) {
+			return;
+		}
+		long now = System.nanoTime();
+		if (afk_timeout > 0L && now - time_last_active > afk_timeout) {
+			LOG.log(Level.INFO, "Disconnecting idle {0}", this);
+			disconnect();
+			return;
+		}
+		if (paused && bucket.getTokens(now) > 0L) {
+			setReading(true);
+			if (!parse()) {
+				core.close(this);
+				return;
+			}
+		}
+		if (now - last_ping_time >= PING_INTERVAL) {
+			last_ping_time = now;
+			pings[pings_next] = now;
+			pings_next = (pings_next + 1) % PING_HISTORY;
+			control.clear();
+			control.putLong(now).flip();
+			if (datagram_address != null) {
+				sendDatagram(TYPE_PING, control);
+			} else {
+				send(TYPE_PING, control);
+			}
+		}
+	}
+
+	/**
+	 * Returns the server time, from <code>System.nanoTime()</code>, matching
+	 * the provided time from the clock of the client.
+	 *
+	 * @param client_time The client time in nanoseconds
+	 *
+	 * @return The server time in nanoseconds
+	 */
+	public long toServerTime(long client_time) {
+		return latency.toLocalTime(client_time);
 	}
 
+	@Override
+	public String toString() {
+		return "Connection " + id;
+	}
+
+	/**
+	 * Passes a received frame to where it is handled, dropping it if the client
+	 * has exceeded its limits.
+	 *
+	 * @param type     The frame type
+	 * @param body     The frame body
+	 * @param datagram If the frame arrived over UDP
+	 */
+	void dispatch(int type, ByteBuffer body, boolean datagram) {
+		long now = System.nanoTime();
+		last_message_time = now;
+		if (!bucket.tryConsume(now)) {
+			dropped++;
+			return;
+		}
+		switch (type) {
+			case TYPE_ECHO:
+				if (datagram) {
+					sendDatagram(TYPE_ECHO, body);
+				} else {
+					send(TYPE_ECHO, body);
+				}
+				break;
+			case TYPE_DISCONNECT:
+				core.close(this);
+				break;
+			case TYPE_PING:
+				if (body.remaining() >= Long.BYTES) {
+					control.clear();
+					control.putLong(body.getLong(body.position()))
+									.putLong(System.nanoTime())
+									.putLong(core.getServerTick()).flip();
+					if (datagram) {
+						sendDatagram(TYPE_PONG, control);
+					} else {
+						send(TYPE_PONG, control);
+					}
+				}
+				break;
+			case TYPE_PONG:
+				// Only pongs to pings actually sent are sampled, each only once, so a
+				// client cannot choose its own round trip time or clock offset.
+				if (body.remaining() >= PONG_SIZE && takePing(body.getLong(body
+								.position()))) {
+					long sent = body.getLong(), remote = body.getLong();
+					latency.sample(sent, remote, body.getLong(), last_message_time);
+				}
+				break;
+			default:
+				if (type >= FIRST_USER_TYPE) {
+					int i = type - FIRST_USER_TYPE;
+					ActionLimits.Limit limit = i < action_limits.length ?
+																		 action_limits[i] :
+																		 null;
+					if (limit == null) {
+						core.getListener().received(this, type, body);
+					} else if (action_buckets[i].tryConsume(now) &&
+										 actions.offer(type, body, limit.coalesce)) {
+						time_last_active = now;
+					} else {
+						dropped++;
+					}
+				} else {
+					LOG.log(Level.FINE, "{0} sent unknown transport frame {1}",
+									new Object[]{this, type});
+				}
+		}
+	}
+
+	/**
+	 * Writes as much of the queued data as the socket will accept, registering
+	 * interest in writing if any remains.
+	 */
+	void flush() {
+		if (closed || out.position() == 0) {
+			return;
+		}
+		try {
+			out.flip();
+			channel.write(out);
+			out.compact();
+		} catch (IOException ex) {
+			LOG.log(Level.INFO, "{0} failed to write: {1}", new Object[]{this, ex});
+			core.close(this);
+			return;
+		}
+		if (key != null && key.isValid()) {
+			int ops = key.interestOps();
+			int want = out.position() > 0 ?
+								 ops | SelectionKey.OP_WRITE :
+								 ops & ~SelectionKey.OP_WRITE;
+			if (ops != want) {
+				key.interestOps(want);
+			}
+		}
+	}
+
+	/**
+	 * Returns the socket channel of this connection.
+	 *
+	 * @return The channel
+	 */
+	SocketChannel getChannel() {
+		return channel;
+	}
+
+	/**
+	 * Returns the position of this connection in the network core's list of
+	 * open connections.
+	 *
+	 * @return The index
+	 */
+	int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Returns the token that datagrams from this client must carry.
+	 *
+	 * @return The token
+	 */
+	int getToken() {
+		return token;
+	}
+
+	/**
+	 * Returns true if there is data waiting to be written.
+	 *
+	 * @return If there is data to write
+	 */
+	boolean hasPendingWrites() {
+		return !closed && out.position() > 0;
+	}
+
+	/**
+	 * Marks the connection as closed. Called by the network core once the
+	 * channel has been released.
+	 */
+	void markClosed() {
+		closed = true;
+	}
+
+	/**
+	 * Reads everything available from the socket and dispatches each complete
+	 * frame the rate allows, leaving the rest in the buffer for next time. Returns
+	 * false if the connection has been closed by the client or has broken the
+	 * protocol.
+	 *
+	 * @return If the connection is still open
+	 */
+	boolean read() {
+		int n;
+		try {
+			n = channel.read(in);
+		} catch (IOException ex) {
+			LOG.log(Level.INFO, "{0} failed to read: {1}", new Object[]{this, ex});
+			return false;
+		}
+		if (n < 0) {
+			return false;
+		}
+		return parse();
+	}
+
+	/**
+	 * Dispatches each complete frame in the receive buffer, leaving any partial
+	 * frame for next time. If the client runs out of its rate, the remaining
+	 * frames are left as well and reading stops until it is back within it.
+	 * Returns false if the connection has been closed or has broken the
+	 * protocol.
+	 *
+	 * @return If the connection is still open
+	 */
+	private boolean parse() {
+		in.flip();
+		int limit = in.limit();
+		while (!closed && limit - in.position() >= 2) {
+			if (bucket.getTokens(System.nanoTime()) < 1L) {
+				setReading(false);
+				break;
+			}
+			int start = in.position();
+			int length = in.getShort(start) & 0xFFFF;
+			if (length < 2 || length + 2 > MAX_FRAME_SIZE) {
+				LOG.log(Level.WARNING, "{0} sent a malformed frame of length {1}",
+								new Object[]{this, length});
+				return false;
+			}
+			int end = start + 2 + length;
+			if (end > limit) {
+				break;
+			}
+			int type = in.getShort(start + 2) & 0xFFFF;
+			in.limit(end).position(start + FRAME_HEADER_SIZE);
+			dispatch(type, in, false);
+			in.limit(limit).position(end);
+		}
+		in.compact();
+		return !closed;
+	}
+
+	/**
+	 * Records the address that datagrams from this client arrive from.
+	 *
+	 * @param address The datagram address
+	 */
+	void setDatagramAddress(SocketAddress address) {
+		this.datagram_address = address;
+	}
+
+	/**
+	 * Sets the position of this connection in the network core's list of open
+	 * connections.
+	 *
+	 * @param index The index
+	 */
+	void setIndex(int index) {
+		this.index = index;
+	}
+
+	/**
+	 * Sets the selection key of this connection's channel.
+	 *
+	 * @param key The key
+	 */
+	void setKey(SelectionKey key) {
+		this.key = key;
+	}
+
+	/**
+	 * Starts or stops reading from the channel.
+	 *
+	 * @param reading If the channel should be read
+	 */
+	private void setReading(boolean reading) {
+		paused = !reading;
+		if (key != null && key.isValid()) {
+			int ops = key.interestOps();
+			int want = reading ? ops | SelectionKey.OP_READ :
+								 ops & ~SelectionKey.OP_READ;
+			if (ops != want) {
+				key.interestOps(want);
+			}
+		}
+	}
+
+	/**
+	 * Forgets the ping sent at the provided time, returning true if there was
+	 * one waiting for its pong.
+	 *
+	 * @param sent The time the ping was sent
+	 *
+	 * @return If the ping was waiting
+	 */
+	private boolean takePing(long sent) {
+		if (sent == NO_PING) {
+			return false;
+		}
+		for (int i = 0; i < PING_HISTORY; i++) {
+			if (pings[i] == sent) {
+				pings[i] = NO_PING;
+				return true;
+			}
+		}
+		return false;
+	}
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.server.network;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Receives the events of client connections from the network core. All methods
+ * are called on the network thread.
+ *
+ * @author LittleRover
+ */
+public interface ConnectionListener {
+	/**
+	 * Called when a client has connected and been welcomed.
+	 *
+	 * @param connection The new connection
+	 */
+	public void connected(ClientConnection connection);
+
+	/**
+	 * Called when a client has disconnected or been disconnected. The connection
+	 * may no longer be sent to.
+	 *
+	 * @param connection The closed connection
+	 */
+	public void disconnected(ClientConnection connection);
+
+	/**
+	 * Called for each game frame received from a client, over either TCP or UDP.
+	 * The body is a view of the receive buffer positioned at the start of the
+	 * frame body and limited to its end, and is only valid until this returns.
+	 *
+	 * @param connection The sending connection
+	 * @param type       The frame type
+	 * @param body       The frame body
+	 */
+	public void received(ClientConnection connection, int type, ByteBuffer body);
+}
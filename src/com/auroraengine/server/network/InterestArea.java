@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.server.network;
+
+import com.auroraengine.debug.AuroraLogs;
+import com.auroraengine.network.Snapshot;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * The region of the world that one client is sent, being every entity within
+ * a radius of a centre. An entity becomes relevant once it comes within the
+ * enter radius and stays relevant until it leaves the larger exit radius, so
+ * that entities near the edge do not flap in and out.
+ *
+ * Each relevant entity is given a priority that grows the closer it is, and
+ * which builds up over the ticks the entity is left out of date, so that when
+ * the budget is tight near entities are sent first but far ones are never
+ * starved.
+ *
+ * The centre is either fixed or follows an entity, in which case it is read
+ * from each snapshot. Areas are updated on the network thread.
+ *
+ * @author LittleRover
+ */
+public final class InterestArea {
+	private static final Logger LOG = AuroraLogs.getLogger(InterestArea.class
+					.getName());
+
+	/**
+	 * Creates a new interest area with the provided radii, in metres.
+	 *
+	 * @param enter_radius The distance within which entities become relevant
+	 * @param exit_radius  The distance beyond which entities stop being relevant
+	 */
+	public InterestArea(float enter_radius, float exit_radius) {
+		if (!(enter_radius > 0.0f) || !(exit_radius >= enter_radius)) {
+			throw new IllegalArgumentException("Radii out of range! Found " +
+																				 enter_radius + " and " + exit_radius +
+																				 ".");
+		}
+		this.enter_radius = enter_radius;
+		this.exit_radius = exit_radius;
+	}
+	private float[] accumulated = new float[64];
+	private float centre_x, centre_y, centre_z;
+	private final float enter_radius;
+	private final float exit_radius;
+	private int focus = -1;
+	private boolean has_focus = false;
+	private float[] priority = new float[64];
+	private int relevant_count = 0;
+	private int[] relevant = new int[64];
+	private final Snapshot target = new Snapshot();
+
+	/**
+	 * Returns the radius within which entities become relevant.
+	 *
+	 * @return The enter radius
+	 */
+	public float getEnterRadius() {
+		return enter_radius;
+	}
+
+	/**
+	 * Returns the radius beyond which entities stop being relevant.
+	 *
+	 * @return The exit radius
+	 */
+	public float getExitRadius() {
+		return exit_radius;
+	}
+
+	/**
+	 * Returns the number of entities relevant on the last update.
+	 *
+	 * @return The relevant count
+	 */
+	public int getRelevantCount() {
+		return relevant_count;
+	}
+
+	/**
+	 * Sets the centre of the area to a fixed point, then returns this.
+	 *
+	 * @param x The X position in metres
+	 * @param y The Y position in metres
+	 * @param z The Z position in metres
+	 *
+	 * @return This
+	 */
+	public InterestArea setCentre(float x, float y, float z) {
+		this.centre_x = x;
+		this.centre_y = y;
+		this.centre_z = z;
+		this.has_focus = false;
+		return this;
+	}
+
+	/**
+	 * Sets the centre of the area to follow the entity with the provided id,
+	 * then returns this. While the entity is missing from the snapshot the area
+	 * stays where it last was.
+	 *
+	 * @param id The entity id
+	 *
+	 * @return This
+	 */
+	public InterestArea setFocus(int id) {
+		this.focus = id;
+		this.has_focus = true;
+		return this;
+	}
+
+	/**
+	 * Returns the priority of each entity of the target snapshot, as filled by
+	 * the last update.
+	 *
+	 * @return The priorities
+	 */
+	float[] getPriority() {
+		return priority;
+	}
+
+	/**
+	 * Returns the snapshot of the relevant entities, as filled by the last
+	 * update.
+	 *
+	 * @return The target snapshot
+	 */
+	Snapshot getTarget() {
+		return target;
+	}
+
+	/**
+	 * Carries the priorities left after sending over to the next update.
+	 */
+	void settle() {
+		int n = target.size();
+		if (relevant.length < n) {
+			relevant = new int[priority.length];
+			accumulated = new float[priority.length];
+		}
+		for (int i = 0; i < n; i++) {
+			relevant[i] = target.getId(i);
+		}
+		System.arraycopy(priority, 0, accumulated, 0, n);
+		relevant_count = n;
+	}
+
+	/**
+	 * Fills the target snapshot with the entities of the world relevant to this
+	 * area, and their priorities.
+	 *
+	 * @param world      The snapshot of the whole world
+	 * @param hash       The spatial hash built over the world snapshot
+	 * @param resolution The size of a fixed point step, in metres
+	 */
+	void update(Snapshot world, SpatialHash hash, float resolution) {
+		if (has_focus) {
+			int f = world.indexOf(focus);
+			if (f >= 0) {
+				centre_x = world.getX(f) * resolution;
+				centre_y = world.getY(f) * resolution;
+				centre_z = world.getZ(f) * resolution;
+			}
+		}
+		float scale = 1.0f / resolution;
+		long cx = Math.round(centre_x * scale);
+		long cy = Math.round(centre_y * scale);
+		long cz = Math.round(centre_z * scale);
+		long enter = (long) Math.ceil(enter_radius * scale);
+		long exit = (long) Math.ceil(exit_radius * scale);
+		long enter2 = enter * enter, exit2 = exit * exit;
+		int x0 = hash.cellOf(clamp(cx - exit)), x1 = hash.cellOf(clamp(cx + exit));
+		int y0 = hash.cellOf(clamp(cy - exit)), y1 = hash.cellOf(clamp(cy + exit));
+		int z0 = hash.cellOf(clamp(cz - exit)), z1 = hash.cellOf(clamp(cz + exit));
+
+		target.clear(world.getTick());
+		for (int x = x0; x <= x1; x++) {
+			for (int y = y0; y <= y1; y++) {
+				for (int z = z0; z <= z1; z++) {
+					int bucket = hash.find(x, y, z);
+					if (bucket < 0) {
+						continue;
+					}
+					for (int i = hash.getStart(bucket), end = hash.getEnd(bucket);
+							 i < end; i++) {
+						int e = hash.getEntity(i);
+						long dx = world.getX(e) - cx;
+						long dy = world.getY(e) - cy;
+						long dz = world.getZ(e) - cz;
+						long d2 = dx * dx + dy * dy + dz * dz;
+						if (d2 <= enter2 || (d2 <= exit2 && wasRelevant(world.getId(e)))) {
+							target.add(world, e);
+						}
+					}
+				}
+			}
+		}
+		target.sort();
+
+		int n = target.size();
+		if (priority.length < n) {
+			priority = new float[Integer.highestOneBit(n) << 1];
+		}
+		float inverse = (float) (1.0 / ((double) enter * enter));
+		for (int i = 0, r = 0; i < n; i++) {
+			int id = target.getId(i);
+			while (r < relevant_count && relevant[r] < id) {
+				r++;
+			}
+			float carried = r < relevant_count && relevant[r] == id ?
+											accumulated[r] : 0.0f;
+			float dx = target.getX(i) - cx;
+			float dy = target.getY(i) - cy;
+			float dz = target.getZ(i) - cz;
+			priority[i] = carried + 1.0f / (1.0f + (dx * dx + dy * dy + dz * dz) *
+																						inverse);
+		}
+	}
+
+	private boolean wasRelevant(int id) {
+		return Arrays.binarySearch(relevant, 0, relevant_count, id) >= 0;
+	}
+
+	private static int clamp(long value) {
+		return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.server.network;
+
+import com.auroraengine.debug.AuroraLogs;
+import com.auroraengine.math.LDVec;
+import com.auroraengine.network.Snapshot;
+import com.auroraengine.network.SnapshotCodec;
+import com.auroraengine.network.SnapshotSender;
+import com.auroraengine.world.LocalPosition;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Measures the cost of interest management without any sockets. Each tick a
+ * world of wandering entities is recorded, the spatial hash is rebuilt, and
+ * every client's interest area is filtered and its delta written, as the
+ * snapshot replicator does. Reports the time per tick spent filtering and
+ * writing, and the entities and bytes per client.
+ *
+ * Arguments, all optional, in order: clients, entities, ticks, world size in
+ * metres, enter radius in metres, byte budget per client.
+ *
+ * @author LittleRover
+ */
+public final class InterestBenchmark {
+	private static final Logger LOG = AuroraLogs.getLogger(
+					InterestBenchmark.class.getName());
+
+	/**
+	 * Runs the benchmark described by the provided arguments.
+	 *
+	 * @param args The arguments
+	 */
+	@SuppressWarnings("UseOfSystemOutOrSystemErr")
+	public static void main(String[] args) {
+		int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int entities = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+		int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+		float size = args.length > 3 ? Float.parseFloat(args[3]) : 4000.0f;
+		float radius = args.length > 4 ? Float.parseFloat(args[4]) : 100.0f;
+		int budget = args.length > 5 ? Integer.parseInt(args[5]) :
+								 SnapshotReplicator.DEFAULT_BUDGET;
+
+		Random random = new Random(1L);
+		SnapshotCodec codec = new SnapshotCodec();
+		int shift = 0;
+		while ((1 << shift) * codec.getResolution() < SnapshotReplicator.CELL_SIZE) {
+			shift++;
+		}
+		SpatialHash hash = new SpatialHash(shift);
+		LocalPosition[] positions = new LocalPosition[entities];
+		for (int i = 0; i < entities; i++) {
+			positions[i] = new LocalPosition();
+			positions[i].getPoint().set(random.nextFloat() * size,
+																	random.nextFloat() * size,
+																	random.nextFloat() * 50.0f);
+		}
+		InterestArea[] areas = new InterestArea[clients];
+		SnapshotSender[] senders = new SnapshotSender[clients];
+		for (int c = 0; c < clients; c++) {
+			areas[c] = new InterestArea(radius, radius * 1.1f).setFocus(random
+							.nextInt(entities));
+			senders[c] = new SnapshotSender(codec);
+		}
+		Snapshot world = new Snapshot(entities);
+		ByteBuffer bb = ByteBuffer.allocateDirect(budget);
+		long filter_time = 0L, write_time = 0L, relevant = 0L, bytes = 0L;
+		int warmup = Math.min(10, ticks / 2);
+
+		for (int tick = 0; tick < ticks; tick++) {
+			for (int i = 0; i < entities; i++) {
+				if ((i + tick) % 4 == 0) {
+					LDVec p = positions[i].getPoint();
+					p.set(p.X() + random.nextFloat() - 0.5f,
+								p.Y() + random.nextFloat() - 0.5f, p.Z());
+				}
+			}
+			world.clear(tick);
+			for (int i = 0; i < entities; i++) {
+				codec.add(world, i, positions[i]);
+			}
+			long t0 = System.nanoTime();
+			hash.build(world);
+			long filter = System.nanoTime() - t0, write = 0L;
+			for (int c = 0; c < clients; c++) {
+				long t1 = System.nanoTime();
+				areas[c].update(world, hash, codec.getResolution());
+				long t2 = System.nanoTime();
+				bb.clear();
+				bytes += tick >= warmup ? senders[c].write(areas[c].getTarget(), bb,
+																									 budget, areas[c]
+																											 .getPriority()) : 0;
+				long t3 = System.nanoTime();
+				areas[c].settle();
+				senders[c].acknowledge(tick);
+				filter += t2 - t1;
+				write += t3 - t2;
+				relevant += tick >= warmup ? areas[c].getRelevantCount() : 0;
+			}
+			if (tick >= warmup) {
+				filter_time += filter;
+				write_time += write;
+			}
+		}
+
+		int measured = ticks - warmup;
+		System.out.println("Clients: " + clients + ", entities: " + entities +
+											 ", ticks: " + measured + ", radius: " + radius +
+											 " m, world: " + size + " m");
+		System.out.println(String.format("Filter: %.2f ms per tick, %.2f us per client",
+																		 filter_time / 1e6 / measured,
+																		 filter_time / 1e3 / measured / clients));
+		System.out.println(String.format("Write: %.2f ms per tick, %.2f us per client",
+																		 write_time / 1e6 / measured,
+																		 write_time / 1e3 / measured / clients));
+		System.out.println(String.format(
+						"Relevant: %.1f entities per client, %.1f bytes per client per tick",
+						(double) relevant / measured / clients,
+						(double) bytes / measured / clients));
+	}
+
+	private InterestBenchmark() {
+	}
+}
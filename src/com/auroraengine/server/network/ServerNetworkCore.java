@@ -18,19 +18,38 @@ package com.auroraengine.server.network;
 
 import com.auroraengine.debug.AuroraException;
 import com.auroraengine.debug.AuroraLogs;
+import static com.auroraengine.network.NetworkProtocol.*;
+import com.auroraengine.network.Packet;
+import com.auroraengine.network.PacketCodec;
 import com.auroraengine.server.ServerCore;
 import com.auroraengine.server.ServerException;
+import com.auroraengine.server.WorldCore;
 import com.auroraengine.threading.SynchroCore;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * This is the manager of the networking side of the server, a thread separate
  * from the other processes of the server.
  *
- * TODO: Not Yet Implemented
+ * A single selector serves the listening socket, the shared datagram channel,
+ * and every client connection, so one thread handles all clients. Rather than
+ * ticking at a fixed rate, the thread waits on the selector, waking as soon as
+ * there is something to read.
  *
  * @author LittleRover
  */
@@ -38,10 +57,52 @@ public class ServerNetworkCore extends SynchroCore {
 
 	private static final Logger LOG = AuroraLogs
 					.getLogger(ServerNetworkCore.class.getName());
+	/**
+	 * The largest number of clients that may be connected at once.
+	 */
+	public static final int MAX_CLIENTS = 4096;
+	/**
+	 * The longest time in milliseconds spent waiting on the selector, which
+	 * bounds how long posted commands and halts wait to be noticed.
+	 */
+	public static final long SELECT_TIMEOUT = 5L;
+	/**
+	 * The size in bytes asked for the receive buffer of the shared datagram
+	 * channel. A flood from a few clients then waits in the buffer to be
+	 * dropped by their limits rather than overflowing it, which would drop
+	 * datagrams from every client alike.
+	 */
+	public static final int DATAGRAM_RECEIVE_BUFFER = 4 << 20;
+	/**
+	 * The most datagrams received on each pass of the selector, so that a flood
+	 * cannot hold up the TCP connections.
+	 */
+	public static final int MAX_DATAGRAMS_PER_PASS = 1024;
+	/**
+	 * The shortest time in nanoseconds between calls to <code>tick()</code> on
+	 * each connection, however often the selector wakes.
+	 */
+	public static final long CLIENT_TICK_INTERVAL = TimeUnit.MILLISECONDS
+					.toNanos(10L);
+	private static final ConnectionListener NULL_LISTENER
+																					= new ConnectionListener() {
+		@Override
+		public void connected(ClientConnection connection) {
+		}
+
+		@Override
+		public void disconnected(ClientConnection connection) {
+		}
+
+		@Override
+		public void received(ClientConnection connection, int type,
+												 ByteBuffer body) {
+		}
+	};
 
 	/**
 	 * Creates a new server network core with the specified name that runs so long
-	 * as the specified server core is running.
+	 * as the specified server core is running, listening on the default port.
 	 *
 	 * @param name   The name of the server
 	 * @param master The server core to run with
@@ -50,24 +111,358 @@ public class ServerNetworkCore extends SynchroCore {
 	 */
 	public ServerNetworkCore(String name, ServerCore master)
 					throws ServerException {
+		this(name, master, new InetSocketAddress(DEFAULT_PORT));
+	}
+
+	/**
+	 * Creates a new server network core with the specified name that runs so long
+	 * as the specified server core is running, listening on the specified
+	 * address.
+	 *
+	 * @param name    The name of the server
+	 * @param master  The server core to run with
+	 * @param address The address to listen on
+	 *
+	 * @throws ServerException If an exception occurs when creating.
+	 */
+	public ServerNetworkCore(String name, ServerCore master,
+													 InetSocketAddress address)
+					throws ServerException {
 		super(name, master);
+		this.server = master;
+		this.address = address;
+		// Spends most of its time waiting on sockets.
+		setVirtual(true);
+		for (int i = 0; i < MAX_CLIENTS; i++) {
+			free_ids[i] = MAX_CLIENTS - 1 - i;
+		}
 	}
+	private final InetSocketAddress address;
+	private final ClientConnection[] clients = new ClientConnection[MAX_CLIENTS];
+	private final ByteBuffer datagram_in = ByteBuffer.allocateDirect(
+					MAX_DATAGRAM_SIZE);
+	private final ByteBuffer datagram_out = ByteBuffer.allocateDirect(
+					MAX_DATAGRAM_SIZE);
+	private int free_count = MAX_CLIENTS;
+	private final int[] free_ids = new int[MAX_CLIENTS];
+	private long last_tick = 0L;
+	private volatile ActionLimits limits = new ActionLimits();
+	private volatile ConnectionListener listener = NULL_LISTENER;
+	// The open connections packed at the front, so passes skip empty slots.
+	private final ClientConnection[] live = new ClientConnection[MAX_CLIENTS];
+	private int live_count = 0;
+	private final ServerCore server;
+	private final Random random = new SecureRandom();
+	private Selector selector;
+	private ServerSocketChannel tcp;
+	private DatagramChannel udp;
+	private final ByteBuffer welcome = ByteBuffer.allocate(8);
 
-	private final Set<ClientConnection> clients = Collections.synchronizedSet(
-					new HashSet<>(8));
+	/**
+	 * Returns the address the server listens on.
+	 *
+	 * @return The address
+	 */
+	public final InetSocketAddress getAddress() {
+		return address;
+	}
+
+	/**
+	 * Returns the connection with the specified id, or null if there is none.
+	 * This should only be called on the network thread.
+	 *
+	 * @param id The connection id
+	 *
+	 * @return The connection
+	 */
+	public final ClientConnection getClient(int id) {
+		return id >= 0 && id < MAX_CLIENTS ? clients[id] : null;
+	}
+
+	/**
+	 * Returns the current tick of the world, which is reported to clients so
+	 * they can line up their clocks with the server.
+	 *
+	 * @return The world tick
+	 */
+	public final long getServerTick() {
+		WorldCore world = server.getWorld();
+		return world == null ? 0L : world.getTickCount();
+	}
+
+	/**
+	 * Returns the number of connected clients.
+	 *
+	 * @return The client count
+	 */
+	public final int getClientCount() {
+		return MAX_CLIENTS - free_count;
+	}
+
+	/**
+	 * Returns the limits placed on what each client may send. Changes made to
+	 * them apply to connections accepted afterwards.
+	 *
+	 * @return The limits
+	 */
+	public final ActionLimits getLimits() {
+		return limits;
+	}
+
+	/**
+	 * Sets the limits placed on what each client may send. Connections already
+	 * open keep the limits they were accepted with.
+	 *
+	 * @param limits The limits
+	 */
+	public final void setLimits(ActionLimits limits) {
+		if (limits == null) {
+			throw new NullPointerException("Limits is Null!");
+		}
+		this.limits = limits;
+	}
+
+	/**
+	 * Returns the listener that receives connection events.
+	 *
+	 * @return The listener
+	 */
+	public final ConnectionListener getListener() {
+		return listener;
+	}
+
+	/**
+	 * Sets the listener that receives connection events. If null, events are
+	 * ignored.
+	 *
+	 * @param listener The listener
+	 */
+	public final void setListener(ConnectionListener listener) {
+		this.listener = listener != null ? listener : NULL_LISTENER;
+	}
+
+	/**
+	 * Accepts every pending connection.
+	 */
+	private void accept() {
+		while (true) {
+			SocketChannel channel;
+			try {
+				channel = tcp.accept();
+			} catch (IOException ex) {
+				LOG.log(Level.WARNING, "Failed to accept client: {0}", ex);
+				return;
+			}
+			if (channel == null) {
+				return;
+			}
+			accept(channel);
+		}
+	}
+
+	/**
+	 * Sets up the provided newly accepted channel as a connection. If that
+	 * fails, the channel is closed and its id released.
+	 *
+	 * @param channel The channel
+	 */
+	private void accept(SocketChannel channel) {
+		SocketAddress from = channel.socket().getRemoteSocketAddress();
+		if (free_count == 0) {
+			LOG.log(Level.WARNING, "Refused client {0}: server full.", from);
+			closeChannel(channel);
+			return;
+		}
+		ClientConnection c = null;
+		try {
+			channel.configureBlocking(false);
+			channel.socket().setTcpNoDelay(true);
+			c = new ClientConnection(this, channel, free_ids[--free_count], random
+															 .nextInt());
+			clients[c.getId()] = c;
+			c.setKey(channel.register(selector, SelectionKey.OP_READ, c));
+			c.setIndex(live_count);
+			live[live_count++] = c;
+		} catch (IOException ex) {
+			LOG.log(Level.WARNING, "Failed to set up client {0}: {1}",
+							new Object[]{from, ex});
+			if (c != null) {
+				clients[c.getId()] = null;
+				free_ids[free_count++] = c.getId();
+			}
+			closeChannel(channel);
+			return;
+		}
+		welcome.clear();
+		welcome.putInt(c.getId()).putInt(c.getToken()).flip();
+		c.send(TYPE_WELCOME, welcome);
+		c.flush();
+		if (c.isClosed()) {
+			return;
+		}
+		LOG.log(Level.INFO, "Accepted {0} from {1}", new Object[]{c, from});
+		WorldCore world = server.getWorld();
+		if (world != null && !world.addConnection(c)) {
+			LOG.log(Level.WARNING, "Refused {0}: world is not accepting.", c);
+			close(c);
+			return;
+		}
+		listener.connected(c);
+	}
+
+	/**
+	 * Closes the provided connection, releasing its id.
+	 *
+	 * @param c The connection
+	 */
+	void close(ClientConnection c) {
+		if (c.isClosed()) {
+			return;
+		}
+		c.markClosed();
+		try {
+			c.getChannel().close();
+		} catch (IOException ex) {
+			LOG.log(Level.INFO, "Failed to close {0} cleanly: {1}",
+							new Object[]{c, ex});
+		}
+		clients[c.getId()] = null;
+		free_ids[free_count++] = c.getId();
+		ClientConnection moved = live[--live_count];
+		live[c.getIndex()] = moved;
+		moved.setIndex(c.getIndex());
+		live[live_count] = null;
+		LOG.log(Level.INFO, "Closed {0}", c);
+		WorldCore world = server.getWorld();
+		if (world != null) {
+			world.removeConnection(c);
+		}
+		listener.disconnected(c);
+	}
+
+	/**
+	 * Closes the provided channel, which has no connection.
+	 *
+	 * @param channel The channel
+	 */
+	private void closeChannel(SocketChannel channel) {
+		try {
+			channel.close();
+		} catch (IOException ex) {
+			LOG.log(Level.INFO, "Failed to close a refused channel: {0}", ex);
+		}
+	}
+
+	/**
+	 * Receives every pending datagram, dispatching those which carry a valid
+	 * connection id and token.
+	 */
+	private void receive() {
+		try {
+			SocketAddress from;
+			for (int n = 0; n < MAX_DATAGRAMS_PER_PASS &&
+											(from = udp.receive(datagram_in)) != null; n++) {
+				datagram_in.flip();
+				if (datagram_in.remaining() >= DATAGRAM_HEADER_SIZE) {
+					ClientConnection c = getClient(datagram_in.getInt());
+					if (c != null && c.getToken() == datagram_in.getInt()) {
+						if (!from.equals(c.getDatagramAddress())) {
+							c.setDatagramAddress(from);
+						}
+						c.dispatch(datagram_in.getShort() & 0xFFFF, datagram_in, true);
+					}
+				}
+				datagram_in.clear();
+			}
+		} catch (IOException ex) {
+			LOG.log(Level.WARNING, "Failed to receive datagram: {0}", ex);
+		}
+	}
+
+	/**
+	 * Encodes the provided packet straight into a datagram and sends it to the
+	 * provided address.
+	 *
+	 * @param to     The address
+	 * @param codec  The codec to encode with
+	 * @param packet The packet
+	 *
+	 * @return If the datagram was sent
+	 */
+	boolean sendDatagram(SocketAddress to, PacketCodec codec, Packet packet) {
+		datagram_out.clear();
+		datagram_out.putShort((short) codec.getId(packet));
+		if (!codec.encodeBody(packet, datagram_out)) {
+			throw new IllegalArgumentException("Datagram too large! Found " +
+																				 (Packet.TICK_SIZE + packet.getSize()) +
+																				 " bytes.");
+		}
+		datagram_out.flip();
+		try {
+			return udp.send(datagram_out, to) > 0;
+		} catch (IOException ex) {
+			LOG.log(Level.INFO, "Failed to send datagram to {0}: {1}",
+							new Object[]{to, ex});
+			return false;
+		}
+	}
+
+	/**
+	 * Sends a datagram of the specified type and body to the provided address.
+	 *
+	 * @param to   The address
+	 * @param type The frame type
+	 * @param body The datagram body, or null
+	 *
+	 * @return If the datagram was sent
+	 */
+	boolean sendDatagram(SocketAddress to, int type, ByteBuffer body) {
+		int length = body == null ? 0 : body.remaining();
+		if (length + 2 > MAX_DATAGRAM_SIZE) {
+			throw new IllegalArgumentException("Datagram too large! Found " +
+																				 length + " bytes.");
+		}
+		datagram_out.clear();
+		datagram_out.putShort((short) type);
+		if (body != null) {
+			int limit = body.limit(), position = body.position();
+			datagram_out.put(body);
+			body.limit(limit).position(position);
+		}
+		datagram_out.flip();
+		try {
+			return udp.send(datagram_out, to) > 0;
+		} catch (IOException ex) {
+			LOG.log(Level.INFO, "Failed to send datagram to {0}: {1}",
+							new Object[]{to, ex});
+			return false;
+		}
+	}
 
 	@Override
 	protected void initialise()
 					throws ServerException {
-		// Need to begin by opening the broadcasting ports.
-
-		// Need to open the connections for others to join to.
+		try {
+			selector = Selector.open();
+			tcp = ServerSocketChannel.open();
+			tcp.bind(address);
+			tcp.configureBlocking(false);
+			tcp.register(selector, SelectionKey.OP_ACCEPT);
+			udp = DatagramChannel.open();
+			udp.setOption(StandardSocketOptions.SO_RCVBUF, DATAGRAM_RECEIVE_BUFFER);
+			udp.bind(address);
+			udp.configureBlocking(false);
+			udp.register(selector, SelectionKey.OP_READ);
+		} catch (IOException ex) {
+			throw new ServerException("Failed to open the server on " + address, ex);
+		}
+		LOG.log(Level.INFO, "Listening on {0}", address);
 	}
 
 	@Override
 	protected boolean isRunning()
 					throws ServerException {
-		return true;
+		return tcp.isOpen();
 	}
 
 	@Override
@@ -80,13 +475,72 @@ public class ServerNetworkCore extends SynchroCore {
 	protected void shutdown() {
 		// Close all of the sockets and be sure to send termination packets
 		// accordingly.
+		for (int i = live_count - 1; i >= 0; i--) {
+			live[i].disconnect();
+		}
+		try {
+			if (tcp != null) {
+				tcp.close();
+			}
+			if (udp != null) {
+				udp.close();
+			}
+			if (selector != null) {
+				selector.close();
+			}
+		} catch (IOException ex) {
+			LOG.log(Level.WARNING, "Failed to close the server cleanly: {0}", ex);
+		}
 	}
 
 	@Override
 	protected void update()
 					throws ServerException {
-		// Need to figure out and perform the appropriate handling of packets.
 		// The threads here either perform requests to the world thread or
 		// provide information to the the world thread.
+		try {
+			if (selector.select(SELECT_TIMEOUT) > 0) {
+				Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+				while (it.hasNext()) {
+					SelectionKey key = it.next();
+					it.remove();
+					if (!key.isValid()) {
+						continue;
+					}
+					Object attachment = key.attachment();
+					if (attachment instanceof ClientConnection) {
+						ClientConnection c = (ClientConnection) attachment;
+						if (key.isReadable() && !c.read()) {
+							close(c);
+						} else if (key.isValid() && key.isWritable()) {
+							c.flush();
+						}
+					} else if (key.isAcceptable()) {
+						accept();
+					} else if (key.isReadable()) {
+						receive();
+					}
+				}
+			}
+		} catch (IOException ex) {
+			throw new ServerException("Selector failed!", ex);
+		}
+		// Ticks each client if it is time to, then writes everything queued
+		// whilst handling the received frames. This runs backwards as closing a
+		// connection moves the last one into its place.
+		long now = System.nanoTime();
+		boolean tick = now - last_tick >= CLIENT_TICK_INTERVAL;
+		if (tick) {
+			last_tick = now;
+		}
+		for (int i = live_count - 1; i >= 0; i--) {
+			ClientConnection c = live[i];
+			if (tick) {
+				c.tick();
+			}
+			if (c.hasPendingWrites()) {
+				c.flush();
+			}
+		}
 	}
 }
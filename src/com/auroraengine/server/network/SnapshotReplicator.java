@@ -0,0 +1,309 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.server.network;
+
+import com.auroraengine.debug.AuroraLogs;
+import com.auroraengine.entity.Entity;
+import static com.auroraengine.network.NetworkProtocol.MAX_DATAGRAM_SIZE;
+import com.auroraengine.network.Packet;
+import com.auroraengine.network.PacketCodec;
+import com.auroraengine.network.Snapshot;
+import com.auroraengine.network.SnapshotAckPacket;
+import com.auroraengine.network.SnapshotCodec;
+import com.auroraengine.network.SnapshotPacket;
+import com.auroraengine.network.SnapshotSender;
+import static com.auroraengine.server.network.ServerNetworkCore.MAX_CLIENTS;
+import com.auroraengine.threading.SpscMailbox;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Replicates the entities of the world to every connected client as deltas
+ * against the last snapshot each client acknowledged. A client may be given an
+ * interest area, in which case it is only sent the entities within the area,
+ * nearest first when they do not all fit in the budget.
+ *
+ * The world records a snapshot at the end of each tick, which is handed to
+ * the network thread through a mailbox and sent from there. Snapshots are
+ * returned through a second mailbox to be reused, so recording does not
+ * allocate once the world has settled. The replicator sits in front of the
+ * game's connection listener, handling acknowledgements itself and passing
+ * everything else on.
+ *
+ * @author LittleRover
+ */
+public class SnapshotReplicator implements ConnectionListener {
+	private static final Logger LOG = AuroraLogs.getLogger(
+					SnapshotReplicator.class.getName());
+	/**
+	 * The default number of bytes each client may be sent per snapshot, which
+	 * is as much as fits in a datagram.
+	 */
+	public static final int DEFAULT_BUDGET = MAX_DATAGRAM_SIZE - 2 -
+																					 Packet.TICK_SIZE;
+	/**
+	 * The size in metres of the cells of the spatial hash used to find the
+	 * entities in each client's interest area.
+	 */
+	public static final float CELL_SIZE = 64.0f;
+	private static final int QUEUE_SIZE = 4;
+
+	/**
+	 * Creates a new replicator sending through the provided network core. The
+	 * snapshot and acknowledgement packets must already be registered with the
+	 * codec.
+	 *
+	 * @param network   The network core
+	 * @param packets   The packet codec
+	 * @param snapshots The snapshot codec
+	 */
+	public SnapshotReplicator(ServerNetworkCore network, PacketCodec packets,
+														SnapshotCodec snapshots) {
+		this.ack_type = packets.getRegistry().getId(SnapshotAckPacket.class);
+		if (ack_type < 0 || packets.getRegistry().getId(SnapshotPacket.class) < 0) {
+			throw new IllegalArgumentException("Snapshot packets not registered!");
+		}
+		this.network = network;
+		this.packets = packets;
+		this.snapshots = snapshots;
+		int shift = 0;
+		while (shift < 30 && (1 << shift) * snapshots.getResolution() < CELL_SIZE) {
+			shift++;
+		}
+		this.hash = new SpatialHash(shift);
+	}
+	private final SnapshotAckPacket ack = new SnapshotAckPacket();
+	private final int ack_type;
+	private final InterestArea[] areas = new InterestArea[MAX_CLIENTS];
+	private final Runnable broadcaster = this::broadcast;
+	private volatile int budget = DEFAULT_BUDGET;
+	private volatile long bytes_last = 0L;
+	private volatile int clients_last = 0;
+	private Snapshot current;
+	private final SpscMailbox<Snapshot> free = new SpscMailbox<>(QUEUE_SIZE);
+	private final SpatialHash hash;
+	private volatile ConnectionListener listener = null;
+	private final ServerNetworkCore network;
+	private final SnapshotPacket packet = new SnapshotPacket();
+	private final PacketCodec packets;
+	private final SpscMailbox<Snapshot> published = new SpscMailbox<>(QUEUE_SIZE);
+	private final SnapshotSender[] senders = new SnapshotSender[MAX_CLIENTS];
+	private final SnapshotCodec snapshots;
+
+	@Override
+	public void connected(ClientConnection connection) {
+		senders[connection.getId()] = new SnapshotSender(snapshots);
+		ConnectionListener l = listener;
+		if (l != null) {
+			l.connected(connection);
+		}
+	}
+
+	@Override
+	public void disconnected(ClientConnection connection) {
+		senders[connection.getId()] = null;
+		areas[connection.getId()] = null;
+		ConnectionListener l = listener;
+		if (l != null) {
+			l.disconnected(connection);
+		}
+	}
+
+	/**
+	 * Returns the most bytes each client may be sent per snapshot.
+	 *
+	 * @return The budget
+	 */
+	public int getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Returns the average number of bytes sent to each client for the last
+	 * snapshot.
+	 *
+	 * @return The bytes per client
+	 */
+	public double getBytesPerClient() {
+		int clients = clients_last;
+		return clients == 0 ? 0.0 : (double) bytes_last / clients;
+	}
+
+	/**
+	 * Returns the number of bytes sent to the provided client for the last
+	 * snapshot. This should only be called on the network thread.
+	 *
+	 * @param connection The client
+	 *
+	 * @return The number of bytes
+	 */
+	public int getLastBytes(ClientConnection connection) {
+		SnapshotSender sender = senders[connection.getId()];
+		return sender == null ? 0 : sender.getLastBytes();
+	}
+
+	/**
+	 * Returns the interest area of the provided client. This should only be
+	 * called on the network thread.
+	 *
+	 * @param connection The client
+	 *
+	 * @return The interest area, or null if the client is sent everything
+	 */
+	public InterestArea getInterest(ClientConnection connection) {
+		return areas[connection.getId()];
+	}
+
+	/**
+	 * Returns the listener that frames other than acknowledgements are passed
+	 * to.
+	 *
+	 * @return The listener, or null
+	 */
+	public ConnectionListener getListener() {
+		return listener;
+	}
+
+	@Override
+	public void received(ClientConnection connection, int type, ByteBuffer body) {
+		if (type == ack_type) {
+			SnapshotSender sender = senders[connection.getId()];
+			if (sender != null && packets.decode(body, ack)) {
+				sender.acknowledge(ack.getTick());
+			}
+			return;
+		}
+		ConnectionListener l = listener;
+		if (l != null) {
+			l.received(connection, type, body);
+		}
+	}
+
+	/**
+	 * Records the state of the provided entities for the provided tick and
+	 * queues it to be sent. This should only be called from the world thread.
+	 *
+	 * @param tick     The tick
+	 * @param entities The entities
+	 */
+	public void record(int tick, List<? extends Entity> entities) {
+		Snapshot snapshot = free.poll();
+		if (snapshot == null) {
+			snapshot = new Snapshot(entities.size());
+		}
+		snapshot.clear(tick);
+		for (int i = 0; i < entities.size(); i++) {
+			Entity e = entities.get(i);
+			snapshots.add(snapshot, e.getId(), e.getPosition());
+		}
+		snapshot.sort();
+		if (published.offer(snapshot)) {
+			network.post(broadcaster);
+		}
+	}
+
+	/**
+	 * Sets the most bytes each client may be sent per snapshot. Entities that
+	 * do not fit are sent on later ticks.
+	 *
+	 * @param budget The budget
+	 */
+	public void setBudget(int budget) {
+		if (budget <= Packet.TICK_SIZE || budget > DEFAULT_BUDGET) {
+			throw new IllegalArgumentException("Budget out of range! Found " +
+																				 budget + ".");
+		}
+		this.budget = budget;
+	}
+
+	/**
+	 * Sets the interest area of the provided client, so that it is only sent the
+	 * entities within the area, nearest first. This should only be called on
+	 * the network thread, such as from <code>connected()</code>.
+	 *
+	 * @param connection The client
+	 * @param area       The interest area, or null to send everything
+	 */
+	public void setInterest(ClientConnection connection, InterestArea area) {
+		areas[connection.getId()] = area;
+	}
+
+	/**
+	 * Sets the listener that frames other than acknowledgements are passed to.
+	 *
+	 * @param listener The listener, or null
+	 */
+	public void setListener(ConnectionListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Sends the latest published snapshot to every client, returning any older
+	 * ones unsent. Runs on the network thread.
+	 */
+	private void broadcast() {
+		Snapshot latest = null, next;
+		while ((next = published.poll()) != null) {
+			if (latest != null) {
+				free.offer(latest);
+			}
+			latest = next;
+		}
+		if (latest == null) {
+			return;
+		}
+		if (current != null) {
+			free.offer(current);
+		}
+		current = latest;
+		int b = budget;
+		long bytes = 0L;
+		int clients = 0;
+		boolean hashed = false;
+		for (int id = 0; id < MAX_CLIENTS; id++) {
+			SnapshotSender sender = senders[id];
+			ClientConnection c = sender == null ? null : network.getClient(id);
+			if (c == null) {
+				continue;
+			}
+			InterestArea area = areas[id];
+			if (area == null) {
+				packet.set(sender, current, b);
+			} else {
+				if (!hashed) {
+					hash.build(current);
+					hashed = true;
+				}
+				area.update(current, hash, snapshots.getResolution());
+				packet.set(sender, area.getTarget(), b, area.getPriority());
+			}
+			boolean sent = c.getDatagramAddress() != null ?
+										 c.sendDatagram(packets, packet) :
+										 c.send(packets, packet);
+			if (area != null) {
+				area.settle();
+			}
+			if (sent) {
+				bytes += sender.getLastBytes();
+				clients++;
+			}
+		}
+		bytes_last = bytes;
+		clients_last = clients;
+	}
+}
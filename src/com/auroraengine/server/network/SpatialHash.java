@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.server.network;
+
+import com.auroraengine.debug.AuroraLogs;
+import com.auroraengine.network.Snapshot;
+import java.util.logging.Logger;
+
+/**
+ * A spatial hash over the entities of a snapshot, rebuilt once per tick. The
+ * fixed point positions of the snapshot are divided into cubic cells of a
+ * power of two size, and the entities of each occupied cell are stored
+ * together so that the entities near a point can be found by visiting only a
+ * few cells. Building and querying do not allocate once the hash has grown to
+ * the size of the world.
+ *
+ * @author LittleRover
+ */
+public final class SpatialHash {
+	private static final Logger LOG = AuroraLogs.getLogger(SpatialHash.class
+					.getName());
+	private static final long EMPTY = Long.MIN_VALUE;
+	private static final int CELL_MASK = 0x1FFFFF;
+
+	/**
+	 * Creates a new spatial hash with cells of two to the provided power fixed
+	 * point units across.
+	 *
+	 * @param cell_shift The cell size as a power of two
+	 */
+	public SpatialHash(int cell_shift) {
+		if (cell_shift < 0 || cell_shift > 30) {
+			throw new IllegalArgumentException("Cell shift out of range! Found " +
+																				 cell_shift + ".");
+		}
+		this.cell_shift = cell_shift;
+	}
+	private int[] cell_of = new int[0];
+	private final int cell_shift;
+	private int[] counts = new int[0];
+	private int[] entities = new int[0];
+	private long[] keys = new long[0];
+	private int mask;
+	private int[] starts = new int[0];
+	private int[] used = new int[0];
+	private int used_count;
+
+	/**
+	 * Returns the cell coordinate containing the provided fixed point
+	 * coordinate.
+	 *
+	 * @param coord The fixed point coordinate
+	 *
+	 * @return The cell coordinate
+	 */
+	public int cellOf(int coord) {
+		return coord >> cell_shift;
+	}
+
+	/**
+	 * Rebuilds the hash over the entities of the provided snapshot.
+	 *
+	 * @param snapshot The snapshot
+	 */
+	public void build(Snapshot snapshot) {
+		int n = snapshot.size();
+		if (keys.length < n * 2) {
+			int capacity = Integer.highestOneBit(Math.max(16, n * 2 - 1)) << 1;
+			keys = new long[capacity];
+			counts = new int[capacity];
+			starts = new int[capacity];
+			used = new int[capacity];
+			for (int i = 0; i < capacity; i++) {
+				keys[i] = EMPTY;
+			}
+			mask = capacity - 1;
+			used_count = 0;
+		}
+		if (cell_of.length < n) {
+			cell_of = new int[n];
+			entities = new int[n];
+		}
+		for (int i = 0; i < used_count; i++) {
+			keys[used[i]] = EMPTY;
+		}
+		used_count = 0;
+		for (int e = 0; e < n; e++) {
+			int slot = insert(key(cellOf(snapshot.getX(e)), cellOf(snapshot.getY(e)),
+														cellOf(snapshot.getZ(e))));
+			counts[slot]++;
+			cell_of[e] = slot;
+		}
+		int start = 0;
+		for (int i = 0; i < used_count; i++) {
+			int slot = used[i];
+			starts[slot] = start;
+			start += counts[slot];
+			counts[slot] = starts[slot];
+		}
+		for (int e = 0; e < n; e++) {
+			entities[counts[cell_of[e]]++] = e;
+		}
+	}
+
+	/**
+	 * Returns the bucket holding the entities of the provided cell, or -1 if
+	 * the cell is empty.
+	 *
+	 * @param cx The cell X coordinate
+	 * @param cy The cell Y coordinate
+	 * @param cz The cell Z coordinate
+	 *
+	 * @return The bucket, or -1
+	 */
+	public int find(int cx, int cy, int cz) {
+		if (used_count == 0) {
+			return -1;
+		}
+		long key = key(cx, cy, cz);
+		for (int slot = hash(key);; slot = (slot + 1) & mask) {
+			if (keys[slot] == key) {
+				return slot;
+			}
+			if (keys[slot] == EMPTY) {
+				return -1;
+			}
+		}
+	}
+
+	/**
+	 * Returns the cell size as a power of two.
+	 *
+	 * @return The cell shift
+	 */
+	public int getCellShift() {
+		return cell_shift;
+	}
+
+	/**
+	 * Returns the index after the last entity of the provided bucket.
+	 *
+	 * @param bucket The bucket
+	 *
+	 * @return The end index
+	 */
+	public int getEnd(int bucket) {
+		return counts[bucket];
+	}
+
+	/**
+	 * Returns the snapshot index of the entity at the provided index.
+	 *
+	 * @param index The index, from a bucket start to its end
+	 *
+	 * @return The snapshot index
+	 */
+	public int getEntity(int index) {
+		return entities[index];
+	}
+
+	/**
+	 * Returns the index of the first entity of the provided bucket.
+	 *
+	 * @param bucket The bucket
+	 *
+	 * @return The start index
+	 */
+	public int getStart(int bucket) {
+		return starts[bucket];
+	}
+
+	private int hash(long key) {
+		return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+	}
+
+	private int insert(long key) {
+		for (int slot = hash(key);; slot = (slot + 1) & mask) {
+			if (keys[slot] == key) {
+				return slot;
+			}
+			if (keys[slot] == EMPTY) {
+				keys[slot] = key;
+				counts[slot] = 0;
+				used[used_count++] = slot;
+				return slot;
+			}
+		}
+	}
+
+	private static long key(int cx, int cy, int cz) {
+		return (long) (cx & CELL_MASK) << 42 | (long) (cy & CELL_MASK) << 21 |
+					 (cz & CELL_MASK);
+	}
+}
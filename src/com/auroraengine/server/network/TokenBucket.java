@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.server.network;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * A token bucket that refills at a fixed rate up to a burst size, used to
+ * limit how often a client may do something.
+ *
+ * Rather than counting tokens, the bucket keeps the time at which it would
+ * next be full and compares that with the current time, which needs no
+ * refilling step and no floating point. The bucket is not thread safe.
+ *
+ * @author LittleRover
+ */
+public final class TokenBucket {
+	private static final Logger LOG = AuroraLogs.getLogger(TokenBucket.class
+					.getName());
+
+	/**
+	 * Creates a new full bucket refilling at the provided rate.
+	 *
+	 * @param rate  The tokens added per second
+	 * @param burst The most tokens the bucket holds
+	 */
+	public TokenBucket(double rate, int burst) {
+		if (!(rate > 0.0) || burst < 1) {
+			throw new IllegalArgumentException("Rate and burst must be positive! " +
+																				 "Found " + rate + " and " + burst +
+																				 ".");
+		}
+		this.interval = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1L) / rate));
+		this.capacity = interval * burst;
+		this.full_time = Long.MIN_VALUE;
+	}
+	private final long capacity;
+	private long full_time;
+	private final long interval;
+
+	/**
+	 * Returns the number of whole tokens in the bucket at the provided time.
+	 *
+	 * @param now The time, from <code>System.nanoTime()</code>
+	 *
+	 * @return The tokens available
+	 */
+	public long getTokens(long now) {
+		long empty = full_time == Long.MIN_VALUE ? 0L : Math.max(0L, full_time - now);
+		return (capacity - empty) / interval;
+	}
+
+	/**
+	 * Takes a token from the bucket if there is one, returning true if one was
+	 * taken.
+	 *
+	 * @param now The time, from <code>System.nanoTime()</code>
+	 *
+	 * @return If a token was taken
+	 */
+	public boolean tryConsume(long now) {
+		return tryConsume(now, 1);
+	}
+
+	/**
+	 * Takes the provided number of tokens from the bucket if there are that
+	 * many, returning true if they were taken.
+	 *
+	 * @param now    The time, from <code>System.nanoTime()</code>
+	 * @param tokens The number of tokens
+	 *
+	 * @return If the tokens were taken
+	 */
+	public boolean tryConsume(long now, int tokens) {
+		long full = full_time == Long.MIN_VALUE || full_time - now < 0L ? now :
+								full_time;
+		long next = full + interval * tokens;
+		if (next - now > capacity) {
+			return false;
+		}
+		full_time = next;
+		return true;
+	}
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.threading;
+
+import com.auroraengine.debug.AuroraException;
+import com.auroraengine.debug.AuroraLogs;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * A set of jobs to be run once per tick on a <code>JobScheduler</code>. Each job
+ * may depend on jobs added before it, and is only run once all of those jobs
+ * have completed. Running the graph blocks the calling thread until every job
+ * has completed, forming a barrier at the end of the tick.
+ *
+ * A graph is built once and may then be run any number of times without
+ * allocating. Jobs may not be added whilst the graph is running.
+ *
+ * @author LittleRover
+ */
+public final class JobGraph {
+	private static final Logger LOG = AuroraLogs.getLogger(JobGraph.class
+					.getName());
+
+	/**
+	 * Creates a new empty job graph.
+	 */
+	public JobGraph() {
+	}
+	private final ForkJoinPool.ManagedBlocker blocker
+																					 = new ForkJoinPool.ManagedBlocker() {
+		@Override
+		public boolean block() {
+			if (pending.get() > 0) {
+				LockSupport.park(JobGraph.this);
+			}
+			return isReleasable();
+		}
+
+		@Override
+		public boolean isReleasable() {
+			return pending.get() <= 0;
+		}
+	};
+	private volatile Throwable failure;
+	private final ArrayList<Job> jobs = new ArrayList<>();
+	private final AtomicInteger pending = new AtomicInteger();
+	private final ArrayList<Job> roots = new ArrayList<>();
+	private volatile boolean running = false;
+	private volatile Thread waiter;
+
+	/**
+	 * Adds a job to the graph which runs the specified task once all of the
+	 * provided jobs have completed, then returns the new job.
+	 *
+	 * @param task         The task to run
+	 * @param dependencies The jobs which must complete first
+	 *
+	 * @return The new job
+	 */
+	public Job add(Task task, Job... dependencies) {
+		if (task == null) {
+			throw new NullPointerException("Task is Null!");
+		}
+		if (running) {
+			throw new IllegalStateException("Cannot add a job whilst running!");
+		}
+		Job job = new Job(task, dependencies.length);
+		for (Job dep : dependencies) {
+			if (dep.graph() != this) {
+				throw new IllegalArgumentException(
+								"Dependency belongs to another graph!");
+			}
+			dep.dependents.add(job);
+		}
+		if (dependencies.length == 0) {
+			roots.add(job);
+		}
+		jobs.add(job);
+		return job;
+	}
+
+	/**
+	 * Removes all jobs from the graph.
+	 */
+	public void clear() {
+		if (running) {
+			throw new IllegalStateException("Cannot clear whilst running!");
+		}
+		jobs.clear();
+		roots.clear();
+	}
+
+	/**
+	 * Returns true if the graph is currently being run.
+	 *
+	 * @return If running
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Returns the number of jobs in the graph.
+	 *
+	 * @return The number of jobs
+	 */
+	public int size() {
+		return jobs.size();
+	}
+
+	/**
+	 * Runs every job in the graph on the provided pool, holding the calling
+	 * thread until they have all completed. If any job throws, the jobs not yet
+	 * started are skipped and the first exception thrown is rethrown here.
+	 *
+	 * @param pool The pool to run on
+	 *
+	 * @throws AuroraException If a job failed
+	 */
+	void invoke(ForkJoinPool pool)
+					throws AuroraException {
+		if (jobs.isEmpty()) {
+			return;
+		}
+		if (running) {
+			throw new IllegalStateException("Graph is already running!");
+		}
+		running = true;
+		try {
+			failure = null;
+			waiter = Thread.currentThread();
+			for (Job job : jobs) {
+				job.reset();
+			}
+			pending.set(jobs.size());
+			for (Job job : roots) {
+				pool.execute(job);
+				job.forked = true;
+			}
+			while (!blocker.isReleasable()) {
+				try {
+					ForkJoinPool.managedBlock(blocker);
+				} catch (InterruptedException ex) {
+					// The jobs are still running so the barrier must still be held.
+					Thread.currentThread().interrupt();
+				}
+			}
+		} finally {
+			waiter = null;
+			running = false;
+		}
+		Throwable t = failure;
+		if (t instanceof AuroraException) {
+			throw (AuroraException) t;
+		} else if (t != null) {
+			throw new AuroraException("Job failed to complete!", t);
+		}
+	}
+
+	/**
+	 * Called by each job as it finishes.
+	 */
+	private void finish() {
+		if (pending.decrementAndGet() == 0) {
+			LockSupport.unpark(waiter);
+		}
+	}
+
+	/**
+	 * A single unit of work within a graph.
+	 */
+	public final class Job extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private Job(Task task, int dependencies) {
+			this.task = task;
+			this.dependencies = dependencies;
+		}
+		private final int dependencies;
+		private final ArrayList<Job> dependents = new ArrayList<>(2);
+		private boolean forked = false;
+		private final AtomicInteger remaining = new AtomicInteger();
+		private final Task task;
+
+		private JobGraph graph() {
+			return JobGraph.this;
+		}
+
+		private void reset() {
+			// A job may still be marking itself as done after releasing the graph.
+			if (forked) {
+				quietlyJoin();
+				forked = false;
+			}
+			reinitialize();
+			remaining.set(dependencies);
+		}
+
+		@Override
+		protected void compute() {
+			if (failure == null) {
+				try {
+					task.run();
+				} catch (Throwable t) {
+					if (failure == null) {
+						failure = t;
+					}
+				}
+			}
+			for (int i = 0; i < dependents.size(); i++) {
+				Job next = dependents.get(i);
+				if (next.remaining.decrementAndGet() == 0) {
+					next.fork();
+					next.forked = true;
+				}
+			}
+			finish();
+		}
+	}
+
+	/**
+	 * A task that may be run as a job.
+	 */
+	@FunctionalInterface
+	public interface Task {
+		/**
+		 * Performs the work of the job.
+		 *
+		 * @throws AuroraException
+		 */
+		public void run()
+						throws AuroraException;
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.threading;
+
+import com.auroraengine.debug.AuroraException;
+import com.auroraengine.debug.AuroraLogs;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A work-stealing pool of threads shared between cores for running per-tick
+ * work in parallel, so that each subsystem does not require a thread of its
+ * own. Work is submitted as a <code>JobGraph</code>.
+ *
+ * @author LittleRover
+ */
+public final class JobScheduler {
+	private static final Logger LOG = AuroraLogs.getLogger(JobScheduler.class
+					.getName());
+	private static final JobScheduler SHARED = new JobScheduler("Aurora Job",
+																															Runtime
+																															.getRuntime()
+																															.availableProcessors());
+
+	/**
+	 * Returns the scheduler shared by all cores, which has one worker per
+	 * available processor.
+	 *
+	 * @return The shared scheduler
+	 */
+	public static JobScheduler getShared() {
+		return SHARED;
+	}
+
+	/**
+	 * Creates a new scheduler with the specified number of worker threads, each
+	 * named after the provided name.
+	 *
+	 * @param name        The name of the workers
+	 * @param parallelism The number of workers
+	 */
+	public JobScheduler(String name, int parallelism) {
+		this.name = name;
+		this.pool = new ForkJoinPool(parallelism, (p) -> {
+			ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory
+							.newThread(p);
+			t.setName(name + " Worker " + t.getPoolIndex());
+			t.setDaemon(true);
+			return t;
+		}, (t, ex) -> LOG.log(Level.SEVERE, "Uncaught Exception in {0}: {1}",
+													 new Object[]{t.getName(), ex}), false);
+		LOG.log(Level.INFO, "New Job Scheduler \"{0}\" Created with {1} Workers",
+						new Object[]{name, parallelism});
+	}
+	private final String name;
+	private final ForkJoinPool pool;
+
+	/**
+	 * Returns the number of worker threads.
+	 *
+	 * @return The parallelism
+	 */
+	public int getParallelism() {
+		return pool.getParallelism();
+	}
+
+	/**
+	 * Runs every job in the provided graph, holding the calling thread until they
+	 * have all completed.
+	 *
+	 * @param graph The graph to run
+	 *
+	 * @throws AuroraException If a job failed
+	 */
+	public void invoke(JobGraph graph)
+					throws AuroraException {
+		graph.invoke(pool);
+	}
+
+	/**
+	 * Stops the scheduler from accepting any more work. Graphs already running
+	 * are allowed to complete.
+	 */
+	public void shutdown() {
+		pool.shutdown();
+		LOG.log(Level.INFO, "Job Scheduler \"{0}\" Shut Down", name);
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.threading;
+
+import java.util.function.Consumer;
+
+/**
+ * A bounded queue for handing messages from one thread to another without
+ * locking. Offering to a full mailbox fails rather than blocking, leaving the
+ * sender to decide whether to retry, drop, or merge the message.
+ *
+ * @author LittleRover
+ * @param <T> The class of message held.
+ */
+public interface Mailbox<T> {
+	/**
+	 * Returns the maximum number of messages the mailbox can hold.
+	 *
+	 * @return The capacity
+	 */
+	public int capacity();
+
+	/**
+	 * Removes up to the specified number of messages, passing each to the
+	 * provided consumer in the order they were offered, then returns the number
+	 * removed. This should only be called by the receiving thread.
+	 *
+	 * @param consumer The consumer of the messages
+	 * @param limit    The maximum number of messages to remove
+	 *
+	 * @return The number of messages removed
+	 */
+	public int drain(Consumer<? super T> consumer, int limit);
+
+	/**
+	 * Returns true if the mailbox holds no messages. This is only an estimate
+	 * when other threads are offering or polling.
+	 *
+	 * @return If empty
+	 */
+	public boolean isEmpty();
+
+	/**
+	 * Adds the provided message to the mailbox, returning false if the mailbox is
+	 * full.
+	 *
+	 * @param message The message
+	 *
+	 * @return If the message was added
+	 */
+	public boolean offer(T message);
+
+	/**
+	 * Removes and returns the oldest message, or null if the mailbox is empty.
+	 * This should only be called by the receiving thread.
+	 *
+	 * @return The oldest message, or null
+	 */
+	public T poll();
+
+	/**
+	 * Returns the number of messages in the mailbox. This is only an estimate
+	 * when other threads are offering or polling.
+	 *
+	 * @return The number of messages
+	 */
+	public int size();
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.threading;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Compares the throughput and latency of the mailboxes with an
+ * <code>ArrayBlockingQueue</code> and a <code>ConcurrentLinkedQueue</code>.
+ * Each producer offers its messages as fast as the queue accepts them whilst a
+ * single consumer polls them, and every message carries the time it was sent
+ * so that the consumer can record how long it waited. The single producer
+ * mailbox is only run with one producer, and the linked queue is unbounded,
+ * so its latency includes however far the producers run ahead. The fastest of
+ * the passes is reported.
+ *
+ * Arguments, all optional, in order: messages per producer, queue capacity,
+ * the number of producers in the contended runs.
+ *
+ * @author LittleRover
+ */
+public final class MailboxBenchmark {
+	private static final Logger LOG = AuroraLogs.getLogger(MailboxBenchmark.class
+					.getName());
+	private static final int PASSES = 3;
+
+	/**
+	 * Runs the benchmark described by the provided arguments.
+	 *
+	 * @param args The arguments
+	 *
+	 * @throws InterruptedException If interrupted whilst waiting on a run
+	 */
+	@SuppressWarnings("UseOfSystemOutOrSystemErr")
+	public static void main(String[] args)
+					throws InterruptedException {
+		int messages = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int capacity = args.length > 1 ? Integer.parseInt(args[1]) : 1024;
+		int producers = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+		for (int count : new int[]{1, producers}) {
+			System.out.println(String.format("%d producers, %d messages each, " +
+																			 "capacity %d:", count, messages,
+																			 capacity));
+			if (count == 1) {
+				System.out.println(run("SpscMailbox", () -> new SpscMailbox<>(
+								capacity), count, messages));
+			}
+			System.out.println(run("MpscMailbox", () -> new MpscMailbox<>(
+							capacity), count, messages));
+			System.out.println(run("ArrayBlockingQueue", () -> new QueueMailbox<>(
+							new ArrayBlockingQueue<>(capacity), capacity), count, messages));
+			System.out.println(run("ConcurrentLinkedQueue",
+														 () -> new QueueMailbox<>(
+																		 new ConcurrentLinkedQueue<>(),
+																		 Integer.MAX_VALUE), count, messages));
+		}
+	}
+
+	private static String run(String name, Supplier<Mailbox<Stamp>> factory,
+														int producers, int messages)
+					throws InterruptedException {
+		int total = producers * messages;
+		long[] latencies = new long[total];
+		Stamp[][] stamps = new Stamp[producers][messages];
+		for (Stamp[] s : stamps) {
+			for (int i = 0; i < messages; i++) {
+				s[i] = new Stamp();
+			}
+		}
+		long elapsed = Long.MAX_VALUE, p50 = 0L, p99 = 0L, max = 0L;
+		for (int pass = 0; pass < PASSES; pass++) {
+			Mailbox<Stamp> mailbox = factory.get();
+			CountDownLatch go = new CountDownLatch(1);
+			Thread[] threads = new Thread[producers];
+			for (int p = 0; p < producers; p++) {
+				Stamp[] s = stamps[p];
+				threads[p] = new Thread(() -> {
+					try {
+						go.await();
+					} catch (InterruptedException ex) {
+						return;
+					}
+					for (Stamp stamp : s) {
+						stamp.sent = System.nanoTime();
+						while (!mailbox.offer(stamp)) {
+							Thread.yield();
+							stamp.sent = System.nanoTime();
+						}
+					}
+				}, name + " Producer " + p);
+				threads[p].start();
+			}
+			long start = System.nanoTime();
+			go.countDown();
+			for (int n = 0; n < total;) {
+				Stamp stamp = mailbox.poll();
+				if (stamp == null) {
+					Thread.yield();
+				} else {
+					latencies[n++] = System.nanoTime() - stamp.sent;
+				}
+			}
+			long time = System.nanoTime() - start;
+			for (Thread t : threads) {
+				t.join();
+			}
+			if (time < elapsed) {
+				Arrays.sort(latencies);
+				elapsed = time;
+				p50 = latencies[total / 2];
+				p99 = latencies[(int) (total * 0.99)];
+				max = latencies[total - 1];
+			}
+		}
+		return String.format("  %-22s %8.1f M messages/s, latency p50 %8.1f us, " +
+												 "p99 %8.1f us, max %8.1f us", name, total * 1e3 /
+																											elapsed, p50 / 1e3,
+												 p99 / 1e3, max / 1e3);
+	}
+
+	private MailboxBenchmark() {
+	}
+
+	/**
+	 * Presents a queue from the standard library as a mailbox.
+	 */
+	private static final class QueueMailbox<T> implements Mailbox<T> {
+		QueueMailbox(Queue<T> queue, int capacity) {
+			this.capacity = capacity;
+			this.queue = queue;
+		}
+		private final int capacity;
+		private final Queue<T> queue;
+
+		@Override
+		public int capacity() {
+			return capacity;
+		}
+
+		@Override
+		public int drain(Consumer<? super T> consumer, int limit) {
+			int n = 0;
+			T message;
+			while (n < limit && (message = poll()) != null) {
+				n++;
+				consumer.accept(message);
+			}
+			return n;
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return queue.isEmpty();
+		}
+
+		@Override
+		public boolean offer(T message) {
+			return queue.offer(message);
+		}
+
+		@Override
+		public T poll() {
+			return queue.poll();
+		}
+
+		@Override
+		public int size() {
+			return queue.size();
+		}
+	}
+
+	/**
+	 * A message holding the time it was sent.
+	 */
+	private static final class Stamp {
+		volatile long sent;
+	}
+}
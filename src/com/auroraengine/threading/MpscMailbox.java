@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.threading;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * A mailbox which may be offered to by any number of threads and is received
+ * by a single thread. This is a ring buffer in which each slot carries a
+ * sequence number, so that senders claim slots by advancing a shared counter
+ * and the receiver can tell when a claimed slot has been filled. Neither
+ * offering nor polling allocates.
+ *
+ * @author LittleRover
+ * @param <T> The class of message held.
+ */
+public final class MpscMailbox<T> implements Mailbox<T> {
+	private static final Logger LOG = AuroraLogs.getLogger(MpscMailbox.class
+					.getName());
+
+	/**
+	 * Creates a new mailbox holding at least the specified number of messages.
+	 * The capacity is rounded up to a power of two.
+	 *
+	 * @param capacity The minimum capacity
+	 */
+	public MpscMailbox(int capacity) {
+		if (capacity < 1 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("Capacity out of range! Found " +
+																				 capacity + ".");
+		}
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity) {
+			size <<= 1;
+		}
+		this.mask = size - 1;
+		this.buffer = new Object[size];
+		this.sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			sequences.lazySet(i, i);
+		}
+	}
+	private final Object[] buffer;
+	private final AtomicLong head = new AtomicLong();
+	private final int mask;
+	private final AtomicLongArray sequences;
+	private final AtomicLong tail = new AtomicLong();
+
+	@Override
+	public int capacity() {
+		return mask + 1;
+	}
+
+	@Override
+	public int drain(Consumer<? super T> consumer, int limit) {
+		int n = 0;
+		T message;
+		while (n < limit && (message = poll()) != null) {
+			n++;
+			consumer.accept(message);
+		}
+		return n;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public boolean offer(T message) {
+		if (message == null) {
+			throw new NullPointerException("Message is Null!");
+		}
+		for (;;) {
+			long t = tail.get();
+			int i = (int) t & mask;
+			long diff = sequences.get(i) - t;
+			if (diff == 0L) {
+				if (tail.compareAndSet(t, t + 1L)) {
+					buffer[i] = message;
+					// Publishes the message to the receiver.
+					sequences.lazySet(i, t + 1L);
+					return true;
+				}
+			} else if (diff < 0L) {
+				// The receiver has not yet emptied this slot.
+				return false;
+			}
+			// Otherwise another sender claimed the slot first, so try the next.
+		}
+	}
+
+	@Override
+	public T poll() {
+		long h = head.get();
+		int i = (int) h & mask;
+		if (sequences.get(i) != h + 1L) {
+			return null;
+		}
+		@SuppressWarnings("unchecked")
+		T message = (T) buffer[i];
+		buffer[i] = null;
+		// Hands the slot back to the senders for the next lap.
+		sequences.lazySet(i, h + mask + 1L);
+		head.lazySet(h + 1L);
+		return message;
+	}
+
+	@Override
+	public int size() {
+		long n = tail.get() - head.get();
+		return n < 0L ? 0 : (int) Math.min(n, mask + 1L);
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.threading;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * A mailbox which is offered to by a single thread and received by a single
+ * thread. As there is only ever one sender no compare and swap is required,
+ * and each side caches the position of the other so that it only reads the
+ * shared counter when the cached value says the mailbox is full or empty.
+ * Neither offering nor polling allocates.
+ *
+ * @author LittleRover
+ * @param <T> The class of message held.
+ */
+public final class SpscMailbox<T> implements Mailbox<T> {
+	private static final Logger LOG = AuroraLogs.getLogger(SpscMailbox.class
+					.getName());
+
+	/**
+	 * Creates a new mailbox holding at least the specified number of messages.
+	 * The capacity is rounded up to a power of two.
+	 *
+	 * @param capacity The minimum capacity
+	 */
+	public SpscMailbox(int capacity) {
+		if (capacity < 1 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("Capacity out of range! Found " +
+																				 capacity + ".");
+		}
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity) {
+			size <<= 1;
+		}
+		this.mask = size - 1;
+		this.buffer = new AtomicReferenceArray<>(size);
+	}
+	private final AtomicReferenceArray<T> buffer;
+	private final AtomicLong head = new AtomicLong();
+	// Only read and written by the sender.
+	private long head_cache = 0L;
+	private final int mask;
+	private final AtomicLong tail = new AtomicLong();
+	// Only read and written by the receiver.
+	private long tail_cache = 0L;
+
+	@Override
+	public int capacity() {
+		return mask + 1;
+	}
+
+	@Override
+	public int drain(Consumer<? super T> consumer, int limit) {
+		int n = 0;
+		T message;
+		while (n < limit && (message = poll()) != null) {
+			n++;
+			consumer.accept(message);
+		}
+		return n;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public boolean offer(T message) {
+		if (message == null) {
+			throw new NullPointerException("Message is Null!");
+		}
+		long t = tail.get();
+		if (t - head_cache > mask) {
+			head_cache = head.get();
+			if (t - head_cache > mask) {
+				return false;
+			}
+		}
+		buffer.lazySet((int) t & mask, message);
+		tail.lazySet(t + 1L);
+		return true;
+	}
+
+	@Override
+	public T poll() {
+		long h = head.get();
+		if (h >= tail_cache) {
+			tail_cache = tail.get();
+			if (h >= tail_cache) {
+				return null;
+			}
+		}
+		int i = (int) h & mask;
+		T message = buffer.get(i);
+		buffer.lazySet(i, null);
+		head.lazySet(h + 1L);
+		return message;
+	}
+
+	@Override
+	public int size() {
+		long n = tail.get() - head.get();
+		return n < 0L ? 0 : (int) Math.min(n, mask + 1L);
+	}
+}
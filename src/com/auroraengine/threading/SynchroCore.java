@@ -18,9 +18,13 @@ package com.auroraengine.threading;
 
 import com.auroraengine.debug.AuroraException;
 import com.auroraengine.debug.AuroraLogs;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -37,6 +41,11 @@ public abstract class SynchroCore implements Runnable {
 
 	private static final Logger LOG = AuroraLogs.getLogger(SynchroCore.class
 					.getName());
+	/**
+	 * The number of commands that may be waiting in a mailbox before further
+	 * posts are refused.
+	 */
+	public static final int MAILBOX_CAPACITY = 1024;
 
 	/**
 	 * Creates a new inmaster thread.
@@ -65,15 +74,36 @@ public abstract class SynchroCore implements Runnable {
 			LOG.log(Level.INFO, "New Inmaster Synchro \"{0}\" Created", name);
 		}
 	}
+	private volatile long duration_last = 0L;
 	private volatile boolean halted = false;
+	private volatile JobScheduler jobs = JobScheduler.getShared();
+	// Set whilst initialise() runs, so dependents started from it keep running
+	private volatile boolean initialising = false;
+	private volatile boolean launched = false;
 	private final Lock lock = new ReentrantLock();
+	private final Mailbox<Runnable> mailbox = new MpscMailbox<>(MAILBOX_CAPACITY);
+	private final Consumer<Runnable> mailbox_runner = (command) -> {
+		try {
+			command.run();
+		} catch (RuntimeException ex) {
+			LOG.log(Level.SEVERE, "Synchro \"{0}\" command failed: {1}",
+							new Object[]{this, ex});
+		}
+	};
 	private final Condition condition = lock.newCondition();
 	private volatile boolean looping = false;
 	private final SynchroCore master;
+	private volatile int max_catchup = 0;
 	private final String name;
+	private volatile long overruns = 0L;
 	private volatile boolean running = false;
+	private volatile long sleep_last = 0L;
+	private volatile long sleep_total = 0L;
 	private Thread thread;
 	private volatile boolean threading = false;
+	private volatile long tick_count = 0L;
+	private volatile long tick_period = 0L;
+	private volatile boolean virtual = false;
 
 	/**
 	 * The method called at the beginning of thread creation. At this time,
@@ -84,6 +114,11 @@ public abstract class SynchroCore implements Runnable {
 	 *
 	 * This method should not be called outside of its own thread.
 	 *
+	 * Dependents started from here count this thread as running whilst it
+	 * initialises, so they may begin calling <code>update()</code> before this
+	 * method returns. They must not rely on anything this method has yet to set
+	 * up.
+	 *
 	 * @throws AuroraException
 	 */
 	protected abstract void initialise()
@@ -161,6 +196,35 @@ public abstract class SynchroCore implements Runnable {
 		return halted;
 	}
 
+	/**
+	 * Returns the time in nanoseconds spent in the most recent call to
+	 * <code>update()</code>.
+	 *
+	 * @return The last tick duration in nanoseconds.
+	 */
+	public final long getLastTickDuration() {
+		return duration_last;
+	}
+
+	/**
+	 * Returns the time in nanoseconds that the thread slept before the most
+	 * recent tick. This is always zero when no tick rate is set.
+	 *
+	 * @return The last sleep time in nanoseconds.
+	 */
+	public final long getLastSleepTime() {
+		return sleep_last;
+	}
+
+	/**
+	 * Returns the scheduler that job graphs submitted by this thread are run on.
+	 *
+	 * @return The job scheduler
+	 */
+	public final JobScheduler getJobScheduler() {
+		return jobs;
+	}
+
 	/**
 	 * Returns true if this thread is currently in the looping stage.
 	 *
@@ -178,6 +242,26 @@ public abstract class SynchroCore implements Runnable {
 		return master;
 	}
 
+	/**
+	 * Returns the maximum number of ticks that may be run back to back to catch
+	 * up after an overrun.
+	 *
+	 * @return The maximum number of catch-up ticks.
+	 */
+	public final int getMaxCatchUp() {
+		return max_catchup;
+	}
+
+	/**
+	 * Returns the number of times the thread fell further behind the tick
+	 * schedule than the catch-up limit allows, resulting in dropped ticks.
+	 *
+	 * @return The number of overruns.
+	 */
+	public final long getOverrunCount() {
+		return overruns;
+	}
+
 	/**
 	 * Returns true if the program is in the initialisation or looping stage.
 	 *
@@ -200,6 +284,45 @@ public abstract class SynchroCore implements Runnable {
 		return threading;
 	}
 
+	/**
+	 * Returns the number of calls made to <code>update()</code> since the thread
+	 * was last started.
+	 *
+	 * @return The tick count.
+	 */
+	public final long getTickCount() {
+		return tick_count;
+	}
+
+	/**
+	 * Returns the target period between ticks in nanoseconds, or zero if the
+	 * thread is free running.
+	 *
+	 * @return The tick period in nanoseconds.
+	 */
+	public final long getTickPeriod() {
+		return tick_period;
+	}
+
+	/**
+	 * Returns the total time in nanoseconds the thread has slept between ticks
+	 * since it was last started.
+	 *
+	 * @return The total sleep time in nanoseconds.
+	 */
+	public final long getTotalSleepTime() {
+		return sleep_total;
+	}
+
+	/**
+	 * Returns true if this is set to run on a virtual thread when started.
+	 *
+	 * @return If this runs on a virtual thread
+	 */
+	public final boolean getVirtual() {
+		return virtual;
+	}
+
 	/**
 	 * Terminates the update without an exception being thrown. This is useful for
 	 * abruptly ending a update externally without relying on the specific
@@ -207,6 +330,10 @@ public abstract class SynchroCore implements Runnable {
 	 */
 	public final void halt() {
 		halted = true;
+		Thread t = thread;
+		if (t != null) {
+			LockSupport.unpark(t);
+		}
 	}
 
 	/**
@@ -217,23 +344,42 @@ public abstract class SynchroCore implements Runnable {
 		try {
 			halted = false;
 			threading = true;
+			initialising = true;
+			launched = true;
 			if (master != null) {
 				master.synchroClose();
 			}
+			tick_count = 0L;
+			overruns = 0L;
+			sleep_total = 0L;
 			initialise();
 			running = true;
+			initialising = false;
 			looping = true;
+			long next = System.nanoTime();
 			while (!halted &&
 						 (master == null ||
-							(master.getRunning() && master.getAlive())) &&
+							((master.getRunning() || master.initialising) &&
+							 master.getAlive())) &&
 						 isRunning()) {
+				long period = tick_period;
+				if (period > 0L) {
+					next = pace(next, period);
+				} else {
+					next = System.nanoTime();
+				}
+				long begin = System.nanoTime();
+				mailbox.drain(mailbox_runner, mailbox.capacity());
 				update();
+				duration_last = System.nanoTime() - begin;
+				tick_count++;
 			}
 		} catch (AuroraException ex) {
 			looping = false;
 			running = false;
 			processException(ex);
 		} finally {
+			initialising = false;
 			looping = false;
 			running = false;
 			try {
@@ -249,6 +395,138 @@ public abstract class SynchroCore implements Runnable {
 		}
 	}
 
+	/**
+	 * Posts a command to be run on this thread at the start of its next tick,
+	 * before <code>update()</code> is called. This may be called from any thread
+	 * and does not block or allocate. Commands are run in the order posted by
+	 * each thread. If too many commands are already waiting then the command is
+	 * refused and false is returned.
+	 *
+	 * @param command The command to run
+	 *
+	 * @return If the command was accepted
+	 */
+	public final boolean post(Runnable command) {
+		return mailbox.offer(command);
+	}
+
+	/**
+	 * Holds the thread until the scheduled start of the next tick, then returns
+	 * the scheduled start of the tick after. The schedule is kept against
+	 * <code>System.nanoTime()</code> rather than the end of the previous tick so
+	 * that it does not drift. If the thread has fallen a whole tick further
+	 * behind than <code>max_catchup</code> allows then the missed ticks are
+	 * dropped, an overrun is recorded, and the schedule restarts from now.
+	 *
+	 * @param next   The scheduled start of this tick.
+	 * @param period The tick period in nanoseconds.
+	 *
+	 * @return The scheduled start of the next tick.
+	 */
+	private long pace(long next, long period) {
+		long now = System.nanoTime();
+		long behind = now - next;
+		if (behind >= period * (max_catchup + 1L)) {
+			overruns++;
+			sleep_last = 0L;
+			return now + period;
+		}
+		long slept = 0L;
+		while (behind < 0L && !halted) {
+			LockSupport.parkNanos(this, -behind);
+			long after = System.nanoTime();
+			slept += after - now;
+			now = after;
+			behind = now - next;
+		}
+		sleep_last = slept;
+		sleep_total += slept;
+		return next + period;
+	}
+
+	/**
+	 * Runs every job in the provided graph on this thread's job scheduler,
+	 * holding this thread until they have all completed. This is intended to be
+	 * called from within <code>update()</code> to spread the work of a tick
+	 * across all processors.
+	 *
+	 * @param graph The graph to run
+	 *
+	 * @throws AuroraException If a job failed
+	 */
+	protected final void runJobs(JobGraph graph)
+					throws AuroraException {
+		jobs.invoke(graph);
+	}
+
+	/**
+	 * Sets the scheduler that job graphs submitted by this thread are run on.
+	 * By default this is the shared scheduler.
+	 *
+	 * @param scheduler The job scheduler
+	 */
+	public final void setJobScheduler(JobScheduler scheduler) {
+		if (scheduler == null) {
+			throw new NullPointerException("Scheduler is Null!");
+		}
+		this.jobs = scheduler;
+	}
+
+	/**
+	 * Sets the thread to run <code>update()</code> at the specified fixed rate,
+	 * sleeping between ticks. If a tick runs long, up to the specified number of
+	 * ticks are run back to back to catch up before the lost ticks are dropped
+	 * and counted as an overrun. A rate of zero or less returns the thread to
+	 * free running, calling <code>update()</code> as fast as possible.
+	 *
+	 * This may be called from any thread and takes effect from the next tick.
+	 *
+	 * @param rate       The target tick rate in Hz.
+	 * @param maxcatchup The maximum number of catch-up ticks.
+	 */
+	public final void setTickRate(double rate, int maxcatchup) {
+		if (maxcatchup < 0) {
+			throw new IllegalArgumentException(
+							"Catch-up ticks must not be negative! Found " + maxcatchup + ".");
+		}
+		this.max_catchup = maxcatchup;
+		this.tick_period = rate > 0.0 ?
+											 Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1L) /
+																						rate)) :
+											 0L;
+		LOG.log(Level.INFO, "Synchro \"{0}\" tick rate set to {1} Hz",
+						new Object[]{this.name, rate > 0.0 ? rate : "unbounded"});
+	}
+
+	/**
+	 * Sets whether this should run on a virtual thread rather than a platform
+	 * thread when next started. This suits threads that spend most of their time
+	 * blocked, and allows a great many of them without each holding an operating
+	 * system thread. If virtual threads are not supported by the running Java
+	 * version then a platform thread is used instead.
+	 *
+	 * @param virtual If this should run on a virtual thread
+	 */
+	public final void setVirtual(boolean virtual) {
+		if (virtual && !VirtualThreads.isSupported()) {
+			LOG.log(Level.INFO,
+							"Synchro \"{0}\" will use a platform thread as virtual threads " +
+							"are not supported.", this.name);
+		}
+		this.virtual = virtual;
+	}
+
+	/**
+	 * Creates the thread this runs on, which is virtual if requested and
+	 * supported.
+	 *
+	 * @return The unstarted thread
+	 */
+	private Thread createThread() {
+		Thread t = virtual ? VirtualThreads.newThread(this, this.name) : null;
+		return t != null ? t : new Thread(this, this.name);
+	}
+
 	/**
 	 * Begins the thread with the default priority. The thread created for this
 	 * task is returned.
@@ -260,7 +538,8 @@ public abstract class SynchroCore implements Runnable {
 			return null;
 		}
 		halted = false;
-		thread = new Thread(this, this.name);
+		launched = false;
+		thread = createThread();
 		thread.start();
 		LOG.log(Level.INFO, "Started New Synchro Thread \"{0}\"", this.name);
 		return thread;
@@ -279,7 +558,9 @@ public abstract class SynchroCore implements Runnable {
 			return null;
 		}
 		halted = false;
-		thread = new Thread(this, this.name);
+		launched = false;
+		thread = createThread();
+		// Virtual threads ignore this, always running at normal priority.
 		thread.setPriority(priority);
 		thread.start();
 		LOG.log(Level.INFO,
@@ -313,19 +594,38 @@ public abstract class SynchroCore implements Runnable {
 	 * @param priority
 	 */
 	public final void waitForStart(SynchroCore synchro, int priority) {
+		waitForStart(priority, synchro);
+	}
+
+	/**
+	 * Creates a new thread for each of the provided synchros with the specified
+	 * priority, waiting this thread until every created thread is confirmed as
+	 * created. All of the threads are started before any are waited on, so they
+	 * start up alongside each other rather than one after another.
+	 *
+	 * @param priority
+	 * @param synchros
+	 */
+	public final void waitForStart(int priority, SynchroCore... synchros) {
 		LOG.log(Level.INFO, "Synchro \"{0}\" is waiting for \"{1}\" to start.",
-						new Object[]{this.name, synchro.name});
+						new Object[]{this.name, Arrays.toString(synchros)});
 		lock.lock();
 		try {
-			if (synchro.master == this && !synchro.getAlive()) {
-				synchro.start(priority);
-				condition.await();
+			for (SynchroCore synchro : synchros) {
+				if (synchro.master == this && !synchro.getAlive()) {
+					synchro.start(priority);
+				}
+			}
+			for (SynchroCore synchro : synchros) {
+				while (synchro.master == this && !synchro.launched) {
+					condition.await();
+				}
 			}
 		} catch (InterruptedException ex) {
 			LOG.log(Level.SEVERE,
 							"Synchro \"{0}\" interrupted whilst waiting for \"{1}\" to start. " +
 							"Synchro \"{1}\" may have not started! Exception: \"{2}\"",
-							new Object[]{this.name, synchro.name, ex});
+							new Object[]{this.name, Arrays.toString(synchros), ex});
 		} finally {
 			lock.unlock();
 		}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.threading;
+
+import com.auroraengine.debug.AuroraLogs;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Creates virtual threads when the running Java version supports them. The
+ * project is built against Java 8, so the virtual thread builder is found
+ * reflectively when this class is loaded and any failure leaves virtual threads
+ * marked as unsupported.
+ *
+ * @author LittleRover
+ */
+public final class VirtualThreads {
+	private static final Logger LOG = AuroraLogs.getLogger(VirtualThreads.class
+					.getName());
+	private static final Method BUILDER_NAME;
+	private static final Method BUILDER_UNSTARTED;
+	private static final Method OF_VIRTUAL;
+
+	static {
+		Method of = null, name = null, unstarted = null;
+		try {
+			Class<?> builder = Class.forName("java.lang.Thread$Builder");
+			of = Thread.class.getMethod("ofVirtual");
+			name = builder.getMethod("name", String.class);
+			unstarted = builder.getMethod("unstarted", Runnable.class);
+			// Virtual threads are a preview feature on some versions, in which case
+			// this throws unless previews are enabled.
+			of.invoke(null);
+		} catch (ClassNotFoundException | NoSuchMethodException |
+						 IllegalAccessException | InvocationTargetException ex) {
+			LOG.log(Level.INFO, "Virtual threads are not supported: {0}", ex);
+			of = null;
+		}
+		OF_VIRTUAL = of;
+		BUILDER_NAME = name;
+		BUILDER_UNSTARTED = unstarted;
+	}
+
+	/**
+	 * Returns true if virtual threads are supported by the running Java version.
+	 *
+	 * @return If virtual threads are supported
+	 */
+	public static boolean isSupported() {
+		return OF_VIRTUAL != null;
+	}
+
+	/**
+	 * Returns a new unstarted virtual thread with the specified name which runs
+	 * the provided task, or null if virtual threads are not supported.
+	 *
+	 * @param task The task to run
+	 * @param name The thread name
+	 *
+	 * @return The unstarted thread, or null
+	 */
+	public static Thread newThread(Runnable task, String name) {
+		if (OF_VIRTUAL == null) {
+			return null;
+		}
+		try {
+			Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), name);
+			return (Thread) BUILDER_UNSTARTED.invoke(builder, task);
+		} catch (IllegalAccessException | InvocationTargetException ex) {
+			LOG.log(Level.WARNING, "Failed to create virtual thread \"{0}\": {1}",
+							new Object[]{name, ex});
+			return null;
+		}
+	}
+
+	private VirtualThreads() {
+	}
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.world;
+
+import com.auroraengine.debug.AuroraLogs;
+import com.auroraengine.math.DDVec;
+import com.auroraengine.math.LDVec;
+import com.auroraengine.math.LDVecArray;
+import java.util.ArrayList;
+import java.util.logging.Logger;
+
+/**
+ * A region of space whose contents are held in float precision relative to a
+ * double-double anchor, so that a region anywhere in a solar system keeps float
+ * precision near its anchor. The positions of entities and the vectors of
+ * render batches registered with the region are offsets from the anchor, and
+ * are only converted from high precision when they enter the region. When the
+ * anchor moves, every registered offset is shifted by a single float vector,
+ * found once from the anchors, so that their global positions are unchanged.
+ *
+ * Placing something relative to another region, such as that of the camera,
+ * takes one offset between the anchors per region rather than a high precision
+ * conversion per entity.
+ *
+ * @author LittleRover
+ */
+public final class FloatingOrigin {
+	private static final Logger LOG = AuroraLogs.getLogger(FloatingOrigin.class
+					.getName());
+	/**
+	 * The default distance from the anchor beyond which <code>recentre()</code>
+	 * moves the anchor, at which floats still resolve half a millimetre.
+	 */
+	public static final float DEFAULT_REBASE_DISTANCE = 4096.0f;
+
+	/**
+	 * Creates a new region with the provided anchor and the default rebase
+	 * distance.
+	 *
+	 * @param anchor The anchor
+	 */
+	public FloatingOrigin(DDVec anchor) {
+		this(anchor, DEFAULT_REBASE_DISTANCE);
+	}
+
+	/**
+	 * Creates a new region with the provided anchor, which is copied, that moves
+	 * its anchor when recentred on a point further than the provided distance
+	 * from it.
+	 *
+	 * @param anchor          The anchor
+	 * @param rebase_distance The rebase distance
+	 */
+	public FloatingOrigin(DDVec anchor, float rebase_distance) {
+		if (!(rebase_distance > 0.0f)) {
+			throw new IllegalArgumentException(
+							"Rebase distance must be positive! Found " + rebase_distance + ".");
+		}
+		this.anchor.set(anchor);
+		this.rebase_distance = rebase_distance;
+	}
+	private final DDVec anchor = new DDVec();
+	private final ArrayList<LDVecArray> arrays = new ArrayList<>();
+	private final LDVec delta = new LDVec();
+	private final ArrayList<LocalPosition> positions = new ArrayList<>();
+	private int rebase_count;
+	private final float rebase_distance;
+	private final DDVec separation = new DDVec();
+
+	/**
+	 * Registers the position, whose point is an offset from the anchor, so that
+	 * it is shifted whenever the anchor moves.
+	 *
+	 * @param pos The position
+	 */
+	public void add(LocalPosition pos) {
+		if (pos == null) {
+			throw new NullPointerException("Position is Null!");
+		}
+		positions.add(pos);
+	}
+
+	/**
+	 * Registers the vectors, which are offsets from the anchor, so that they are
+	 * shifted whenever the anchor moves.
+	 *
+	 * @param vecs The vectors
+	 */
+	public void add(LDVecArray vecs) {
+		if (vecs == null) {
+			throw new NullPointerException("Array is Null!");
+		}
+		arrays.add(vecs);
+	}
+
+	/**
+	 * Places the anchor into the target vector, then returns the target.
+	 *
+	 * @param target The target vector
+	 *
+	 * @return The target vector
+	 */
+	public DDVec getAnchor(DDVec target) {
+		return target.set(anchor);
+	}
+
+	/**
+	 * Places the global position of the provided offset from the anchor into
+	 * the target vector, then returns the target.
+	 *
+	 * @param offset The offset from the anchor
+	 * @param target The target vector
+	 *
+	 * @return The target vector
+	 */
+	public DDVec getGlobal(LDVec offset, DDVec target) {
+		return target.set(anchor).translate(offset.X(), offset.Y(), offset.Z());
+	}
+
+	/**
+	 * Places the offset of the provided global position from the anchor, rounded
+	 * to floats, into the target vector, then returns the target. This is the
+	 * conversion for something entering the region.
+	 *
+	 * @param global The global position
+	 * @param target The target vector
+	 *
+	 * @return The target vector
+	 */
+	public LDVec getLocal(DDVec global, LDVec target) {
+		DDVec.getDistVec(anchor, global, separation);
+		return target.set((float) separation.X(), (float) separation.Y(),
+											(float) separation.Z());
+	}
+
+	/**
+	 * Places the offset of the anchor of the provided region from the anchor of
+	 * this, rounded to floats, into the target vector, then returns the target.
+	 * Adding it to an offset in the other region gives the offset in this one.
+	 *
+	 * @param region The other region
+	 * @param target The target vector
+	 *
+	 * @return The target vector
+	 */
+	public LDVec getOffset(FloatingOrigin region, LDVec target) {
+		return getLocal(region.anchor, target);
+	}
+
+	/**
+	 * Returns the number of times the anchor has moved.
+	 *
+	 * @return The number of rebases
+	 */
+	public int getRebaseCount() {
+		return rebase_count;
+	}
+
+	/**
+	 * Returns the distance from the anchor beyond which
+	 * <code>recentre()</code> moves the anchor.
+	 *
+	 * @return The rebase distance
+	 */
+	public float getRebaseDistance() {
+		return rebase_distance;
+	}
+
+	/**
+	 * Moves the anchor to the provided global position and shifts every
+	 * registered offset to match. The anchor moves by a whole float vector, so
+	 * lands within float rounding of the provided position, leaving the global
+	 * positions of the registered offsets unchanged.
+	 *
+	 * @param global The new anchor
+	 */
+	public void moveAnchor(DDVec global) {
+		getLocal(global, delta);
+		rebase(delta.X(), delta.Y(), delta.Z());
+	}
+
+	/**
+	 * Moves the anchor to the provided offset from it if that is further than
+	 * the rebase distance, shifting every registered offset to match, then
+	 * returns true if the anchor moved. Calling this every frame with the point
+	 * of the camera or of the player keeps them close to the anchor.
+	 *
+	 * @param offset The offset from the anchor to centre on
+	 *
+	 * @return True if the anchor moved
+	 */
+	public boolean recentre(LDVec offset) {
+		if (offset.getSqrLen() > rebase_distance * rebase_distance) {
+			rebase(offset.X(), offset.Y(), offset.Z());
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Unregisters the position, which is no longer shifted when the anchor
+	 * moves.
+	 *
+	 * @param pos The position
+	 *
+	 * @return True if the position was registered
+	 */
+	public boolean remove(LocalPosition pos) {
+		return positions.remove(pos);
+	}
+
+	/**
+	 * Unregisters the vectors, which are no longer shifted when the anchor
+	 * moves.
+	 *
+	 * @param vecs The vectors
+	 *
+	 * @return True if the vectors were registered
+	 */
+	public boolean remove(LDVecArray vecs) {
+		return arrays.remove(vecs);
+	}
+
+	/**
+	 * Moves the anchor by the provided float vector and every registered offset
+	 * by its negative. The components are read before anything moves, as they
+	 * may belong to a registered position.
+	 */
+	private void rebase(float x, float y, float z) {
+		anchor.translate(x, y, z);
+		delta.set(-x, -y, -z);
+		for (LocalPosition pos : positions) {
+			pos.getPoint().translate(delta);
+		}
+		for (LDVecArray vecs : arrays) {
+			vecs.translate(delta);
+		}
+		rebase_count++;
+	}
+}
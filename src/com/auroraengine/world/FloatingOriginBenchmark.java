@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.world;
+
+import com.auroraengine.debug.Allocations;
+import com.auroraengine.debug.AuroraLogs;
+import com.auroraengine.math.DDVec;
+import com.auroraengine.math.HDQVec;
+import com.auroraengine.math.LDVec;
+import com.auroraengine.math.LDVecArray;
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Measures the per frame cost of finding the camera relative float positions
+ * of many entities a few kilometres around a camera one astronomical unit from
+ * the origin: from <code>HDQVec</code> global positions, from
+ * <code>DDVec</code> global positions, and from float offsets in a
+ * <code>FloatingOrigin</code> region, both as <code>LocalPosition</code>s and as
+ * a <code>LDVecArray</code>. Reports the time and bytes allocated per entity,
+ * the worst error against the exact offsets, the error of plain float global
+ * positions for scale, and the cost per entity of moving the anchor.
+ *
+ * Arguments, all optional, in order: the number of entities.
+ *
+ * @author LittleRover
+ */
+public final class FloatingOriginBenchmark {
+	private static final Logger LOG = AuroraLogs.getLogger(
+					FloatingOriginBenchmark.class.getName());
+	/**
+	 * The distance of the camera from the origin, one astronomical unit.
+	 */
+	private static final double DISTANCE = 1.495978707e11;
+	/**
+	 * The number of times the anchor moves back and forth by a kilometre.
+	 */
+	private static final int MOVES = 100;
+	private static final int PASSES = 10;
+	/**
+	 * The half width of the cube about the camera holding the entities.
+	 */
+	private static final double SPREAD = 2000.0;
+
+	/**
+	 * Runs the benchmark described by the provided arguments.
+	 *
+	 * @param args The arguments
+	 */
+	@SuppressWarnings("UseOfSystemOutOrSystemErr")
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		System.out.println(run(count));
+	}
+
+	private static double getError(LDVec[] vecs, BigDecimal[][] exact) {
+		double error = 0.0;
+		for (int i = 0; i < vecs.length; i++) {
+			error = Math.max(error, Math.max(getError(vecs[i].X(), exact[i][0]), Math
+															 .max(getError(vecs[i].Y(), exact[i][1]),
+																		getError(vecs[i].Z(), exact[i][2]))));
+		}
+		return error;
+	}
+
+	private static double getError(float value, BigDecimal exact) {
+		return new BigDecimal(value).subtract(exact).abs().doubleValue();
+	}
+
+	private static String run(int count) {
+		Random random = new Random(count);
+		DDVec camera = new DDVec(DISTANCE * 0.6, DISTANCE * 0.8, 0.0).translate(
+						random.nextDouble(), random.nextDouble(), random.nextDouble());
+		DDVec[] globals = new DDVec[count];
+		HDQVec[] hdq_globals = new HDQVec[count];
+		BigDecimal[][] exact = new BigDecimal[count][];
+		HDQVec hdq_camera = camera.toHDQ();
+		// The world region is anchored near, but not at, the camera.
+		FloatingOrigin world = new FloatingOrigin(new DDVec(camera).translate(
+						100.0, -50.0, 25.0));
+		FloatingOrigin view = new FloatingOrigin(camera);
+		LocalPosition[] positions = new LocalPosition[count];
+		LDVecArray array = new LDVecArray(count);
+		LDVec[] results = new LDVec[count];
+		LDVec offset = new LDVec();
+		for (int i = 0; i < count; i++) {
+			globals[i] = new DDVec(camera).translate((random.nextDouble() * 2.0 -
+																								1.0) * SPREAD, (random
+																																.nextDouble() *
+																																2.0 - 1.0) *
+																															 SPREAD, (random
+																																				.nextDouble() *
+																																				2.0 -
+																																				1.0) *
+																																			 SPREAD);
+			hdq_globals[i] = globals[i].toHDQ();
+			HDQVec rel = HDQVec.getDistVec(hdq_camera, hdq_globals[i]);
+			exact[i] = new BigDecimal[]{rel.X(), rel.Y(), rel.Z()};
+			positions[i] = new LocalPosition();
+			world.getLocal(globals[i], positions[i].getPoint());
+			world.add(positions[i]);
+			array.set(i, positions[i].getPoint());
+			results[i] = new LDVec();
+		}
+		world.add(array);
+
+		String[] names = {"HDQVec globals", "DDVec globals",
+											"LocalPositions", "LDVecArray"};
+		long[] times = new long[names.length], bytes = new long[names.length];
+		double[] errors = new double[names.length];
+		DDVec separation = new DDVec();
+		LDVec[] batch = results.clone();
+		for (int pass = 0; pass < PASSES; pass++) {
+			for (int method = 0; method < names.length; method++) {
+				long allocated = Allocations.getAllocatedBytes();
+				long start = System.nanoTime();
+				switch (method) {
+					case 0:
+						for (int i = 0; i < count; i++) {
+							LDVec rel = HDQVec.getDistVec(hdq_camera, hdq_globals[i]).toLD();
+							results[i].set(rel.X(), rel.Y(), rel.Z());
+						}
+						break;
+					case 1:
+						for (int i = 0; i < count; i++) {
+							DDVec.getDistVec(camera, globals[i], separation);
+							results[i].set((float) separation.X(), (float) separation.Y(),
+														 (float) separation.Z());
+						}
+						break;
+					case 2:
+						view.getOffset(world, offset);
+						for (int i = 0; i < count; i++) {
+							results[i].set(positions[i].getPoint()).translate(offset);
+						}
+						break;
+					default:
+						view.getOffset(world, offset);
+						for (int i = 0; i < count; i++) {
+							array.get(i, batch[i]).translate(offset);
+						}
+				}
+				times[method] = System.nanoTime() - start;
+				bytes[method] = Allocations.getAllocatedBytes() - allocated;
+				errors[method] = getError(method == 3 ? batch : results, exact);
+			}
+		}
+
+		// Plain floats lose everything finer than their spacing at this distance.
+		LDVec float_camera = camera.toLD();
+		for (int i = 0; i < count; i++) {
+			results[i].set(globals[i].toLD()).negTranslate(float_camera);
+		}
+		double float_error = getError(results, exact);
+
+		DDVec target = new DDVec(camera);
+		long start = System.nanoTime();
+		for (int move = 0; move < MOVES; move++) {
+			world.moveAnchor(target.translate(move % 2 == 0 ? 1000.0 : -1000.0, 0.0,
+																				0.0));
+		}
+		long rebase = System.nanoTime() - start;
+		view.getOffset(world, offset);
+		for (int i = 0; i < count; i++) {
+			results[i].set(positions[i].getPoint()).translate(offset);
+		}
+		double rebase_error = getError(results, exact);
+
+		StringBuilder sb = new StringBuilder(String.format(
+						"%d entities within %.0f m of a camera %.3g m from the origin, " +
+						"camera relative offsets per frame:", count, SPREAD, DISTANCE));
+		for (int method = 0; method < names.length; method++) {
+			sb.append(String.format("%n  %-15s %8.1f ns %6d bytes per entity, " +
+															"worst error %.3g m", names[method],
+															times[method] / (double) count, bytes[method] /
+																															count,
+															errors[method]));
+		}
+		sb.append(String.format("%n  float globals worst error %.3g m%n" +
+														"  moving the anchor %.1f ns per offset, worst " +
+														"error after %d moves %.3g m", float_error,
+														rebase / (double) MOVES / (2 * count), MOVES,
+														rebase_error));
+		return sb.toString();
+	}
+
+	private FloatingOriginBenchmark() {
+	}
+}
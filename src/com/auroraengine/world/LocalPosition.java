@@ -6,9 +6,14 @@
 package com.auroraengine.world;
 
 import com.auroraengine.debug.AuroraLogs;
+import com.auroraengine.math.LDAng;
+import com.auroraengine.math.LDVec;
 import java.util.logging.Logger;
 
 /**
+ * A position and orientation within the local space of a reference frame,
+ * using float precision. It is important to duplicate the object whenever
+ * making modifications that are not to be reflected in the original.
  *
  * @author LittleRover
  */
@@ -16,6 +21,12 @@ public final class LocalPosition {
 	private static final Logger LOG = AuroraLogs.getLogger(LocalPosition.class
 					.getName());
 
+	/**
+	 * Creates a new local position at the origin with no rotation.
+	 */
+	public LocalPosition() {
+	}
+
 	/**
 	 * Creates a new local position using the specified position as the basis.
 	 *
@@ -25,12 +36,47 @@ public final class LocalPosition {
 		set(pos);
 	}
 
+	/**
+	 * Creates a new local position at the specified point with the specified
+	 * rotation.
+	 *
+	 * @param pos The point to copy.
+	 * @param rot The rotation to copy.
+	 */
+	public LocalPosition(LDVec pos, LDAng rot) {
+		this.pos.setXYZ(pos);
+		this.rot.set(rot);
+	}
+	private final LDVec pos = new LDVec();
+	private final LDAng rot = new LDAng();
+
+	/**
+	 * Returns the point of this position. This is the object held by the
+	 * position, so modifying it moves the position.
+	 *
+	 * @return The point
+	 */
+	public LDVec getPoint() {
+		return pos;
+	}
+
+	/**
+	 * Returns the rotation of this position. This is the object held by the
+	 * position, so modifying it rotates the position.
+	 *
+	 * @return The rotation
+	 */
+	public LDAng getRotation() {
+		return rot;
+	}
+
 	/**
 	 * Sets this position to the specified position.
 	 *
 	 * @param p_pos The position to set to.
 	 */
 	public void set(LocalPosition p_pos) {
-		throw new UnsupportedOperationException("Not supported yet.");
+		pos.setXYZ(p_pos.pos);
+		rot.set(p_pos.rot);
 	}
 }
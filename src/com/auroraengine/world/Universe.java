@@ -7,29 +7,71 @@ package com.auroraengine.world;
 
 import com.auroraengine.debug.AuroraException;
 import com.auroraengine.debug.AuroraLogs;
+import com.auroraengine.threading.JobGraph;
 import com.auroraengine.threading.SynchroCore;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
+ * The collection of all dimensions run by a server. Rather than each dimension
+ * running in a thread of its own, the universe ticks every dimension in
+ * parallel on its job scheduler, with the tick ending once every dimension has
+ * been updated.
  *
  * @author LittleRover
  */
 public class Universe extends SynchroCore {
 	private static final Logger LOG = AuroraLogs.getLogger(Universe.class
 					.getName());
+	/**
+	 * The rate in Hz at which the dimensions are simulated.
+	 */
+	public static final double TICK_RATE = 20.0;
+	/**
+	 * The number of ticks the dimensions may run back to back to catch up on
+	 * lost time before the lost time is dropped.
+	 */
+	public static final int TICK_CATCHUP = 4;
 
 	public Universe(String name, SynchroCore master) {
 		super(name, master);
+		setTickRate(TICK_RATE, TICK_CATCHUP);
 	}
 	private final HashSet<Dimension> dimensions = new HashSet<>(1);
+	private final JobGraph dimension_jobs = new JobGraph();
+	private boolean dimensions_changed = true;
+
+	/**
+	 * Adds a dimension to be ticked by this universe. This must be called before
+	 * the universe is started.
+	 *
+	 * @param dimension The dimension
+	 */
+	public void addDimension(Dimension dimension) {
+		if (getThreading()) {
+			throw new IllegalStateException(
+							"Dimensions must be added before the universe starts!");
+		}
+		if (dimension.getMaster() != this) {
+			throw new IllegalArgumentException(
+							"Dimension \"" + dimension + "\" does not belong to \"" + this +
+							"\"!");
+		}
+		if (dimensions.add(dimension)) {
+			dimensions_changed = true;
+		}
+	}
 
 	@Override
 	protected void initialise()
 					throws AuroraException {
 		// The dimensions are initialised here from some form of file that designates
 		// which ones are to be loaded.
+		for (Dimension d : dimensions) {
+			d.initialise();
+		}
 	}
 
 	@Override
@@ -46,13 +88,38 @@ public class Universe extends SynchroCore {
 	@Override
 	protected void shutdown() {
 		// Close down all dimensions safely.
-
+		for (Dimension d : dimensions) {
+			try {
+				d.shutdown();
+			} catch (Exception ex) {
+				LOG.log(Level.SEVERE, "Dimension \"{0}\" failed to shut down: {1}",
+								new Object[]{d, ex});
+			}
+		}
 	}
 
 	@Override
 	protected void update()
 					throws AuroraException {
+		if (dimensions_changed) {
+			dimension_jobs.clear();
+			for (Dimension d : dimensions) {
+				dimension_jobs.add(d::update);
+			}
+			dimensions_changed = false;
+		}
+		runJobs(dimension_jobs);
 		// This checks the health and compatibility of the dimensions.
+		Iterator<Dimension> it = dimensions.iterator();
+		while (it.hasNext()) {
+			Dimension d = it.next();
+			if (!d.isRunning()) {
+				LOG.log(Level.INFO, "Dimension \"{0}\" has stopped.", d);
+				d.shutdown();
+				it.remove();
+				dimensions_changed = true;
+			}
+		}
 	}
 
 }
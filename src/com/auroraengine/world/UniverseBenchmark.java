@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2017 LittleRover
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.auroraengine.world;
+
+import com.auroraengine.debug.AuroraException;
+import com.auroraengine.debug.AuroraLogs;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Compares ticking dimensions with a thread each against ticking them all on
+ * the shared job scheduler through a <code>Universe</code>. Every dimension
+ * does the same fixed amount of work per update at the universe tick rate, and
+ * each configuration reports the updates run per second against the target,
+ * the mean time per update, the longest gap between two updates of one
+ * dimension, the overruns and the number of live threads.
+ *
+ * Arguments, all optional, in order: the work per update, seconds per
+ * configuration, then any number of dimension counts.
+ *
+ * @author LittleRover
+ */
+public final class UniverseBenchmark {
+	private static final Logger LOG = AuroraLogs.getLogger(UniverseBenchmark.class
+					.getName());
+	private static final int WARMUP_SECONDS = 1;
+
+	/**
+	 * Runs the benchmark described by the provided arguments.
+	 *
+	 * @param args The arguments
+	 *
+	 * @throws InterruptedException If interrupted whilst waiting on a run
+	 */
+	@SuppressWarnings("UseOfSystemOutOrSystemErr")
+	public static void main(String[] args)
+					throws InterruptedException {
+		int work = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+		int[] counts = {1, 8, 64};
+		if (args.length > 2) {
+			counts = new int[args.length - 2];
+			for (int i = 0; i < counts.length; i++) {
+				counts[i] = Integer.parseInt(args[i + 2]);
+			}
+		}
+		runThreads(counts[0], work, WARMUP_SECONDS);
+		runUniverse(counts[0], work, WARMUP_SECONDS);
+		for (int count : counts) {
+			System.out.println(String.format(
+							"%d dimensions, %d work per update, %d s at %.0f Hz:", count, work,
+							seconds, Universe.TICK_RATE));
+			System.out.println("  thread each  " + runThreads(count, work, seconds));
+			System.out.println("  shared pool  " + runUniverse(count, work, seconds));
+		}
+	}
+
+	private static WorkDimension[] create(int count, int work, Universe universe) {
+		WorkDimension[] dimensions = new WorkDimension[count];
+		for (int i = 0; i < count; i++) {
+			dimensions[i] = new WorkDimension("Dimension " + i, universe, work);
+		}
+		return dimensions;
+	}
+
+	private static String format(WorkDimension[] dimensions, long overruns,
+															 int threads) {
+		long updates = 0L, busy = 0L, gap = 0L;
+		double rate = 0.0;
+		for (WorkDimension d : dimensions) {
+			updates += d.updates;
+			busy += d.busy;
+			gap = Math.max(gap, d.gap);
+			if (d.updates > 1L) {
+				rate += (d.updates - 1L) * 1e9 / (d.last - d.first);
+			}
+		}
+		return String.format("%8.0f updates/s (%5.1f%% of target), %8.1f us " +
+												 "per update, worst gap %6.1f ms, %d overruns, %d " +
+												 "threads", rate, 100.0 * rate / (dimensions.length *
+																												 Universe.TICK_RATE),
+												 updates > 0L ? busy / 1e3 / updates : 0.0, gap / 1e6,
+												 overruns, threads);
+	}
+
+	private static String runThreads(int count, int work, int seconds)
+					throws InterruptedException {
+		WorkDimension[] dimensions = create(count, work, null);
+		for (WorkDimension d : dimensions) {
+			d.setTickRate(Universe.TICK_RATE, Universe.TICK_CATCHUP);
+			d.start();
+		}
+		TimeUnit.SECONDS.sleep(seconds);
+		int threads = Thread.activeCount();
+		for (WorkDimension d : dimensions) {
+			d.halt();
+		}
+		long overruns = 0L;
+		for (WorkDimension d : dimensions) {
+			d.getThread().join();
+			overruns += d.getOverrunCount();
+		}
+		return format(dimensions, overruns, threads);
+	}
+
+	private static String runUniverse(int count, int work, int seconds)
+					throws InterruptedException {
+		Universe universe = new Universe("Universe", null);
+		WorkDimension[] dimensions = create(count, work, universe);
+		for (WorkDimension d : dimensions) {
+			universe.addDimension(d);
+		}
+		universe.start();
+		TimeUnit.SECONDS.sleep(seconds);
+		int threads = Thread.activeCount();
+		universe.halt();
+		universe.getThread().join();
+		return format(dimensions, universe.getOverrunCount(), threads);
+	}
+
+	private UniverseBenchmark() {
+	}
+
+	/**
+	 * A dimension that spins through a fixed amount of arithmetic on every
+	 * update, recording how often and for how long it was updated.
+	 */
+	private static final class WorkDimension extends Dimension {
+		WorkDimension(String name, Universe universe, int work) {
+			super(name, universe);
+			this.work = work;
+		}
+		long busy = 0L;
+		long first = 0L;
+		long gap = 0L;
+		long last = 0L;
+		long seed = 1L;
+		long updates = 0L;
+		final int work;
+
+		@Override
+		protected void update()
+						throws AuroraException {
+			long begin = System.nanoTime();
+			if (updates > 0L) {
+				gap = Math.max(gap, begin - last);
+			} else {
+				first = begin;
+			}
+			long x = seed;
+			for (int i = 0; i < work; i++) {
+				x = x * 6364136223846793005L + 1442695040888963407L;
+			}
+			seed = x;
+			last = begin;
+			updates++;
+			busy += System.nanoTime() - begin;
+		}
+	}
+}